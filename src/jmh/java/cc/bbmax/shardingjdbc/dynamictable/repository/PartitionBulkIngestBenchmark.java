@@ -0,0 +1,125 @@
+package cc.bbmax.shardingjdbc.dynamictable.repository;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import cc.bbmax.shardingjdbc.dynamictable.entity.DayPartitionTableEntity;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.DayDynamicStandardShardingAlgorithm;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.PartitionResolver;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.statistics.PartitionStatisticsCatalog;
+import org.apache.shardingsphere.api.config.sharding.ShardingRuleConfiguration;
+import org.apache.shardingsphere.api.config.sharding.TableRuleConfiguration;
+import org.apache.shardingsphere.api.config.sharding.strategy.StandardShardingStrategyConfiguration;
+import org.apache.shardingsphere.shardingjdbc.api.ShardingDataSourceFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 逐行通过ShardingJDBC写入与按分区批量写入的对比，使用内嵌H2，只反映客户端解析、路由和语句数量的差异
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 9:10 下午
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PartitionBulkIngestBenchmark {
+
+    private static final String LOGIC_TABLE = "day_partition_table";
+
+    private static final int DAYS = 3;
+
+    @Param({"1000"})
+    public int rows;
+
+    @Param({"MULTI_ROW", "BATCH"})
+    public String mode;
+
+    private DataSource actualDataSource;
+
+    private DataSource shardingDataSource;
+
+    private PartitionBulkIngestRepositoryImpl<DayPartitionTableEntity> repository;
+
+    private List<DayPartitionTableEntity> entities;
+
+    @Setup
+    public void setup() throws SQLException {
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:ingest_benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        actualDataSource = dataSource;
+        for (int day = 1; day <= DAYS; day++) {
+            execute("CREATE TABLE IF NOT EXISTS " + LOGIC_TABLE + "_2021010" + day
+                    + " (id BIGINT AUTO_INCREMENT PRIMARY KEY, column1 VARCHAR(64), partitionDate TIMESTAMP NOT NULL)");
+        }
+
+        TableRuleConfiguration tableRuleConfiguration = new TableRuleConfiguration(LOGIC_TABLE, "ds0." + LOGIC_TABLE + "_2021010$->{1.." + DAYS + "}");
+        DayDynamicStandardShardingAlgorithm algorithm = new DayDynamicStandardShardingAlgorithm();
+        tableRuleConfiguration.setTableShardingStrategyConfig(new StandardShardingStrategyConfiguration("partitionDate", algorithm, algorithm));
+        ShardingRuleConfiguration ruleConfiguration = new ShardingRuleConfiguration();
+        ruleConfiguration.getTableRuleConfigs().add(tableRuleConfiguration);
+        shardingDataSource = ShardingDataSourceFactory.createDataSource(Collections.singletonMap("ds0", actualDataSource), ruleConfiguration, new Properties());
+
+        DynamicTableProperties properties = new DynamicTableProperties();
+        properties.getIngest().setMode(DynamicTableProperties.IngestMode.valueOf(mode));
+        repository = new PartitionBulkIngestRepositoryImpl<>(new PartitionResolver(shardingDataSource), properties, new PartitionStatisticsCatalog());
+
+        entities = new ArrayList<>(rows);
+        long start = java.time.LocalDate.of(2021, 1, 1).atStartOfDay(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long step = TimeUnit.DAYS.toMillis(DAYS) / rows;
+        for (int i = 0; i < rows; i++) {
+            DayPartitionTableEntity entity = new DayPartitionTableEntity();
+            entity.setColumn1("data " + i);
+            entity.setPartitionDate(new java.util.Date(start + i * step));
+            entities.add(entity);
+        }
+    }
+
+    @Setup(org.openjdk.jmh.annotations.Level.Iteration)
+    public void truncate() throws SQLException {
+        for (int day = 1; day <= DAYS; day++) {
+            execute("TRUNCATE TABLE " + LOGIC_TABLE + "_2021010" + day);
+        }
+    }
+
+    /**
+     * 与JPA的IDENTITY主键一样，每行一条INSERT，每条都经过ShardingJDBC的解析和路由
+     */
+    @Benchmark
+    public int shardingInsert() throws SQLException {
+        try (Connection connection = shardingDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "INSERT INTO " + LOGIC_TABLE + " (column1, partitionDate) VALUES (?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+            for (DayPartitionTableEntity entity : entities) {
+                statement.setString(1, entity.getColumn1());
+                statement.setTimestamp(2, new Timestamp(entity.getPartitionDate().getTime()));
+                statement.executeUpdate();
+                try (ResultSet resultSet = statement.getGeneratedKeys()) {
+                    resultSet.next();
+                }
+            }
+        }
+        return entities.size();
+    }
+
+    @Benchmark
+    public int ingest() {
+        return repository.ingest(entities).size();
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = actualDataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.google.common.collect.Range;
+import org.apache.shardingsphere.api.sharding.standard.PreciseShardingValue;
+import org.apache.shardingsphere.api.sharding.standard.RangeShardingValue;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 精准/区间路由的吞吐量，配合-prof gc查看每次路由分配的内存
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 4:20 下午
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DynamicStandardShardingAlgorithmBenchmark {
+
+    private static final String LOGIC_TABLE = "partition_table";
+
+    private static final int VALUES = 1024;
+
+    /**
+     * 年分区最多生成到公元9999年
+     */
+    private static final int MAX_YEAR_PARTITIONS = 7000;
+
+    @Param({"DAY", "WEEK", "MONTH", "YEAR"})
+    public String granularity;
+
+    @Param({"10", "1000", "50000"})
+    public int partitions;
+
+    @Param({"1", "30", "365", "3650"})
+    public int rangeDays;
+
+    private DynamicStandardShardingAlgorithm algorithm;
+
+    private List<String> availableTableNames;
+
+    private PreciseShardingValue<Date>[] preciseValues;
+
+    private RangeShardingValue<Date>[] rangeValues;
+
+    private int cursor;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        ((Logger) LoggerFactory.getLogger(DynamicStandardShardingAlgorithm.class)).setLevel(Level.INFO);
+        algorithm = newAlgorithm(granularity);
+        int count = "YEAR".equals(granularity) ? Math.min(partitions, MAX_YEAR_PARTITIONS) : partitions;
+
+        LocalDateTime first = LocalDateTime.of(2000, 1, 1, 0, 0);
+        LocalDateTime roll = first;
+        Set<String> tableNames = new LinkedHashSet<>();
+        while (tableNames.size() < count) {
+            tableNames.add(algorithm.formatTableName(LOGIC_TABLE, roll));
+            roll = algorithm.nextPartitionStart(roll);
+        }
+        availableTableNames = new ArrayList<>(tableNames);
+
+        long firstMillis = toMillis(first);
+        long span = toMillis(roll) - firstMillis;
+        long rangeMillis = TimeUnit.DAYS.toMillis(rangeDays);
+        Random random = new Random(20211013L);
+        preciseValues = new PreciseShardingValue[VALUES];
+        rangeValues = new RangeShardingValue[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            long value = firstMillis + (long) (random.nextDouble() * span);
+            preciseValues[i] = new PreciseShardingValue<>(LOGIC_TABLE, "partitionDate", new Date(value));
+            rangeValues[i] = new RangeShardingValue<>(LOGIC_TABLE, "partitionDate",
+                    Range.closed(new Date(value), new Date(value + rangeMillis)));
+        }
+    }
+
+    @Benchmark
+    public String precise() {
+        return algorithm.doSharding(availableTableNames, preciseValues[next()]);
+    }
+
+    @Benchmark
+    public Collection<String> range() {
+        return algorithm.doSharding(availableTableNames, rangeValues[next()]);
+    }
+
+    /**
+     * 每次都重建分区索引，对应分区表变化后第一次路由的开销
+     */
+    @Benchmark
+    public PartitionIndex buildPartitionIndex() {
+        return algorithm.buildPartitionIndex(LOGIC_TABLE, availableTableNames);
+    }
+
+    private int next() {
+        return cursor = (cursor + 1) & (VALUES - 1);
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    static DynamicStandardShardingAlgorithm newAlgorithm(String granularity) {
+        switch (granularity) {
+            case "DAY":
+                return new DayDynamicStandardShardingAlgorithm();
+            case "WEEK":
+                return new WeekDynamicStandardShardingAlgorithm();
+            case "MONTH":
+                return new MonthDynamicStandardShardingAlgorithm();
+            case "YEAR":
+                return new YearDynamicStandardShardingAlgorithm();
+            default:
+                throw new IllegalArgumentException("不支持的分区粒度:" + granularity);
+        }
+    }
+}
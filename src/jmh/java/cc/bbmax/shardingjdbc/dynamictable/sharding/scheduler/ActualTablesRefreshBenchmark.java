@@ -0,0 +1,139 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.scheduler;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.apache.shardingsphere.api.config.sharding.ShardingRuleConfiguration;
+import org.apache.shardingsphere.api.config.sharding.TableRuleConfiguration;
+import org.apache.shardingsphere.core.rule.ShardingDataSourceNames;
+import org.apache.shardingsphere.core.rule.TableRule;
+import org.apache.shardingsphere.underlying.common.rule.DataNode;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 定时任务发布ShardingJDBC分区元数据的开销(不含建表)
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 4:40 下午
+ */
+@Fork(1)
+public class ActualTablesRefreshBenchmark {
+
+    static final String DATA_SOURCE = "ds0";
+
+    static final String LOGIC_TABLE = "partition_table";
+
+    /**
+     * 定时任务提前创建的分区数
+     */
+    static final int LOOK_AHEAD = 7;
+
+    /**
+     * 每次测量追加的分区数
+     */
+    static final int APPEND_BATCH = 10000;
+
+    @State(Scope.Benchmark)
+    public static class RefreshState {
+
+        @Param({"1000", "10000", "50000", "100000"})
+        public int partitions;
+
+        ShardingTableRuleActualTablesRefreshScheduler scheduler;
+
+        TableRule tableRule;
+
+        Set<String> lookAheadTableNames;
+
+        @Setup
+        public void setup() {
+            ((Logger) LoggerFactory.getLogger(ShardingTableRuleActualTablesRefreshScheduler.class)).setLevel(Level.WARN);
+            scheduler = new ShardingTableRuleActualTablesRefreshScheduler();
+            tableRule = newTableRule(newTableNames(0, partitions));
+            lookAheadTableNames = newTableNames(partitions - 1, LOOK_AHEAD + 1);
+            scheduler.refreshActualTables(tableRule, lookAheadTableNames);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class AppendState {
+
+        @Param({"1000", "10000", "50000", "100000"})
+        public int partitions;
+
+        ShardingTableRuleActualTablesRefreshScheduler scheduler;
+
+        TableRule tableRule;
+
+        int next;
+
+        @Setup(org.openjdk.jmh.annotations.Level.Iteration)
+        public void setup() {
+            ((Logger) LoggerFactory.getLogger(ShardingTableRuleActualTablesRefreshScheduler.class)).setLevel(Level.WARN);
+            scheduler = new ShardingTableRuleActualTablesRefreshScheduler();
+            tableRule = newTableRule(newTableNames(0, partitions));
+            //第一次使用时构建快照的开销不计入
+            TableRuleMetadata.of(tableRule);
+            next = partitions;
+        }
+    }
+
+    /**
+     * 分区已存在时的例行刷新，每天定时任务都会执行一次，只检查提前创建的几个分区
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 2, time = 2)
+    @Measurement(iterations = 3, time = 2)
+    public TableRule refresh(RefreshState state) {
+        state.scheduler.refreshActualTables(state.tableRule, state.lookAheadTableNames);
+        return state.tableRule;
+    }
+
+    /**
+     * 每次刷新新增一个分区的开销，不应随已有分区数增长
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 5, batchSize = APPEND_BATCH)
+    @Measurement(iterations = 10, batchSize = APPEND_BATCH)
+    public TableRule append(AppendState state) {
+        state.scheduler.refreshActualTables(state.tableRule, Collections.singleton(LOGIC_TABLE + "_" + state.next++));
+        return state.tableRule;
+    }
+
+    static Set<String> newTableNames(int from, int count) {
+        Set<String> tableNames = new LinkedHashSet<>();
+        for (int i = from; i < from + count; i++) {
+            tableNames.add(LOGIC_TABLE + "_" + i);
+        }
+        return tableNames;
+    }
+
+    /**
+     * 构建一个已包含所有分区的TableRule，避免通过行表达式逐个解析
+     */
+    static TableRule newTableRule(Collection<String> tableNames) {
+        Iterator<String> iterator = tableNames.iterator();
+        String first = iterator.next();
+        ShardingRuleConfiguration ruleConfiguration = new ShardingRuleConfiguration();
+        TableRuleConfiguration tableRuleConfiguration = new TableRuleConfiguration(LOGIC_TABLE, DATA_SOURCE + "." + first);
+        ruleConfiguration.getTableRuleConfigs().add(tableRuleConfiguration);
+        TableRule tableRule = new TableRule(tableRuleConfiguration,
+                new ShardingDataSourceNames(ruleConfiguration, Collections.singletonList(DATA_SOURCE)), null);
+
+        List<DataNode> dataNodes = tableRule.getActualDataNodes();
+        Collection<String> actualTables = tableRule.getDatasourceToTablesMap().get(DATA_SOURCE);
+        while (iterator.hasNext()) {
+            String tableName = iterator.next();
+            dataNodes.add(new DataNode(DATA_SOURCE, tableName));
+            actualTables.add(tableName);
+        }
+        return tableRule;
+    }
+}
@@ -0,0 +1,382 @@
+package cc.bbmax.shardingjdbc.dynamictable.load;
+
+import cc.bbmax.shardingjdbc.dynamictable.ShardingJdbcDynamicTableApp;
+import cc.bbmax.shardingjdbc.dynamictable.entity.DayPartitionTableEntity;
+import cc.bbmax.shardingjdbc.dynamictable.repository.DayPartitionTableRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.shardingsphere.underlying.common.config.inline.InlineExpressionParser;
+import org.h2.jdbcx.JdbcDataSource;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.boot.context.logging.LoggingApplicationListener;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 端到端负载测试，使用内嵌的H2(MySQL模式)启动应用，预先创建365~3650个日分区，
+ * 通过Repository依次执行并发的写入、精确查询和区间查询，输出吞吐量、p50/p99延迟和每次路由的平均分区数
+ * <p>
+ * 只反映ShardingJDBC解析、路由、归并和本项目分表算法、定时任务的开销，H2的执行耗时与MySQL不同，
+ * 用于比较修改前后的结果，不代表线上的绝对性能
+ *
+ * <pre>
+ * mvn -P load test-compile exec:exec -Dload.args="--load.partitions=3650 --load.range-threads=8"
+ * </pre>
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 4:30 上午
+ */
+@Slf4j
+public class LoadTestHarness {
+
+    private static final String URL = "jdbc:h2:mem:load;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static final String LOGIC_TABLE = "day_partition_table";
+
+    /**
+     * 与实体的列一致，所有逻辑表相同
+     */
+    private static final String COLUMNS = " (id BIGINT AUTO_INCREMENT PRIMARY KEY, column1 VARCHAR(255), partitionDate TIMESTAMP NOT NULL)";
+
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private final LoadTestProperties properties;
+
+    private final DayPartitionTableRepository repository;
+
+    private final MeterRegistry registry;
+
+    /**
+     * 预先写入的第一天的起始时间戳
+     */
+    private final long firstDay;
+
+    LoadTestHarness(LoadTestProperties properties, DayPartitionTableRepository repository, MeterRegistry registry) {
+        this.properties = properties;
+        this.repository = repository;
+        this.registry = registry;
+        this.firstDay = LocalDate.now().minusDays(properties.getPartitions() - 1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    public static void main(String[] args) throws Exception {
+        SpringApplication application = new SpringApplication(ShardingJdbcDynamicTableApp.class);
+        application.addListeners(new EmbeddedDatabaseListener());
+        try (ConfigurableApplicationContext context = application.run(args)) {
+            LoadTestHarness harness = new LoadTestHarness(bind(context.getEnvironment()),
+                    context.getBean(DayPartitionTableRepository.class), context.getBean(MeterRegistry.class));
+            harness.run();
+        }
+    }
+
+    /**
+     * 依次执行每种负载并输出结果
+     */
+    void run() throws InterruptedException {
+        Gauge partitions = registry.find("dynamic.table.partitions").tag("logicTable", LOGIC_TABLE).gauge();
+        log.info("{}共{}个分区，每种负载预热{}ms、测量{}ms", LOGIC_TABLE, partitions == null ? "?" : (long) partitions.value(),
+                properties.getWarmup(), properties.getDuration());
+
+        List<Result> results = new ArrayList<>();
+        if (properties.getPointThreads() > 0) {
+            results.add(run("point", properties.getPointThreads(), random -> {
+                Date date = new Date(getRowTime(random));
+                repository.findByPartitionDateBetween(date, date);
+            }));
+        }
+        if (properties.getRangeThreads() > 0) {
+            long rangeMillis = properties.getRangeDays() * DAY_MILLIS;
+            results.add(run("range", properties.getRangeThreads(), random -> {
+                long start = firstDay + random.nextInt(properties.getPartitions()) * DAY_MILLIS;
+                repository.findByPartitionDateBetween(new Date(start), new Date(start + rangeMillis - 1));
+            }));
+        }
+        if (properties.getInsertThreads() > 0) {
+            results.add(run("insert", properties.getInsertThreads(), random -> {
+                DayPartitionTableEntity entity = new DayPartitionTableEntity();
+                entity.setColumn1("load");
+                entity.setPartitionDate(new Date(getRowTime(random)));
+                repository.save(entity);
+            }));
+        }
+
+        StringBuilder report = new StringBuilder(String.format("%n%-8s%8s%10s%12s%10s%10s%10s%10s%8s",
+                "负载", "线程", "次数", "吞吐(次/秒)", "p50(ms)", "p99(ms)", "最大(ms)", "分区扇出", "错误"));
+        for (Result result : results) {
+            report.append(String.format("%n%-8s%8d%10d%12.1f%10.3f%10.3f%10.3f%10.1f%8d", result.name, result.threads,
+                    result.latencies.length, result.latencies.length * 1000.0 / properties.getDuration(),
+                    result.percentile(0.5), result.percentile(0.99), result.percentile(1), result.fanOut, result.errors));
+        }
+        log.info("负载测试结果:{}", report);
+    }
+
+    /**
+     * 预热后在测量时间内并发执行一种负载
+     */
+    private Result run(String name, int threads, Operation operation) throws InterruptedException {
+        log.info("开始执行{}负载，{}个线程", name, threads);
+        execute(threads, properties.getWarmup(), operation);
+        long[] before = getRoutingCounts();
+        List<Worker> workers = execute(threads, properties.getDuration(), operation);
+        long[] after = getRoutingCounts();
+
+        int size = 0;
+        int errors = 0;
+        for (Worker worker : workers) {
+            size += worker.size;
+            errors += worker.errors;
+        }
+        long[] latencies = new long[size];
+        int offset = 0;
+        for (Worker worker : workers) {
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.size);
+            offset += worker.size;
+        }
+        Arrays.sort(latencies);
+
+        //精确路由每次1个分区，区间路由按返回的分区数
+        long routings = after[0] - before[0] + after[1] - before[1];
+        double fanOut = routings == 0 ? 0 : (after[0] - before[0] + after[2] - before[2]) / (double) routings;
+        return new Result(name, threads, latencies, errors, fanOut);
+    }
+
+    private List<Worker> execute(int threads, long duration, Operation operation) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(duration);
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Worker worker = new Worker(operation, deadline);
+            workers.add(worker);
+            executor.execute(worker);
+        }
+        executor.shutdown();
+        executor.awaitTermination(duration + TimeUnit.MINUTES.toMillis(1), TimeUnit.MILLISECONDS);
+        return workers;
+    }
+
+    /**
+     * [精确路由次数, 区间路由次数, 区间路由的分区总数]
+     */
+    private long[] getRoutingCounts() {
+        Timer precise = registry.find("dynamic.table.sharding").tag("logicTable", LOGIC_TABLE).tag("type", "precise").timer();
+        DistributionSummary range = registry.find("dynamic.table.range.partitions").tag("logicTable", LOGIC_TABLE).summary();
+        return new long[]{precise == null ? 0 : precise.count(), range == null ? 0 : range.count(),
+                range == null ? 0 : (long) range.totalAmount()};
+    }
+
+    /**
+     * 随机取一行预先写入的数据的分区时间
+     */
+    private long getRowTime(Random random) {
+        return getRowTime(firstDay + random.nextInt(properties.getPartitions()) * DAY_MILLIS,
+                random.nextInt(properties.getRowsPerPartition()), properties.getRowsPerPartition());
+    }
+
+    private static long getRowTime(long day, int row, int rowsPerPartition) {
+        return day + row * (DAY_MILLIS / rowsPerPartition);
+    }
+
+    private static LoadTestProperties bind(Environment environment) {
+        return Binder.get(environment).bind("load", LoadTestProperties.class).orElseGet(LoadTestProperties::new);
+    }
+
+    /**
+     * 把数据源替换为内嵌的H2并预先建表、写入数据；在读取配置文件之后、初始化日志之前执行，关闭SQL日志
+     */
+    private static final class EmbeddedDatabaseListener implements ApplicationListener<ApplicationEnvironmentPreparedEvent>, Ordered {
+
+        @Override
+        public void onApplicationEvent(ApplicationEnvironmentPreparedEvent event) {
+            ConfigurableEnvironment environment = event.getEnvironment();
+            Map<String, Object> overrides = new HashMap<>();
+            overrides.put("spring.shardingsphere.datasource.ds0.driver-class-name", "org.h2.Driver");
+            overrides.put("spring.shardingsphere.datasource.ds0.jdbc-url", URL);
+            overrides.put("spring.shardingsphere.datasource.ds0.username", "sa");
+            overrides.put("spring.shardingsphere.datasource.ds0.password", "");
+            overrides.put("spring.shardingsphere.datasource.ds0.maximum-pool-size", 32);
+            overrides.put("spring.shardingsphere.props.sql.show", false);
+            overrides.put("spring.jpa.show-sql", false);
+            overrides.put("spring.jpa.hibernate.ddl-auto", "none");
+            overrides.put("spring.main.web-application-type", "none");
+            overrides.put("logging.level.root", "WARN");
+            overrides.put("logging.level.cc.bbmax.shardingjdbc.dynamictable.load", "INFO");
+            //命令行参数仍然优先
+            MutablePropertySources sources = environment.getPropertySources();
+            MapPropertySource source = new MapPropertySource("load", overrides);
+            if (sources.contains(CommandLinePropertySource.COMMAND_LINE_PROPERTY_SOURCE_NAME)) {
+                sources.addAfter(CommandLinePropertySource.COMMAND_LINE_PROPERTY_SOURCE_NAME, source);
+            } else {
+                sources.addFirst(source);
+            }
+
+            try {
+                populate(environment, bind(environment));
+            } catch (SQLException e) {
+                throw new IllegalStateException("初始化内嵌数据库失败", e);
+            }
+        }
+
+        @Override
+        public int getOrder() {
+            return LoggingApplicationListener.DEFAULT_ORDER - 1;
+        }
+
+        /**
+         * 创建配置中的分区(作为建表模板)和到今天为止的partitions个日分区，每个日分区写入rows-per-partition行
+         */
+        private static void populate(ConfigurableEnvironment environment, LoadTestProperties properties) throws SQLException {
+            long start = System.currentTimeMillis();
+            Set<String> tableNames = new LinkedHashSet<>();
+            for (PropertySource<?> source : environment.getPropertySources()) {
+                if (!(source instanceof EnumerablePropertySource)) {
+                    continue;
+                }
+                for (String name : ((EnumerablePropertySource<?>) source).getPropertyNames()) {
+                    if (name.startsWith("spring.shardingsphere.sharding.tables.") && name.endsWith(".actual-data-nodes")) {
+                        //行表达式与占位符的写法相同，不能经过Environment解析
+                        for (String dataNode : new InlineExpressionParser(String.valueOf(source.getProperty(name))).splitAndEvaluate()) {
+                            tableNames.add(dataNode.substring(dataNode.indexOf('.') + 1));
+                        }
+                    }
+                }
+            }
+
+            LocalDate today = LocalDate.now();
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMdd");
+            Map<String, Long> dayTables = new LinkedHashMap<>();
+            for (int i = properties.getPartitions() - 1; i >= 0; i--) {
+                LocalDate day = today.minusDays(i);
+                String tableName = LOGIC_TABLE + "_" + day.format(formatter);
+                tableNames.add(tableName);
+                dayTables.put(tableName, day.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            }
+
+            JdbcDataSource dataSource = new JdbcDataSource();
+            dataSource.setURL(URL);
+            dataSource.setUser("sa");
+            long rows = 0;
+            try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+                for (String tableName : tableNames) {
+                    statement.addBatch("CREATE TABLE IF NOT EXISTS " + tableName + COLUMNS);
+                }
+                statement.executeBatch();
+
+                int rowsPerPartition = properties.getRowsPerPartition();
+                for (Map.Entry<String, Long> entry : dayTables.entrySet()) {
+                    if (rowsPerPartition <= 0) {
+                        break;
+                    }
+                    StringBuilder sql = new StringBuilder("INSERT INTO ").append(entry.getKey()).append(" (column1, partitionDate) VALUES ");
+                    for (int row = 0; row < rowsPerPartition; row++) {
+                        sql.append(row == 0 ? "" : ", ").append("('load', '")
+                                .append(new Timestamp(getRowTime(entry.getValue(), row, rowsPerPartition))).append("')");
+                    }
+                    rows += statement.executeUpdate(sql.toString());
+                }
+            }
+            log.info("内嵌数据库创建了{}个表，{}的{}个分区写入了{}行，耗时{}ms", tableNames.size(), LOGIC_TABLE, dayTables.size(), rows,
+                    System.currentTimeMillis() - start);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+
+        void execute(Random random);
+    }
+
+    /**
+     * 在截止时间前循环执行，记录每次的耗时
+     */
+    private static final class Worker implements Runnable {
+
+        private final Operation operation;
+
+        private final long deadline;
+
+        private long[] latencies = new long[1024];
+
+        private int size;
+
+        private int errors;
+
+        Worker(Operation operation, long deadline) {
+            this.operation = operation;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            Random random = ThreadLocalRandom.current();
+            long start;
+            while ((start = System.nanoTime()) < deadline) {
+                try {
+                    operation.execute(random);
+                } catch (RuntimeException e) {
+                    if (errors++ == 0) {
+                        log.error("负载执行失败", e);
+                    }
+                    continue;
+                }
+                if (size == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, size * 2);
+                }
+                latencies[size++] = System.nanoTime() - start;
+            }
+        }
+    }
+
+    private static final class Result {
+
+        private final String name;
+
+        private final int threads;
+
+        /**
+         * 排序后的耗时(纳秒)
+         */
+        private final long[] latencies;
+
+        private final int errors;
+
+        /**
+         * 每次路由的平均分区数
+         */
+        private final double fanOut;
+
+        Result(String name, int threads, long[] latencies, int errors, double fanOut) {
+            this.name = name;
+            this.threads = threads;
+            this.latencies = latencies;
+            this.errors = errors;
+            this.fanOut = fanOut;
+        }
+
+        /**
+         * @return 毫秒
+         */
+        double percentile(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * latencies.length) - 1;
+            return latencies[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package cc.bbmax.shardingjdbc.dynamictable.load;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 负载测试配置，通过命令行参数指定，如--load.partitions=3650 --load.range-threads=8
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 4:30 上午
+ */
+@Getter
+@Setter
+public class LoadTestProperties {
+
+    /**
+     * 预先创建的日分区数，到今天为止，365~3650对应1~10年
+     */
+    private int partitions = 365;
+
+    /**
+     * 每个分区预先写入的行数，在一天内均匀分布
+     */
+    private int rowsPerPartition = 100;
+
+    /**
+     * 每种负载的预热时间(毫秒)，不计入结果
+     */
+    private long warmup = 2000;
+
+    /**
+     * 每种负载的测量时间(毫秒)
+     */
+    private long duration = 10000;
+
+    /**
+     * 写入的并发线程数，每次通过JPA保存一行，0表示不执行
+     */
+    private int insertThreads = 4;
+
+    /**
+     * 按分区时间精确查询的并发线程数，0表示不执行
+     */
+    private int pointThreads = 4;
+
+    /**
+     * 区间查询的并发线程数，0表示不执行
+     */
+    private int rangeThreads = 4;
+
+    /**
+     * 区间查询覆盖的天数
+     */
+    private int rangeDays = 7;
+}
@@ -0,0 +1,483 @@
+package cc.bbmax.shardingjdbc.dynamictable.config;
+
+import cc.bbmax.shardingjdbc.dynamictable.sharding.DynamicStandardShardingAlgorithm;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.MonthDynamicStandardShardingAlgorithm;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.PartitionWriteScope;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.YearDynamicStandardShardingAlgorithm;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.placement.PartitionPlacementPolicy;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 动态分表配置
+ *
+ * <pre>
+ * dynamic-table.tables[day_partition_table].look-ahead=7
+ * dynamic-table.tables[day_partition_table].placement=ROUND_ROBIN
+ * dynamic-table.tables[day_partition_table].data-sources=ds0,ds1
+ * dynamic-table.tables[day_partition_table].retention=90
+ * dynamic-table.ingest.batch-size=500
+ * dynamic-table.startup.async=true
+ * dynamic-table.cluster.enabled=true
+ * dynamic-table.on-demand.enabled=true
+ * dynamic-table.tables[day_partition_table].compact-to=MONTH
+ * </pre>
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 5:10 下午
+ */
+@Component
+@ConfigurationProperties(prefix = "dynamic-table")
+@Getter
+@Setter
+public class DynamicTableProperties {
+
+    /**
+     * 分区刷新定时任务的cron表达式
+     */
+    private String refreshCron = "0 0 23 * * ?";
+
+    /**
+     * 并行建表的线程数，每个数据源同时只占用一个连接
+     */
+    private int ddlParallelism = 4;
+
+    /**
+     * 批量写入配置
+     */
+    private Ingest ingest = new Ingest();
+
+    /**
+     * 过期分区清理配置
+     */
+    private Retention retention = new Retention();
+
+    /**
+     * 跨分区流式查询配置
+     */
+    private Stream stream = new Stream();
+
+    /**
+     * 分区统计配置
+     */
+    private Statistics statistics = new Statistics();
+
+    /**
+     * 启动配置
+     */
+    private Startup startup = new Startup();
+
+    /**
+     * 集群建表配置
+     */
+    private Cluster cluster = new Cluster();
+
+    /**
+     * 按需建表配置
+     */
+    private OnDemand onDemand = new OnDemand();
+
+    /**
+     * 区间聚合配置
+     */
+    private Aggregate aggregate = new Aggregate();
+
+    /**
+     * 全局二级索引配置
+     */
+    private Index index = new Index();
+
+    /**
+     * 时间主键配置
+     */
+    private KeyGenerator keyGenerator = new KeyGenerator();
+
+    /**
+     * 表结构同步配置
+     */
+    private Schema schema = new Schema();
+
+    /**
+     * 分区合并配置
+     */
+    private Compaction compaction = new Compaction();
+
+    /**
+     * <逻辑表, 配置>，逻辑表名包含下划线，需要使用tables[logic_table]的写法
+     */
+    private Map<String, TableProperties> tables = new HashMap<>();
+
+    /**
+     * 获取逻辑表的配置，没有配置时使用默认值
+     *
+     * @param logicTable 逻辑表
+     * @return 逻辑表配置
+     */
+    public TableProperties getTable(String logicTable) {
+        TableProperties properties = tables.get(logicTable);
+        return properties == null ? new TableProperties() : properties;
+    }
+
+    @Getter
+    @Setter
+    public static class TableProperties {
+
+        /**
+         * 提前创建的分区数，单位为逻辑表的分区周期，如日分区7表示提前7天，月分区3表示提前3个月；
+         * 不论配置多少，都至少创建到下一次定时刷新所在的分区，小时、分钟分区在两次刷新之间不会缺少分区
+         */
+        private int lookAhead = 1;
+
+        /**
+         * 新分区的放置策略，只有一个数据源时不生效
+         */
+        private PartitionPlacementPolicy placement = PartitionPlacementPolicy.ROUND_ROBIN;
+
+        /**
+         * 可放置新分区的数据源，为空时使用actual-data-nodes中出现的数据源
+         */
+        private List<String> dataSources = new ArrayList<>();
+
+        /**
+         * 建表模板，为空时使用actual-data-nodes中的第一个分区表；放置到多个数据源时每个数据源上都需要有模板表
+         */
+        private String templateTable;
+
+        /**
+         * 保留的分区数，单位为逻辑表的分区周期，包含当前周期，如日分区90表示保留最近90天；小于等于0时不清理
+         */
+        private int retention;
+
+        /**
+         * 过期分区的处理方式
+         */
+        private RetentionAction retentionAction = RetentionAction.DROP;
+
+        /**
+         * 归档库，retentionAction为ARCHIVE时把过期分区移动到该库中
+         */
+        private String archiveSchema;
+
+        /**
+         * 是否收集封存分区的统计信息，区间路由跳过空分区和数据范围不相交的分区；开启集群建表时不生效
+         */
+        private boolean statistics;
+
+        /**
+         * 分区周期结束后再经过多少个周期封存，之后不应再有迟到的数据写入
+         */
+        private int sealAfter = 1;
+
+        /**
+         * 统计最小/最大值的主键列，为空时不统计主键
+         */
+        private String idColumn;
+
+        /**
+         * 建立全局二级索引的列，按列的值查询时只查询索引中记录的分区
+         */
+        private List<String> indexColumns = new ArrayList<>();
+
+        /**
+         * 封存的分区合并成的粗粒度分区，如日分区合并为月分区，为空时不合并；合并后的分区仍按保留周期清理
+         */
+        private CompactionGranularity compactTo;
+    }
+
+    @Getter
+    @Setter
+    public static class Ingest {
+
+        /**
+         * 每条INSERT语句或每个JDBC批次包含的行数
+         */
+        private int batchSize = 500;
+
+        /**
+         * 写入方式
+         */
+        private IngestMode mode = IngestMode.MULTI_ROW;
+
+        /**
+         * 是否把自增主键回填到实体中
+         */
+        private boolean returnGeneratedKeys = true;
+    }
+
+    @Getter
+    @Setter
+    public static class Retention {
+
+        /**
+         * 两条删除/归档语句之间的间隔(毫秒)，第一条语句之前也会等待，给已经路由到过期分区的查询留出时间
+         */
+        private long interval = 1000;
+
+        /**
+         * 等待元数据锁的超时时间(秒)，只对MySQL生效，超时后在下次刷新时重试，避免排队的DDL阻塞业务语句
+         */
+        private int lockWaitTimeout = 5;
+    }
+
+    @Getter
+    @Setter
+    public static class Stream {
+
+        /**
+         * 当前分区之外提前并行查询的分区数，每个预取的分区占用一个连接，最多缓存fetchSize行
+         */
+        private int prefetch = 2;
+
+        /**
+         * JDBC的fetchSize，MySQL需要在连接参数中开启useCursorFetch才会分批读取
+         */
+        private int fetchSize = 1000;
+
+        /**
+         * 执行预取查询的线程数，所有流式查询共享
+         */
+        private int threads = 8;
+    }
+
+    @Getter
+    @Setter
+    public static class Statistics {
+
+        /**
+         * 两个分区的统计语句之间的间隔(毫秒)
+         */
+        private long interval = 100;
+    }
+
+    @Getter
+    @Setter
+    public static class Startup {
+
+        /**
+         * 启动时是否从数据库的表目录中发现已有的分区表，每个数据源只执行一次查询；开启集群建表时同步其他节点的分区总是查询表目录
+         */
+        private boolean discovery = true;
+
+        /**
+         * 启动时是否在后台执行第一次分区刷新，为false时在启动过程中同步建表
+         */
+        private boolean async = true;
+
+        /**
+         * 后台刷新时启动过程最多等待的时间(毫秒)，超时后继续在后台建表
+         */
+        private long timeout = 10000;
+    }
+
+    @Getter
+    @Setter
+    public static class Cluster {
+
+        /**
+         * 是否开启集群建表，开启后同时只有持有租约的节点执行DDL，其他节点轮询元数据版本同步分区
+         */
+        private boolean enabled;
+
+        /**
+         * 租约表所在的数据源，为空时使用第一个数据源
+         */
+        private String dataSource;
+
+        /**
+         * 租约表
+         */
+        private String leaseTable = "dynamic_table_lease";
+
+        /**
+         * 租约时长(毫秒)，需要大于一次刷新的耗时，持有租约的节点异常退出后超时由其他节点接管
+         */
+        private long lease = 600000;
+
+        /**
+         * 轮询元数据版本的间隔(毫秒)，删除过期分区前也会等待两个间隔，其他节点先把分区移出路由
+         */
+        private long pollInterval = 2000;
+    }
+
+    @Getter
+    @Setter
+    public static class OnDemand {
+
+        /**
+         * 精准路由的分区不存在时是否同步建表，写入定时任务没有创建的分区时不会失败
+         */
+        private boolean enabled;
+
+        /**
+         * 是否只在写入时建表。ShardingJDBC的分表算法区分不了读写，只有在{@link PartitionWriteScope}内路由时才建表，
+         * 批量写入和JPA持久化实体时自动打开，直接通过JDBC写入时需要自行打开。关闭后按等值条件查询不存在的分区也会建表
+         */
+        private boolean writesOnly = true;
+
+        /**
+         * 最多为当前分区之前的几个分区建表，更早的数据仍然路由到不存在的分区，超出保留周期的分区不会创建
+         */
+        private int behind = 7;
+
+        /**
+         * 最多为当前分区之后的几个分区建表
+         */
+        private int ahead = 7;
+
+        /**
+         * 等待同一个分区建表的最长时间(毫秒)
+         */
+        private long timeout = 5000;
+
+        /**
+         * 建表失败后多长时间内不再重试(毫秒)，避免每次写入都执行一次失败的DDL
+         */
+        private long failureBackoff = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class Aggregate {
+
+        /**
+         * 最多缓存多少个封存分区的聚合结果，超出后淘汰最久没有使用的分区
+         */
+        private int maxPartitions = 10000;
+    }
+
+    @Getter
+    @Setter
+    public static class Index {
+
+        /**
+         * 索引表所在的数据源，为空时使用第一个数据源
+         */
+        private String dataSource;
+
+        /**
+         * 索引表
+         */
+        private String table = "dynamic_table_index";
+
+        /**
+         * 最多缓存多少个值所在的分区，超出后淘汰最久没有使用的值
+         */
+        private int cacheSize = 10000;
+    }
+
+    @Getter
+    @Setter
+    public static class KeyGenerator {
+
+        /**
+         * 节点号，0~1023，同时写入的每个节点需要不同
+         */
+        private int workerId;
+    }
+
+    @Getter
+    @Setter
+    public static class Schema {
+
+        /**
+         * 执行ALTER的线程数，所有逻辑表共享
+         */
+        private int threads = 4;
+
+        /**
+         * 每个数据源同时执行ALTER的分区数
+         */
+        private int perDataSource = 1;
+
+        /**
+         * 同一个数据源两个分区的ALTER之间的间隔(毫秒)，ALTER期间占用该数据源的一个并发
+         */
+        private long interval = 500;
+
+        /**
+         * 等待元数据锁的超时时间(秒)，只对MySQL生效，超时的分区记为失败，重新同步时只执行剩余的变更
+         */
+        private int lockWaitTimeout = 5;
+    }
+
+    @Getter
+    @Setter
+    public static class Compaction {
+
+        /**
+         * 每条INSERT ... SELECT复制的行数，配置了id-column时按主键分批复制，否则每个分区一条语句
+         */
+        private int chunkSize = 10000;
+
+        /**
+         * 两条复制语句之间的间隔(毫秒)
+         */
+        private long interval = 1000;
+
+        /**
+         * 切换路由后等待多长时间(毫秒)再删除原分区，给已经路由到原分区的查询留出时间
+         */
+        private long grace = 60000;
+    }
+
+    public enum RetentionAction {
+
+        /**
+         * 删除表
+         */
+        DROP,
+
+        /**
+         * 移动到归档库，只支持MySQL的RENAME TABLE
+         */
+        ARCHIVE
+    }
+
+    public enum CompactionGranularity {
+
+        /**
+         * 合并为月分区，表名后缀为yyyyMM
+         */
+        MONTH {
+            @Override
+            public DynamicStandardShardingAlgorithm newAlgorithm() {
+                return new MonthDynamicStandardShardingAlgorithm();
+            }
+        },
+
+        /**
+         * 合并为年分区，表名后缀为yyyy
+         */
+        YEAR {
+            @Override
+            public DynamicStandardShardingAlgorithm newAlgorithm() {
+                return new YearDynamicStandardShardingAlgorithm();
+            }
+        };
+
+        /**
+         * 合并后的分区使用的分表算法，只用来解析和生成合并后的分区表名
+         */
+        public abstract DynamicStandardShardingAlgorithm newAlgorithm();
+    }
+
+    public enum IngestMode {
+
+        /**
+         * 一条INSERT语句写入多行
+         */
+        MULTI_ROW,
+
+        /**
+         * 单行INSERT按JDBC批量执行，MySQL需要在连接参数中开启rewriteBatchedStatements
+         */
+        BATCH
+    }
+}
@@ -1,5 +1,8 @@
 package cc.bbmax.shardingjdbc.dynamictable.entity;
 
+import cc.bbmax.shardingjdbc.dynamictable.repository.PartitionStatisticsEntityListener;
+import cc.bbmax.shardingjdbc.dynamictable.repository.PartitionWriteScopeEntityListener;
+import cc.bbmax.shardingjdbc.dynamictable.repository.SecondaryIndexEntityListener;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -12,6 +15,7 @@ import java.util.Date;
  * @date 2021/10/13 4:38 下午
  */
 @Entity
+@EntityListeners({PartitionWriteScopeEntityListener.class, SecondaryIndexEntityListener.class, PartitionStatisticsEntityListener.class})
 @Setter
 @Getter
 @Table(name = "week_partition_table")
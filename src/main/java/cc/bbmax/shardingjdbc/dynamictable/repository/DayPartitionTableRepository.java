@@ -11,7 +11,8 @@ import java.util.Optional;
  * @author Jianbo.Peng <pengjianbosoft@gmail.com>
  * @date 2021/10/13 4:41 下午
  */
-public interface DayPartitionTableRepository extends JpaRepository<DayPartitionTableEntity, Long> {
+public interface DayPartitionTableRepository extends JpaRepository<DayPartitionTableEntity, Long>,
+        PartitionBulkIngestRepository<DayPartitionTableEntity> {
 
 
     Optional<DayPartitionTableEntity> findFirstByColumn1(String col);
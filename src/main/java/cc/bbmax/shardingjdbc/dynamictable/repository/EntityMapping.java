@@ -0,0 +1,304 @@
+package cc.bbmax.shardingjdbc.dynamictable.repository;
+
+import org.apache.commons.lang3.StringUtils;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import javax.persistence.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 实体与分区表的映射，列名使用字段名或@Column中的名称，与PhysicalNamingStrategyStandardImpl一致
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 8:40 下午
+ */
+final class EntityMapping {
+
+    private static final Map<Class<?>, EntityMapping> MAPPINGS = new ConcurrentHashMap<>();
+
+    private final String logicTableName;
+
+    private final Field idField;
+
+    /**
+     * 主键是否由数据库自增生成
+     */
+    private final boolean generatedId;
+
+    /**
+     * 主键由{@link TimeEmbeddedIdentifierGenerator}生成时主键中的时间列，否则为null
+     */
+    private final String keyTimeColumn;
+
+    /**
+     * <列名, 字段>，不包含自增主键
+     */
+    private final Map<String, Field> columns;
+
+    /**
+     * <小写列名, 字段>，包含主键，用于把查询结果转换为实体
+     */
+    private final Map<String, Field> fields;
+
+    private final Class<?> entityClass;
+
+    private EntityMapping(Class<?> entityClass) {
+        this.entityClass = entityClass;
+        Table table = entityClass.getAnnotation(Table.class);
+        this.logicTableName = table != null && StringUtils.isNotEmpty(table.name()) ? table.name() : entityClass.getSimpleName();
+
+        Field idField = null;
+        boolean generatedId = false;
+        String keyTimeColumn = null;
+        String firstDateColumn = null;
+        Map<String, Field> columns = new LinkedHashMap<>();
+        Map<String, Field> fields = new HashMap<>();
+        for (Class<?> type = entityClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())
+                        || field.isAnnotationPresent(Transient.class)) {
+                    continue;
+                }
+                field.setAccessible(true);
+                fields.put(getColumnName(field).toLowerCase(), field);
+                if (firstDateColumn == null && Date.class.isAssignableFrom(field.getType())) {
+                    firstDateColumn = getColumnName(field);
+                }
+                if (field.isAnnotationPresent(Id.class)) {
+                    idField = field;
+                    keyTimeColumn = getKeyTimeColumn(field);
+                    GeneratedValue generatedValue = field.getAnnotation(GeneratedValue.class);
+                    generatedId = generatedValue != null && generatedValue.strategy() == GenerationType.IDENTITY;
+                    if (generatedId) {
+                        continue;
+                    }
+                }
+                columns.put(getColumnName(field), field);
+            }
+        }
+        this.idField = idField;
+        this.generatedId = generatedId;
+        //没有指定时间列时使用第一个日期列
+        this.keyTimeColumn = keyTimeColumn == null || !keyTimeColumn.isEmpty() ? keyTimeColumn : firstDateColumn;
+        this.columns = Collections.unmodifiableMap(columns);
+        this.fields = Collections.unmodifiableMap(fields);
+    }
+
+    static EntityMapping of(Class<?> entityClass) {
+        return MAPPINGS.computeIfAbsent(entityClass, EntityMapping::new);
+    }
+
+    String getLogicTableName() {
+        return logicTableName;
+    }
+
+    boolean isGeneratedId() {
+        return generatedId;
+    }
+
+    /**
+     * 获取主键中的时间列，主键不是由{@link TimeEmbeddedIdentifierGenerator}生成时返回null
+     */
+    String getKeyTimeColumn() {
+        return keyTimeColumn;
+    }
+
+    Collection<String> getColumnNames() {
+        return columns.keySet();
+    }
+
+    /**
+     * 获取所有可比较的列值，用于按分片规则解析实体所在的分区
+     */
+    Map<String, Comparable<?>> getShardingValues(Object entity) {
+        Map<String, Comparable<?>> shardingValues = new HashMap<>();
+        for (String columnName : columns.keySet()) {
+            Object value = getValue(entity, columnName);
+            if (value instanceof Comparable) {
+                shardingValues.put(columnName, (Comparable<?>) value);
+            }
+        }
+        return shardingValues;
+    }
+
+    /**
+     * 是否存在列，包含主键，列名不区分大小写
+     */
+    boolean hasColumn(String columnName) {
+        return fields.containsKey(columnName.toLowerCase());
+    }
+
+    /**
+     * 获取列的值，java.util.Date转换为Timestamp
+     */
+    Object getValue(Object entity, String columnName) {
+        Field field = columns.get(columnName);
+        if (field == null) {
+            for (Map.Entry<String, Field> entry : columns.entrySet()) {
+                if (entry.getKey().equalsIgnoreCase(columnName)) {
+                    field = entry.getValue();
+                    break;
+                }
+            }
+        }
+        if (field == null) {
+            throw new IllegalArgumentException(String.format("%s中不存在列%s", logicTableName, columnName));
+        }
+
+        try {
+            Object value = field.get(entity);
+            if (value instanceof Date && !(value instanceof java.sql.Date) && !(value instanceof Timestamp)) {
+                return new Timestamp(((Date) value).getTime());
+            }
+            return value;
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 获取主键的列名，没有主键时返回null
+     */
+    String getIdColumnName() {
+        return idField == null ? null : getColumnName(idField);
+    }
+
+    /**
+     * 获取列的字段类型，列名不区分大小写，不存在的列返回null
+     */
+    Class<?> getColumnType(String columnName) {
+        Field field = fields.get(columnName.toLowerCase());
+        return field == null ? null : field.getType();
+    }
+
+    /**
+     * 获取主键的值，没有主键时返回null
+     */
+    Object getId(Object entity) {
+        try {
+            return idField == null ? null : idField.get(entity);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 回填自增主键
+     */
+    void setId(Object entity, Object id) {
+        setField(entity, idField, id);
+    }
+
+    /**
+     * 创建实体，需要有无参构造方法
+     */
+    Object newInstance() {
+        try {
+            return entityClass.newInstance();
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new IllegalStateException(String.format("%s缺少无参构造方法", entityClass.getName()), e);
+        }
+    }
+
+    /**
+     * 设置列的值，列名不区分大小写，实体中不存在的列忽略
+     */
+    void setValue(Object entity, String columnName, Object value) {
+        Field field = fields.get(columnName.toLowerCase());
+        if (field != null) {
+            setField(entity, field, value);
+        }
+    }
+
+    private static void setField(Object entity, Field field, Object value) {
+        try {
+            Object result = convert(field.getType(), value);
+            if (result == null && field.getType().isPrimitive()) {
+                return;
+            }
+            field.set(entity, result);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 按字段类型转换查询结果，MySQL Connector/J 8的getObject对DATETIME返回LocalDateTime，对DATE返回LocalDate
+     */
+    private static Object convert(Class<?> type, Object value) {
+        if (value instanceof Number) {
+            if (type == Long.class || type == long.class) {
+                return ((Number) value).longValue();
+            } else if (type == Integer.class || type == int.class) {
+                return ((Number) value).intValue();
+            }
+            return value;
+        }
+        if (Date.class.isAssignableFrom(type)) {
+            Date date = toDate(value);
+            if (date == null || date.getClass() == type) {
+                return date == null ? value : date;
+            } else if (type == Timestamp.class) {
+                return new Timestamp(date.getTime());
+            } else if (type == java.sql.Date.class) {
+                return new java.sql.Date(date.getTime());
+            } else if (type == Date.class) {
+                return new Date(date.getTime());
+            }
+            return value;
+        }
+        if (type == LocalDateTime.class && value instanceof Timestamp) {
+            return ((Timestamp) value).toLocalDateTime();
+        }
+        if (type == LocalDate.class && value instanceof java.sql.Date) {
+            return ((java.sql.Date) value).toLocalDate();
+        }
+        return value;
+    }
+
+    /**
+     * 转换为Date，不是日期类型时返回null
+     */
+    private static Date toDate(Object value) {
+        if (value instanceof LocalDateTime) {
+            return Timestamp.valueOf((LocalDateTime) value);
+        } else if (value instanceof LocalDate) {
+            return java.sql.Date.valueOf((LocalDate) value);
+        } else if (value instanceof OffsetDateTime) {
+            return Date.from(((OffsetDateTime) value).toInstant());
+        } else if (value instanceof ZonedDateTime) {
+            return Date.from(((ZonedDateTime) value).toInstant());
+        }
+        return value instanceof Date ? (Date) value : null;
+    }
+
+    /**
+     * 主键使用{@link TimeEmbeddedIdentifierGenerator}时返回time-column参数，没有参数时返回空字符串，否则返回null
+     */
+    private static String getKeyTimeColumn(Field idField) {
+        GenericGenerator generator = idField.getAnnotation(GenericGenerator.class);
+        if (generator == null || !TimeEmbeddedIdentifierGenerator.class.getName().equals(generator.strategy())) {
+            return null;
+        }
+        for (Parameter parameter : generator.parameters()) {
+            if (TimeEmbeddedIdentifierGenerator.TIME_COLUMN.equals(parameter.name())) {
+                return parameter.value();
+            }
+        }
+        return "";
+    }
+
+    private static String getColumnName(Field field) {
+        Column column = field.getAnnotation(Column.class);
+        return column != null && StringUtils.isNotEmpty(column.name()) ? column.name() : field.getName();
+    }
+}
@@ -11,7 +11,8 @@ import java.util.Optional;
  * @author Jianbo.Peng <pengjianbosoft@gmail.com>
  * @date 2021/10/13 4:41 下午
  */
-public interface MonthPartitionTableRepository extends CrudRepository<MonthPartitionTableEntity, Long> {
+public interface MonthPartitionTableRepository extends CrudRepository<MonthPartitionTableEntity, Long>,
+        PartitionBulkIngestRepository<MonthPartitionTableEntity> {
     Optional<MonthPartitionTableEntity> findFirstByColumn1(String col);
 
     List<MonthPartitionTableEntity> findByPartitionDateBetween(Date startDate, Date endDate);
@@ -0,0 +1,70 @@
+package cc.bbmax.shardingjdbc.dynamictable.repository;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 区间聚合的结果
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 1:55 上午
+ */
+public final class PartitionAggregate {
+
+    private final long count;
+
+    /**
+     * <小写列名, 合计>
+     */
+    private final Map<String, BigDecimal> sums;
+
+    /**
+     * 使用缓存结果的封存分区数
+     */
+    private final int cachedPartitions;
+
+    /**
+     * 实际执行了查询的分区数
+     */
+    private final int scannedPartitions;
+
+    PartitionAggregate(long count, Map<String, BigDecimal> sums, int cachedPartitions, int scannedPartitions) {
+        this.count = count;
+        this.sums = Collections.unmodifiableMap(sums);
+        this.cachedPartitions = cachedPartitions;
+        this.scannedPartitions = scannedPartitions;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * 获取列的合计
+     *
+     * @param column 列名，不区分大小写
+     * @return 合计，区间内没有数据时为0
+     */
+    public BigDecimal getSum(String column) {
+        BigDecimal sum = sums.get(column.toLowerCase());
+        if (sum == null) {
+            throw new IllegalArgumentException(String.format("没有聚合列%s", column));
+        }
+        return sum;
+    }
+
+    public int getCachedPartitions() {
+        return cachedPartitions;
+    }
+
+    public int getScannedPartitions() {
+        return scannedPartitions;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PartitionAggregate(count=%d, sums=%s, cachedPartitions=%d, scannedPartitions=%d)",
+                count, sums, cachedPartitions, scannedPartitions);
+    }
+}
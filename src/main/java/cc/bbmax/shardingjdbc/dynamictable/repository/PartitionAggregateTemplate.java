@@ -0,0 +1,289 @@
+package cc.bbmax.shardingjdbc.dynamictable.repository;
+
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.PartitionResolver;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.statistics.PartitionStatistics;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.statistics.PartitionStatisticsCatalog;
+import com.google.common.collect.BoundType;
+import com.google.common.collect.Range;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.shardingsphere.underlying.common.rule.DataNode;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.*;
+import java.util.Date;
+
+/**
+ * 跨分区的区间COUNT/SUM，封存的分区不再变化，整个分区都在区间内时使用缓存的分区聚合结果，其余分区按区间实时查询
+ * <p>
+ * 分区的聚合结果在第一次用到时查询一次，与分区统计信息一起失效：通过ingest写入封存分区、通过JPA写入配置了
+ * {@link PartitionStatisticsEntityListener}的实体或调用{@link PartitionStatisticsCatalog#invalidate}后，下次聚合重新查询该分区，
+ * 其他途径写入封存分区后需要调用invalidate，否则会一直使用旧的聚合结果。缓存最多保留maxPartitions个分区，
+ * 超出后淘汰最久没有使用的分区。统计信息只在写入的节点失效，开启集群建表时不使用缓存，所有分区都实时查询
+ *
+ * <pre>
+ * PartitionAggregate aggregate = partitionAggregateTemplate.aggregate(DayPartitionTableEntity.class, Range.closed(start, end), "amount");
+ * </pre>
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 1:55 上午
+ */
+@Component
+@Slf4j
+public class PartitionAggregateTemplate {
+
+    private final PartitionResolver partitionResolver;
+
+    private final PartitionStatisticsCatalog statisticsCatalog;
+
+    /**
+     * 是否使用封存分区的聚合结果，开启集群建表时其他节点的写入不会使缓存失效
+     */
+    private final boolean cacheEnabled;
+
+    /**
+     * <分区节点, 聚合结果>，按访问顺序淘汰
+     */
+    private final Map<DataNode, CachedAggregate> cache;
+
+    public PartitionAggregateTemplate(PartitionResolver partitionResolver, DynamicTableProperties properties,
+                                      PartitionStatisticsCatalog statisticsCatalog) {
+        this.partitionResolver = partitionResolver;
+        this.statisticsCatalog = statisticsCatalog;
+        this.cacheEnabled = !properties.getCluster().isEnabled();
+        int maxPartitions = Math.max(properties.getAggregate().getMaxPartitions(), 0);
+        this.cache = new LinkedHashMap<DataNode, CachedAggregate>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<DataNode, CachedAggregate> eldest) {
+                return size() > maxPartitions;
+            }
+        };
+    }
+
+    /**
+     * 统计区间内的行数，包含开始和结束时间
+     *
+     * @param entityClass 实体类型
+     * @param startDate   开始时间
+     * @param endDate     结束时间
+     * @return 行数
+     */
+    public long count(Class<?> entityClass, Date startDate, Date endDate) {
+        return aggregate(entityClass, Range.closed(startDate, endDate)).getCount();
+    }
+
+    /**
+     * 合计区间内一列的值，包含开始和结束时间
+     *
+     * @param entityClass 实体类型
+     * @param column      列名
+     * @param startDate   开始时间
+     * @param endDate     结束时间
+     * @return 合计，区间内没有数据时为0
+     */
+    public BigDecimal sum(Class<?> entityClass, String column, Date startDate, Date endDate) {
+        return aggregate(entityClass, Range.closed(startDate, endDate), column).getSum(column);
+    }
+
+    /**
+     * 按分区字段聚合区间内的数据
+     *
+     * @param entityClass 实体类型
+     * @param range       区间，可以是单边或无边界的
+     * @param sumColumns  需要合计的列
+     * @return 行数和各列的合计
+     */
+    public PartitionAggregate aggregate(Class<?> entityClass, Range<Date> range, String... sumColumns) {
+        EntityMapping mapping = EntityMapping.of(entityClass);
+        String logicTableName = mapping.getLogicTableName();
+        for (String column : sumColumns) {
+            if (!mapping.hasColumn(column)) {
+                throw new IllegalArgumentException(String.format("%s中不存在列%s", logicTableName, column));
+            }
+        }
+        String column = partitionResolver.getShardingColumns(logicTableName).iterator().next();
+        List<DataNode> partitions = partitionResolver.resolveRange(logicTableName, column, range);
+        long lower = lowerEndpoint(range);
+        long upper = upperEndpoint(range);
+
+        long count = 0;
+        BigDecimal[] sums = new BigDecimal[sumColumns.length];
+        Arrays.fill(sums, BigDecimal.ZERO);
+        int cachedPartitions = 0;
+        int scannedPartitions = 0;
+        try {
+            for (DataNode dataNode : partitions) {
+                PartitionStatistics statistics = cacheEnabled ? statisticsCatalog.get(logicTableName, dataNode.getTableName()) : null;
+                if (statistics != null && !statistics.overlaps(lower, upper)) {
+                    continue;
+                }
+                if (statistics != null && lower <= statistics.getMinTime() && statistics.getMaxTime() <= upper) {
+                    //封存分区的数据都在区间内
+                    CachedAggregate cached = getCached(dataNode, statistics, sumColumns);
+                    if (cached == null) {
+                        cached = scanPartition(dataNode, statistics, sumColumns);
+                        scannedPartitions++;
+                    } else {
+                        cachedPartitions++;
+                    }
+                    count += cached.count;
+                    for (int i = 0; i < sumColumns.length; i++) {
+                        sums[i] = sums[i].add(cached.sums.get(sumColumns[i].toLowerCase()));
+                    }
+                } else {
+                    count += scanRange(dataNode, column, range, sumColumns, sums);
+                    scannedPartitions++;
+                }
+            }
+        } catch (SQLException e) {
+            throw new UncategorizedSQLException("聚合" + logicTableName, null, e);
+        }
+
+        Map<String, BigDecimal> results = new LinkedHashMap<>();
+        for (int i = 0; i < sumColumns.length; i++) {
+            results.put(sumColumns[i].toLowerCase(), sums[i]);
+        }
+        PartitionAggregate aggregate = new PartitionAggregate(count, results, cachedPartitions, scannedPartitions);
+        if (log.isDebugEnabled()) {
+            log.debug("聚合{}的{}个分区:{}", logicTableName, partitions.size(), aggregate);
+        }
+        return aggregate;
+    }
+
+    /**
+     * 获取缓存的分区聚合结果，分区统计信息变化后或缺少需要的列时返回null
+     */
+    private CachedAggregate getCached(DataNode dataNode, PartitionStatistics statistics, String[] sumColumns) {
+        CachedAggregate cached;
+        synchronized (cache) {
+            cached = cache.get(dataNode);
+        }
+        if (cached == null || cached.statistics != statistics) {
+            return null;
+        }
+        for (String column : sumColumns) {
+            if (!cached.sums.containsKey(column.toLowerCase())) {
+                return null;
+            }
+        }
+        return cached;
+    }
+
+    /**
+     * 查询整个封存分区的聚合结果并缓存，同一分区已经缓存的其他列保留
+     */
+    private CachedAggregate scanPartition(DataNode dataNode, PartitionStatistics statistics, String[] sumColumns) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*)");
+        for (String column : sumColumns) {
+            sql.append(", SUM(").append(column).append(")");
+        }
+        sql.append(" FROM ").append(dataNode.getTableName());
+
+        Map<String, BigDecimal> sums = new HashMap<>();
+        long count;
+        try (Connection connection = partitionResolver.getDataSource(dataNode.getDataSourceName()).getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql.toString())) {
+            resultSet.next();
+            count = resultSet.getLong(1);
+            for (int i = 0; i < sumColumns.length; i++) {
+                BigDecimal sum = resultSet.getBigDecimal(i + 2);
+                sums.put(sumColumns[i].toLowerCase(), sum == null ? BigDecimal.ZERO : sum);
+            }
+        }
+
+        synchronized (cache) {
+            CachedAggregate previous = cache.get(dataNode);
+            if (previous != null && previous.statistics == statistics && previous.count == count) {
+                for (Map.Entry<String, BigDecimal> entry : previous.sums.entrySet()) {
+                    sums.putIfAbsent(entry.getKey(), entry.getValue());
+                }
+            }
+            CachedAggregate cached = new CachedAggregate(statistics, count, sums);
+            cache.put(dataNode, cached);
+            return cached;
+        }
+    }
+
+    /**
+     * 实时查询分区中在区间内的数据，合计累加到sums
+     *
+     * @return 行数
+     */
+    private long scanRange(DataNode dataNode, String column, Range<Date> range, String[] sumColumns, BigDecimal[] sums) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*)");
+        for (String sumColumn : sumColumns) {
+            sql.append(", SUM(").append(sumColumn).append(")");
+        }
+        sql.append(" FROM ").append(dataNode.getTableName());
+        String separator = " WHERE ";
+        if (range.hasLowerBound()) {
+            sql.append(separator).append(column).append(range.lowerBoundType() == BoundType.OPEN ? " > ?" : " >= ?");
+            separator = " AND ";
+        }
+        if (range.hasUpperBound()) {
+            sql.append(separator).append(column).append(range.upperBoundType() == BoundType.OPEN ? " < ?" : " <= ?");
+        }
+
+        try (Connection connection = partitionResolver.getDataSource(dataNode.getDataSourceName()).getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            if (range.hasLowerBound()) {
+                statement.setTimestamp(index++, new Timestamp(range.lowerEndpoint().getTime()));
+            }
+            if (range.hasUpperBound()) {
+                statement.setTimestamp(index, new Timestamp(range.upperEndpoint().getTime()));
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                for (int i = 0; i < sumColumns.length; i++) {
+                    BigDecimal sum = resultSet.getBigDecimal(i + 2);
+                    if (sum != null) {
+                        sums[i] = sums[i].add(sum);
+                    }
+                }
+                return resultSet.getLong(1);
+            }
+        }
+    }
+
+    private static long lowerEndpoint(Range<Date> range) {
+        if (!range.hasLowerBound()) {
+            return Long.MIN_VALUE;
+        }
+        long lower = range.lowerEndpoint().getTime();
+        return range.lowerBoundType() == BoundType.OPEN ? lower + 1 : lower;
+    }
+
+    private static long upperEndpoint(Range<Date> range) {
+        if (!range.hasUpperBound()) {
+            return Long.MAX_VALUE;
+        }
+        long upper = range.upperEndpoint().getTime();
+        return range.upperBoundType() == BoundType.OPEN ? upper - 1 : upper;
+    }
+
+    /**
+     * 一个封存分区的聚合结果，以计算时的分区统计信息判断是否仍然有效
+     */
+    private static final class CachedAggregate {
+
+        private final PartitionStatistics statistics;
+
+        private final long count;
+
+        /**
+         * <小写列名, 合计>
+         */
+        private final Map<String, BigDecimal> sums;
+
+        CachedAggregate(PartitionStatistics statistics, long count, Map<String, BigDecimal> sums) {
+            this.statistics = statistics;
+            this.count = count;
+            this.sums = sums;
+        }
+    }
+}
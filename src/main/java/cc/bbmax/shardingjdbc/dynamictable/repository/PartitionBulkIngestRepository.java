@@ -0,0 +1,23 @@
+package cc.bbmax.shardingjdbc.dynamictable.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 按分区批量写入，数据按所在的实际分区分组后，每个分区用多行INSERT或JDBC批量直接写入实际表
+ * <p>
+ * 绕过了JPA和ShardingJDBC的SQL解析，不参与当前的Spring事务；每个分区在各自的本地事务中提交，不同分区之间不保证原子性
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 8:40 下午
+ */
+public interface PartitionBulkIngestRepository<T> {
+
+    /**
+     * 批量写入
+     *
+     * @param entities 实体，需要带有分区字段
+     * @return 写入的实体，开启了主键回填时自增主键已经设置到实体中
+     */
+    List<T> ingest(Collection<T> entities);
+}
@@ -0,0 +1,258 @@
+package cc.bbmax.shardingjdbc.dynamictable.repository;
+
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.PartitionResolver;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.PartitionWriteScope;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.index.GlobalSecondaryIndex;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.key.TimeEmbeddedKeyGenerator;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.statistics.PartitionStatistics;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.statistics.PartitionStatisticsCatalog;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.shardingsphere.underlying.common.rule.DataNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.UncategorizedSQLException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+
+/**
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 8:40 下午
+ */
+@Slf4j
+public class PartitionBulkIngestRepositoryImpl<T> implements PartitionBulkIngestRepository<T> {
+
+    private final PartitionResolver partitionResolver;
+
+    private final DynamicTableProperties properties;
+
+    private final PartitionStatisticsCatalog statisticsCatalog;
+
+    /**
+     * 全局二级索引，为null时不维护索引
+     */
+    private final GlobalSecondaryIndex secondaryIndex;
+
+    /**
+     * 时间主键生成器，实体的主键由{@link TimeEmbeddedIdentifierGenerator}生成时为没有主键的数据生成主键
+     */
+    private final TimeEmbeddedKeyGenerator keyGenerator;
+
+    public PartitionBulkIngestRepositoryImpl(PartitionResolver partitionResolver, DynamicTableProperties properties,
+                                             PartitionStatisticsCatalog statisticsCatalog) {
+        this(partitionResolver, properties, statisticsCatalog, null);
+    }
+
+    public PartitionBulkIngestRepositoryImpl(PartitionResolver partitionResolver, DynamicTableProperties properties,
+                                             PartitionStatisticsCatalog statisticsCatalog, GlobalSecondaryIndex secondaryIndex) {
+        this(partitionResolver, properties, statisticsCatalog, secondaryIndex, null);
+    }
+
+    @Autowired
+    public PartitionBulkIngestRepositoryImpl(PartitionResolver partitionResolver, DynamicTableProperties properties,
+                                             PartitionStatisticsCatalog statisticsCatalog, GlobalSecondaryIndex secondaryIndex,
+                                             TimeEmbeddedKeyGenerator keyGenerator) {
+        this.partitionResolver = partitionResolver;
+        this.properties = properties;
+        this.statisticsCatalog = statisticsCatalog;
+        this.secondaryIndex = secondaryIndex;
+        this.keyGenerator = keyGenerator;
+    }
+
+    @Override
+    public List<T> ingest(Collection<T> entities) {
+        if (entities.isEmpty()) {
+            return new ArrayList<>(entities);
+        }
+
+        EntityMapping mapping = EntityMapping.of(entities.iterator().next().getClass());
+        //<实际分区, 数据>，保持每个分区内的写入顺序
+        Map<DataNode, List<T>> partitions = new LinkedHashMap<>();
+        //在写入范围内路由，开启按需建表时创建还不存在的分区
+        try (PartitionWriteScope scope = PartitionWriteScope.open()) {
+            for (T entity : entities) {
+                if (mapping.getKeyTimeColumn() != null && mapping.getId(entity) == null) {
+                    generateId(mapping, entity);
+                }
+                DataNode dataNode = partitionResolver.resolve(mapping.getLogicTableName(), mapping.getShardingValues(entity));
+                partitions.computeIfAbsent(dataNode, key -> new ArrayList<>()).add(entity);
+            }
+        }
+
+        String shardingColumn = getTimeColumn(mapping, entities.iterator().next());
+        List<String> indexColumns = secondaryIndex == null
+                ? Collections.emptyList() : secondaryIndex.getIndexColumns(mapping.getLogicTableName());
+        for (Map.Entry<DataNode, List<T>> entry : partitions.entrySet()) {
+            //先写索引再写数据，写入失败时索引只会多出分区
+            for (String indexColumn : indexColumns) {
+                List<Object> values = new ArrayList<>(entry.getValue().size());
+                for (T entity : entry.getValue()) {
+                    values.add(mapping.getValue(entity, indexColumn));
+                }
+                secondaryIndex.addAll(mapping.getLogicTableName(), indexColumn, entry.getKey(), values);
+            }
+            insert(entry.getKey(), mapping, entry.getValue());
+            //写入已封存的分区时放宽统计范围，区间路由不会跳过新写入的数据
+            statisticsCatalog.record(mapping.getLogicTableName(), entry.getKey().getTableName(),
+                    summarize(mapping, shardingColumn, entry.getValue()));
+        }
+        return new ArrayList<>(entities);
+    }
+
+    /**
+     * 按分区时间生成主键，分区时间在分片字段中，生成主键不影响路由；内存中没有这一秒的序号时从分区中已有的主键继续编号
+     */
+    private void generateId(EntityMapping mapping, T entity) {
+        if (keyGenerator == null) {
+            throw new IllegalStateException(String.format("%s的主键包含分区时间，需要时间主键生成器", mapping.getLogicTableName()));
+        }
+        Object partitionDate = mapping.getValue(entity, mapping.getKeyTimeColumn());
+        if (!(partitionDate instanceof Date)) {
+            throw new IllegalArgumentException(String.format("%s没有分区时间，无法生成主键", mapping.getLogicTableName()));
+        }
+        try {
+            mapping.setId(entity, keyGenerator.nextId(mapping.getLogicTableName(), (Date) partitionDate,
+                    new PartitionKeySequenceSeeder(partitionResolver, mapping)));
+        } catch (SQLException e) {
+            throw new UncategorizedSQLException("查询" + mapping.getLogicTableName() + "已使用的主键", null, e);
+        }
+    }
+
+    /**
+     * 获取分区时间所在的分片字段，complex策略的分片字段按名称排序，第一个不一定是时间
+     */
+    private String getTimeColumn(EntityMapping mapping, T entity) {
+        Collection<String> shardingColumns = partitionResolver.getShardingColumns(mapping.getLogicTableName());
+        for (String column : shardingColumns) {
+            if (mapping.getValue(entity, column) instanceof Date) {
+                return column;
+            }
+        }
+        return shardingColumns.iterator().next();
+    }
+
+    private PartitionStatistics summarize(EntityMapping mapping, String shardingColumn, List<T> rows) {
+        long minTime = Long.MAX_VALUE;
+        long maxTime = Long.MIN_VALUE;
+        Long minId = null;
+        Long maxId = null;
+        boolean withId = true;
+        for (T entity : rows) {
+            long time = ((Date) mapping.getValue(entity, shardingColumn)).getTime();
+            minTime = Math.min(minTime, time);
+            maxTime = Math.max(maxTime, time);
+            Object id = mapping.getId(entity);
+            if (id instanceof Number && withId) {
+                long value = ((Number) id).longValue();
+                minId = minId == null ? value : Math.min(minId, value);
+                maxId = maxId == null ? value : Math.max(maxId, value);
+            } else {
+                withId = false;
+            }
+        }
+        return withId ? PartitionStatistics.of(rows.size(), minTime, maxTime, minId, maxId)
+                : PartitionStatistics.of(rows.size(), minTime, maxTime, null, null);
+    }
+
+    /**
+     * 在一个分区的本地事务中分批写入
+     */
+    private void insert(DataNode dataNode, EntityMapping mapping, List<T> rows) {
+        DynamicTableProperties.Ingest ingest = properties.getIngest();
+        int batchSize = Math.max(ingest.getBatchSize(), 1);
+        List<String> columnNames = new ArrayList<>(mapping.getColumnNames());
+        boolean returnGeneratedKeys = ingest.isReturnGeneratedKeys() && mapping.isGeneratedId();
+        if (log.isDebugEnabled()) {
+            log.debug("批量写入{}条数据到{}", rows.size(), dataNode);
+        }
+
+        String sql = null;
+        try (Connection connection = partitionResolver.getDataSource(dataNode.getDataSourceName()).getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                for (int from = 0; from < rows.size(); from += batchSize) {
+                    List<T> chunk = rows.subList(from, Math.min(from + batchSize, rows.size()));
+                    if (ingest.getMode() == DynamicTableProperties.IngestMode.BATCH) {
+                        sql = getInsertSql(dataNode.getTableName(), columnNames, 1);
+                        insertBatch(connection, sql, mapping, columnNames, chunk, returnGeneratedKeys);
+                    } else {
+                        sql = getInsertSql(dataNode.getTableName(), columnNames, chunk.size());
+                        insertMultiRow(connection, sql, mapping, columnNames, chunk, returnGeneratedKeys);
+                    }
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new UncategorizedSQLException("批量写入" + dataNode, sql, e);
+        }
+    }
+
+    private void insertMultiRow(Connection connection, String sql, EntityMapping mapping, List<String> columnNames,
+                                List<T> chunk, boolean returnGeneratedKeys) throws SQLException {
+        try (PreparedStatement statement = prepareStatement(connection, sql, returnGeneratedKeys)) {
+            int index = 1;
+            for (T entity : chunk) {
+                for (String columnName : columnNames) {
+                    statement.setObject(index++, mapping.getValue(entity, columnName));
+                }
+            }
+            statement.executeUpdate();
+            if (returnGeneratedKeys) {
+                setGeneratedKeys(statement, mapping, chunk);
+            }
+        }
+    }
+
+    private void insertBatch(Connection connection, String sql, EntityMapping mapping, List<String> columnNames,
+                             List<T> chunk, boolean returnGeneratedKeys) throws SQLException {
+        try (PreparedStatement statement = prepareStatement(connection, sql, returnGeneratedKeys)) {
+            for (T entity : chunk) {
+                int index = 1;
+                for (String columnName : columnNames) {
+                    statement.setObject(index++, mapping.getValue(entity, columnName));
+                }
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            if (returnGeneratedKeys) {
+                setGeneratedKeys(statement, mapping, chunk);
+            }
+        }
+    }
+
+    private static PreparedStatement prepareStatement(Connection connection, String sql, boolean returnGeneratedKeys) throws SQLException {
+        return returnGeneratedKeys ? connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS) : connection.prepareStatement(sql);
+    }
+
+    /**
+     * 自增主键按写入顺序返回
+     */
+    private void setGeneratedKeys(Statement statement, EntityMapping mapping, List<T> chunk) throws SQLException {
+        try (ResultSet resultSet = statement.getGeneratedKeys()) {
+            Iterator<T> iterator = chunk.iterator();
+            while (resultSet.next() && iterator.hasNext()) {
+                mapping.setId(iterator.next(), resultSet.getObject(1));
+            }
+            if (iterator.hasNext()) {
+                log.warn("数据库返回的自增主键少于写入的行数，部分实体没有回填主键");
+            }
+        }
+    }
+
+    private static String getInsertSql(String tableName, List<String> columnNames, int rows) {
+        String values = "(" + StringUtils.repeat("?", ", ", columnNames.size()) + ")";
+        return String.format("INSERT INTO %s (%s) VALUES %s", tableName, StringUtils.join(columnNames, ", "),
+                StringUtils.repeat(values, ", ", rows));
+    }
+}
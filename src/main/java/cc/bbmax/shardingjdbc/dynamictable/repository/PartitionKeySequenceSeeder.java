@@ -0,0 +1,57 @@
+package cc.bbmax.shardingjdbc.dynamictable.repository;
+
+import cc.bbmax.shardingjdbc.dynamictable.sharding.PartitionResolver;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.key.KeySequenceSeeder;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.key.TimeEmbeddedKeyGenerator;
+import com.google.common.collect.Range;
+import org.apache.shardingsphere.underlying.common.rule.DataNode;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Date;
+
+/**
+ * 从主键时间所在的分区查询已经写入的最大主键，按主键索引查询，只在主键生成器内存中没有这一秒的序号时执行
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 5:15 上午
+ */
+final class PartitionKeySequenceSeeder implements KeySequenceSeeder {
+
+    private final PartitionResolver partitionResolver;
+
+    private final EntityMapping mapping;
+
+    PartitionKeySequenceSeeder(PartitionResolver partitionResolver, EntityMapping mapping) {
+        this.partitionResolver = partitionResolver;
+        this.mapping = mapping;
+    }
+
+    @Override
+    public long getMaxId(long minId, long maxId) throws SQLException {
+        long time = TimeEmbeddedKeyGenerator.getTime(minId);
+        Range<Date> second = Range.closedOpen(new Date(time), new Date(time + 1000));
+        String idColumn = mapping.getIdColumnName();
+        String sql = String.format("SELECT MAX(%s) FROM %%s WHERE %s BETWEEN ? AND ?", idColumn, idColumn);
+
+        long result = -1;
+        for (DataNode dataNode : partitionResolver.resolveRange(mapping.getLogicTableName(), mapping.getKeyTimeColumn(), second)) {
+            try (Connection connection = partitionResolver.getDataSource(dataNode.getDataSourceName()).getConnection();
+                 PreparedStatement statement = connection.prepareStatement(String.format(sql, dataNode.getTableName()))) {
+                statement.setLong(1, minId);
+                statement.setLong(2, maxId);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (resultSet.next()) {
+                        long usedId = resultSet.getLong(1);
+                        if (!resultSet.wasNull()) {
+                            result = Math.max(result, usedId);
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,52 @@
+package cc.bbmax.shardingjdbc.dynamictable.repository;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 游标分页的一页数据
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 3:30 上午
+ */
+public final class PartitionPage<T> {
+
+    private final List<T> content;
+
+    /**
+     * 下一页的游标，没有下一页时为null
+     */
+    private final String nextCursor;
+
+    /**
+     * 实际执行了查询的分区数
+     */
+    private final int queriedPartitions;
+
+    PartitionPage(List<T> content, String nextCursor, int queriedPartitions) {
+        this.content = Collections.unmodifiableList(content);
+        this.nextCursor = nextCursor;
+        this.queriedPartitions = queriedPartitions;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public int getQueriedPartitions() {
+        return queriedPartitions;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PartitionPage(size=%d, nextCursor=%s, queriedPartitions=%d)", content.size(), nextCursor, queriedPartitions);
+    }
+}
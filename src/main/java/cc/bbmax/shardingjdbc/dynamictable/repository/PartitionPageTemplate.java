@@ -0,0 +1,236 @@
+package cc.bbmax.shardingjdbc.dynamictable.repository;
+
+import cc.bbmax.shardingjdbc.dynamictable.sharding.PartitionResolver;
+import com.google.common.collect.BoundType;
+import com.google.common.collect.Range;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.shardingsphere.underlying.common.rule.DataNode;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.*;
+import java.util.Date;
+
+/**
+ * 跨分区的游标分页，按(分区字段, 主键)排序，代替Pageable分页
+ * <p>
+ * Pageable分页时ShardingJDBC把LIMIT offset, n改写成LIMIT 0, offset+n在每个分区执行，再在内存中归并，越往后翻越慢。
+ * 游标记录上一页最后一行的(分区, 分区时间, 主键)，下一页从游标所在的分区开始按分区顺序逐个查询，
+ * 游标所在分区用(分区字段, 主键)大于游标的条件，之后的分区只用区间条件，取够一页就停止，每页的开销与翻到第几页无关。
+ * 分区表需要有(分区字段, 主键)的索引
+ *
+ * <pre>
+ * PartitionPage&lt;DayPartitionTableEntity&gt; page = partitionPageTemplate.page(DayPartitionTableEntity.class, range, null, 100);
+ * page = partitionPageTemplate.page(DayPartitionTableEntity.class, range, page.getNextCursor(), 100);
+ * </pre>
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 3:30 上午
+ */
+@Component
+@Slf4j
+public class PartitionPageTemplate {
+
+    private static final char SEPARATOR = '\t';
+
+    private final PartitionResolver partitionResolver;
+
+    public PartitionPageTemplate(PartitionResolver partitionResolver) {
+        this.partitionResolver = partitionResolver;
+    }
+
+    /**
+     * 按分区字段升序分页
+     *
+     * @param entityClass 实体类型
+     * @param range       区间，可以是单边或无边界的
+     * @param cursor      上一页返回的游标，第一页为null
+     * @param size        每页行数
+     * @return 一页数据
+     */
+    public <T> PartitionPage<T> page(Class<T> entityClass, Range<Date> range, String cursor, int size) {
+        return page(entityClass, range, Sort.Direction.ASC, cursor, size);
+    }
+
+    /**
+     * 分页，同一个游标需要使用相同的区间和方向
+     *
+     * @param entityClass 实体类型
+     * @param range       区间，可以是单边或无边界的
+     * @param direction   按分区字段和主键的排序方向
+     * @param cursor      上一页返回的游标，第一页为null
+     * @param size        每页行数
+     * @return 一页数据
+     */
+    public <T> PartitionPage<T> page(Class<T> entityClass, Range<Date> range, Sort.Direction direction, String cursor, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException(String.format("每页行数%d必须大于0", size));
+        }
+        EntityMapping mapping = EntityMapping.of(entityClass);
+        String logicTableName = mapping.getLogicTableName();
+        String idColumn = mapping.getIdColumnName();
+        if (idColumn == null) {
+            throw new IllegalArgumentException(String.format("%s没有主键，不能使用游标分页", logicTableName));
+        }
+        String column = getTimeColumn(mapping);
+        boolean ascending = direction.isAscending();
+
+        //从游标的时间开始，游标之前的分区不再路由
+        Cursor position = cursor == null ? null : Cursor.decode(cursor, mapping.getColumnType(idColumn));
+        Range<Date> effectiveRange = range;
+        if (position != null) {
+            Range<Date> remaining = ascending ? Range.atLeast(new Date(position.time)) : Range.atMost(new Date(position.time));
+            if (!range.isConnected(remaining)) {
+                return new PartitionPage<>(Collections.emptyList(), null, 0);
+            }
+            effectiveRange = range.intersection(remaining);
+        }
+        List<DataNode> partitions = partitionResolver.resolveRange(logicTableName, column, effectiveRange);
+        if (!ascending) {
+            Collections.reverse(partitions);
+        }
+
+        //多取一行判断是否还有下一页
+        List<T> rows = new ArrayList<>(size + 1);
+        int queriedPartitions = 0;
+        DataNode last = null;
+        try {
+            for (DataNode dataNode : partitions) {
+                if (rows.size() > size) {
+                    break;
+                }
+                int before = rows.size();
+                query(dataNode, mapping, entityClass, column, idColumn, effectiveRange, ascending,
+                        position != null && position.dataNode.equals(dataNode) ? position : null, size + 1 - rows.size(), rows);
+                queriedPartitions++;
+                if (before < size && rows.size() >= size) {
+                    //本页最后一行所在的分区
+                    last = dataNode;
+                }
+            }
+        } catch (SQLException e) {
+            throw new UncategorizedSQLException("分页查询" + logicTableName, null, e);
+        }
+
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows.remove(size);
+            T tail = rows.get(size - 1);
+            nextCursor = new Cursor(last, ((Date) mapping.getValue(tail, column)).getTime(), mapping.getId(tail)).encode();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("游标分页{}查询了{}个分区，返回{}行", logicTableName, queriedPartitions, rows.size());
+        }
+        return new PartitionPage<>(rows, nextCursor, queriedPartitions);
+    }
+
+    private <T> void query(DataNode dataNode, EntityMapping mapping, Class<T> entityClass, String column, String idColumn,
+                           Range<Date> range, boolean ascending, Cursor position, int limit, List<T> rows) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT * FROM ").append(dataNode.getTableName());
+        String separator = " WHERE ";
+        if (range.hasLowerBound()) {
+            sql.append(separator).append(column).append(range.lowerBoundType() == BoundType.OPEN ? " > ?" : " >= ?");
+            separator = " AND ";
+        }
+        if (range.hasUpperBound()) {
+            sql.append(separator).append(column).append(range.upperBoundType() == BoundType.OPEN ? " < ?" : " <= ?");
+            separator = " AND ";
+        }
+        String comparator = ascending ? " > ?" : " < ?";
+        if (position != null) {
+            sql.append(separator).append('(').append(column).append(comparator)
+                    .append(" OR (").append(column).append(" = ? AND ").append(idColumn).append(comparator).append("))");
+        }
+        String order = ascending ? " ASC" : " DESC";
+        sql.append(" ORDER BY ").append(column).append(order).append(", ").append(idColumn).append(order).append(" LIMIT ").append(limit);
+
+        try (Connection connection = partitionResolver.getDataSource(dataNode.getDataSourceName()).getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            if (range.hasLowerBound()) {
+                statement.setTimestamp(index++, new Timestamp(range.lowerEndpoint().getTime()));
+            }
+            if (range.hasUpperBound()) {
+                statement.setTimestamp(index++, new Timestamp(range.upperEndpoint().getTime()));
+            }
+            if (position != null) {
+                statement.setTimestamp(index++, new Timestamp(position.time));
+                statement.setTimestamp(index++, new Timestamp(position.time));
+                statement.setObject(index, position.id);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                while (resultSet.next()) {
+                    Object entity = mapping.newInstance();
+                    for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                        mapping.setValue(entity, metaData.getColumnLabel(i), resultSet.getObject(i));
+                    }
+                    rows.add(entityClass.cast(entity));
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取分区时间所在的分片字段，complex策略的分片字段中可能还有主键等其他字段
+     */
+    private String getTimeColumn(EntityMapping mapping) {
+        Collection<String> shardingColumns = partitionResolver.getShardingColumns(mapping.getLogicTableName());
+        for (String column : shardingColumns) {
+            Class<?> type = mapping.getColumnType(column);
+            if (type != null && Date.class.isAssignableFrom(type)) {
+                return column;
+            }
+        }
+        return shardingColumns.iterator().next();
+    }
+
+    /**
+     * 上一页最后一行的位置，编码为URL安全的Base64
+     */
+    private static final class Cursor {
+
+        private final DataNode dataNode;
+
+        private final long time;
+
+        private final Object id;
+
+        Cursor(DataNode dataNode, long time, Object id) {
+            this.dataNode = dataNode;
+            this.time = time;
+            this.id = id;
+        }
+
+        String encode() {
+            String value = dataNode.getDataSourceName() + SEPARATOR + dataNode.getTableName() + SEPARATOR + time + SEPARATOR + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor, Class<?> idType) {
+            String[] values;
+            try {
+                values = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(String.valueOf(SEPARATOR), 4);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(String.format("无效的游标:%s", cursor), e);
+            }
+            if (values.length != 4) {
+                throw new IllegalArgumentException(String.format("无效的游标:%s", cursor));
+            }
+            try {
+                Object id = values[3];
+                if (idType == Long.class || idType == long.class) {
+                    id = Long.parseLong(values[3]);
+                } else if (idType == Integer.class || idType == int.class) {
+                    id = Integer.parseInt(values[3]);
+                }
+                return new Cursor(new DataNode(values[0], values[1]), Long.parseLong(values[2]), id);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(String.format("无效的游标:%s", cursor), e);
+            }
+        }
+    }
+}
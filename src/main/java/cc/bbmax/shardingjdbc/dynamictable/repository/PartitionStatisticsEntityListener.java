@@ -0,0 +1,56 @@
+package cc.bbmax.shardingjdbc.dynamictable.repository;
+
+import cc.bbmax.shardingjdbc.dynamictable.sharding.PartitionResolver;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.statistics.PartitionStatisticsCatalog;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.shardingsphere.underlying.common.rule.DataNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PrePersist;
+import javax.persistence.PreRemove;
+import javax.persistence.PreUpdate;
+
+/**
+ * 通过JPA写入封存分区时移除分区的统计信息，之后区间路由总是查询该分区，直到定时任务重新封存
+ * <p>
+ * 在INSERT/UPDATE/DELETE之前移除一次，事务提交后再移除一次，避免提交前重新封存的统计信息漏掉新数据。
+ * 分区聚合结果的缓存随统计信息一起失效。JPQL/原生SQL的批量更新不经过实体监听，需要自行调用{@link PartitionStatisticsCatalog#invalidate}
+ * <p>
+ * 由Hibernate通过Spring创建，Spring Boot默认为Hibernate配置了SpringBeanContainer
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 5:00 上午
+ */
+@Slf4j
+public class PartitionStatisticsEntityListener {
+
+    @Autowired
+    private PartitionResolver partitionResolver;
+
+    @Autowired
+    private PartitionStatisticsCatalog statisticsCatalog;
+
+    @PrePersist
+    @PreUpdate
+    @PreRemove
+    public void invalidate(Object entity) {
+        if (statisticsCatalog == null) {
+            log.warn("{}没有由Spring创建，不维护分区统计信息", getClass().getSimpleName());
+            return;
+        }
+        EntityMapping mapping = EntityMapping.of(entity.getClass());
+        String logicTableName = mapping.getLogicTableName();
+        DataNode dataNode = partitionResolver.resolve(logicTableName, mapping.getShardingValues(entity));
+        statisticsCatalog.invalidate(logicTableName, dataNode.getTableName());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    statisticsCatalog.invalidate(logicTableName, dataNode.getTableName());
+                }
+            });
+        }
+    }
+}
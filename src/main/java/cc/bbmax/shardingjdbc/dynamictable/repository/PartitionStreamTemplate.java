@@ -0,0 +1,360 @@
+package cc.bbmax.shardingjdbc.dynamictable.repository;
+
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.PartitionResolver;
+import com.google.common.collect.BoundType;
+import com.google.common.collect.Range;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.shardingsphere.underlying.common.rule.DataNode;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.*;
+import java.util.Date;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 跨分区的流式区间查询，按分区的时间先后逐个查询实际表，结果按分区字段升序返回
+ * <p>
+ * 当前分区在调用线程中按fetchSize分批读取，之后的prefetch个分区并行执行查询并缓存第一批数据；
+ * 调用方停止读取(如limit)后不会再查询剩余的分区。返回的Stream持有数据库连接，需要在使用后关闭
+ *
+ * <pre>
+ * try (Stream&lt;DayPartitionTableEntity&gt; stream = partitionStreamTemplate.stream(DayPartitionTableEntity.class, start, end)) {
+ *     stream.limit(100).forEach(...);
+ * }
+ * </pre>
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 10:10 下午
+ */
+@Component
+@Slf4j
+public class PartitionStreamTemplate implements DisposableBean {
+
+    private final PartitionResolver partitionResolver;
+
+    private final DynamicTableProperties properties;
+
+    private final ExecutorService executor;
+
+    public PartitionStreamTemplate(PartitionResolver partitionResolver, DynamicTableProperties properties) {
+        this.partitionResolver = partitionResolver;
+        this.properties = properties;
+        this.executor = Executors.newFixedThreadPool(Math.max(properties.getStream().getThreads(), 1), new ThreadFactory() {
+            private final AtomicInteger index = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "dynamic-table-stream-" + index.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * 按分区字段查询区间内的数据，包含开始和结束时间
+     *
+     * @param entityClass 实体类型
+     * @param startDate   开始时间
+     * @param endDate     结束时间
+     * @return 按分区字段升序的数据流
+     */
+    public <T> Stream<T> stream(Class<T> entityClass, Date startDate, Date endDate) {
+        return stream(entityClass, Range.closed(startDate, endDate));
+    }
+
+    /**
+     * 按分区字段查询区间内的数据
+     *
+     * @param entityClass 实体类型
+     * @param range       区间，可以是单边或无边界的
+     * @return 按分区字段升序的数据流
+     */
+    public <T> Stream<T> stream(Class<T> entityClass, Range<Date> range) {
+        EntityMapping mapping = EntityMapping.of(entityClass);
+        String column = partitionResolver.getShardingColumns(mapping.getLogicTableName()).iterator().next();
+        List<DataNode> partitions = partitionResolver.resolveRange(mapping.getLogicTableName(), column, range);
+        if (log.isDebugEnabled()) {
+            log.debug("流式查询{}个分区:{}", partitions.size(), partitions);
+        }
+
+        PartitionIterator<T> iterator = new PartitionIterator<>(entityClass, mapping, column, range, partitions);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private static String getSelectSql(String tableName, String column, Range<Date> range) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM ").append(tableName);
+        String separator = " WHERE ";
+        if (range.hasLowerBound()) {
+            sql.append(separator).append(column).append(range.lowerBoundType() == BoundType.OPEN ? " > ?" : " >= ?");
+            separator = " AND ";
+        }
+        if (range.hasUpperBound()) {
+            sql.append(separator).append(column).append(range.upperBoundType() == BoundType.OPEN ? " < ?" : " <= ?");
+        }
+        return sql.append(" ORDER BY ").append(column).toString();
+    }
+
+    /**
+     * 一个分区的查询结果，先返回预取的数据，再从ResultSet中继续读取
+     */
+    private static final class PartitionCursor<T> implements AutoCloseable {
+
+        private final Class<T> entityClass;
+
+        private final EntityMapping mapping;
+
+        private final Deque<T> buffer = new ArrayDeque<>();
+
+        private Connection connection;
+
+        private PreparedStatement statement;
+
+        private ResultSet resultSet;
+
+        private String[] columnLabels;
+
+        PartitionCursor(Class<T> entityClass, EntityMapping mapping) {
+            this.entityClass = entityClass;
+            this.mapping = mapping;
+        }
+
+        void open(DataSource dataSource, String sql, Range<Date> range, int fetchSize) throws SQLException {
+            connection = dataSource.getConnection();
+            statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            int index = 1;
+            if (range.hasLowerBound()) {
+                statement.setTimestamp(index++, new Timestamp(range.lowerEndpoint().getTime()));
+            }
+            if (range.hasUpperBound()) {
+                statement.setTimestamp(index, new Timestamp(range.upperEndpoint().getTime()));
+            }
+            resultSet = statement.executeQuery();
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            columnLabels = new String[metaData.getColumnCount()];
+            for (int i = 0; i < columnLabels.length; i++) {
+                columnLabels[i] = metaData.getColumnLabel(i + 1);
+            }
+        }
+
+        /**
+         * 预取最多rows行，分区已经读完时提前释放连接
+         */
+        void prefetch(int rows) throws SQLException {
+            while (buffer.size() < rows) {
+                T row = read();
+                if (row == null) {
+                    break;
+                }
+                buffer.add(row);
+            }
+        }
+
+        T next() throws SQLException {
+            T row = buffer.poll();
+            return row != null ? row : read();
+        }
+
+        private T read() throws SQLException {
+            if (resultSet == null) {
+                return null;
+            }
+            if (!resultSet.next()) {
+                close();
+                return null;
+            }
+            Object entity = mapping.newInstance();
+            for (int i = 0; i < columnLabels.length; i++) {
+                mapping.setValue(entity, columnLabels[i], resultSet.getObject(i + 1));
+            }
+            return entityClass.cast(entity);
+        }
+
+        @Override
+        public void close() {
+            closeQuietly(resultSet);
+            closeQuietly(statement);
+            closeQuietly(connection);
+            resultSet = null;
+            statement = null;
+            connection = null;
+        }
+
+        private static void closeQuietly(AutoCloseable closeable) {
+            if (closeable == null) {
+                return;
+            }
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("关闭流式查询资源异常", e);
+            }
+        }
+    }
+
+    /**
+     * 按分区顺序读取，当前分区之后保持最多prefetch个分区在并行查询
+     */
+    private final class PartitionIterator<T> implements Iterator<T> {
+
+        private final Class<T> entityClass;
+
+        private final EntityMapping mapping;
+
+        private final String column;
+
+        private final Range<Date> range;
+
+        private final List<DataNode> partitions;
+
+        private final int prefetch;
+
+        private final int fetchSize;
+
+        private final Deque<Future<PartitionCursor<T>>> pending = new ArrayDeque<>();
+
+        /**
+         * 已打开还未关闭的分区，关闭流时统一释放；预取任务在流关闭后完成的自行释放
+         */
+        private final Set<PartitionCursor<T>> opened = new HashSet<>();
+
+        private int nextPartition;
+
+        private PartitionCursor<T> current;
+
+        private T next;
+
+        private boolean closed;
+
+        PartitionIterator(Class<T> entityClass, EntityMapping mapping, String column, Range<Date> range, List<DataNode> partitions) {
+            this.entityClass = entityClass;
+            this.mapping = mapping;
+            this.column = column;
+            this.range = range;
+            this.partitions = partitions;
+            DynamicTableProperties.Stream stream = properties.getStream();
+            this.prefetch = Math.max(stream.getPrefetch(), 0);
+            this.fetchSize = Math.max(stream.getFetchSize(), 1);
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null) {
+                    if (current != null) {
+                        next = current.next();
+                        if (next != null) {
+                            break;
+                        }
+                        release(current);
+                        current = null;
+                    }
+                    if (!schedule()) {
+                        return false;
+                    }
+                    current = await(pending.poll());
+                }
+                return true;
+            } catch (SQLException e) {
+                close();
+                throw new UncategorizedSQLException("流式查询" + mapping.getLogicTableName(), null, e);
+            }
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T result = next;
+            next = null;
+            return result;
+        }
+
+        /**
+         * 补齐预取窗口
+         *
+         * @return 是否还有未读取的分区
+         */
+        private boolean schedule() {
+            while (!closed && nextPartition < partitions.size() && pending.size() <= prefetch) {
+                DataNode dataNode = partitions.get(nextPartition++);
+                pending.add(executor.submit(() -> open(dataNode)));
+            }
+            return !pending.isEmpty();
+        }
+
+        private PartitionCursor<T> open(DataNode dataNode) throws SQLException {
+            PartitionCursor<T> cursor = new PartitionCursor<>(entityClass, mapping);
+            try {
+                cursor.open(partitionResolver.getDataSource(dataNode.getDataSourceName()),
+                        getSelectSql(dataNode.getTableName(), column, range), range, fetchSize);
+                cursor.prefetch(fetchSize);
+            } catch (SQLException | RuntimeException e) {
+                cursor.close();
+                throw e;
+            }
+            synchronized (this) {
+                if (closed) {
+                    cursor.close();
+                } else {
+                    opened.add(cursor);
+                }
+            }
+            return cursor;
+        }
+
+        private PartitionCursor<T> await(Future<PartitionCursor<T>> future) throws SQLException {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new IllegalStateException("流式查询被中断", e);
+            } catch (ExecutionException e) {
+                close();
+                if (e.getCause() instanceof SQLException) {
+                    throw (SQLException) e.getCause();
+                }
+                throw new IllegalStateException("流式查询异常", e.getCause());
+            }
+        }
+
+        private synchronized void release(PartitionCursor<T> cursor) {
+            cursor.close();
+            opened.remove(cursor);
+        }
+
+        synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Future<PartitionCursor<T>> future : pending) {
+                //还没开始的查询不再执行，正在执行的查询完成后自行关闭
+                future.cancel(false);
+            }
+            pending.clear();
+            for (PartitionCursor<T> cursor : opened) {
+                cursor.close();
+            }
+            opened.clear();
+            current = null;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package cc.bbmax.shardingjdbc.dynamictable.repository;
+
+import cc.bbmax.shardingjdbc.dynamictable.sharding.PartitionWriteScope;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PrePersist;
+
+/**
+ * 通过JPA持久化实体时打开{@link PartitionWriteScope}，INSERT路由到不存在的分区时按需建表
+ * <p>
+ * Hibernate在持久化时或刷新时才执行INSERT，写入范围一直保持到事务结束，同一个事务中实体持久化之后的查询也会按需建表。
+ * 没有事务时不打开写入范围。需要排在其他会路由实体的监听之前
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 5:20 上午
+ */
+@Slf4j
+public class PartitionWriteScopeEntityListener {
+
+    @PrePersist
+    public void open(Object entity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            log.debug("没有事务，{}不打开写入范围", entity.getClass().getSimpleName());
+            return;
+        }
+        //每个事务只打开一次
+        if (TransactionSynchronizationManager.hasResource(PartitionWriteScope.class)) {
+            return;
+        }
+        PartitionWriteScope scope = PartitionWriteScope.open();
+        TransactionSynchronizationManager.bindResource(PartitionWriteScope.class, scope);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(PartitionWriteScope.class);
+                scope.close();
+            }
+        });
+    }
+}
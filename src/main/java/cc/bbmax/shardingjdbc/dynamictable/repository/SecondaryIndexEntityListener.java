@@ -0,0 +1,50 @@
+package cc.bbmax.shardingjdbc.dynamictable.repository;
+
+import cc.bbmax.shardingjdbc.dynamictable.sharding.PartitionResolver;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.index.GlobalSecondaryIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.shardingsphere.underlying.common.rule.DataNode;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 通过JPA写入时维护全局二级索引，在INSERT/UPDATE之前记录索引列的值所在的分区
+ * <p>
+ * 由Hibernate通过Spring创建，Spring Boot默认为Hibernate配置了SpringBeanContainer
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 2:30 上午
+ */
+@Slf4j
+public class SecondaryIndexEntityListener {
+
+    @Autowired
+    private PartitionResolver partitionResolver;
+
+    @Autowired
+    private GlobalSecondaryIndex secondaryIndex;
+
+    @PrePersist
+    @PreUpdate
+    public void index(Object entity) {
+        if (secondaryIndex == null) {
+            log.warn("{}没有由Spring创建，不维护二级索引", getClass().getSimpleName());
+            return;
+        }
+        EntityMapping mapping = EntityMapping.of(entity.getClass());
+        List<String> indexColumns = secondaryIndex.getIndexColumns(mapping.getLogicTableName());
+        if (indexColumns.isEmpty()) {
+            return;
+        }
+
+        DataNode dataNode = partitionResolver.resolve(mapping.getLogicTableName(), mapping.getShardingValues(entity));
+        for (String indexColumn : indexColumns) {
+            secondaryIndex.addAll(mapping.getLogicTableName(), indexColumn, dataNode,
+                    Collections.singletonList(mapping.getValue(entity, indexColumn)));
+        }
+    }
+}
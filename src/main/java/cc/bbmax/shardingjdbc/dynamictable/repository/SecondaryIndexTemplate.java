@@ -0,0 +1,117 @@
+package cc.bbmax.shardingjdbc.dynamictable.repository;
+
+import cc.bbmax.shardingjdbc.dynamictable.sharding.PartitionResolver;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.index.GlobalSecondaryIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.shardingsphere.underlying.common.rule.DataNode;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.stereotype.Component;
+
+import java.sql.*;
+import java.util.*;
+
+/**
+ * 按建立了全局二级索引的列查询，只查询索引中记录的分区，代替没有分区字段条件、会广播到所有分区的查询
+ * <p>
+ * 缓存的分区中查不到数据时从索引表重新读取一次，其他节点新写入的分区也能查到；已经移出路由的分区不再查询
+ *
+ * <pre>
+ * Optional&lt;DayPartitionTableEntity&gt; entity = secondaryIndexTemplate.findFirst(DayPartitionTableEntity.class, "column1", value);
+ * </pre>
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 2:30 上午
+ */
+@Component
+@Slf4j
+public class SecondaryIndexTemplate {
+
+    private final PartitionResolver partitionResolver;
+
+    private final GlobalSecondaryIndex secondaryIndex;
+
+    public SecondaryIndexTemplate(PartitionResolver partitionResolver, GlobalSecondaryIndex secondaryIndex) {
+        this.partitionResolver = partitionResolver;
+        this.secondaryIndex = secondaryIndex;
+    }
+
+    /**
+     * 查询列等于值的第一条数据，按索引中分区的先后顺序查询
+     *
+     * @param entityClass 实体类型
+     * @param column      建立了索引的列
+     * @param value       值
+     * @return 第一条数据
+     */
+    public <T> Optional<T> findFirst(Class<T> entityClass, String column, Object value) {
+        List<T> results = find(entityClass, column, value, 1);
+        return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
+    }
+
+    /**
+     * 查询列等于值的所有数据
+     *
+     * @param entityClass 实体类型
+     * @param column      建立了索引的列
+     * @param value       值
+     * @return 数据，按索引中分区的先后顺序
+     */
+    public <T> List<T> findAll(Class<T> entityClass, String column, Object value) {
+        return find(entityClass, column, value, Integer.MAX_VALUE);
+    }
+
+    private <T> List<T> find(Class<T> entityClass, String column, Object value, int limit) {
+        EntityMapping mapping = EntityMapping.of(entityClass);
+        String logicTableName = mapping.getLogicTableName();
+        if (!mapping.hasColumn(column) || !secondaryIndex.isIndexed(logicTableName, column)) {
+            throw new IllegalArgumentException(String.format("%s的列%s没有建立二级索引", logicTableName, column));
+        }
+
+        Collection<DataNode> actualDataNodes = partitionResolver.getShardingRule().getTableRule(logicTableName).getActualDataNodes();
+        List<T> results = new ArrayList<>();
+        Set<DataNode> queried = new HashSet<>();
+        //查询所有数据时总是从索引表读取
+        boolean cached = limit != Integer.MAX_VALUE && secondaryIndex.isCached(logicTableName, column, value);
+        query(mapping, entityClass, column, value, limit, cached ? secondaryIndex.lookup(logicTableName, column, value)
+                : secondaryIndex.reload(logicTableName, column, value), actualDataNodes, queried, results);
+        if (cached && results.size() < limit) {
+            //缓存中可能缺少其他节点新写入的分区
+            query(mapping, entityClass, column, value, limit, secondaryIndex.reload(logicTableName, column, value), actualDataNodes, queried, results);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("按二级索引{}.{}查询了{}个分区:{}", logicTableName, column, queried.size(), queried);
+        }
+        return results;
+    }
+
+    private <T> void query(EntityMapping mapping, Class<T> entityClass, String column, Object value, int limit, List<DataNode> dataNodes,
+                           Collection<DataNode> actualDataNodes, Set<DataNode> queried, List<T> results) {
+        for (DataNode dataNode : dataNodes) {
+            if (results.size() >= limit) {
+                return;
+            }
+            if (!actualDataNodes.contains(dataNode) || !queried.add(dataNode)) {
+                continue;
+            }
+            String sql = String.format("SELECT * FROM %s WHERE %s = ?", dataNode.getTableName(), column);
+            try (Connection connection = partitionResolver.getDataSource(dataNode.getDataSourceName()).getConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setMaxRows(limit == Integer.MAX_VALUE ? 0 : limit - results.size());
+                statement.setObject(1, value instanceof java.util.Date && !(value instanceof Timestamp)
+                        ? new Timestamp(((java.util.Date) value).getTime()) : value);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    ResultSetMetaData metaData = resultSet.getMetaData();
+                    while (resultSet.next()) {
+                        Object entity = mapping.newInstance();
+                        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                            mapping.setValue(entity, metaData.getColumnLabel(i), resultSet.getObject(i));
+                        }
+                        results.add(entityClass.cast(entity));
+                    }
+                }
+            } catch (SQLException e) {
+                throw new UncategorizedSQLException("按二级索引查询" + dataNode, sql, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package cc.bbmax.shardingjdbc.dynamictable.repository;
+
+import cc.bbmax.shardingjdbc.dynamictable.sharding.PartitionResolver;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.key.KeySequenceSeeder;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.key.TimeEmbeddedKeyGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.Configurable;
+import org.hibernate.id.IdentifierGenerationException;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * JPA保存实体时按分区时间生成主键，主键中包含分区时间，配合{@link cc.bbmax.shardingjdbc.dynamictable.sharding.TimeKeyDynamicShardingAlgorithm}
+ * 按主键查询时只路由到一个分区
+ *
+ * <pre>
+ * &#64;Id
+ * &#64;GeneratedValue(generator = "time-key")
+ * &#64;GenericGenerator(name = "time-key", strategy = "cc.bbmax.shardingjdbc.dynamictable.repository.TimeEmbeddedIdentifierGenerator",
+ *         parameters = &#64;Parameter(name = "time-column", value = "partitionDate"))
+ * private Long id;
+ * </pre>
+ * 没有time-column参数时使用实体的第一个日期字段。主键生成器和分区解析由{@link TimeEmbeddedKeyGeneratorCustomizer}通过Hibernate配置传入，
+ * 节点号使用dynamic-table.key-generator.worker-id，进程重启后从分区中已有的主键继续编号
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 3:00 上午
+ */
+@Slf4j
+public class TimeEmbeddedIdentifierGenerator implements IdentifierGenerator, Configurable {
+
+    /**
+     * 主键中的时间列参数
+     */
+    public static final String TIME_COLUMN = "time-column";
+
+    /**
+     * Hibernate配置中的主键生成器
+     */
+    public static final String KEY_GENERATOR = "dynamic-table.key-generator";
+
+    /**
+     * Hibernate配置中的分区解析，用于查询分区中已有的主键
+     */
+    public static final String PARTITION_RESOLVER = "dynamic-table.partition-resolver";
+
+    private TimeEmbeddedKeyGenerator keyGenerator;
+
+    private PartitionResolver partitionResolver;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Map<?, ?> settings = serviceRegistry.getService(ConfigurationService.class).getSettings();
+        Object keyGenerator = settings.get(KEY_GENERATOR);
+        if (keyGenerator instanceof TimeEmbeddedKeyGenerator) {
+            this.keyGenerator = (TimeEmbeddedKeyGenerator) keyGenerator;
+        } else {
+            log.warn("Hibernate配置中没有{}，{}使用节点号0生成主键", KEY_GENERATOR, params.getProperty(ENTITY_NAME));
+            this.keyGenerator = new TimeEmbeddedKeyGenerator(0);
+        }
+        Object partitionResolver = settings.get(PARTITION_RESOLVER);
+        if (partitionResolver instanceof PartitionResolver) {
+            this.partitionResolver = (PartitionResolver) partitionResolver;
+        } else {
+            log.warn("Hibernate配置中没有{}，{}重启后可能生成重复的主键", PARTITION_RESOLVER, params.getProperty(ENTITY_NAME));
+        }
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        EntityMapping mapping = EntityMapping.of(object.getClass());
+        String timeColumn = mapping.getKeyTimeColumn();
+        Object partitionDate = timeColumn == null ? null : mapping.getValue(object, timeColumn);
+        if (!(partitionDate instanceof Date)) {
+            throw new IdentifierGenerationException(String.format("%s没有分区时间，无法生成主键", mapping.getLogicTableName()));
+        }
+        KeySequenceSeeder seeder = partitionResolver == null ? KeySequenceSeeder.NONE : new PartitionKeySequenceSeeder(partitionResolver, mapping);
+        try {
+            return keyGenerator.nextId(mapping.getLogicTableName(), (Date) partitionDate, seeder);
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "查询" + mapping.getLogicTableName() + "已使用的主键失败");
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package cc.bbmax.shardingjdbc.dynamictable.repository;
+
+import cc.bbmax.shardingjdbc.dynamictable.sharding.PartitionResolver;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.key.TimeEmbeddedKeyGenerator;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 把Spring创建的主键生成器和分区解析放入Hibernate配置，{@link TimeEmbeddedIdentifierGenerator}由Hibernate创建，从配置中取出
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 3:00 上午
+ */
+@Component
+public class TimeEmbeddedKeyGeneratorCustomizer implements HibernatePropertiesCustomizer {
+
+    private final TimeEmbeddedKeyGenerator keyGenerator;
+
+    private final PartitionResolver partitionResolver;
+
+    public TimeEmbeddedKeyGeneratorCustomizer(TimeEmbeddedKeyGenerator keyGenerator, PartitionResolver partitionResolver) {
+        this.keyGenerator = keyGenerator;
+        this.partitionResolver = partitionResolver;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(TimeEmbeddedIdentifierGenerator.KEY_GENERATOR, keyGenerator);
+        hibernateProperties.put(TimeEmbeddedIdentifierGenerator.PARTITION_RESOLVER, partitionResolver);
+    }
+}
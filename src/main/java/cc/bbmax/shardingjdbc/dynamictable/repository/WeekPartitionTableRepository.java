@@ -11,7 +11,8 @@ import java.util.Optional;
  * @author Jianbo.Peng <pengjianbosoft@gmail.com>
  * @date 2021/10/13 4:41 下午
  */
-public interface WeekPartitionTableRepository extends CrudRepository<WeekPartitionTableEntity, Long> {
+public interface WeekPartitionTableRepository extends CrudRepository<WeekPartitionTableEntity, Long>,
+        PartitionBulkIngestRepository<WeekPartitionTableEntity> {
     Optional<WeekPartitionTableEntity> findFirstByColumn1(String col);
 
     List<WeekPartitionTableEntity> findByPartitionDateBetween(Date startDate, Date endDate);
@@ -11,7 +11,8 @@ import java.util.Optional;
  * @author Jianbo.Peng <pengjianbosoft@gmail.com>
  * @date 2021/10/13 4:41 下午
  */
-public interface YearPartitionTableRepository extends CrudRepository<YearPartitionTableEntity, Long> {
+public interface YearPartitionTableRepository extends CrudRepository<YearPartitionTableEntity, Long>,
+        PartitionBulkIngestRepository<YearPartitionTableEntity> {
     Optional<YearPartitionTableEntity> findFirstByColumn1(String col);
 
     List<YearPartitionTableEntity> findByPartitionDateBetween(Date startDate, Date endDate);
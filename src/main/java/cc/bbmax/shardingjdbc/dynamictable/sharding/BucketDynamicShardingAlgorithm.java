@@ -0,0 +1,249 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding;
+
+import com.google.common.collect.Range;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.shardingsphere.api.sharding.complex.ComplexKeysShardingAlgorithm;
+import org.apache.shardingsphere.api.sharding.complex.ComplexKeysShardingValue;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * 按时间分区后再按第二个分片字段的哈希分桶，当前分区的写入分散到多个桶表上；后缀是分区后缀加两位桶号，如logic_20210101_00
+ * <p>
+ * 使用complex分片策略，时间字段的值是日期，其他字段作为分桶字段：
+ * 同时带有时间和分桶字段时路由到一个桶表，只有时间字段时路由到分区的所有桶表，只有分桶字段时路由到所有分区的同一个桶。
+ * 定时任务按分区周期一次创建所有的桶表
+ * <p>
+ * ShardingJDBC通过无参构造方法创建算法，分区周期和桶数需要继承后在无参构造方法中指定
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 1:25 上午
+ */
+@Slf4j
+public class BucketDynamicShardingAlgorithm extends DynamicStandardShardingAlgorithm implements ComplexKeysShardingAlgorithm<Comparable<?>> {
+
+    private final DynamicStandardShardingAlgorithm periodAlgorithm;
+
+    private final int buckets;
+
+    /**
+     * 每个桶的表名后缀，下标是桶号
+     */
+    private final String[] bucketSuffixes;
+
+    public BucketDynamicShardingAlgorithm(DynamicStandardShardingAlgorithm periodAlgorithm, int buckets) {
+        super(periodAlgorithm.getDateFormat());
+        if (buckets <= 0) {
+            throw new IllegalArgumentException(String.format("桶数%d必须大于0", buckets));
+        }
+        this.periodAlgorithm = periodAlgorithm;
+        this.buckets = buckets;
+        this.bucketSuffixes = new String[buckets];
+        int width = Math.max(2, String.valueOf(buckets - 1).length());
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            bucketSuffixes[bucket] = "_" + StringUtils.leftPad(String.valueOf(bucket), width, '0');
+        }
+    }
+
+    @Override
+    public Collection<String> doSharding(Collection<String> collection, ComplexKeysShardingValue<Comparable<?>> shardingValue) {
+        String logicTableName = shardingValue.getLogicTableName();
+        List<Date> dates = null;
+        Range<Date> dateRange = null;
+        BitSet bucketSet = null;
+        for (Map.Entry<String, Collection<Comparable<?>>> entry : shardingValue.getColumnNameAndShardingValuesMap().entrySet()) {
+            Collection<Comparable<?>> values = entry.getValue();
+            if (values.isEmpty()) {
+                continue;
+            }
+            if (values.iterator().next() instanceof Date) {
+                dates = new ArrayList<>(values.size());
+                for (Comparable<?> value : values) {
+                    dates.add((Date) value);
+                }
+            } else {
+                bucketSet = new BitSet(buckets);
+                for (Comparable<?> value : values) {
+                    bucketSet.set(getBucket(value));
+                }
+            }
+        }
+        for (Map.Entry<String, Range<Comparable<?>>> entry : shardingValue.getColumnNameAndRangeValuesMap().entrySet()) {
+            if (isDateRange(entry.getValue())) {
+                dateRange = toDateRange(entry.getValue());
+            }
+            //分桶字段上的区间无法确定桶，路由到所有的桶
+        }
+
+        PartitionIndex index = getPartitionIndex(logicTableName, collection);
+        Collection<String> tables;
+        if (dates != null) {
+            tables = new LinkedHashSet<>();
+            for (Date date : dates) {
+                String periodTableName = index.find(date.getTime());
+                if (periodTableName != null) {
+                    //同一分区的桶表一起创建，分区存在时不再逐个检查桶表
+                    addBuckets(tables, periodTableName, bucketSet, null);
+                } else {
+                    //分区还未创建，按日期返回桶表，绑定了按需建表时同步创建
+                    for (String tableName : addBuckets(new ArrayList<>(), getTableName(logicTableName, date), bucketSet, null)) {
+                        tables.add(createPartition(logicTableName, tableName));
+                    }
+                }
+            }
+        } else {
+            long lower = dateRange == null ? Long.MIN_VALUE : lowerEndpoint(dateRange);
+            long upper = dateRange == null ? Long.MAX_VALUE : upperEndpoint(dateRange);
+            Set<String> available = new HashSet<>(collection);
+            tables = new ArrayList<>();
+            for (String periodTableName : index.between(lower, upper)) {
+                addBuckets(tables, periodTableName, bucketSet, available);
+            }
+            tables = pruneTableNames(logicTableName, tables, lower, upper);
+            if (tables.isEmpty()) {
+                //区间内没有分区表时，路由到最近的分区表，避免ShardingJDBC抛出no table route info
+                String nearest = index.nearest(upper);
+                if (nearest != null) {
+                    tables = addBuckets(new ArrayList<>(), nearest, bucketSet, available);
+                }
+            }
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("ShardingJDBC分桶查找【{}】", StringUtils.join(tables, ","));
+        }
+        return tables;
+    }
+
+    /**
+     * 分区索引只包含分区，同一分区的桶表在索引中合并成一个不带桶号的分区
+     */
+    @Override
+    PartitionIndex buildPartitionIndex(String logicTableName, Collection<String> availableTableNames) {
+        Collection<String> periodTableNames = new LinkedHashSet<>();
+        for (String tableName : availableTableNames) {
+            if (getBucketSuffixStart(tableName) > 0) {
+                periodTableNames.add(tableName.substring(0, getBucketSuffixStart(tableName)));
+            }
+        }
+        return buildPartitionIndex(logicTableName, availableTableNames, periodTableNames);
+    }
+
+    /**
+     * 返回每个分区的所有桶表，定时任务按分区周期一次创建
+     */
+    @Override
+    public Collection<String> getTableNames(String logicTableName, Date date, int periods) {
+        return expand(super.getTableNames(logicTableName, date, periods));
+    }
+
+    /**
+     * 返回每个分区的所有桶表
+     */
+    @Override
+    public Collection<String> generateTableNames(String logicTableName, Date startDate, Date endDate) {
+        return expand(super.generateTableNames(logicTableName, startDate, endDate));
+    }
+
+    @Override
+    protected LocalDateTime partitionStart(LocalDateTime dateTime) {
+        return periodAlgorithm.partitionStart(dateTime);
+    }
+
+    @Override
+    protected LocalDateTime nextPartitionStart(LocalDateTime partitionStart) {
+        return periodAlgorithm.nextPartitionStart(partitionStart);
+    }
+
+    @Override
+    protected long periodOrdinal(LocalDateTime partitionStart) {
+        return periodAlgorithm.periodOrdinal(partitionStart);
+    }
+
+    /**
+     * 后缀可以带桶号，也可以是分区索引中不带桶号的分区
+     */
+    @Override
+    protected LocalDateTime parsePartitionStart(String suffix) {
+        int bucketSuffixStart = getBucketSuffixStart(suffix);
+        return periodAlgorithm.parsePartitionStart(bucketSuffixStart > 0 ? suffix.substring(0, bucketSuffixStart) : suffix);
+    }
+
+    /**
+     * 获取分桶字段的值所在的桶，整数按值取模，其他类型按哈希值取模
+     *
+     * @param value 分桶字段的值
+     * @return 桶号
+     */
+    public int getBucket(Comparable<?> value) {
+        if (value instanceof Number && !(value instanceof Double || value instanceof Float)) {
+            return (int) Math.floorMod(((Number) value).longValue(), (long) buckets);
+        }
+        return Math.floorMod(value.hashCode(), buckets);
+    }
+
+    public int getBuckets() {
+        return buckets;
+    }
+
+    private Collection<String> expand(Collection<String> periodTableNames) {
+        Collection<String> tableNames = new LinkedHashSet<>();
+        for (String periodTableName : periodTableNames) {
+            addBuckets(tableNames, periodTableName, null, null);
+        }
+        return tableNames;
+    }
+
+    /**
+     * 添加分区的桶表
+     *
+     * @param tables          结果
+     * @param periodTableName 不带桶号的分区
+     * @param bucketSet       桶号，为null时添加所有的桶
+     * @param available       可用的分区表，为null时不过滤
+     * @return 结果
+     */
+    private Collection<String> addBuckets(Collection<String> tables, String periodTableName, BitSet bucketSet, Collection<String> available) {
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            if (bucketSet != null && !bucketSet.get(bucket)) {
+                continue;
+            }
+            String tableName = periodTableName + bucketSuffixes[bucket];
+            if (available == null || available.contains(tableName)) {
+                tables.add(tableName);
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * 获取桶号后缀的开始位置
+     *
+     * @param name 表名或后缀
+     * @return 桶号后缀的开始位置，没有桶号时返回-1
+     */
+    private int getBucketSuffixStart(String name) {
+        int start = name.lastIndexOf('_');
+        if (start <= 0 || name.length() - start != bucketSuffixes[0].length()) {
+            return -1;
+        }
+        for (int i = start + 1; i < name.length(); i++) {
+            if (!Character.isDigit(name.charAt(i))) {
+                return -1;
+            }
+        }
+        return Integer.parseInt(name.substring(start + 1)) < buckets ? start : -1;
+    }
+
+    private static boolean isDateRange(Range<Comparable<?>> range) {
+        return (range.hasLowerBound() && range.lowerEndpoint() instanceof Date)
+                || (range.hasUpperBound() && range.upperEndpoint() instanceof Date);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Range<Date> toDateRange(Range<Comparable<?>> range) {
+        return (Range) range;
+    }
+}
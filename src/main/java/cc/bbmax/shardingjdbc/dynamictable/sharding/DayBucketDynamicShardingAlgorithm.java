@@ -0,0 +1,14 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding;
+
+/**
+ * 按天分区，每天分16个桶，如logic_20210101_00..logic_20210101_15
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 1:25 上午
+ */
+public class DayBucketDynamicShardingAlgorithm extends BucketDynamicShardingAlgorithm {
+
+    public DayBucketDynamicShardingAlgorithm() {
+        super(new DayDynamicStandardShardingAlgorithm(), 16);
+    }
+}
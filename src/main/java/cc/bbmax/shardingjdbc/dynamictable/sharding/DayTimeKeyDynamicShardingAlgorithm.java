@@ -0,0 +1,14 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding;
+
+/**
+ * 按天分区，主键包含分区时间，按主键查询时路由到一个分区
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 3:00 上午
+ */
+public class DayTimeKeyDynamicShardingAlgorithm extends TimeKeyDynamicShardingAlgorithm {
+
+    public DayTimeKeyDynamicShardingAlgorithm() {
+        super(new DayDynamicStandardShardingAlgorithm());
+    }
+}
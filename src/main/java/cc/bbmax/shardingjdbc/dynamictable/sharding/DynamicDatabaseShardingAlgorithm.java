@@ -0,0 +1,141 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding;
+
+import cc.bbmax.shardingjdbc.dynamictable.sharding.placement.PartitionPlacement;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.shardingsphere.api.sharding.standard.PreciseShardingAlgorithm;
+import org.apache.shardingsphere.api.sharding.standard.PreciseShardingValue;
+import org.apache.shardingsphere.api.sharding.standard.RangeShardingAlgorithm;
+import org.apache.shardingsphere.api.sharding.standard.RangeShardingValue;
+import org.apache.shardingsphere.core.rule.TableRule;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 动态分区的分库算法，与分表使用同一个分区字段
+ * <p>
+ * 已存在的分区按其实际所在的数据源路由，还不存在的分区按放置策略选择数据源，
+ * 与定时任务建表时的选择一致，保证分库和分表的结果总是对应的
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 7:40 下午
+ */
+@Slf4j
+public class DynamicDatabaseShardingAlgorithm implements PreciseShardingAlgorithm<Date>, RangeShardingAlgorithm<Date> {
+
+    /**
+     * <逻辑表, 绑定的分表信息>，默认分库策略会被多个逻辑表共用
+     */
+    private final Map<String, Binding> bindings = new ConcurrentHashMap<>();
+
+    /**
+     * 绑定逻辑表的分表信息，由定时任务在启动时调用
+     *
+     * @param logicTableName  逻辑表
+     * @param tableRule       规则
+     * @param tableAlgorithm  分表算法
+     * @param placement       放置策略
+     * @param dataSourceNames 可放置新分区的数据源
+     */
+    public void bind(String logicTableName, TableRule tableRule, DynamicStandardShardingAlgorithm tableAlgorithm,
+                     PartitionPlacement placement, List<String> dataSourceNames) {
+        bindings.put(logicTableName.toLowerCase(), new Binding(tableRule, tableAlgorithm, placement, dataSourceNames));
+    }
+
+    @Override
+    public String doSharding(Collection<String> collection, PreciseShardingValue<Date> preciseShardingValue) {
+        String logicTableName = preciseShardingValue.getLogicTableName();
+        Binding binding = bindings.get(logicTableName);
+        if (binding == null) {
+            //还未绑定时只能使用第一个数据源，与单库时的行为一致
+            return collection.iterator().next();
+        }
+
+        long timestamp = preciseShardingValue.getValue().getTime();
+        Map<String, Collection<String>> datasourceToTablesMap = binding.tableRule.getDatasourceToTablesMap();
+        for (String dataSourceName : collection) {
+            Collection<String> tableNames = datasourceToTablesMap.get(dataSourceName);
+            if (tableNames != null && binding.tableAlgorithm.getPartitionIndex(logicTableName, tableNames).find(timestamp) != null) {
+                return dataSourceName;
+            }
+        }
+
+        //分区还未创建
+        String tableName = binding.tableAlgorithm.getTableName(logicTableName, preciseShardingValue.getValue());
+        String dataSourceName = binding.place(logicTableName, tableName, collection);
+        if (log.isDebugEnabled()) {
+            log.debug("ShardingJDBC分区{}不存在，放置到{}", tableName, dataSourceName);
+        }
+        return dataSourceName;
+    }
+
+    /**
+     * 只返回区间内有分区的数据源
+     */
+    @Override
+    public Collection<String> doSharding(Collection<String> collection, RangeShardingValue<Date> rangeShardingValue) {
+        String logicTableName = rangeShardingValue.getLogicTableName();
+        Binding binding = bindings.get(logicTableName);
+        if (binding == null) {
+            return collection;
+        }
+
+        long lower = DynamicStandardShardingAlgorithm.lowerEndpoint(rangeShardingValue.getValueRange());
+        long upper = DynamicStandardShardingAlgorithm.upperEndpoint(rangeShardingValue.getValueRange());
+        Map<String, Collection<String>> datasourceToTablesMap = binding.tableRule.getDatasourceToTablesMap();
+        Collection<String> result = new LinkedHashSet<>();
+        String fallback = null;
+        for (String dataSourceName : collection) {
+            Collection<String> tableNames = datasourceToTablesMap.get(dataSourceName);
+            if (tableNames == null || tableNames.isEmpty()) {
+                continue;
+            }
+            if (fallback == null) {
+                fallback = dataSourceName;
+            }
+            PartitionIndex index = binding.tableAlgorithm.getPartitionIndex(logicTableName, tableNames);
+            if (!binding.tableAlgorithm.getRangeTableNames(logicTableName, index, lower, upper).isEmpty()) {
+                result.add(dataSourceName);
+            }
+        }
+
+        if (result.isEmpty()) {
+            //区间内没有分区时路由到一个有分区的数据源，由分表算法选择最近的分区，避免ShardingJDBC抛出no database route info
+            result.add(fallback == null ? collection.iterator().next() : fallback);
+        }
+        return result;
+    }
+
+    private static final class Binding {
+
+        private final TableRule tableRule;
+
+        private final DynamicStandardShardingAlgorithm tableAlgorithm;
+
+        private final PartitionPlacement placement;
+
+        private final List<String> dataSourceNames;
+
+        Binding(TableRule tableRule, DynamicStandardShardingAlgorithm tableAlgorithm,
+                PartitionPlacement placement, List<String> dataSourceNames) {
+            this.tableRule = tableRule;
+            this.tableAlgorithm = tableAlgorithm;
+            this.placement = placement;
+            this.dataSourceNames = Collections.unmodifiableList(new ArrayList<>(dataSourceNames));
+        }
+
+        String place(String logicTableName, String tableName, Collection<String> availableNames) {
+            List<String> candidates = dataSourceNames;
+            if (availableNames != null && !availableNames.isEmpty() && !availableNames.containsAll(dataSourceNames)) {
+                //ShardingJDBC只允许路由到已经有分区的数据源
+                candidates = new ArrayList<>(dataSourceNames);
+                candidates.retainAll(availableNames);
+                if (candidates.isEmpty()) {
+                    candidates = new ArrayList<>(availableNames);
+                }
+            }
+            long periodOrdinal = tableAlgorithm.getPeriodOrdinal(logicTableName, tableName);
+            return placement.place(tableName, periodOrdinal, candidates, tableRule.getDatasourceToTablesMap());
+        }
+    }
+}
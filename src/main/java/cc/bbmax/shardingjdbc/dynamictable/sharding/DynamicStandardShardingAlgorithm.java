@@ -1,16 +1,26 @@
 package cc.bbmax.shardingjdbc.dynamictable.sharding;
 
+import com.google.common.collect.BoundType;
 import com.google.common.collect.Range;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.metrics.ShardingMeters;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.statistics.PartitionStatisticsCatalog;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.shardingsphere.api.sharding.standard.PreciseShardingAlgorithm;
 import org.apache.shardingsphere.api.sharding.standard.PreciseShardingValue;
 import org.apache.shardingsphere.api.sharding.standard.RangeShardingAlgorithm;
 import org.apache.shardingsphere.api.sharding.standard.RangeShardingValue;
 
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Jianbo.Peng <pengjianbosoft@gmail.com>
@@ -19,65 +29,632 @@ import java.util.*;
 @Slf4j
 public class DynamicStandardShardingAlgorithm implements PreciseShardingAlgorithm<Date>, RangeShardingAlgorithm<Date> {
 
-    final static long ONE_DAY_MILLISECOND = 86400000L;
-
+    final static String MINUTE_DATE_FORMAT = "yyyyMMddHHmm";
+    final static String HOUR_DATE_FORMAT = "yyyyMMddHH";
     final static String DAY_DATE_FORMAT = "yyyyMMdd";
     final static String WEEK_DATE_FORMAT = "yyyyw";
     final static String MONTH_DATE_FORMAT = "yyyyMM";
     final static String YEAR_DATE_FORMAT = "yyyy";
 
+    final static LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
     private final String dateFormat;
 
+    private final DateTimeFormatter dateFormatter;
+
+    private final DateTimeFormatter dateParser;
+
+    private final ZoneId zoneId;
+
+    /**
+     * 每个逻辑表缓存的分区索引数，多数据源时每个数据源的可用分区表集合各对应一个索引
+     */
+    private static final int PARTITION_INDEX_SLOTS = 8;
+
+    /**
+     * <逻辑表, 分区索引>，最近构建的在前面
+     */
+    private final Map<String, PartitionIndex[]> partitionIndexes = new ConcurrentHashMap<>();
+
+    /**
+     * 分区统计目录，由定时任务在启动时绑定，区间路由用它跳过不可能有数据的分区
+     */
+    private volatile PartitionStatisticsCatalog statisticsCatalog;
+
+    /**
+     * <逻辑表, 路由指标>，由定时任务在启动时绑定，没有绑定的逻辑表不记录
+     */
+    private final Map<String, ShardingMeters> meters = new ConcurrentHashMap<>();
+
+    /**
+     * <逻辑表, 按需建表>，由定时任务在启动时绑定，没有绑定的逻辑表在分区不存在时仍按日期返回分区表
+     */
+    private final Map<String, PartitionCreator> creators = new ConcurrentHashMap<>();
+
+    /**
+     * <逻辑表, 合并后的分区算法>，由定时任务在启动时绑定，合并后的粗粒度分区与未合并的分区一起参与路由
+     */
+    private final Map<String, DynamicStandardShardingAlgorithm> compactions = new ConcurrentHashMap<>();
+
     public DynamicStandardShardingAlgorithm(String dateFormat) {
         this.dateFormat = dateFormat;
+        this.dateFormatter = DateTimeFormatter.ofPattern(dateFormat);
+        this.dateParser = new DateTimeFormatterBuilder()
+                .appendPattern(dateFormat)
+                .parseDefaulting(ChronoField.MONTH_OF_YEAR, 1)
+                .parseDefaulting(ChronoField.DAY_OF_MONTH, 1)
+                .parseDefaulting(ChronoField.HOUR_OF_DAY, 0)
+                .parseDefaulting(ChronoField.MINUTE_OF_HOUR, 0)
+                .toFormatter();
+        this.zoneId = ZoneId.systemDefault();
     }
 
+    /**
+     * 写入和点查的热点路径，分区已存在时直接从分区索引中返回可用分区表的名称，不分配对象
+     */
     @Override
     public String doSharding(Collection<String> collection, PreciseShardingValue<Date> preciseShardingValue) {
-        Set<String> dateLists = generateTableNames(preciseShardingValue.getLogicTableName(), dateFormat,
-                preciseShardingValue.getValue(), preciseShardingValue.getValue());
-        if (dateLists.isEmpty()) {
-            return null;
+        String logicTableName = preciseShardingValue.getLogicTableName();
+        ShardingMeters shardingMeters = meters.isEmpty() ? null : meters.get(logicTableName);
+        long start = shardingMeters == null ? 0 : System.nanoTime();
+        Date value = preciseShardingValue.getValue();
+        String tableName = getPartitionIndex(logicTableName, collection).find(value.getTime());
+        if (tableName == null) {
+            tableName = missingTableName(logicTableName, value);
         }
 
-        log.debug("ShardingJDBC精准查找【{}】", StringUtils.join(dateLists, ","));
-        return dateLists.iterator().next();
+        if (log.isDebugEnabled()) {
+            log.debug("ShardingJDBC精准查找【{}】", tableName);
+        }
+        if (shardingMeters != null) {
+            shardingMeters.recordPrecise(System.nanoTime() - start);
+        }
+        return tableName;
     }
 
+    /**
+     * 分区还未创建，绑定了按需建表时同步创建，放在单独的方法中不影响热点路径的内联
+     */
+    private String missingTableName(String logicTableName, Date value) {
+        return createPartition(logicTableName, formatTableName(logicTableName, toLocalDateTime(value)));
+    }
+
+    /**
+     * 绑定了按需建表时同步创建分区表，是否只在{@link PartitionWriteScope}内建表由绑定的建表方法决定
+     *
+     * @param logicTableName 逻辑表
+     * @param tableName      不存在的分区表
+     * @return 分区表
+     */
+    String createPartition(String logicTableName, String tableName) {
+        PartitionCreator creator = creators.isEmpty() ? null : creators.get(logicTableName);
+        //查询不存在的分区不算建表失败，只记录写入时的失败
+        if (creator != null && !creator.create(logicTableName, tableName) && PartitionWriteScope.isActive()) {
+            log.warn("分区{}按需创建失败", tableName);
+        }
+        return tableName;
+    }
+
+    /**
+     * 只返回已存在的分区表，区间可以是单边或无边界的
+     */
     @Override
     public Collection<String> doSharding(Collection<String> collection, RangeShardingValue<Date> rangeShardingValue) {
-        Collection<String> result = new LinkedHashSet<>();
-        Range<Date> shardingKey = rangeShardingValue.getValueRange();
-        String logicTableName = rangeShardingValue.getLogicTableName();
-        Date startTime = shardingKey.lowerEndpoint();
-        Date endTime = shardingKey.upperEndpoint();
-        Date now = new Date();
-        if (startTime.after(now)) {
-            startTime = now;
-        }
-        if (endTime.after(now)) {
-            endTime = now;
-        }
-        Collection<String> tables = generateTableNames(logicTableName, dateFormat, startTime, endTime);
-        if (CollectionUtils.isNotEmpty(tables)) {
+        ShardingMeters shardingMeters = meters.isEmpty() ? null : meters.get(rangeShardingValue.getLogicTableName());
+        long start = shardingMeters == null ? 0 : System.nanoTime();
+        Range<Date> valueRange = rangeShardingValue.getValueRange();
+        long lower = lowerEndpoint(valueRange);
+        long upper = upperEndpoint(valueRange);
+
+        PartitionIndex index = getPartitionIndex(rangeShardingValue.getLogicTableName(), collection);
+        Collection<String> tables = getRangeTableNames(rangeShardingValue.getLogicTableName(), index, lower, upper);
+        if (tables.isEmpty()) {
+            //区间内没有分区表时，路由到最近的分区表，避免ShardingJDBC抛出no table route info
+            String nearest = index.nearest(upper);
+            tables = nearest == null ? Collections.emptyList() : Collections.singletonList(nearest);
+        }
+
+        if (log.isDebugEnabled()) {
             log.debug("ShardingJDBC区间查找【{}】", StringUtils.join(tables, ","));
-            result.addAll(tables);
         }
-        return result;
+        if (shardingMeters != null) {
+            shardingMeters.recordRange(System.nanoTime() - start, tables.size());
+        }
+        return tables;
+    }
+
+    /**
+     * 获取与[lower, upper]有交集的分区表，按分区统计跳过空分区和数据范围不相交的分区
+     *
+     * @param logicTableName 逻辑表
+     * @param index          分区索引
+     * @param lower          开始时间戳(包含)
+     * @param upper          结束时间戳(包含)
+     * @return 分区表集合，按时间先后排序
+     */
+    public Collection<String> getRangeTableNames(String logicTableName, PartitionIndex index, long lower, long upper) {
+        return pruneTableNames(logicTableName, index.between(lower, upper), lower, upper);
+    }
+
+    /**
+     * 按分区统计跳过空分区和数据范围不相交的分区，没有绑定分区统计目录时原样返回
+     */
+    Collection<String> pruneTableNames(String logicTableName, Collection<String> tables, long lower, long upper) {
+        PartitionStatisticsCatalog catalog = statisticsCatalog;
+        return catalog == null || tables.isEmpty() ? tables : catalog.prune(logicTableName, tables, lower, upper);
+    }
+
+    /**
+     * 绑定分区统计目录
+     *
+     * @param statisticsCatalog 分区统计目录
+     */
+    public void bindStatisticsCatalog(PartitionStatisticsCatalog statisticsCatalog) {
+        this.statisticsCatalog = statisticsCatalog;
+    }
+
+    /**
+     * 绑定逻辑表的路由指标
+     *
+     * @param logicTableName 逻辑表
+     * @param shardingMeters 路由指标
+     */
+    public void bindMeters(String logicTableName, ShardingMeters shardingMeters) {
+        meters.put(logicTableName, shardingMeters);
+    }
+
+    /**
+     * 绑定按需建表，精准路由的分区不存在时同步创建
+     *
+     * @param logicTableName 逻辑表
+     * @param creator        按需建表
+     */
+    public void bindPartitionCreator(String logicTableName, PartitionCreator creator) {
+        creators.put(logicTableName, creator);
+    }
+
+    /**
+     * 绑定分区合并，历史分区合并成粗粒度的分区后，分区索引同时包含两种粒度的分区
+     *
+     * @param logicTableName     逻辑表
+     * @param compactedAlgorithm 合并后的分区算法，如日分区合并为月分区时为月分区算法
+     * @throws IllegalArgumentException 合并后的分区表名可以被当前算法解析，无法区分两种粒度的分区
+     */
+    public void bindCompaction(String logicTableName, DynamicStandardShardingAlgorithm compactedAlgorithm) {
+        LocalDateTime sample = compactedAlgorithm.partitionStart(LocalDateTime.now());
+        String suffix = compactedAlgorithm.dateFormatter.format(sample);
+        if (parsePartitionStart(suffix) != null) {
+            throw new IllegalArgumentException(String.format("%s合并后的分区表名%s与%s的分区表名无法区分",
+                    logicTableName, suffix, dateFormat));
+        }
+        compactions.put(logicTableName, compactedAlgorithm);
+    }
+
+    /**
+     * 获取分区合并后所在的分区表
+     *
+     * @param logicTableName 逻辑表
+     * @param tableName      分区表
+     * @return 合并后的分区表，没有绑定分区合并、不是分区表或者分区跨越了合并后的两个分区时返回null
+     */
+    public String getCompactedTableName(String logicTableName, String tableName) {
+        DynamicStandardShardingAlgorithm compaction = compactions.isEmpty() ? null : compactions.get(logicTableName);
+        String prefix = logicTableName + "_";
+        if (compaction == null || !StringUtils.startsWithIgnoreCase(tableName, prefix)) {
+            return null;
+        }
+        LocalDateTime partitionStart = parsePartitionStart(tableName.substring(prefix.length()));
+        if (partitionStart == null) {
+            return null;
+        }
+        LocalDateTime compactedStart = compaction.partitionStart(partitionStart);
+        if (nextPartitionStart(partitionStart).isAfter(compaction.nextPartitionStart(compactedStart))) {
+            return null;
+        }
+        return compaction.formatTableName(logicTableName, compactedStart);
+    }
+
+    /**
+     * 获取被合并后的分区覆盖的分区表，合并完成到删除原分区之间两者同时存在，路由只使用合并后的分区
+     *
+     * @param logicTableName 逻辑表
+     * @param tableNames     分区表集合
+     * @return 被覆盖的分区表
+     */
+    public Set<String> getShadowedTableNames(String logicTableName, Collection<String> tableNames) {
+        Set<String> results = new LinkedHashSet<>();
+        if (compactions.isEmpty() || !compactions.containsKey(logicTableName)) {
+            return results;
+        }
+        Set<String> compactedTableNames = new HashSet<>();
+        for (String tableName : tableNames) {
+            if (getCompactedPartition(logicTableName, tableName) != null) {
+                compactedTableNames.add(tableName.toLowerCase());
+            }
+        }
+        if (compactedTableNames.isEmpty()) {
+            return results;
+        }
+        for (String tableName : tableNames) {
+            String compactedTableName = getCompactedTableName(logicTableName, tableName);
+            if (compactedTableName != null && compactedTableNames.contains(compactedTableName.toLowerCase())) {
+                results.add(tableName);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 解析合并后的分区表
+     *
+     * @return [起始时间, 结束时间)，不是合并后的分区表时返回null
+     */
+    private LocalDateTime[] getCompactedPartition(String logicTableName, String tableName) {
+        DynamicStandardShardingAlgorithm compaction = compactions.isEmpty() ? null : compactions.get(logicTableName);
+        String prefix = logicTableName + "_";
+        if (compaction == null || !StringUtils.startsWithIgnoreCase(tableName, prefix)) {
+            return null;
+        }
+        String suffix = tableName.substring(prefix.length());
+        if (parsePartitionStart(suffix) != null) {
+            return null;
+        }
+        LocalDateTime partitionStart = compaction.parsePartitionStart(suffix);
+        //yyyy可以解析任意长度的数字，需要能原样格式化回表名
+        if (partitionStart == null || !compaction.dateFormatter.format(partitionStart).equals(suffix)) {
+            return null;
+        }
+        return new LocalDateTime[]{partitionStart, compaction.nextPartitionStart(partitionStart)};
     }
 
-    Set<String> generateTableNames(String logicTableName, String dateFormat, Date startDate, Date endDate) {
-        long endStamp = endDate.getTime();
-        long rollStamp = startDate.getTime();
-        Set<String> list = new HashSet<>();
-        SimpleDateFormat sdf = new SimpleDateFormat(dateFormat);
-        while (endStamp >= rollStamp) {
-            String suffix = sdf.format(new Date(rollStamp));
-            list.add(String.format("%s_%s", logicTableName, suffix));
-            rollStamp = rollStamp + ONE_DAY_MILLISECOND;
+    /**
+     * 区间的开始时间戳(包含)，没有下边界时为Long.MIN_VALUE
+     */
+    static long lowerEndpoint(Range<Date> valueRange) {
+        if (!valueRange.hasLowerBound()) {
+            return Long.MIN_VALUE;
         }
+        long lower = valueRange.lowerEndpoint().getTime();
+        return valueRange.lowerBoundType() == BoundType.OPEN ? lower + 1 : lower;
+    }
+
+    /**
+     * 区间的结束时间戳(包含)，没有上边界时为Long.MAX_VALUE
+     */
+    static long upperEndpoint(Range<Date> valueRange) {
+        if (!valueRange.hasUpperBound()) {
+            return Long.MAX_VALUE;
+        }
+        long upper = valueRange.upperEndpoint().getTime();
+        return valueRange.upperBoundType() == BoundType.OPEN ? upper - 1 : upper;
+    }
+
+    /**
+     * 获取逻辑表的分区索引，可用分区表发生变化时重建
+     *
+     * @param logicTableName      逻辑表
+     * @param availableTableNames 可用的分区表集合
+     * @return 分区索引
+     */
+    public PartitionIndex getPartitionIndex(String logicTableName, Collection<String> availableTableNames) {
+        PartitionIndex[] indexes = partitionIndexes.get(logicTableName);
+        if (indexes != null) {
+            for (PartitionIndex index : indexes) {
+                if (index.isBuiltFrom(availableTableNames)) {
+                    return index;
+                }
+            }
+        }
+
+        PartitionIndex index = buildPartitionIndex(logicTableName, availableTableNames);
+        partitionIndexes.compute(logicTableName, (key, current) -> {
+            int length = current == null ? 0 : Math.min(current.length, PARTITION_INDEX_SLOTS - 1);
+            PartitionIndex[] result = new PartitionIndex[length + 1];
+            result[0] = index;
+            if (length > 0) {
+                System.arraycopy(current, 0, result, 1, length);
+            }
+            return result;
+        });
+        return index;
+    }
+
+    /**
+     * 解析已存在的分区表，在最早和最晚的分区之间按周期步进，保留存在的分区
+     *
+     * @param logicTableName      逻辑表
+     * @param availableTableNames 可用的分区表集合
+     * @return 分区索引
+     */
+    PartitionIndex buildPartitionIndex(String logicTableName, Collection<String> availableTableNames) {
+        return buildPartitionIndex(logicTableName, availableTableNames, availableTableNames);
+    }
+
+    /**
+     * 按给定的分区表名称构建分区索引，索引仍以可用分区表集合的引用判断是否需要重建
+     *
+     * @param logicTableName      逻辑表
+     * @param availableTableNames 可用的分区表集合
+     * @param tableNames          参与索引的分区表名称
+     * @return 分区索引
+     */
+    PartitionIndex buildPartitionIndex(String logicTableName, Collection<String> availableTableNames, Collection<String> tableNames) {
+        String prefix = logicTableName + "_";
+        Map<String, String> names = new HashMap<>();
+        TreeSet<LocalDateTime> partitionStarts = new TreeSet<>();
+        //合并后的分区<起始时间戳, 结束时间戳>和<起始时间戳, 分区表>
+        TreeMap<Long, Long> compactedRanges = new TreeMap<>();
+        Map<Long, String> compactedNames = new HashMap<>();
+        LocalDateTime first = null;
+        LocalDateTime last = null;
+        for (String tableName : tableNames) {
+            if (!StringUtils.startsWithIgnoreCase(tableName, prefix)) {
+                continue;
+            }
+            LocalDateTime partitionStart = parsePartitionStart(tableName.substring(prefix.length()));
+            if (partitionStart == null) {
+                LocalDateTime[] compacted = getCompactedPartition(logicTableName, tableName);
+                if (compacted != null) {
+                    compactedRanges.put(toEpochMilli(compacted[0]), toEpochMilli(compacted[1]));
+                    compactedNames.put(toEpochMilli(compacted[0]), tableName);
+                }
+                continue;
+            }
+            names.put(tableName.toLowerCase(), tableName);
+            partitionStarts.add(partitionStart);
+            if (first == null || partitionStart.isBefore(first)) {
+                first = partitionStart;
+            }
+            if (last == null || partitionStart.isAfter(last)) {
+                last = partitionStart;
+            }
+        }
+
+        List<Long> starts = new ArrayList<>();
+        List<Long> ends = new ArrayList<>();
+        List<String> indexNames = new ArrayList<>();
+        if (first != null) {
+            //多走一个周期，周分区跨年那一周的后半段使用的是当年第1周的表名
+            LocalDateTime end = nextPartitionStart(last);
+            LocalDateTime roll = partitionStart(first);
+            boolean previous = false;
+            while (!roll.isAfter(end)) {
+                LocalDateTime next = nextPartitionStart(roll);
+                String tableName = names.get(formatTableName(logicTableName, roll).toLowerCase());
+                if (tableName != null) {
+                    starts.add(toEpochMilli(roll));
+                    ends.add(toEpochMilli(next));
+                    indexNames.add(tableName);
+                } else if (!previous) {
+                    //连续缺少的分区直接跳到下一个存在的分区，小时、分钟分区之间的空缺不逐个周期步进
+                    LocalDateTime following = partitionStarts.higher(roll);
+                    if (following == null) {
+                        break;
+                    }
+                    if (following.isAfter(next)) {
+                        next = following;
+                    }
+                }
+                previous = tableName != null;
+                roll = next;
+            }
+        }
+
+        if (!compactedRanges.isEmpty()) {
+            mergeCompacted(starts, ends, indexNames, compactedRanges, compactedNames);
+        }
+
+        return new PartitionIndex(availableTableNames,
+                starts.stream().mapToLong(Long::longValue).toArray(),
+                ends.stream().mapToLong(Long::longValue).toArray(),
+                indexNames.toArray(new String[0]));
+    }
+
+    /**
+     * 把合并后的分区按时间顺序并入分区索引，被合并后的分区覆盖的分区不再参与路由
+     */
+    private static void mergeCompacted(List<Long> starts, List<Long> ends, List<String> indexNames,
+                                       TreeMap<Long, Long> compactedRanges, Map<Long, String> compactedNames) {
+        List<Long> mergedStarts = new ArrayList<>();
+        List<Long> mergedEnds = new ArrayList<>();
+        List<String> mergedNames = new ArrayList<>();
+        Iterator<Map.Entry<Long, Long>> compacted = compactedRanges.entrySet().iterator();
+        Map.Entry<Long, Long> next = compacted.next();
+        for (int i = 0; i < starts.size(); i++) {
+            long start = starts.get(i);
+            long end = ends.get(i);
+            while (next != null && next.getKey() < end) {
+                mergedStarts.add(next.getKey());
+                mergedEnds.add(next.getValue());
+                mergedNames.add(compactedNames.get(next.getKey()));
+                next = compacted.hasNext() ? compacted.next() : null;
+            }
+            Map.Entry<Long, Long> floor = compactedRanges.floorEntry(start);
+            Long ceiling = compactedRanges.ceilingKey(start);
+            if ((floor == null || floor.getValue() <= start) && (ceiling == null || ceiling >= end)) {
+                mergedStarts.add(start);
+                mergedEnds.add(end);
+                mergedNames.add(indexNames.get(i));
+            }
+        }
+        while (next != null) {
+            mergedStarts.add(next.getKey());
+            mergedEnds.add(next.getValue());
+            mergedNames.add(compactedNames.get(next.getKey()));
+            next = compacted.hasNext() ? compacted.next() : null;
+        }
+        starts.clear();
+        starts.addAll(mergedStarts);
+        ends.clear();
+        ends.addAll(mergedEnds);
+        indexNames.clear();
+        indexNames.addAll(mergedNames);
+    }
+
+    /**
+     * 获取时间所在的分区表以及之后的periods个分区表，用于提前建表
+     *
+     * @param logicTableName 逻辑表
+     * @param date           时间
+     * @param periods        往后的分区数
+     * @return 分区表集合，按时间先后排序
+     */
+    public Collection<String> getTableNames(String logicTableName, Date date, int periods) {
+        LocalDateTime roll = partitionStart(toLocalDateTime(date));
+        Collection<String> tableNames = new LinkedHashSet<>();
+        for (int i = 0; i <= periods; i++) {
+            tableNames.add(formatTableName(logicTableName, roll));
+            roll = nextPartitionStart(roll);
+        }
+        return tableNames;
+    }
+
+    /**
+     * 按分区周期生成时间区间内的分区表，按时间先后排序
+     *
+     * @param logicTableName 逻辑表
+     * @param startDate      开始时间
+     * @param endDate        结束时间
+     * @return 分区表集合
+     */
+    public Collection<String> generateTableNames(String logicTableName, Date startDate, Date endDate) {
+        LocalDateTime end = toLocalDateTime(endDate);
+        LocalDateTime roll = partitionStart(toLocalDateTime(startDate));
+        Collection<String> tableNames = new LinkedHashSet<>();
+        while (!roll.isAfter(end)) {
+            tableNames.add(formatTableName(logicTableName, roll));
+            roll = nextPartitionStart(roll);
+        }
+
+        return tableNames;
+    }
+
+    /**
+     * 获取分区表的周期序号，相邻的分区序号相邻，用于在多个数据源之间轮流放置分区
+     *
+     * @param logicTableName 逻辑表
+     * @param tableName      分区表
+     * @return 周期序号，不是分区表时返回-1
+     */
+    public long getPeriodOrdinal(String logicTableName, String tableName) {
+        String prefix = logicTableName + "_";
+        if (!StringUtils.startsWithIgnoreCase(tableName, prefix)) {
+            return -1;
+        }
+        LocalDateTime partitionStart = parsePartitionStart(tableName.substring(prefix.length()));
+        if (partitionStart == null) {
+            //合并后的分区取其中最后一个周期的序号，封存和保留周期按最晚的分区计算
+            LocalDateTime[] compacted = getCompactedPartition(logicTableName, tableName);
+            return compacted == null ? -1 : periodOrdinal(partitionStart(compacted[1].minusNanos(1)));
+        }
+        return periodOrdinal(partitionStart);
+    }
+
+    /**
+     * 获取分区的结束时间
+     *
+     * @param logicTableName 逻辑表
+     * @param tableName      分区表
+     * @return 分区结束时间戳(不包含)，不是分区表时返回-1
+     */
+    public long getPartitionEnd(String logicTableName, String tableName) {
+        String prefix = logicTableName + "_";
+        if (!StringUtils.startsWithIgnoreCase(tableName, prefix)) {
+            return -1;
+        }
+        LocalDateTime partitionStart = parsePartitionStart(tableName.substring(prefix.length()));
+        if (partitionStart == null) {
+            LocalDateTime[] compacted = getCompactedPartition(logicTableName, tableName);
+            return compacted == null ? -1 : toEpochMilli(compacted[1]);
+        }
+        return toEpochMilli(nextPartitionStart(partitionStart));
+    }
+
+    /**
+     * 获取分区的起始时间
+     *
+     * @param logicTableName 逻辑表
+     * @param tableName      分区表
+     * @return 分区起始时间戳(包含)，不是分区表时返回-1
+     */
+    public long getPartitionStart(String logicTableName, String tableName) {
+        String prefix = logicTableName + "_";
+        if (!StringUtils.startsWithIgnoreCase(tableName, prefix)) {
+            return -1;
+        }
+        LocalDateTime partitionStart = parsePartitionStart(tableName.substring(prefix.length()));
+        if (partitionStart == null) {
+            LocalDateTime[] compacted = getCompactedPartition(logicTableName, tableName);
+            return compacted == null ? -1 : toEpochMilli(compacted[0]);
+        }
+        return toEpochMilli(partitionStart);
+    }
+
+    /**
+     * 获取时间所在的分区表
+     *
+     * @param logicTableName 逻辑表
+     * @param date           时间
+     * @return 分区表
+     */
+    public String getTableName(String logicTableName, Date date) {
+        return formatTableName(logicTableName, toLocalDateTime(date));
+    }
+
+    /**
+     * 获取时间所在分区的起始时间，子类按各自的分区周期覆盖
+     *
+     * @param dateTime 时间
+     * @return 分区起始时间
+     */
+    protected LocalDateTime partitionStart(LocalDateTime dateTime) {
+        return dateTime.truncatedTo(ChronoUnit.DAYS);
+    }
+
+    /**
+     * 获取下一个分区的起始时间，子类按各自的分区周期覆盖
+     *
+     * @param partitionStart 当前分区起始时间
+     * @return 下一个分区起始时间
+     */
+    protected LocalDateTime nextPartitionStart(LocalDateTime partitionStart) {
+        return partitionStart.plusDays(1);
+    }
+
+    /**
+     * 获取分区的周期序号，子类按各自的分区周期覆盖
+     *
+     * @param partitionStart 分区起始时间
+     * @return 从1970年开始的周期数
+     */
+    protected long periodOrdinal(LocalDateTime partitionStart) {
+        return ChronoUnit.DAYS.between(EPOCH, partitionStart);
+    }
+
+    /**
+     * 解析分区表后缀得到分区起始时间，子类后缀无法直接解析时覆盖
+     *
+     * @param suffix 分区表后缀
+     * @return 分区起始时间，不是分区表时返回null
+     */
+    protected LocalDateTime parsePartitionStart(String suffix) {
+        try {
+            return partitionStart(LocalDateTime.parse(suffix, dateParser));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    String formatTableName(String logicTableName, LocalDateTime dateTime) {
+        return logicTableName + "_" + dateFormatter.format(dateTime);
+    }
+
+    LocalDateTime toLocalDateTime(Date date) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(date.getTime()), zoneId);
+    }
 
-        return list;
+    long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(zoneId).toInstant().toEpochMilli();
     }
 
     public String getDateFormat() {
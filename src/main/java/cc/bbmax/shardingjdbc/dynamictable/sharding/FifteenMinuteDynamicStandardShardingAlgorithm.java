@@ -0,0 +1,14 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding;
+
+/**
+ * 按15分钟分区，每天96个分区
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 0:10 上午
+ */
+public class FifteenMinuteDynamicStandardShardingAlgorithm extends MinuteDynamicStandardShardingAlgorithm {
+
+    public FifteenMinuteDynamicStandardShardingAlgorithm() {
+        super(15);
+    }
+}
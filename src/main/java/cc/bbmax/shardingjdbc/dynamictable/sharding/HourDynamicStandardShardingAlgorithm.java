@@ -0,0 +1,32 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * 按小时分区，每天24个分区
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 0:10 上午
+ */
+public class HourDynamicStandardShardingAlgorithm extends DynamicStandardShardingAlgorithm {
+
+    public HourDynamicStandardShardingAlgorithm() {
+        super(HOUR_DATE_FORMAT);
+    }
+
+    @Override
+    protected LocalDateTime partitionStart(LocalDateTime dateTime) {
+        return dateTime.truncatedTo(ChronoUnit.HOURS);
+    }
+
+    @Override
+    protected LocalDateTime nextPartitionStart(LocalDateTime partitionStart) {
+        return partitionStart.plusHours(1);
+    }
+
+    @Override
+    protected long periodOrdinal(LocalDateTime partitionStart) {
+        return ChronoUnit.HOURS.between(EPOCH, partitionStart);
+    }
+}
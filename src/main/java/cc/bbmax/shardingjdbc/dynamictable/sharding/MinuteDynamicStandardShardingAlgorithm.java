@@ -0,0 +1,60 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * 按N分钟分区，N需要能整除一天的分钟数，分区在每天0点对齐；后缀是分区的开始时间(yyyyMMddHHmm)
+ * <p>
+ * ShardingJDBC通过无参构造方法创建算法，其他分钟数需要继承后在无参构造方法中指定
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 0:10 上午
+ */
+public class MinuteDynamicStandardShardingAlgorithm extends DynamicStandardShardingAlgorithm {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final int minutes;
+
+    public MinuteDynamicStandardShardingAlgorithm(int minutes) {
+        super(MINUTE_DATE_FORMAT);
+        if (minutes <= 0 || MINUTES_PER_DAY % minutes != 0) {
+            throw new IllegalArgumentException(String.format("分区分钟数%d不能整除一天的分钟数", minutes));
+        }
+        this.minutes = minutes;
+    }
+
+    @Override
+    protected LocalDateTime partitionStart(LocalDateTime dateTime) {
+        int minuteOfDay = dateTime.getHour() * 60 + dateTime.getMinute();
+        return dateTime.truncatedTo(ChronoUnit.DAYS).plusMinutes(minuteOfDay - minuteOfDay % minutes);
+    }
+
+    @Override
+    protected LocalDateTime nextPartitionStart(LocalDateTime partitionStart) {
+        return partitionStart.plusMinutes(minutes);
+    }
+
+    @Override
+    protected long periodOrdinal(LocalDateTime partitionStart) {
+        return ChronoUnit.MINUTES.between(EPOCH, partitionStart) / minutes;
+    }
+
+    /**
+     * 后缀不是分区开始时间的表不是分区表
+     */
+    @Override
+    protected LocalDateTime parsePartitionStart(String suffix) {
+        LocalDateTime partitionStart = super.parsePartitionStart(suffix);
+        if (partitionStart == null) {
+            return null;
+        }
+        int minuteOfDay = Integer.parseInt(suffix.substring(8, 10)) * 60 + Integer.parseInt(suffix.substring(10, 12));
+        return minuteOfDay % minutes == 0 ? partitionStart : null;
+    }
+
+    public int getMinutes() {
+        return minutes;
+    }
+}
@@ -0,0 +1,20 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding;
+
+/**
+ * 精准路由时分区还不存在，同步创建分区并加入路由
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 1:10 上午
+ */
+@FunctionalInterface
+public interface PartitionCreator {
+
+    /**
+     * 创建分区，同一个分区的并发调用只执行一次DDL，其余调用等待同一个结果
+     *
+     * @param logicTableName 逻辑表
+     * @param tableName      分区表
+     * @return 分区是否已经可用
+     */
+    boolean create(String logicTableName, String tableName);
+}
@@ -0,0 +1,130 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding;
+
+import java.util.*;
+
+/**
+ * 逻辑表的分区索引，按分区起始时间排序，区间为[start, end)
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 3:10 下午
+ */
+public final class PartitionIndex {
+
+    /**
+     * 构建索引时使用的可用分区表集合，用于判断索引是否过期
+     */
+    private final Collection<String> source;
+
+    private final int sourceSize;
+
+    private final long[] starts;
+
+    private final long[] ends;
+
+    private final String[] tableNames;
+
+    /**
+     * 同一个分区表是否只对应一个区间，周分区跨年的那一周会对应两个区间
+     */
+    private final boolean distinct;
+
+    /**
+     * 分区连续且周期等长时的周期毫秒数（如无夏令时时区下的日分区），否则为0
+     */
+    private final long uniformPeriod;
+
+    PartitionIndex(Collection<String> source, long[] starts, long[] ends, String[] tableNames) {
+        this.source = source;
+        this.sourceSize = source.size();
+        this.starts = starts;
+        this.ends = ends;
+        this.tableNames = tableNames;
+        this.distinct = new HashSet<>(Arrays.asList(tableNames)).size() == tableNames.length;
+        this.uniformPeriod = computeUniformPeriod(starts, ends);
+    }
+
+    boolean isBuiltFrom(Collection<String> availableTableNames) {
+        return source == availableTableNames && sourceSize == availableTableNames.size();
+    }
+
+    /**
+     * 查找时间戳所在的分区表，精准路由的热点路径，不分配任何对象
+     *
+     * @param timestamp 时间戳
+     * @return 分区表，分区不存在时返回null
+     */
+    public String find(long timestamp) {
+        int length = starts.length;
+        if (length == 0 || timestamp < starts[0] || timestamp >= ends[length - 1]) {
+            return null;
+        }
+        if (uniformPeriod > 0) {
+            return tableNames[(int) ((timestamp - starts[0]) / uniformPeriod)];
+        }
+
+        int index = lastStartNotAfter(timestamp);
+        return timestamp < ends[index] ? tableNames[index] : null;
+    }
+
+    /**
+     * 查找与[lower, upper]有交集的分区表，按时间先后排序
+     *
+     * @param lower 开始时间戳(包含)
+     * @param upper 结束时间戳(包含)
+     * @return 分区表集合
+     */
+    public Collection<String> between(long lower, long upper) {
+        int from = firstEndAfter(lower);
+        int to = lastStartNotAfter(upper);
+        if (from > to) {
+            return Collections.emptyList();
+        }
+
+        List<String> result = Arrays.asList(tableNames).subList(from, to + 1);
+        return distinct ? Collections.unmodifiableList(result) : new LinkedHashSet<>(result);
+    }
+
+    /**
+     * 查找离[lower, upper]最近的分区表，区间内没有分区时用来兜底
+     *
+     * @param upper 结束时间戳(包含)
+     * @return 分区表，没有分区时返回null
+     */
+    public String nearest(long upper) {
+        if (tableNames.length == 0) {
+            return null;
+        }
+        return tableNames[Math.max(lastStartNotAfter(upper), 0)];
+    }
+
+    public int size() {
+        return tableNames.length;
+    }
+
+    public boolean isEmpty() {
+        return tableNames.length == 0;
+    }
+
+    private static long computeUniformPeriod(long[] starts, long[] ends) {
+        if (starts.length == 0) {
+            return 0;
+        }
+        long period = ends[0] - starts[0];
+        for (int i = 1; i < starts.length; i++) {
+            if (starts[i] != ends[i - 1] || ends[i] - starts[i] != period) {
+                return 0;
+            }
+        }
+        return period;
+    }
+
+    private int firstEndAfter(long timestamp) {
+        int index = Arrays.binarySearch(ends, timestamp);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private int lastStartNotAfter(long timestamp) {
+        int index = Arrays.binarySearch(starts, timestamp);
+        return index >= 0 ? index : -index - 2;
+    }
+}
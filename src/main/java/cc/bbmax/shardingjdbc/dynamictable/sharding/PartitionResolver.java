@@ -0,0 +1,180 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding;
+
+import com.google.common.collect.Range;
+import org.apache.shardingsphere.api.config.sharding.TableRuleConfiguration;
+import org.apache.shardingsphere.api.config.sharding.strategy.ComplexShardingStrategyConfiguration;
+import org.apache.shardingsphere.api.config.sharding.strategy.StandardShardingStrategyConfiguration;
+import org.apache.shardingsphere.core.rule.ShardingRule;
+import org.apache.shardingsphere.core.rule.TableRule;
+import org.apache.shardingsphere.core.strategy.route.ShardingStrategy;
+import org.apache.shardingsphere.core.strategy.route.complex.ComplexShardingStrategy;
+import org.apache.shardingsphere.core.strategy.route.value.ListRouteValue;
+import org.apache.shardingsphere.core.strategy.route.value.RangeRouteValue;
+import org.apache.shardingsphere.core.strategy.route.value.RouteValue;
+import org.apache.shardingsphere.shardingjdbc.jdbc.core.datasource.ShardingDataSource;
+import org.apache.shardingsphere.underlying.common.rule.DataNode;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.*;
+
+/**
+ * 按ShardingJDBC的分库分表规则解析一行数据所在的实际分区，用于绕过SQL解析直接访问实际表
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 8:40 下午
+ */
+@Component
+public class PartitionResolver {
+
+    private final ShardingDataSource dataSource;
+
+    public PartitionResolver(DataSource dataSource) {
+        this.dataSource = (ShardingDataSource) dataSource;
+    }
+
+    /**
+     * 解析分片键所在的实际分区
+     *
+     * @param logicTableName 逻辑表
+     * @param shardingValues <分片字段, 值>，字段名不区分大小写
+     * @return 实际分区
+     */
+    public DataNode resolve(String logicTableName, Map<String, ? extends Comparable<?>> shardingValues) {
+        ShardingRule shardingRule = getShardingRule();
+        TableRule tableRule = shardingRule.getTableRule(logicTableName);
+        Map<String, RouteValue> routeValues = new HashMap<>();
+        for (Map.Entry<String, ? extends Comparable<?>> entry : shardingValues.entrySet()) {
+            routeValues.put(entry.getKey(), new ListRouteValue<>(entry.getKey(), tableRule.getLogicTable(),
+                    Collections.singletonList(entry.getValue())));
+        }
+
+        String dataSourceName = single(doSharding(shardingRule.getDatabaseShardingStrategy(tableRule),
+                tableRule.getActualDatasourceNames(), logicTableName, routeValues), logicTableName);
+        String tableName = single(doSharding(shardingRule.getTableShardingStrategy(tableRule),
+                tableRule.getActualTableNames(dataSourceName), logicTableName, routeValues), logicTableName);
+        return new DataNode(dataSourceName, tableName);
+    }
+
+    /**
+     * 解析分片字段区间内的实际分区，按分区的时间先后排序
+     *
+     * @param logicTableName 逻辑表
+     * @param column         分片字段，分库和分表需要使用同一个字段
+     * @param range          区间，可以是单边或无边界的
+     * @return 实际分区，区间内没有分区时可能返回最近的分区
+     */
+    public List<DataNode> resolveRange(String logicTableName, String column, Range<Date> range) {
+        ShardingRule shardingRule = getShardingRule();
+        TableRule tableRule = shardingRule.getTableRule(logicTableName);
+        Map<String, RouteValue> routeValues = Collections.singletonMap(column,
+                new RangeRouteValue<>(column, tableRule.getLogicTable(), range));
+
+        List<DataNode> results = new ArrayList<>();
+        for (String dataSourceName : doSharding(shardingRule.getDatabaseShardingStrategy(tableRule),
+                tableRule.getActualDatasourceNames(), logicTableName, routeValues)) {
+            for (String tableName : doSharding(shardingRule.getTableShardingStrategy(tableRule),
+                    tableRule.getActualTableNames(dataSourceName), logicTableName, routeValues)) {
+                results.add(new DataNode(dataSourceName, tableName));
+            }
+        }
+
+        DynamicStandardShardingAlgorithm algorithm = getDynamicAlgorithm(shardingRule, logicTableName);
+        if (algorithm != null) {
+            results.sort(Comparator.comparingLong(dataNode -> algorithm.getPeriodOrdinal(tableRule.getLogicTable(), dataNode.getTableName())));
+        }
+        return results;
+    }
+
+    /**
+     * 获取逻辑表的分表字段
+     *
+     * @param logicTableName 逻辑表
+     * @return 分表字段
+     */
+    public Collection<String> getShardingColumns(String logicTableName) {
+        ShardingRule shardingRule = getShardingRule();
+        return shardingRule.getTableShardingStrategy(shardingRule.getTableRule(logicTableName)).getShardingColumns();
+    }
+
+    /**
+     * 获取实际数据源
+     *
+     * @param dataSourceName 数据源
+     * @return 实际数据源
+     */
+    public DataSource getDataSource(String dataSourceName) {
+        DataSource result = dataSource.getDataSourceMap().get(dataSourceName);
+        if (result == null) {
+            throw new IllegalStateException(String.format("不存在的数据源:%s", dataSourceName));
+        }
+        return result;
+    }
+
+    /**
+     * 获取逻辑表的动态分表算法
+     *
+     * @param logicTableName 逻辑表
+     * @return 分表算法，不是动态分表时返回null
+     */
+    public DynamicStandardShardingAlgorithm getDynamicAlgorithm(String logicTableName) {
+        return getDynamicAlgorithm(getShardingRule(), logicTableName);
+    }
+
+    public ShardingRule getShardingRule() {
+        return dataSource.getRuntimeContext().getRule();
+    }
+
+    private Collection<String> doSharding(ShardingStrategy strategy, Collection<String> availableTargetNames,
+                                          String logicTableName, Map<String, RouteValue> routeValues) {
+        List<RouteValue> values = new ArrayList<>(strategy.getShardingColumns().size());
+        for (String column : strategy.getShardingColumns()) {
+            RouteValue value = getValue(routeValues, column);
+            if (value == null && strategy instanceof ComplexShardingStrategy) {
+                //complex策略允许只带部分分片字段，如分桶算法只带时间字段时路由到分区的所有桶
+                continue;
+            }
+            if (value == null) {
+                throw new IllegalArgumentException(String.format("%s缺少分片字段%s", logicTableName, column));
+            }
+            values.add(value);
+        }
+        return strategy.doSharding(availableTargetNames, values, dataSource.getRuntimeContext().getProperties());
+    }
+
+    private static RouteValue getValue(Map<String, RouteValue> routeValues, String column) {
+        RouteValue value = routeValues.get(column);
+        if (value != null) {
+            return value;
+        }
+        for (Map.Entry<String, RouteValue> entry : routeValues.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(column)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static DynamicStandardShardingAlgorithm getDynamicAlgorithm(ShardingRule shardingRule, String logicTableName) {
+        for (TableRuleConfiguration ruleConfig : shardingRule.getRuleConfiguration().getTableRuleConfigs()) {
+            if (!ruleConfig.getLogicTable().equalsIgnoreCase(logicTableName)) {
+                continue;
+            }
+            Object algorithm = null;
+            if (ruleConfig.getTableShardingStrategyConfig() instanceof StandardShardingStrategyConfiguration) {
+                algorithm = ((StandardShardingStrategyConfiguration) ruleConfig.getTableShardingStrategyConfig()).getPreciseShardingAlgorithm();
+            } else if (ruleConfig.getTableShardingStrategyConfig() instanceof ComplexShardingStrategyConfiguration) {
+                algorithm = ((ComplexShardingStrategyConfiguration) ruleConfig.getTableShardingStrategyConfig()).getShardingAlgorithm();
+            }
+            return algorithm instanceof DynamicStandardShardingAlgorithm ? (DynamicStandardShardingAlgorithm) algorithm : null;
+        }
+        return null;
+    }
+
+    private static String single(Collection<String> targets, String logicTableName) {
+        if (targets.size() != 1) {
+            throw new IllegalStateException(String.format("%s的分片键路由到了%d个目标:%s", logicTableName, targets.size(), targets));
+        }
+        return targets.iterator().next();
+    }
+}
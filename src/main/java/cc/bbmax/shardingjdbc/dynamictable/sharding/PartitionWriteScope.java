@@ -0,0 +1,62 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding;
+
+/**
+ * 当前线程的写入范围，ShardingJDBC的分表算法区分不了读写，只有在写入范围内路由到不存在的分区时才按需建表
+ * <p>
+ * 批量写入和JPA持久化实体时自动打开，直接通过JDBC写入时需要自行打开：
+ * <pre>
+ * try (PartitionWriteScope scope = PartitionWriteScope.open()) {
+ *     statement.executeUpdate();
+ * }
+ * </pre>
+ * 可以嵌套打开，最外层关闭后结束
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 5:20 上午
+ */
+public final class PartitionWriteScope implements AutoCloseable {
+
+    private static final ThreadLocal<int[]> DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final Thread owner = Thread.currentThread();
+
+    private boolean closed;
+
+    private PartitionWriteScope() {
+        DEPTH.get()[0]++;
+    }
+
+    /**
+     * 在当前线程打开写入范围
+     */
+    public static PartitionWriteScope open() {
+        return new PartitionWriteScope();
+    }
+
+    /**
+     * 当前线程是否在写入范围内
+     */
+    public static boolean isActive() {
+        return DEPTH.get()[0] > 0;
+    }
+
+    /**
+     * 关闭写入范围，重复关闭不生效
+     *
+     * @throws IllegalStateException 不在打开的线程中关闭
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        if (owner != Thread.currentThread()) {
+            throw new IllegalStateException("写入范围需要在打开的线程中关闭");
+        }
+        closed = true;
+        int[] depth = DEPTH.get();
+        if (--depth[0] <= 0) {
+            DEPTH.remove();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding;
+
+import cc.bbmax.shardingjdbc.dynamictable.sharding.key.TimeEmbeddedKeyGenerator;
+import com.google.common.collect.Range;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.shardingsphere.api.sharding.complex.ComplexKeysShardingAlgorithm;
+import org.apache.shardingsphere.api.sharding.complex.ComplexKeysShardingValue;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * 按时间分区，主键由{@link TimeEmbeddedKeyGenerator}生成，只带主键的查询从主键中取出分区时间路由到一个分区
+ * <p>
+ * 使用complex分片策略，分片字段中值为日期的是时间字段，值为整数的是主键：
+ * 带有时间字段时按时间路由，只带主键时按主键中的时间路由，主键区间换算成时间区间，两者都有区间时取交集。
+ * 主键所在的分区不存在时路由到最近的分区，查询结果为空
+ * <p>
+ * ShardingJDBC通过无参构造方法创建算法，分区周期需要继承后在无参构造方法中指定
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 3:00 上午
+ */
+@Slf4j
+public class TimeKeyDynamicShardingAlgorithm extends DynamicStandardShardingAlgorithm implements ComplexKeysShardingAlgorithm<Comparable<?>> {
+
+    private final DynamicStandardShardingAlgorithm periodAlgorithm;
+
+    public TimeKeyDynamicShardingAlgorithm(DynamicStandardShardingAlgorithm periodAlgorithm) {
+        super(periodAlgorithm.getDateFormat());
+        this.periodAlgorithm = periodAlgorithm;
+    }
+
+    @Override
+    public Collection<String> doSharding(Collection<String> collection, ComplexKeysShardingValue<Comparable<?>> shardingValue) {
+        String logicTableName = shardingValue.getLogicTableName();
+        List<Date> dates = null;
+        List<Long> keyTimes = null;
+        for (Map.Entry<String, Collection<Comparable<?>>> entry : shardingValue.getColumnNameAndShardingValuesMap().entrySet()) {
+            Collection<Comparable<?>> values = entry.getValue();
+            if (values.isEmpty()) {
+                continue;
+            }
+            if (values.iterator().next() instanceof Date) {
+                dates = new ArrayList<>(values.size());
+                for (Comparable<?> value : values) {
+                    dates.add((Date) value);
+                }
+            } else {
+                keyTimes = new ArrayList<>(values.size());
+                for (Comparable<?> value : values) {
+                    keyTimes.add(TimeEmbeddedKeyGenerator.getTime(((Number) value).longValue()));
+                }
+            }
+        }
+        long lower = Long.MIN_VALUE;
+        long upper = Long.MAX_VALUE;
+        for (Map.Entry<String, Range<Comparable<?>>> entry : shardingValue.getColumnNameAndRangeValuesMap().entrySet()) {
+            Range<Comparable<?>> range = entry.getValue();
+            if (range.hasLowerBound()) {
+                lower = Math.max(lower, toTime(range.lowerEndpoint(), false));
+            }
+            if (range.hasUpperBound()) {
+                upper = Math.min(upper, toTime(range.upperEndpoint(), true));
+            }
+        }
+
+        PartitionIndex index = getPartitionIndex(logicTableName, collection);
+        Collection<String> tables;
+        if (dates != null) {
+            tables = new LinkedHashSet<>();
+            for (Date date : dates) {
+                String tableName = index.find(date.getTime());
+                //分区还未创建，按日期返回分区表，绑定了按需建表时同步创建
+                tables.add(tableName != null ? tableName : createPartition(logicTableName, getTableName(logicTableName, date)));
+            }
+        } else if (keyTimes != null) {
+            tables = new LinkedHashSet<>();
+            for (long keyTime : keyTimes) {
+                //主键所在的分区不存在或已经删除，路由到最近的分区，查询结果为空
+                String tableName = index.find(keyTime);
+                tableName = tableName != null ? tableName : index.nearest(keyTime);
+                if (tableName != null) {
+                    tables.add(tableName);
+                }
+            }
+        } else {
+            tables = getRangeTableNames(logicTableName, index, lower, upper);
+            if (tables.isEmpty()) {
+                //区间内没有分区表时，路由到最近的分区表，避免ShardingJDBC抛出no table route info
+                String nearest = index.nearest(upper);
+                tables = nearest == null ? Collections.emptyList() : Collections.singletonList(nearest);
+            }
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("ShardingJDBC时间主键查找【{}】", StringUtils.join(tables, ","));
+        }
+        return tables;
+    }
+
+    @Override
+    protected LocalDateTime partitionStart(LocalDateTime dateTime) {
+        return periodAlgorithm.partitionStart(dateTime);
+    }
+
+    @Override
+    protected LocalDateTime nextPartitionStart(LocalDateTime partitionStart) {
+        return periodAlgorithm.nextPartitionStart(partitionStart);
+    }
+
+    @Override
+    protected long periodOrdinal(LocalDateTime partitionStart) {
+        return periodAlgorithm.periodOrdinal(partitionStart);
+    }
+
+    @Override
+    protected LocalDateTime parsePartitionStart(String suffix) {
+        return periodAlgorithm.parsePartitionStart(suffix);
+    }
+
+    /**
+     * 区间端点换算成时间戳，主键只精确到秒，上界取该秒的最后一毫秒；开区间按闭区间处理，最多多路由一个分区
+     */
+    private static long toTime(Comparable<?> endpoint, boolean upper) {
+        if (endpoint instanceof Date) {
+            return ((Date) endpoint).getTime();
+        }
+        long time = TimeEmbeddedKeyGenerator.getTime(((Number) endpoint).longValue());
+        return upper ? time + 999 : time;
+    }
+}
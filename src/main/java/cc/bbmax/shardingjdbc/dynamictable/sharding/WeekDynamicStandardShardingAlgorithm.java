@@ -1,12 +1,72 @@
 package cc.bbmax.shardingjdbc.dynamictable.sharding;
 
+import org.apache.commons.lang3.StringUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.WeekFields;
+import java.util.Locale;
+
 /**
  * @author Jianbo.Peng <pengjianbosoft@gmail.com>
  * @date 2021/10/13 3:58 下午
  */
 public class WeekDynamicStandardShardingAlgorithm extends DynamicStandardShardingAlgorithm {
 
+    private final WeekFields weekFields = WeekFields.of(Locale.getDefault(Locale.Category.FORMAT));
+
     public WeekDynamicStandardShardingAlgorithm() {
         super(WEEK_DATE_FORMAT);
     }
+
+    /**
+     * 后缀中的年份是自然年(yyyy)，跨年的那一周会在1月1日被拆成两个分区
+     */
+    @Override
+    protected LocalDateTime partitionStart(LocalDateTime dateTime) {
+        LocalDate date = dateTime.toLocalDate();
+        LocalDate weekStart = date.with(weekFields.dayOfWeek(), 1);
+        if (weekStart.getYear() != date.getYear()) {
+            weekStart = date.withDayOfYear(1);
+        }
+        return weekStart.atStartOfDay();
+    }
+
+    /**
+     * yyyyw中周数是变长的，无法直接解析，在当年的分区中找到对应周数的第一个分区
+     */
+    @Override
+    protected LocalDateTime parsePartitionStart(String suffix) {
+        if (suffix.length() < 5 || suffix.length() > 6 || !StringUtils.isNumeric(suffix)) {
+            return null;
+        }
+        int year = Integer.parseInt(suffix.substring(0, 4));
+        int week = Integer.parseInt(suffix.substring(4));
+        LocalDateTime roll = LocalDate.of(year, 1, 1).atStartOfDay();
+        while (roll.getYear() == year) {
+            if (roll.get(weekFields.weekOfWeekBasedYear()) == week) {
+                return roll;
+            }
+            roll = nextPartitionStart(roll);
+        }
+        return null;
+    }
+
+    @Override
+    protected LocalDateTime nextPartitionStart(LocalDateTime partitionStart) {
+        LocalDate date = partitionStart.toLocalDate();
+        LocalDate next = date.with(weekFields.dayOfWeek(), 1).plusWeeks(1);
+        if (next.getYear() != date.getYear()) {
+            next = LocalDate.of(date.getYear() + 1, 1, 1);
+        }
+        return next.atStartOfDay();
+    }
+
+    /**
+     * 每年最多53周，跨年那一周被拆开的两段使用同一个分区表
+     */
+    @Override
+    protected long periodOrdinal(LocalDateTime partitionStart) {
+        return partitionStart.getYear() * 53L + partitionStart.get(weekFields.weekOfWeekBasedYear());
+    }
 }
@@ -1,5 +1,8 @@
 package cc.bbmax.shardingjdbc.dynamictable.sharding;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
 /**
  * @author Jianbo.Peng <pengjianbosoft@gmail.com>
  * @date 2021/10/13 3:58 下午
@@ -9,4 +12,19 @@ public class YearDynamicStandardShardingAlgorithm extends DynamicStandardShardin
     public YearDynamicStandardShardingAlgorithm() {
         super(YEAR_DATE_FORMAT);
     }
+
+    @Override
+    protected LocalDateTime partitionStart(LocalDateTime dateTime) {
+        return dateTime.withDayOfYear(1).truncatedTo(ChronoUnit.DAYS);
+    }
+
+    @Override
+    protected LocalDateTime nextPartitionStart(LocalDateTime partitionStart) {
+        return partitionStart.plusYears(1);
+    }
+
+    @Override
+    protected long periodOrdinal(LocalDateTime partitionStart) {
+        return ChronoUnit.YEARS.between(EPOCH, partitionStart);
+    }
 }
@@ -0,0 +1,216 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.sql.*;
+import java.util.UUID;
+
+/**
+ * 集群中建表的租约，保存在数据库的一行记录中，同时只有一个节点持有租约并执行DDL
+ * <p>
+ * 持有租约的节点刷新分区后递增元数据版本，按需建表的节点建表后也递增版本，其他节点轮询版本，版本变化时从表目录中同步分区，不执行DDL。
+ * 租约超时后其他节点可以接管，持有租约的节点异常退出不会永久阻塞建表。
+ * 同一张表中name为refresh的一行记录最近一次完成定时刷新的节点(owner)和刷新时间(expire_at)，
+ * 定时任务触发时间不同的节点据此跳过其他节点已经完成的刷新周期，不重复执行DDL
+ *
+ * <pre>
+ * CREATE TABLE dynamic_table_lease (
+ *     name      VARCHAR(64) PRIMARY KEY,
+ *     owner     VARCHAR(128),
+ *     expire_at BIGINT NOT NULL,
+ *     version   BIGINT NOT NULL
+ * )
+ * </pre>
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 0:40 上午
+ */
+@Slf4j
+public class PartitionDdlLease {
+
+    private static final String LEASE_NAME = "ddl";
+
+    private static final String REFRESH_NAME = "refresh";
+
+    private final DataSource dataSource;
+
+    private final String table;
+
+    private final long leaseMillis;
+
+    /**
+     * 当前节点的标识，进程名加随机后缀，同一台机器上的多个进程互不相同
+     */
+    private final String owner;
+
+    public PartitionDdlLease(DataSource dataSource, String table, long leaseMillis) {
+        this.dataSource = dataSource;
+        this.table = table;
+        this.leaseMillis = leaseMillis;
+        this.owner = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * 创建租约表和租约记录，已存在时忽略
+     */
+    public void initialize() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(String.format("CREATE TABLE IF NOT EXISTS %s (name VARCHAR(64) PRIMARY KEY, owner VARCHAR(128), "
+                    + "expire_at BIGINT NOT NULL, version BIGINT NOT NULL)", table));
+            for (String name : new String[]{LEASE_NAME, REFRESH_NAME}) {
+                try (PreparedStatement insert = connection.prepareStatement(
+                        String.format("INSERT INTO %s (name, owner, expire_at, version) VALUES (?, NULL, 0, 0)", table))) {
+                    insert.setString(1, name);
+                    insert.executeUpdate();
+                } catch (SQLIntegrityConstraintViolationException e) {
+                    //其他节点已经创建
+                }
+            }
+        }
+    }
+
+    /**
+     * 尝试获取租约，租约没有被持有、已经超时或者由当前节点持有时成功
+     *
+     * @return 是否获取到租约
+     */
+    public boolean tryAcquire() {
+        long now = System.currentTimeMillis();
+        String sql = String.format("UPDATE %s SET owner = ?, expire_at = ? WHERE name = ? AND (owner IS NULL OR owner = ? OR expire_at < ?)", table);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, owner);
+            statement.setLong(2, now + leaseMillis);
+            statement.setString(3, LEASE_NAME);
+            statement.setString(4, owner);
+            statement.setLong(5, now);
+            return statement.executeUpdate() == 1;
+        } catch (SQLException e) {
+            log.error("获取建表租约失败", e);
+            return false;
+        }
+    }
+
+    /**
+     * 递增元数据版本，只有持有租约的节点可以递增
+     *
+     * @return 递增后的版本，没有持有租约时返回-1
+     */
+    public long incrementVersion() {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     String.format("UPDATE %s SET version = version + 1 WHERE name = ? AND owner = ?", table))) {
+            statement.setString(1, LEASE_NAME);
+            statement.setString(2, owner);
+            if (statement.executeUpdate() != 1) {
+                log.warn("建表租约已经被其他节点接管，不更新元数据版本");
+                return -1;
+            }
+        } catch (SQLException e) {
+            log.error("更新元数据版本失败", e);
+            return -1;
+        }
+        return getVersion();
+    }
+
+    /**
+     * 递增元数据版本，不要求持有租约，用于按需建表等不经过租约执行的DDL
+     *
+     * @return 递增后的版本，失败时返回-1
+     */
+    public long publishVersion() {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     String.format("UPDATE %s SET version = version + 1 WHERE name = ?", table))) {
+            statement.setString(1, LEASE_NAME);
+            if (statement.executeUpdate() != 1) {
+                return -1;
+            }
+        } catch (SQLException e) {
+            log.error("更新元数据版本失败", e);
+            return -1;
+        }
+        return getVersion();
+    }
+
+    /**
+     * 记录当前节点完成了一次定时刷新，需要持有租约
+     *
+     * @param refreshedAt 刷新开始的时间，不早于定时任务的触发时间
+     */
+    public void recordRefresh(long refreshedAt) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     String.format("UPDATE %s SET owner = ?, expire_at = ? WHERE name = ?", table))) {
+            statement.setString(1, owner);
+            statement.setLong(2, refreshedAt);
+            statement.setString(3, REFRESH_NAME);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            log.error("记录刷新时间失败，其他节点可能重复刷新", e);
+        }
+    }
+
+    /**
+     * 读取其他节点最近一次完成的定时刷新的时间
+     *
+     * @return 刷新时间，没有记录、由当前节点完成或读取失败时返回-1
+     */
+    public long getOthersRefreshedAt() {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     String.format("SELECT owner, expire_at FROM %s WHERE name = ?", table))) {
+            statement.setString(1, REFRESH_NAME);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next() || resultSet.getString(1) == null || owner.equals(resultSet.getString(1))) {
+                    return -1;
+                }
+                return resultSet.getLong(2);
+            }
+        } catch (SQLException e) {
+            log.error("读取刷新时间失败", e);
+            return -1;
+        }
+    }
+
+    /**
+     * 释放当前节点持有的租约
+     */
+    public void release() {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     String.format("UPDATE %s SET owner = NULL, expire_at = 0 WHERE name = ? AND owner = ?", table))) {
+            statement.setString(1, LEASE_NAME);
+            statement.setString(2, owner);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            log.error("释放建表租约失败，{}ms后超时", leaseMillis, e);
+        }
+    }
+
+    /**
+     * 读取元数据版本，主键查询，可以高频轮询
+     *
+     * @return 元数据版本，失败时返回-1
+     */
+    public long getVersion() {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     String.format("SELECT version FROM %s WHERE name = ?", table))) {
+            statement.setString(1, LEASE_NAME);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getLong(1) : -1;
+            }
+        } catch (SQLException e) {
+            log.error("读取元数据版本失败", e);
+            return -1;
+        }
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+}
@@ -0,0 +1,305 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.index;
+
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.shardingsphere.shardingjdbc.jdbc.core.datasource.ShardingDataSource;
+import org.apache.shardingsphere.underlying.common.rule.DataNode;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.*;
+import java.util.Date;
+
+/**
+ * 全局二级索引，记录非分片列的值所在的分区，按这些列查询时只查询索引中的分区，不再广播到所有分区
+ * <p>
+ * 每个值在每个分区只有一行，不记录主键，索引表比数据小得多。写入数据之前先写索引，
+ * 写入失败或者数据被删除只会让索引多出不包含该值的分区，不会漏掉分区；超过255个字符的值按前255个字符索引。
+ * 最近查询和写入的值缓存在内存中，其他节点新写入的分区在缓存的分区中查不到数据时从索引表重新读取
+ *
+ * <pre>
+ * CREATE TABLE dynamic_table_index (
+ *     logic_table VARCHAR(64)  NOT NULL,
+ *     column_name VARCHAR(64)  NOT NULL,
+ *     index_value VARCHAR(255) NOT NULL,
+ *     data_source VARCHAR(64)  NOT NULL,
+ *     table_name  VARCHAR(128) NOT NULL,
+ *     PRIMARY KEY (logic_table, column_name, index_value, data_source, table_name)
+ * )
+ * </pre>
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 2:30 上午
+ */
+@Component
+@Slf4j
+public class GlobalSecondaryIndex {
+
+    private static final int MAX_VALUE_LENGTH = 255;
+
+    private final DataSource dataSource;
+
+    private final DynamicTableProperties properties;
+
+    /**
+     * <逻辑表\0列\0值, 分区>，按访问顺序淘汰，只缓存有分区的值
+     */
+    private final Map<String, List<DataNode>> cache;
+
+    private volatile boolean initialized;
+
+    public GlobalSecondaryIndex(DataSource dataSource, DynamicTableProperties properties) {
+        this.dataSource = dataSource;
+        this.properties = properties;
+        int cacheSize = Math.max(properties.getIndex().getCacheSize(), 0);
+        this.cache = new LinkedHashMap<String, List<DataNode>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<DataNode>> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * 列是否建立了索引
+     *
+     * @param logicTableName 逻辑表
+     * @param columnName     列名，不区分大小写
+     * @return 是否建立了索引
+     */
+    public boolean isIndexed(String logicTableName, String columnName) {
+        for (String indexColumn : getIndexColumns(logicTableName)) {
+            if (indexColumn.equalsIgnoreCase(columnName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取逻辑表建立了索引的列
+     *
+     * @param logicTableName 逻辑表
+     * @return 列名
+     */
+    public List<String> getIndexColumns(String logicTableName) {
+        return properties.getTable(logicTableName).getIndexColumns();
+    }
+
+    /**
+     * 记录一个分区中的值，已经记录过的忽略；需要在写入数据之前调用
+     *
+     * @param logicTableName 逻辑表
+     * @param columnName     列名
+     * @param dataNode       分区
+     * @param values         值，null忽略
+     */
+    public void addAll(String logicTableName, String columnName, DataNode dataNode, Collection<?> values) {
+        Set<String> pending = new LinkedHashSet<>();
+        synchronized (cache) {
+            for (Object value : values) {
+                if (value == null) {
+                    continue;
+                }
+                String indexValue = toIndexValue(value);
+                List<DataNode> dataNodes = cache.get(getCacheKey(logicTableName, columnName, indexValue));
+                if (dataNodes == null || !dataNodes.contains(dataNode)) {
+                    pending.add(indexValue);
+                }
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        String sql = String.format("INSERT IGNORE INTO %s (logic_table, column_name, index_value, data_source, table_name) VALUES (?, ?, ?, ?, ?)",
+                properties.getIndex().getTable());
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (String indexValue : pending) {
+                statement.setString(1, logicTableName.toLowerCase());
+                statement.setString(2, columnName.toLowerCase());
+                statement.setString(3, indexValue);
+                statement.setString(4, dataNode.getDataSourceName());
+                statement.setString(5, dataNode.getTableName());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        } catch (SQLException e) {
+            throw new UncategorizedSQLException("写入" + logicTableName + "的二级索引", sql, e);
+        }
+
+        synchronized (cache) {
+            for (String indexValue : pending) {
+                //没有缓存的值下次查询时从索引表读取，已缓存的值追加新分区
+                String key = getCacheKey(logicTableName, columnName, indexValue);
+                List<DataNode> dataNodes = cache.get(key);
+                if (dataNodes != null && !dataNodes.contains(dataNode)) {
+                    List<DataNode> merged = new ArrayList<>(dataNodes);
+                    merged.add(dataNode);
+                    cache.put(key, Collections.unmodifiableList(merged));
+                }
+            }
+        }
+    }
+
+    /**
+     * 值所在的分区是否已经缓存
+     *
+     * @param logicTableName 逻辑表
+     * @param columnName     列名
+     * @param value          值
+     * @return 是否已经缓存
+     */
+    public boolean isCached(String logicTableName, String columnName, Object value) {
+        synchronized (cache) {
+            return cache.containsKey(getCacheKey(logicTableName, columnName, toIndexValue(value)));
+        }
+    }
+
+    /**
+     * 获取值所在的分区，优先使用缓存
+     *
+     * @param logicTableName 逻辑表
+     * @param columnName     列名
+     * @param value          值
+     * @return 分区，没有时返回空集合
+     */
+    public List<DataNode> lookup(String logicTableName, String columnName, Object value) {
+        List<DataNode> dataNodes;
+        synchronized (cache) {
+            dataNodes = cache.get(getCacheKey(logicTableName, columnName, toIndexValue(value)));
+        }
+        return dataNodes != null ? dataNodes : reload(logicTableName, columnName, value);
+    }
+
+    /**
+     * 从索引表重新读取值所在的分区并缓存
+     *
+     * @param logicTableName 逻辑表
+     * @param columnName     列名
+     * @param value          值
+     * @return 分区，没有时返回空集合
+     */
+    public List<DataNode> reload(String logicTableName, String columnName, Object value) {
+        String indexValue = toIndexValue(value);
+        String sql = String.format("SELECT data_source, table_name FROM %s WHERE logic_table = ? AND column_name = ? AND index_value = ?",
+                properties.getIndex().getTable());
+        List<DataNode> dataNodes = new ArrayList<>();
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, logicTableName.toLowerCase());
+            statement.setString(2, columnName.toLowerCase());
+            statement.setString(3, indexValue);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    dataNodes.add(new DataNode(resultSet.getString(1), resultSet.getString(2)));
+                }
+            }
+        } catch (SQLException e) {
+            throw new UncategorizedSQLException("查询" + logicTableName + "的二级索引", sql, e);
+        }
+
+        if (dataNodes.isEmpty()) {
+            return Collections.emptyList();
+        }
+        dataNodes = Collections.unmodifiableList(dataNodes);
+        synchronized (cache) {
+            cache.put(getCacheKey(logicTableName, columnName, indexValue), dataNodes);
+        }
+        return dataNodes;
+    }
+
+    /**
+     * 删除分区的索引，过期分区删除或归档后调用
+     *
+     * @param logicTableName 逻辑表
+     * @param dataNode       分区
+     */
+    public void removePartition(String logicTableName, DataNode dataNode) {
+        String sql = String.format("DELETE FROM %s WHERE logic_table = ? AND data_source = ? AND table_name = ?", properties.getIndex().getTable());
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, logicTableName.toLowerCase());
+            statement.setString(2, dataNode.getDataSourceName());
+            statement.setString(3, dataNode.getTableName());
+            int rows = statement.executeUpdate();
+            log.info("删除了{}在{}上的{}条二级索引", logicTableName, dataNode, rows);
+        } catch (SQLException e) {
+            log.error("删除{}在{}上的二级索引失败", logicTableName, dataNode, e);
+        }
+        synchronized (cache) {
+            cache.values().removeIf(dataNodes -> dataNodes.contains(dataNode));
+        }
+    }
+
+    /**
+     * 把分区的索引复制到另一个分区，分区合并切换路由之前调用，原分区的索引在原分区删除后再删除
+     *
+     * @param logicTableName 逻辑表
+     * @param source         原分区
+     * @param target         合并后的分区
+     */
+    public void copyPartition(String logicTableName, DataNode source, DataNode target) {
+        String table = properties.getIndex().getTable();
+        String sql = String.format("INSERT IGNORE INTO %s (logic_table, column_name, index_value, data_source, table_name) "
+                + "SELECT logic_table, column_name, index_value, ?, ? FROM %s WHERE logic_table = ? AND data_source = ? AND table_name = ?",
+                table, table);
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, target.getDataSourceName());
+            statement.setString(2, target.getTableName());
+            statement.setString(3, logicTableName.toLowerCase());
+            statement.setString(4, source.getDataSourceName());
+            statement.setString(5, source.getTableName());
+            int rows = statement.executeUpdate();
+            log.info("复制了{}从{}到{}的{}条二级索引", logicTableName, source, target, rows);
+        } catch (SQLException e) {
+            throw new UncategorizedSQLException("复制" + logicTableName + "的二级索引", sql, e);
+        }
+        synchronized (cache) {
+            cache.values().removeIf(dataNodes -> dataNodes.contains(source));
+        }
+    }
+
+    /**
+     * 获取索引表所在的数据源，第一次使用时创建索引表
+     */
+    private DataSource getDataSource() throws SQLException {
+        Map<String, DataSource> dataSourceMap = ((ShardingDataSource) this.dataSource).getDataSourceMap();
+        String dataSourceName = properties.getIndex().getDataSource();
+        DataSource result = dataSourceMap.get(StringUtils.isEmpty(dataSourceName) ? dataSourceMap.keySet().iterator().next() : dataSourceName);
+        if (result == null) {
+            throw new IllegalStateException(String.format("不存在的数据源:%s", dataSourceName));
+        }
+        if (!initialized) {
+            synchronized (this) {
+                if (!initialized) {
+                    try (Connection connection = result.getConnection(); Statement statement = connection.createStatement()) {
+                        statement.execute(String.format("CREATE TABLE IF NOT EXISTS %s (logic_table VARCHAR(64) NOT NULL, "
+                                + "column_name VARCHAR(64) NOT NULL, index_value VARCHAR(255) NOT NULL, data_source VARCHAR(64) NOT NULL, "
+                                + "table_name VARCHAR(128) NOT NULL, PRIMARY KEY (logic_table, column_name, index_value, data_source, table_name))",
+                                properties.getIndex().getTable()));
+                    }
+                    initialized = true;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static String getCacheKey(String logicTableName, String columnName, String indexValue) {
+        return logicTableName.toLowerCase() + '\0' + columnName.toLowerCase() + '\0' + indexValue;
+    }
+
+    /**
+     * 日期按时间戳索引，超长的值按前缀索引
+     */
+    private static String toIndexValue(Object value) {
+        String result = value instanceof Date ? String.valueOf(((Date) value).getTime()) : String.valueOf(value);
+        return result.length() > MAX_VALUE_LENGTH ? result.substring(0, MAX_VALUE_LENGTH) : result;
+    }
+}
@@ -0,0 +1,27 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.key;
+
+import java.sql.SQLException;
+
+/**
+ * 主键生成器内存中没有某一秒的序号时(进程重启或序号被淘汰后)，查询这一秒已经写入的最大主键，之后从它继续编号
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 5:15 上午
+ */
+@FunctionalInterface
+public interface KeySequenceSeeder {
+
+    /**
+     * 不查询已写入的主键
+     */
+    KeySequenceSeeder NONE = (minId, maxId) -> -1;
+
+    /**
+     * 查询[minId, maxId]内已经使用的最大主键
+     *
+     * @param minId 当前节点这一秒的最小主键
+     * @param maxId 当前节点这一秒的最大主键
+     * @return 已经使用的最大主键，没有时返回-1
+     */
+    long getMaxId(long minId, long maxId) throws SQLException;
+}
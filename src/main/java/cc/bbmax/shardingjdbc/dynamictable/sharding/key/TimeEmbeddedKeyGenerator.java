@@ -0,0 +1,197 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.key;
+
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 生成包含分区时间的主键，按主键查询时可以从主键中取出时间路由到一个分区，不需要访问数据库
+ * <p>
+ * 与snowflake的布局相同，时间使用数据的分区时间而不是生成时的时钟：
+ * <pre>
+ * 1位符号 | 31位分区时间(2021-01-01起的秒数，到2089年) | 10位节点号 | 22位序号
+ * </pre>
+ * 分区最小是一分钟，秒的精度足以确定分区。同一秒内的主键按生成顺序递增，不同节点的节点号不同，主键全局唯一；
+ * 不同时间的主键按时间排序，按时间写入的数据主键也是递增的。
+ * 每个逻辑表最近使用的{@value #SEQUENCE_CACHE_SIZE}个秒的序号保存在内存中，内存中没有的秒(进程重启或被淘汰后)
+ * 先通过{@link KeySequenceSeeder}查询当前节点这一秒已经写入的最大主键，从它之后继续编号，不会生成已经写入的主键
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 3:00 上午
+ */
+@Component
+public class TimeEmbeddedKeyGenerator {
+
+    /**
+     * 2021-01-01 00:00:00 UTC
+     */
+    public static final long EPOCH = 1609459200000L;
+
+    private static final int SEQUENCE_BITS = 22;
+
+    private static final int WORKER_BITS = 10;
+
+    private static final int TIME_SHIFT = SEQUENCE_BITS + WORKER_BITS;
+
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    private static final long MAX_WORKER_ID = (1L << WORKER_BITS) - 1;
+
+    private static final long MAX_SECONDS = (1L << (63 - TIME_SHIFT)) - 1;
+
+    private static final int SEQUENCE_CACHE_SIZE = 4096;
+
+    private final long workerId;
+
+    /**
+     * <逻辑表和秒, 下一个序号>，按访问顺序淘汰
+     */
+    private final Map<SequenceKey, long[]> sequences = new LinkedHashMap<SequenceKey, long[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<SequenceKey, long[]> eldest) {
+            return size() > SEQUENCE_CACHE_SIZE;
+        }
+    };
+
+    @Autowired
+    public TimeEmbeddedKeyGenerator(DynamicTableProperties properties) {
+        this(properties.getKeyGenerator().getWorkerId());
+    }
+
+    public TimeEmbeddedKeyGenerator(int workerId) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException(String.format("节点号%d需要在0~%d之间", workerId, MAX_WORKER_ID));
+        }
+        this.workerId = workerId;
+    }
+
+    /**
+     * 生成主键，不查询已写入的主键，进程重启后同一秒重新从0编号，只用于不需要与已有数据保持唯一的场景
+     *
+     * @param partitionDate 数据的分区时间
+     * @return 主键
+     */
+    public long nextId(Date partitionDate) {
+        try {
+            return nextId("", partitionDate, KeySequenceSeeder.NONE);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 为逻辑表生成主键，内存中没有这一秒的序号时从seeder查询到的最大主键之后继续编号
+     *
+     * @param logicTableName 逻辑表
+     * @param partitionDate  数据的分区时间
+     * @param seeder         查询这一秒已经写入的最大主键
+     * @return 主键
+     */
+    public long nextId(String logicTableName, Date partitionDate, KeySequenceSeeder seeder) throws SQLException {
+        long seconds = Math.floorDiv(partitionDate.getTime() - EPOCH, 1000L);
+        if (seconds < 0 || seconds > MAX_SECONDS) {
+            throw new IllegalArgumentException(String.format("分区时间%s超出主键可以表示的范围", partitionDate));
+        }
+
+        SequenceKey key = new SequenceKey(logicTableName, seconds);
+        long[] next;
+        synchronized (sequences) {
+            next = sequences.get(key);
+        }
+        if (next == null) {
+            //查询数据库时不持有锁，同一秒并发查询时使用先放入的序号
+            long minId = (seconds << TIME_SHIFT) | (workerId << SEQUENCE_BITS);
+            long usedId = seeder.getMaxId(minId, minId | MAX_SEQUENCE);
+            long[] seeded = {usedId < minId ? 0 : (usedId & MAX_SEQUENCE) + 1};
+            synchronized (sequences) {
+                next = sequences.putIfAbsent(key, seeded);
+                if (next == null) {
+                    next = seeded;
+                }
+            }
+        }
+
+        long sequence;
+        synchronized (sequences) {
+            if (next[0] > MAX_SEQUENCE) {
+                throw new IllegalStateException(String.format("节点%d在%s这一秒内生成的主键超过了%d个", workerId, partitionDate, MAX_SEQUENCE + 1));
+            }
+            sequence = next[0]++;
+        }
+        return (seconds << TIME_SHIFT) | (workerId << SEQUENCE_BITS) | sequence;
+    }
+
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    /**
+     * 从主键中取出分区时间，精确到秒
+     *
+     * @param id 主键
+     * @return 时间戳(毫秒)
+     */
+    public static long getTime(long id) {
+        return EPOCH + (id >>> TIME_SHIFT) * 1000L;
+    }
+
+    /**
+     * 时间戳所在秒的最小主键，按时间区间查询主键区间时使用
+     *
+     * @param time 时间戳(毫秒)
+     * @return 最小主键，早于起始时间时返回0
+     */
+    public static long getMinId(long time) {
+        long seconds = Math.floorDiv(time - EPOCH, 1000L);
+        return seconds < 0 ? 0 : Math.min(seconds, MAX_SECONDS) << TIME_SHIFT;
+    }
+
+    /**
+     * 时间戳所在秒的最大主键
+     *
+     * @param time 时间戳(毫秒)
+     * @return 最大主键，早于起始时间时返回-1
+     */
+    public static long getMaxId(long time) {
+        long seconds = Math.floorDiv(time - EPOCH, 1000L);
+        return seconds < 0 ? -1 : (Math.min(seconds, MAX_SECONDS) << TIME_SHIFT) | ((1L << TIME_SHIFT) - 1);
+    }
+
+    /**
+     * 序号的键，不同逻辑表同一秒的序号分别从各自的已有数据继续
+     */
+    private static final class SequenceKey {
+
+        private final String logicTableName;
+
+        private final long seconds;
+
+        SequenceKey(String logicTableName, long seconds) {
+            this.logicTableName = logicTableName;
+            this.seconds = seconds;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SequenceKey)) {
+                return false;
+            }
+            SequenceKey that = (SequenceKey) o;
+            return seconds == that.seconds && logicTableName.equals(that.logicTableName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(logicTableName, seconds);
+        }
+    }
+}
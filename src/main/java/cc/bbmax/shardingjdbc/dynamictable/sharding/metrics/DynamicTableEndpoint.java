@@ -0,0 +1,29 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 动态分表状态，/actuator/dynamictable
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 11:40 下午
+ */
+@Component
+@Endpoint(id = "dynamictable")
+public class DynamicTableEndpoint {
+
+    private final DynamicTableMetrics metrics;
+
+    public DynamicTableEndpoint(DynamicTableMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @ReadOperation
+    public Map<String, Object> dynamicTable() {
+        return metrics.describe();
+    }
+}
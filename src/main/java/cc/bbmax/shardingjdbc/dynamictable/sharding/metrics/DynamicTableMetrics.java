@@ -0,0 +1,210 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.metrics;
+
+import cc.bbmax.shardingjdbc.dynamictable.sharding.DynamicStandardShardingAlgorithm;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.scheduler.ActualTablesSnapshot;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.scheduler.TableRuleMetadata;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 动态分表的指标：路由耗时和区间路由的分区数、分区刷新和建表的耗时与失败次数、每个逻辑表的分区数和提前创建的小时数
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 11:40 下午
+ */
+@Component
+public class DynamicTableMetrics {
+
+    private final MeterRegistry registry;
+
+    /**
+     * <逻辑表, 分区信息>
+     */
+    private final Map<String, Partitions> partitions = new ConcurrentHashMap<>();
+
+    private volatile long lastRefreshTime;
+
+    private volatile long lastRefreshMillis;
+
+    private volatile boolean lastRefreshSuccess = true;
+
+    public DynamicTableMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * 为逻辑表的分表算法绑定路由指标，并注册分区数和提前创建小时数的Gauge
+     *
+     * @param logicTableName 逻辑表
+     * @param metadata       分区元数据
+     * @param algorithm      分表算法
+     */
+    public void bind(String logicTableName, TableRuleMetadata metadata, DynamicStandardShardingAlgorithm algorithm) {
+        algorithm.bindMeters(logicTableName, new ShardingMeters(registry, logicTableName, algorithm.getClass().getSimpleName()));
+
+        Partitions tablePartitions = new Partitions(logicTableName, metadata, algorithm);
+        partitions.put(logicTableName, tablePartitions);
+        Gauge.builder("dynamic.table.partitions", tablePartitions, Partitions::count)
+                .description("逻辑表已加入Sharding的分区数")
+                .tag("logicTable", logicTableName)
+                .register(registry);
+        Gauge.builder("dynamic.table.partition.lookahead", tablePartitions, Partitions::lookAheadHours)
+                .description("最新的分区结束时间距现在的小时数，小于0表示当前时间已经没有分区")
+                .tag("logicTable", logicTableName)
+                .baseUnit("hours")
+                .register(registry);
+    }
+
+    /**
+     * 为单独配置的区间分表算法绑定路由指标，与精确分表算法共用同一组指标
+     *
+     * @param logicTableName 逻辑表
+     * @param algorithm      区间分表算法
+     */
+    public void bindRange(String logicTableName, DynamicStandardShardingAlgorithm algorithm) {
+        algorithm.bindMeters(logicTableName, new ShardingMeters(registry, logicTableName, algorithm.getClass().getSimpleName()));
+    }
+
+    /**
+     * 记录一次分区刷新
+     *
+     * @param nanos   耗时
+     * @param success 是否全部成功
+     */
+    public void recordRefresh(long nanos, boolean success) {
+        Timer.builder("dynamic.table.refresh")
+                .description("分区刷新耗时")
+                .tag("result", success ? "success" : "failure")
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        lastRefreshTime = System.currentTimeMillis();
+        lastRefreshMillis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        lastRefreshSuccess = success;
+    }
+
+    /**
+     * 记录一个数据源上的一批建表语句
+     *
+     * @param dataSourceName 数据源
+     * @param nanos          耗时
+     * @param failed         失败的表数
+     */
+    public void recordCreateTables(String dataSourceName, long nanos, int failed) {
+        Timer.builder("dynamic.table.ddl")
+                .description("批量建表耗时")
+                .tag("dataSource", dataSourceName)
+                .tag("result", failed == 0 ? "success" : "failure")
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (failed > 0) {
+            Counter.builder("dynamic.table.ddl.failures")
+                    .description("建表失败的表数")
+                    .tag("dataSource", dataSourceName)
+                    .register(registry)
+                    .increment(failed);
+        }
+    }
+
+    /**
+     * 当前的分区状态，用于Actuator端点
+     *
+     * @return 状态
+     */
+    public Map<String, Object> describe() {
+        Map<String, Object> tables = new LinkedHashMap<>();
+        for (Partitions tablePartitions : partitions.values()) {
+            ActualTablesSnapshot snapshot = tablePartitions.metadata.getSnapshot();
+            Map<String, Object> table = new LinkedHashMap<>();
+            table.put("partitions", snapshot.size());
+            Map<String, Integer> dataSources = new LinkedHashMap<>();
+            snapshot.getDatasourceToTablesMap().forEach((dataSourceName, tableNames) -> dataSources.put(dataSourceName, tableNames.size()));
+            table.put("dataSources", dataSources);
+            table.put("newestPartition", tablePartitions.newest(snapshot).tableName);
+            table.put("lookAheadHours", tablePartitions.lookAheadHours());
+            tables.put(tablePartitions.logicTableName, table);
+        }
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        Map<String, Object> refresh = new LinkedHashMap<>();
+        refresh.put("lastTime", lastRefreshTime == 0 ? null : new Date(lastRefreshTime));
+        refresh.put("lastMillis", lastRefreshMillis);
+        refresh.put("lastSuccess", lastRefreshSuccess);
+        results.put("refresh", refresh);
+        results.put("tables", tables);
+        return results;
+    }
+
+    /**
+     * 逻辑表的分区信息，按快照缓存最新的分区，快照不变时不重复计算
+     */
+    private static final class Partitions {
+
+        private final String logicTableName;
+
+        private final TableRuleMetadata metadata;
+
+        private final DynamicStandardShardingAlgorithm algorithm;
+
+        private volatile Newest newest;
+
+        Partitions(String logicTableName, TableRuleMetadata metadata, DynamicStandardShardingAlgorithm algorithm) {
+            this.logicTableName = logicTableName;
+            this.metadata = metadata;
+            this.algorithm = algorithm;
+        }
+
+        double count() {
+            return metadata.getSnapshot().size();
+        }
+
+        double lookAheadHours() {
+            Newest current = newest(metadata.getSnapshot());
+            if (current.tableName == null) {
+                return Double.NaN;
+            }
+            return (current.end - System.currentTimeMillis()) / (double) TimeUnit.HOURS.toMillis(1);
+        }
+
+        Newest newest(ActualTablesSnapshot snapshot) {
+            Newest current = newest;
+            if (current != null && current.snapshot == snapshot) {
+                return current;
+            }
+
+            String tableName = null;
+            long end = Long.MIN_VALUE;
+            for (String actualTable : snapshot.getActualTables()) {
+                long partitionEnd = algorithm.getPartitionEnd(logicTableName, actualTable);
+                if (partitionEnd > end) {
+                    end = partitionEnd;
+                    tableName = actualTable;
+                }
+            }
+            current = new Newest(snapshot, tableName, end);
+            newest = current;
+            return current;
+        }
+    }
+
+    private static final class Newest {
+
+        private final ActualTablesSnapshot snapshot;
+
+        private final String tableName;
+
+        private final long end;
+
+        Newest(ActualTablesSnapshot snapshot, String tableName, long end) {
+            this.snapshot = snapshot;
+            this.tableName = tableName;
+            this.end = end;
+        }
+    }
+}
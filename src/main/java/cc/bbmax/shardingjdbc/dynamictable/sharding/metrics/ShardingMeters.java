@@ -0,0 +1,54 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一个逻辑表的路由指标，在绑定时创建好所有Meter，路由时不再查找和分配
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 11:40 下午
+ */
+public final class ShardingMeters {
+
+    /**
+     * 区间路由分区数的直方图桶
+     */
+    private static final double[] PARTITION_BUCKETS = {1, 2, 4, 8, 16, 32, 64, 128, 256, 512, 1024};
+
+    private final Timer precise;
+
+    private final Timer range;
+
+    private final DistributionSummary rangePartitions;
+
+    ShardingMeters(MeterRegistry registry, String logicTableName, String algorithm) {
+        Tags tags = Tags.of("logicTable", logicTableName, "algorithm", algorithm);
+        this.precise = Timer.builder("dynamic.table.sharding")
+                .description("分片算法耗时")
+                .tags(tags).tag("type", "precise")
+                .register(registry);
+        this.range = Timer.builder("dynamic.table.sharding")
+                .description("分片算法耗时")
+                .tags(tags).tag("type", "range")
+                .register(registry);
+        this.rangePartitions = DistributionSummary.builder("dynamic.table.range.partitions")
+                .description("区间路由返回的分区数")
+                .tags(tags)
+                .serviceLevelObjectives(PARTITION_BUCKETS)
+                .register(registry);
+    }
+
+    public void recordPrecise(long nanos) {
+        precise.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRange(long nanos, int partitions) {
+        range.record(nanos, TimeUnit.NANOSECONDS);
+        rangePartitions.record(partitions);
+    }
+}
@@ -0,0 +1,57 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.placement;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按分区表名一致性哈希放置，增减数据源时只有少量新分区的位置发生变化
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 7:30 下午
+ */
+public class ConsistentHashPartitionPlacement implements PartitionPlacement {
+
+    /**
+     * 每个数据源的虚拟节点数
+     */
+    private static final int VIRTUAL_NODES = 160;
+
+    /**
+     * <数据源列表, 哈希环>
+     */
+    private final Map<List<String>, NavigableMap<Long, String>> rings = new ConcurrentHashMap<>();
+
+    @Override
+    public String place(String tableName, long periodOrdinal, List<String> dataSourceNames,
+                        Map<String, Collection<String>> datasourceToTablesMap) {
+        NavigableMap<Long, String> ring = rings.computeIfAbsent(new ArrayList<>(dataSourceNames), ConsistentHashPartitionPlacement::buildRing);
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(tableName));
+        return entry == null ? ring.firstEntry().getValue() : entry.getValue();
+    }
+
+    private static NavigableMap<Long, String> buildRing(List<String> dataSourceNames) {
+        NavigableMap<Long, String> ring = new TreeMap<>();
+        for (String dataSourceName : dataSourceNames) {
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                ring.put(hash(dataSourceName + "#" + i), dataSourceName);
+            }
+        }
+        return ring;
+    }
+
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xFF);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.placement;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 放置到分区数最少的数据源上，分区数相同时按数据源的顺序选择
+ * <p>
+ * 结果依赖当前的分区分布，重启后需要已有分区的实际位置，否则同一个分区可能被放到不同的数据源
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 7:30 下午
+ */
+public class LeastLoadedPartitionPlacement implements PartitionPlacement {
+
+    @Override
+    public String place(String tableName, long periodOrdinal, List<String> dataSourceNames,
+                        Map<String, Collection<String>> datasourceToTablesMap) {
+        String result = null;
+        int min = Integer.MAX_VALUE;
+        for (String dataSourceName : dataSourceNames) {
+            Collection<String> tableNames = datasourceToTablesMap.get(dataSourceName);
+            int count = tableNames == null ? 0 : tableNames.size();
+            if (count < min) {
+                result = dataSourceName;
+                min = count;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,28 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.placement;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 新分区的放置策略，决定分区表创建在哪个数据源上
+ * <p>
+ * 分区一旦创建就以实际所在的数据源为准，放置策略只对还不存在的分区生效
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 7:30 下午
+ */
+public interface PartitionPlacement {
+
+    /**
+     * 选择新分区所在的数据源
+     *
+     * @param tableName             分区表
+     * @param periodOrdinal         分区的周期序号，相邻的分区序号相邻
+     * @param dataSourceNames       可选的数据源，顺序固定
+     * @param datasourceToTablesMap 当前每个数据源上的分区表
+     * @return 数据源
+     */
+    String place(String tableName, long periodOrdinal, List<String> dataSourceNames,
+                 Map<String, Collection<String>> datasourceToTablesMap);
+}
@@ -0,0 +1,42 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.placement;
+
+/**
+ * 新分区的放置策略
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 7:30 下午
+ */
+public enum PartitionPlacementPolicy {
+
+    /**
+     * 按分区周期轮流放置
+     */
+    ROUND_ROBIN {
+        @Override
+        public PartitionPlacement newPlacement() {
+            return new RoundRobinPartitionPlacement();
+        }
+    },
+
+    /**
+     * 按分区表名一致性哈希放置
+     */
+    CONSISTENT_HASH {
+        @Override
+        public PartitionPlacement newPlacement() {
+            return new ConsistentHashPartitionPlacement();
+        }
+    },
+
+    /**
+     * 放置到分区数最少的数据源
+     */
+    LEAST_LOADED {
+        @Override
+        public PartitionPlacement newPlacement() {
+            return new LeastLoadedPartitionPlacement();
+        }
+    };
+
+    public abstract PartitionPlacement newPlacement();
+}
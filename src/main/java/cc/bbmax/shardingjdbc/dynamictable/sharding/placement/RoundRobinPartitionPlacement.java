@@ -0,0 +1,20 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.placement;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按分区周期轮流放置，相邻的分区落在不同的数据源上，写入压力随时间均匀分布
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 7:30 下午
+ */
+public class RoundRobinPartitionPlacement implements PartitionPlacement {
+
+    @Override
+    public String place(String tableName, long periodOrdinal, List<String> dataSourceNames,
+                        Map<String, Collection<String>> datasourceToTablesMap) {
+        return dataSourceNames.get((int) Math.floorMod(periodOrdinal, (long) dataSourceNames.size()));
+    }
+}
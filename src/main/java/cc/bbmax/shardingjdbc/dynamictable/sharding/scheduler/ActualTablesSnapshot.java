@@ -0,0 +1,393 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.scheduler;
+
+import org.apache.shardingsphere.underlying.common.rule.DataNode;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 逻辑表某一时刻的分区元数据，对外只读，刷新时整体替换
+ * <p>
+ * 同一逻辑表的快照共享只追加的底层数组和哈希索引，每个快照只记录自己可见的长度，
+ * 追加分区的开销与已有分区数无关；已发布的下标范围内的数据不会再被修改，读线程无需加锁
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 6:20 下午
+ */
+public final class ActualTablesSnapshot {
+
+    private final Ledger ledger;
+
+    private final DataNode[] dataNodeArray;
+
+    private final int size;
+
+    private final int tableCount;
+
+    private final List<DataNode> dataNodes;
+
+    private final Map<DataNode, Integer> dataNodeIndexMap;
+
+    private final Set<String> actualTables;
+
+    private final Collection<String> actualDatasourceNames;
+
+    private final Map<String, Collection<String>> datasourceToTablesMap;
+
+    private ActualTablesSnapshot(Ledger ledger, ActualTablesSnapshot previous) {
+        this.ledger = ledger;
+        this.dataNodeArray = ledger.dataNodes;
+        this.size = ledger.size;
+        this.tableCount = ledger.tableCount;
+        this.dataNodes = new DataNodes();
+        this.dataNodeIndexMap = new DataNodeIndexMap();
+        this.actualTables = new ActualTables();
+
+        Map<String, Collection<String>> datasourceToTablesMap = new LinkedHashMap<>();
+        for (Map.Entry<String, TableLedger> entry : ledger.tables.entrySet()) {
+            TableLedger tables = entry.getValue();
+            Collection<String> tableNames = previous == null ? null : previous.datasourceToTablesMap.get(entry.getKey());
+            if (tableNames == null || tableNames.size() != tables.size) {
+                //分区有变化的数据源才生成新的集合，分表算法按集合判断分区索引是否需要重建
+                tableNames = new TableNames(entry.getKey(), tables.tableNames, tables.size);
+            }
+            datasourceToTablesMap.put(entry.getKey(), tableNames);
+        }
+        this.actualDatasourceNames = Collections.unmodifiableCollection(new LinkedHashSet<>(datasourceToTablesMap.keySet()));
+        this.datasourceToTablesMap = Collections.unmodifiableMap(datasourceToTablesMap);
+    }
+
+    /**
+     * 按分区节点构建快照，节点的顺序即为其在dataNodeIndexMap中的下标
+     *
+     * @param dataNodes 分区节点
+     * @return 快照
+     */
+    public static ActualTablesSnapshot of(Collection<DataNode> dataNodes) {
+        Ledger ledger = new Ledger(dataNodes.size());
+        for (DataNode dataNode : dataNodes) {
+            ledger.append(dataNode);
+        }
+        return new ActualTablesSnapshot(ledger, null);
+    }
+
+    /**
+     * 在当前快照的基础上追加分区，已存在的分区保持原来的下标，开销只与新增的分区数有关
+     * <p>
+     * 同一逻辑表的追加需要串行执行，并且只能基于最新的快照
+     *
+     * @param dataSourceName 数据源
+     * @param tableNames     分区表集合
+     * @return 新的快照，没有新增分区时返回当前快照
+     */
+    ActualTablesSnapshot withActualTables(String dataSourceName, Collection<String> tableNames) {
+        Ledger target = ledger;
+        ActualTablesSnapshot previous = this;
+        if (ledger.size != size) {
+            //不是基于最新的快照追加，复制一份独立的底层数据
+            target = new Ledger(size + tableNames.size());
+            for (int i = 0; i < size; i++) {
+                target.append(dataNodeArray[i]);
+            }
+            previous = null;
+        }
+
+        boolean changed = false;
+        for (String tableName : tableNames) {
+            changed |= target.append(new DataNode(dataSourceName, tableName));
+        }
+        return changed || target != ledger ? new ActualTablesSnapshot(target, previous) : this;
+    }
+
+    /**
+     * 在当前快照的基础上移除分区，剩余分区按原来的顺序重新编号，开销与分区总数有关，只在清理过期分区时使用
+     *
+     * @param dataNodes 要移除的分区节点
+     * @return 新的快照，没有移除任何分区时返回当前快照
+     */
+    ActualTablesSnapshot withoutDataNodes(Collection<DataNode> dataNodes) {
+        Set<DataNode> removed = new HashSet<>(dataNodes);
+        Ledger target = new Ledger(size);
+        for (int i = 0; i < size; i++) {
+            if (!removed.contains(dataNodeArray[i])) {
+                target.append(dataNodeArray[i]);
+            }
+        }
+        return target.size == size ? this : new ActualTablesSnapshot(target, this);
+    }
+
+    public boolean contains(String dataSourceName, String tableName) {
+        return dataNodeIndexMap.containsKey(new DataNode(dataSourceName, tableName));
+    }
+
+    /**
+     * 查找分区表所在的数据源
+     *
+     * @param tableName 分区表
+     * @return 数据源，分区表不存在时返回null
+     */
+    public String findDataSourceName(String tableName) {
+        Integer index = ledger.tableIndexes.get(tableName);
+        return index != null && index < size ? dataNodeArray[index].getDataSourceName() : null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public List<DataNode> getDataNodes() {
+        return dataNodes;
+    }
+
+    public Map<DataNode, Integer> getDataNodeIndexMap() {
+        return dataNodeIndexMap;
+    }
+
+    public Set<String> getActualTables() {
+        return actualTables;
+    }
+
+    public Collection<String> getActualDatasourceNames() {
+        return actualDatasourceNames;
+    }
+
+    public Map<String, Collection<String>> getDatasourceToTablesMap() {
+        return datasourceToTablesMap;
+    }
+
+    private int indexOf(Object dataNode) {
+        Integer index = ledger.indexes.get(dataNode);
+        return index != null && index < size ? index : -1;
+    }
+
+    /**
+     * 只追加的底层数据，所有快照共享
+     */
+    private static final class Ledger {
+
+        private final Map<DataNode, Integer> indexes;
+
+        /**
+         * <分区表, 第一次出现的下标>
+         */
+        private final Map<String, Integer> tableIndexes;
+
+        /**
+         * <数据源, 分区表>，数据源的数量很少，保持插入顺序，只在写线程中访问
+         */
+        private final Map<String, TableLedger> tables = new LinkedHashMap<>();
+
+        private DataNode[] dataNodes;
+
+        private int size;
+
+        private int tableCount;
+
+        Ledger(int capacity) {
+            this.indexes = new ConcurrentHashMap<>(Math.max(capacity, 16));
+            this.tableIndexes = new ConcurrentHashMap<>(Math.max(capacity, 16));
+            this.dataNodes = new DataNode[Math.max(capacity, 16)];
+        }
+
+        boolean append(DataNode dataNode) {
+            if (indexes.containsKey(dataNode)) {
+                return false;
+            }
+            if (size == dataNodes.length) {
+                //扩容后旧数组仍被之前的快照引用，已发布的部分不会变化
+                dataNodes = Arrays.copyOf(dataNodes, size + (size >> 1));
+            }
+            dataNodes[size] = dataNode;
+            indexes.put(dataNode, size);
+            if (tableIndexes.putIfAbsent(dataNode.getTableName(), size) == null) {
+                tableCount++;
+            }
+            tables.computeIfAbsent(dataNode.getDataSourceName(), key -> new TableLedger()).append(dataNode.getTableName());
+            size++;
+            return true;
+        }
+    }
+
+    private static final class TableLedger {
+
+        private String[] tableNames = new String[16];
+
+        private int size;
+
+        void append(String tableName) {
+            if (size == tableNames.length) {
+                tableNames = Arrays.copyOf(tableNames, size + (size >> 1));
+            }
+            tableNames[size++] = tableName;
+        }
+    }
+
+    private final class DataNodes extends AbstractList<DataNode> implements RandomAccess {
+
+        @Override
+        public DataNode get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return dataNodeArray[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return indexOf(o) >= 0;
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            return ActualTablesSnapshot.this.indexOf(o);
+        }
+    }
+
+    private final class DataNodeIndexMap extends AbstractMap<DataNode, Integer> {
+
+        @Override
+        public Integer get(Object key) {
+            int index = indexOf(key);
+            return index >= 0 ? index : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return indexOf(key) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Set<Entry<DataNode, Integer>> entrySet() {
+            return new AbstractSet<Entry<DataNode, Integer>>() {
+                @Override
+                public Iterator<Entry<DataNode, Integer>> iterator() {
+                    return new Iterator<Entry<DataNode, Integer>>() {
+                        private int index;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < size;
+                        }
+
+                        @Override
+                        public Entry<DataNode, Integer> next() {
+                            if (index >= size) {
+                                throw new NoSuchElementException();
+                            }
+                            DataNode dataNode = dataNodeArray[index];
+                            return new SimpleImmutableEntry<>(dataNode, index++);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+    }
+
+    private final class ActualTables extends AbstractSet<String> {
+
+        @Override
+        public boolean contains(Object o) {
+            Integer index = ledger.tableIndexes.get(o);
+            return index != null && index < size;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            //只返回每个分区表第一次出现的位置，跨数据源的同名分区表只返回一次
+            return new Iterator<String>() {
+                private int index = advance(0);
+
+                @Override
+                public boolean hasNext() {
+                    return index < size;
+                }
+
+                @Override
+                public String next() {
+                    if (index >= size) {
+                        throw new NoSuchElementException();
+                    }
+                    String tableName = dataNodeArray[index].getTableName();
+                    index = advance(index + 1);
+                    return tableName;
+                }
+
+                private int advance(int from) {
+                    int i = from;
+                    while (i < size && ledger.tableIndexes.get(dataNodeArray[i].getTableName()) != i) {
+                        i++;
+                    }
+                    return i;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return tableCount;
+        }
+    }
+
+    /**
+     * 数据源下的分区表，ShardingJDBC直接把它交给分表算法
+     */
+    private final class TableNames extends AbstractCollection<String> {
+
+        private final String dataSourceName;
+
+        private final String[] tableNames;
+
+        private final int size;
+
+        TableNames(String dataSourceName, String[] tableNames, int size) {
+            this.dataSourceName = dataSourceName;
+            this.tableNames = tableNames;
+            this.size = size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof String && ActualTablesSnapshot.this.contains(dataSourceName, (String) o);
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+                private int index;
+
+                @Override
+                public boolean hasNext() {
+                    return index < size;
+                }
+
+                @Override
+                public String next() {
+                    if (index >= size) {
+                        throw new NoSuchElementException();
+                    }
+                    return tableNames[index++];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.scheduler;
+
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 把同一个数据源上的多个封存分区复制到一个合并后的分区
+ * <p>
+ * 先复制到临时表，全部复制完并核对行数后再改名为合并后的分区表，中断或失败时删除临时表，下次刷新重新合并；
+ * 切换路由后核对原分区与合并后分区的内容校验和，一致时才删除原分区；
+ * 配置了id-column时按主键分批复制，每批chunk-size行，批次之间间隔interval毫秒，不会长时间占用连接和IO
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 4:15 上午
+ */
+@Slf4j
+final class PartitionCompactor {
+
+    private static final String STAGING_SUFFIX = "_compacting";
+
+    private final DynamicTableProperties properties;
+
+    PartitionCompactor(DynamicTableProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 把分区复制到合并后分区的临时表
+     *
+     * @param dataSource     实际数据源
+     * @param compactedTable 合并后的分区表
+     * @param templateTable  建表模板
+     * @param tableNames     待合并的分区表
+     * @param idColumn       主键，为空时每个分区一条语句复制
+     * @return 是否全部复制完成
+     */
+    boolean copy(DataSource dataSource, String compactedTable, String templateTable, List<String> tableNames, String idColumn)
+            throws InterruptedException {
+        String stagingTable = compactedTable + STAGING_SUFFIX;
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            String databaseProductName = connection.getMetaData().getDatabaseProductName();
+            statement.execute(String.format("DROP TABLE IF EXISTS %s", stagingTable));
+            if ("H2".equalsIgnoreCase(databaseProductName)) {
+                statement.execute(String.format("CREATE TABLE %s AS SELECT * FROM %s WITH NO DATA", stagingTable, templateTable));
+            } else {
+                statement.execute(String.format("CREATE TABLE %s LIKE %s", stagingTable, templateTable));
+            }
+
+            for (String tableName : tableNames) {
+                long copied = StringUtils.isEmpty(idColumn)
+                        ? copyTable(connection, stagingTable, tableName)
+                        : copyChunks(connection, stagingTable, tableName, idColumn);
+                long rowCount = count(connection, tableName);
+                if (copied != rowCount) {
+                    log.warn("{}在合并期间有写入，复制了{}行，现有{}行，下次刷新重新合并{}", tableName, copied, rowCount, compactedTable);
+                    statement.execute(String.format("DROP TABLE IF EXISTS %s", stagingTable));
+                    return false;
+                }
+                log.info("{}复制了{}行到{}", tableName, copied, stagingTable);
+            }
+            return true;
+        } catch (SQLException e) {
+            log.error("合并{}失败，下次刷新时重试", compactedTable, e);
+            drop(dataSource, stagingTable);
+            return false;
+        }
+    }
+
+    /**
+     * 把临时表改名为合并后的分区表，之后才能加入路由
+     *
+     * @param dataSource     实际数据源
+     * @param compactedTable 合并后的分区表
+     * @return 是否成功
+     */
+    boolean publish(DataSource dataSource, String compactedTable) {
+        String stagingTable = compactedTable + STAGING_SUFFIX;
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            if ("MySQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())) {
+                statement.execute("SET SESSION lock_wait_timeout = " + properties.getRetention().getLockWaitTimeout());
+                statement.execute(String.format("RENAME TABLE %s TO %s", stagingTable, compactedTable));
+            } else {
+                statement.execute(String.format("ALTER TABLE %s RENAME TO %s", stagingTable, compactedTable));
+            }
+            return true;
+        } catch (SQLException e) {
+            log.error("{}改名为{}失败，下次刷新时重试", stagingTable, compactedTable, e);
+            return false;
+        }
+    }
+
+    /**
+     * 核对已经移出路由的原分区都在合并后的分区中后删除原分区。比较原分区与合并后的分区中对应行的行数和内容校验和，
+     * 复制之后、切换路由之前写入原分区的迟到数据(包括更新、删除后重新写入)会使核对失败，原分区保留
+     * <p>
+     * 配置了id-column时只比较合并后的分区中主键也在原分区中的行，切换路由后写入合并后分区的新数据不影响核对；
+     * 没有配置时比较原分区时间范围内的所有行。切换路由后更新了合并后分区中的这些行同样会保留原分区，需要人工核对
+     *
+     * @param dataSource     实际数据源
+     * @param compactedTable 合并后的分区表
+     * @param tableName      原分区表
+     * @param shardingColumn 分区字段
+     * @param idColumn       主键，可以为空
+     * @param start          原分区起始时间戳(包含)
+     * @param end            原分区结束时间戳(不包含)
+     * @return 是否已删除
+     */
+    boolean retire(DataSource dataSource, String compactedTable, String tableName, String shardingColumn, String idColumn, long start, long end) {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            boolean mysql = "MySQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+            List<String> columns = getColumnNames(connection, tableName);
+            long[] source = checksum(connection, mysql, columns, tableName, "1 = 1");
+            String condition = String.format("%1$s >= ? AND %1$s < ?", shardingColumn);
+            if (StringUtils.isNotEmpty(idColumn)) {
+                condition += String.format(" AND %1$s IN (SELECT %1$s FROM %2$s)", idColumn, tableName);
+            }
+            long[] compacted = checksum(connection, mysql, columns, compactedTable, condition, new Timestamp(start), new Timestamp(end));
+            if (!Arrays.equals(source, compacted)) {
+                log.error("{}有{}行(校验和{})，{}中对应{}行(校验和{})，保留原分区，需要人工核对迟到的数据",
+                        tableName, source[0], source[1], compactedTable, compacted[0], compacted[1]);
+                return false;
+            }
+
+            if (mysql) {
+                statement.execute("SET SESSION lock_wait_timeout = " + properties.getRetention().getLockWaitTimeout());
+            }
+            log.info("删除已合并到{}的表:{}", compactedTable, tableName);
+            statement.execute(String.format("DROP TABLE IF EXISTS %s", tableName));
+            return true;
+        } catch (SQLException e) {
+            log.error("删除已合并的表{}失败，下次刷新时重试", tableName, e);
+            return false;
+        }
+    }
+
+    /**
+     * 计算行数和与行顺序无关的内容校验和(每行CRC32之和)，MySQL在库中计算，其他数据库逐行读取后计算
+     *
+     * @return [行数, 校验和]
+     */
+    private long[] checksum(Connection connection, boolean mysql, List<String> columns, String tableName, String condition, Object... parameters)
+            throws SQLException {
+        String sql;
+        if (mysql) {
+            List<String> values = new ArrayList<>();
+            for (String column : columns) {
+                //CONCAT_WS跳过NULL，同时拼接ISNULL区分NULL和空字符串
+                values.add(column);
+                values.add("ISNULL(" + column + ")");
+            }
+            sql = String.format("SELECT COUNT(*), COALESCE(SUM(CRC32(CONCAT_WS('#', %s))), 0) FROM %s WHERE %s",
+                    String.join(", ", values), tableName, condition);
+        } else {
+            sql = String.format("SELECT %s FROM %s WHERE %s", String.join(", ", columns), tableName, condition);
+        }
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                ps.setObject(i + 1, parameters[i]);
+            }
+            if (!mysql) {
+                ps.setFetchSize(Math.max(properties.getCompaction().getChunkSize(), 1));
+            }
+            try (ResultSet resultSet = ps.executeQuery()) {
+                if (mysql) {
+                    resultSet.next();
+                    return new long[]{resultSet.getLong(1), resultSet.getLong(2)};
+                }
+                long count = 0;
+                long sum = 0;
+                CRC32 crc = new CRC32();
+                while (resultSet.next()) {
+                    crc.reset();
+                    for (int i = 1; i <= columns.size(); i++) {
+                        String value = resultSet.getString(i);
+                        crc.update((value == null ? "\0#" : value + "#").getBytes(StandardCharsets.UTF_8));
+                    }
+                    count++;
+                    sum += crc.getValue();
+                }
+                return new long[]{count, sum};
+            }
+        }
+    }
+
+    /**
+     * 一条语句复制整个分区
+     */
+    private long copyTable(Connection connection, String stagingTable, String tableName) throws SQLException, InterruptedException {
+        String columns = getColumns(connection, tableName);
+        try (Statement statement = connection.createStatement()) {
+            long copied = statement.executeUpdate(String.format("INSERT INTO %s (%s) SELECT %s FROM %s", stagingTable, columns, columns, tableName));
+            Thread.sleep(properties.getCompaction().getInterval());
+            return copied;
+        }
+    }
+
+    /**
+     * 按主键分批复制，每批先查出第chunk-size个主键作为上边界
+     */
+    private long copyChunks(Connection connection, String stagingTable, String tableName, String idColumn)
+            throws SQLException, InterruptedException {
+        String columns = getColumns(connection, tableName);
+        int chunkSize = Math.max(properties.getCompaction().getChunkSize(), 1);
+        long copied = 0;
+        Object lower = null;
+        while (true) {
+            Object upper;
+            try (PreparedStatement ps = connection.prepareStatement(String.format("SELECT %1$s FROM %2$s%3$s ORDER BY %1$s LIMIT 1 OFFSET %4$d",
+                    idColumn, tableName, lower == null ? "" : " WHERE " + idColumn + " > ?", chunkSize - 1))) {
+                if (lower != null) {
+                    ps.setObject(1, lower);
+                }
+                try (ResultSet resultSet = ps.executeQuery()) {
+                    upper = resultSet.next() ? resultSet.getObject(1) : null;
+                }
+            }
+
+            List<String> conditions = new ArrayList<>();
+            List<Object> parameters = new ArrayList<>();
+            if (lower != null) {
+                conditions.add(idColumn + " > ?");
+                parameters.add(lower);
+            }
+            if (upper != null) {
+                conditions.add(idColumn + " <= ?");
+                parameters.add(upper);
+            }
+            String sql = String.format("INSERT INTO %s (%s) SELECT %s FROM %s%s", stagingTable, columns, columns, tableName,
+                    conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions));
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                for (int i = 0; i < parameters.size(); i++) {
+                    ps.setObject(i + 1, parameters.get(i));
+                }
+                copied += ps.executeUpdate();
+            }
+            Thread.sleep(properties.getCompaction().getInterval());
+            if (upper == null) {
+                return copied;
+            }
+            lower = upper;
+        }
+    }
+
+    /**
+     * 分区表的列，复制时按列名对应，分区与模板表的列顺序可能不同
+     */
+    private static String getColumns(Connection connection, String tableName) throws SQLException {
+        return String.join(", ", getColumnNames(connection, tableName));
+    }
+
+    private static List<String> getColumnNames(Connection connection, String tableName) throws SQLException {
+        List<String> columns = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(String.format("SELECT * FROM %s WHERE 1 = 0", tableName))) {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                columns.add(metaData.getColumnName(i));
+            }
+        }
+        return columns;
+    }
+
+    private static long count(Connection connection, String tableName) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(String.format("SELECT COUNT(*) FROM %s", tableName))) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static void drop(DataSource dataSource, String tableName) {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(String.format("DROP TABLE IF EXISTS %s", tableName));
+        } catch (SQLException e) {
+            log.error("删除临时表{}失败", tableName, e);
+        }
+    }
+}
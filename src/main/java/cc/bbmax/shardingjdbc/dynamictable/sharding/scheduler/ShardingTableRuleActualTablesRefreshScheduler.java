@@ -1,30 +1,46 @@
 package cc.bbmax.shardingjdbc.dynamictable.sharding.scheduler;
 
-import cc.bbmax.shardingjdbc.dynamictable.sharding.*;
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.BucketDynamicShardingAlgorithm;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.DynamicDatabaseShardingAlgorithm;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.DynamicStandardShardingAlgorithm;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.PartitionWriteScope;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.cluster.PartitionDdlLease;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.index.GlobalSecondaryIndex;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.metrics.DynamicTableMetrics;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.placement.PartitionPlacement;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.statistics.PartitionStatistics;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.statistics.PartitionStatisticsCatalog;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.shardingsphere.api.config.sharding.ShardingRuleConfiguration;
 import org.apache.shardingsphere.api.config.sharding.TableRuleConfiguration;
+import org.apache.shardingsphere.api.config.sharding.strategy.ShardingStrategyConfiguration;
+import org.apache.shardingsphere.api.config.sharding.strategy.ComplexShardingStrategyConfiguration;
 import org.apache.shardingsphere.api.config.sharding.strategy.StandardShardingStrategyConfiguration;
 import org.apache.shardingsphere.core.rule.ShardingRule;
 import org.apache.shardingsphere.core.rule.TableRule;
 import org.apache.shardingsphere.shardingjdbc.jdbc.core.datasource.ShardingDataSource;
 import org.apache.shardingsphere.underlying.common.rule.DataNode;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronSequenceGenerator;
 import org.springframework.stereotype.Component;
 
 import javax.sql.DataSource;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.text.SimpleDateFormat;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Jianbo.Peng <pengjianbosoft@gmail.com>
@@ -32,23 +48,462 @@ import java.util.stream.Collectors;
  */
 @Component
 @Slf4j
-public class ShardingTableRuleActualTablesRefreshScheduler implements InitializingBean {
+public class ShardingTableRuleActualTablesRefreshScheduler implements InitializingBean, DisposableBean {
 
     @Autowired
     private DataSource dataSource;
 
+    @Autowired
+    private DynamicTableProperties properties;
+
+    @Autowired
+    private PartitionStatisticsCatalog statisticsCatalog;
+
+    @Autowired
+    private DynamicTableMetrics metrics;
+
+    @Autowired
+    private GlobalSecondaryIndex secondaryIndex;
+
+    /**
+     * 已确认存在的分区表 数据源.分区表，重复执行时只需要创建新的分区
+     */
+    private final Set<String> createdTables = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 配置中的分区表已经全部确认存在的逻辑表
+     */
+    private final Set<String> initializedTables = ConcurrentHashMap.newKeySet();
+
+    /**
+     * <逻辑表, 放置策略>，只有绑定了动态分库算法的逻辑表才会把新分区放到多个数据源
+     */
+    private final Map<String, Placement> placements = new ConcurrentHashMap<>();
+
+    /**
+     * <过期分区, 逻辑表>，已从路由中移除、等待删除或归档
+     */
+    private final Map<DataNode, String> expiredTables = new ConcurrentHashMap<>();
+
+    /**
+     * 是否有清理任务在执行，同时只有一个清理任务
+     */
+    private final AtomicBoolean retiring = new AtomicBoolean();
+
+    /**
+     * 正在收集统计信息的分区
+     */
+    private final Set<DataNode> sealingTables = ConcurrentHashMap.newKeySet();
+
+    /**
+     * <已合并的原分区, 逻辑表>，已从路由中移除、等待核对后删除
+     */
+    private final Map<DataNode, String> compactedTables = new ConcurrentHashMap<>();
+
+    /**
+     * 是否有合并任务在执行，同时只有一个合并任务
+     */
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    private PartitionCompactor compactor;
+
+    /**
+     * 定时刷新的cron，用于计算下一次刷新的时间，没有定时刷新时为null
+     */
+    private CronSequenceGenerator refreshCron;
+
+    /**
+     * <数据源.分区表, 建表结果>，正在按需创建的分区，同一个分区的并发写入等待同一个结果
+     */
+    private final Map<String, CompletableFuture<Boolean>> creatingTables = new ConcurrentHashMap<>();
+
+    /**
+     * <数据源.分区表, 失败时间>，按需建表失败的分区在退避时间内不再重试
+     */
+    private final Map<String, Long> failedTables = new ConcurrentHashMap<>();
+
+    /**
+     * 集群建表的租约，没有开启集群建表时为null
+     */
+    private PartitionDdlLease lease;
+
+    /**
+     * 当前节点已经同步到的元数据版本
+     */
+    private volatile long metadataVersion;
+
+    /**
+     * 轮询元数据版本的线程
+     */
+    private ScheduledExecutorService clusterExecutor;
+
+    private ExecutorService ddlExecutor;
+
+    /**
+     * 在后台逐个执行清理过期分区、收集分区统计等维护语句
+     */
+    private ExecutorService maintenanceExecutor;
+
+    @Override
+    public void afterPropertiesSet() {
+        ddlExecutor = Executors.newFixedThreadPool(Math.max(properties.getDdlParallelism(), 1), new ThreadFactory() {
+            private final AtomicInteger index = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "dynamic-table-ddl-" + index.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        maintenanceExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dynamic-table-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (CronSequenceGenerator.isValidExpression(properties.getRefreshCron())) {
+            refreshCron = new CronSequenceGenerator(properties.getRefreshCron());
+        }
+        bindDatabaseShardingAlgorithms();
+        bindStatisticsCatalog();
+        bindMetrics();
+        bindPartitionCreators();
+        bindCompactions();
+        initializeLease();
+        if (properties.getStartup().isDiscovery()) {
+            discoverActualTables(null);
+        }
+        removeShadowedTables(true);
+
+        DynamicTableProperties.Startup startup = properties.getStartup();
+        if (!startup.isAsync()) {
+            actualTablesRefresh(false);
+        } else {
+            //已有的分区已经加入路由，缺少的分区在后台创建，启动最多等待timeout
+            Future<?> future = maintenanceExecutor.submit(() -> actualTablesRefresh(false));
+            try {
+                future.get(Math.max(startup.getTimeout(), 0), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                log.warn("启动时的分区刷新超过{}ms，继续在后台执行", startup.getTimeout());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                log.error("启动时的分区刷新失败", e.getCause());
+            }
+        }
+
+        if (lease != null) {
+            long interval = Math.max(properties.getCluster().getPollInterval(), 1);
+            clusterExecutor.scheduleWithFixedDelay(this::pollMetadataVersion, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 为配置了compact-to的逻辑表绑定分区合并，合并后的分区与未合并的分区一起参与路由
+     */
+    private void bindCompactions() {
+        compactor = new PartitionCompactor(properties);
+        ShardingRule shardingRule = ((ShardingDataSource) this.dataSource).getRuntimeContext().getRule();
+        Map<String, DynamicStandardShardingAlgorithm> rangeAlgorithms = getRangeAlgorithms(shardingRule);
+        for (Map.Entry<String, DynamicStandardShardingAlgorithm> entry : getDynamicTables(shardingRule).entrySet()) {
+            DynamicTableProperties.CompactionGranularity compactTo = properties.getTable(entry.getKey()).getCompactTo();
+            if (compactTo == null) {
+                continue;
+            }
+            if (entry.getValue() instanceof BucketDynamicShardingAlgorithm) {
+                log.warn("{}按时间加分桶分表，不支持分区合并", entry.getKey());
+                continue;
+            }
+            entry.getValue().bindCompaction(entry.getKey(), compactTo.newAlgorithm());
+            //区间路由也需要识别合并后的分区
+            DynamicStandardShardingAlgorithm rangeAlgorithm = rangeAlgorithms.get(entry.getKey());
+            if (rangeAlgorithm != null) {
+                rangeAlgorithm.bindCompaction(entry.getKey(), compactTo.newAlgorithm());
+            }
+            log.info("{}的封存分区合并为{}分区", entry.getKey(), compactTo);
+        }
+    }
+
+    /**
+     * 开启按需建表时为动态分表算法绑定建表方法
+     */
+    private void bindPartitionCreators() {
+        if (!properties.getOnDemand().isEnabled()) {
+            return;
+        }
+        ShardingRule shardingRule = ((ShardingDataSource) this.dataSource).getRuntimeContext().getRule();
+        for (Map.Entry<String, DynamicStandardShardingAlgorithm> entry : getDynamicTables(shardingRule).entrySet()) {
+            entry.getValue().bindPartitionCreator(entry.getKey(), this::createOnDemand);
+        }
+    }
+
+    /**
+     * 精准路由的分区不存在时同步建表，同一个分区只有第一个调用执行DDL，其余调用等待同一个结果
+     *
+     * @param logicTable 逻辑表
+     * @param tableName  分区表
+     * @return 分区是否已经可用
+     */
+    boolean createOnDemand(String logicTable, String tableName) {
+        if (properties.getOnDemand().isWritesOnly() && !PartitionWriteScope.isActive()) {
+            //不在写入范围内，查询不存在的分区不建表
+            return false;
+        }
+        ShardingRule shardingRule = ((ShardingDataSource) this.dataSource).getRuntimeContext().getRule();
+        TableRule tableRule = shardingRule.getTableRule(logicTable);
+        DynamicStandardShardingAlgorithm algorithm = getDynamicTables(shardingRule).get(logicTable);
+        if (tableRule == null || algorithm == null) {
+            return false;
+        }
+        ActualTablesSnapshot snapshot = TableRuleMetadata.of(tableRule).getSnapshot();
+        if (snapshot.findDataSourceName(tableName) != null) {
+            return true;
+        }
+
+        //只为当前分区前后有限的几个分区建表，避免错误的时间创建大量的表
+        DynamicTableProperties.OnDemand onDemand = properties.getOnDemand();
+        Date now = new Date();
+        long ordinal = algorithm.getPeriodOrdinal(logicTable, tableName);
+        long current = algorithm.getPeriodOrdinal(logicTable, algorithm.getTableName(logicTable, now));
+        if (ordinal < current - onDemand.getBehind() || ordinal > current + onDemand.getAhead()
+                || ordinal < getOldestOrdinal(logicTable, algorithm, now)) {
+            return false;
+        }
+
+        String dataSourceName = snapshot.getDataNodes().get(0).getDataSourceName();
+        Placement placement = placements.get(logicTable);
+        if (placement != null) {
+            dataSourceName = placement.place(algorithm, logicTable, tableName, snapshot.getDatasourceToTablesMap());
+        }
+        String fullTableName = getFullTableName(dataSourceName, tableName);
+        Long failedAt = failedTables.get(fullTableName);
+        if (failedAt != null && System.currentTimeMillis() - failedAt < onDemand.getFailureBackoff()) {
+            return false;
+        }
+
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        CompletableFuture<Boolean> creating = creatingTables.putIfAbsent(fullTableName, future);
+        if (creating != null) {
+            try {
+                return creating.get(onDemand.getTimeout(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (ExecutionException | TimeoutException e) {
+                return false;
+            }
+        }
+
+        boolean created = false;
+        try {
+            if (TableRuleMetadata.of(tableRule).getSnapshot().findDataSourceName(tableName) != null) {
+                //上一次建表在检查之后刚刚完成
+                created = true;
+                return true;
+            }
+            DataSource actualDataSource = ((ShardingDataSource) this.dataSource).getDataSourceMap().get(dataSourceName);
+            log.info("{}的分区{}不存在，按需创建", logicTable, fullTableName);
+            created = createTables(actualDataSource, dataSourceName,
+                    Collections.singletonMap(tableName, getTemplateTable(logicTable, snapshot))) == 0;
+            if (created) {
+                refreshActualTables(tableRule, dataSourceName, Collections.singletonList(tableName));
+                failedTables.remove(fullTableName);
+                if (lease != null) {
+                    //按需建表不持有租约，同样需要通知其他节点同步
+                    advanceMetadataVersion(lease.publishVersion());
+                }
+            } else {
+                failedTables.put(fullTableName, System.currentTimeMillis());
+            }
+        } finally {
+            future.complete(created);
+            creatingTables.remove(fullTableName, future);
+        }
+        return created;
+    }
+
+    /**
+     * 开启集群建表时创建租约，记录启动时的元数据版本，之前的分区由启动时的分区发现加入路由
+     */
+    private void initializeLease() {
+        DynamicTableProperties.Cluster cluster = properties.getCluster();
+        if (!cluster.isEnabled()) {
+            return;
+        }
+        Map<String, DataSource> dataSourceMap = ((ShardingDataSource) this.dataSource).getDataSourceMap();
+        String dataSourceName = StringUtils.isEmpty(cluster.getDataSource()) ? dataSourceMap.keySet().iterator().next() : cluster.getDataSource();
+        PartitionDdlLease lease = new PartitionDdlLease(dataSourceMap.get(dataSourceName), cluster.getLeaseTable(), cluster.getLease());
+        try {
+            lease.initialize();
+        } catch (SQLException e) {
+            throw new IllegalStateException(String.format("在%s上创建租约表%s失败", dataSourceName, cluster.getLeaseTable()), e);
+        }
+        this.lease = lease;
+        this.metadataVersion = lease.getVersion();
+        this.clusterExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dynamic-table-cluster");
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("开启集群建表，节点:{}，租约表:{}.{}，元数据版本:{}", lease.getOwner(), dataSourceName, cluster.getLeaseTable(), metadataVersion);
+    }
+
+    /**
+     * 元数据版本变化时同步其他节点创建或移除的分区
+     */
+    private void pollMetadataVersion() {
+        try {
+            long version = lease.getVersion();
+            if (version < 0 || version == metadataVersion) {
+                return;
+            }
+            log.info("元数据版本从{}变为{}，同步分区", metadataVersion, version);
+            if (syncActualTables()) {
+                metadataVersion = version;
+            }
+        } catch (RuntimeException e) {
+            log.error("同步分区失败，下次轮询时重试", e);
+        }
+    }
+
+    /**
+     * 从表目录中同步其他节点创建的分区，移除超出保留周期的分区，不执行DDL，也不删除或归档表；
+     * 不受startup.discovery影响，其他节点创建的分区只能从表目录中发现
+     *
+     * @return 表目录是否全部查询成功，失败时不记录元数据版本，下次轮询时重试
+     */
+    private synchronized boolean syncActualTables() {
+        Date now = new Date();
+        boolean discovered = discoverActualTables(now);
+        removeShadowedTables(false);
+        ShardingRule shardingRule = ((ShardingDataSource) this.dataSource).getRuntimeContext().getRule();
+        for (Map.Entry<String, DynamicStandardShardingAlgorithm> entry : getDynamicTables(shardingRule).entrySet()) {
+            TableRule tableRule = shardingRule.getTableRule(entry.getKey());
+            if (tableRule == null) {
+                continue;
+            }
+            Set<DataNode> expiredDataNodes = getExpiredDataNodes(entry.getKey(), entry.getValue(),
+                    TableRuleMetadata.of(tableRule).getSnapshot(), now);
+            if (!expiredDataNodes.isEmpty()) {
+                removeActualTables(tableRule, expiredDataNodes, false);
+            }
+        }
+        return discovered;
+    }
+
     @Override
-    public void afterPropertiesSet() throws SQLException {
-        actualTablesRefresh();
+    public void destroy() {
+        ddlExecutor.shutdownNow();
+        maintenanceExecutor.shutdownNow();
+        if (clusterExecutor != null) {
+            clusterExecutor.shutdownNow();
+        }
     }
 
-    @Scheduled(cron = "0 0 23 * * ?")
-    public void actualTablesRefresh() throws SQLException {
+    @Scheduled(cron = "${dynamic-table.refresh-cron:0 0 23 * * ?}")
+    public void actualTablesRefresh() {
+        actualTablesRefresh(true);
+    }
+
+    /**
+     * @param scheduled 是否为定时刷新，集群中定时刷新跳过其他节点已经完成的周期；启动时总是刷新，新配置的逻辑表需要建表
+     */
+    private synchronized void actualTablesRefresh(boolean scheduled) {
+        if (lease != null && !lease.tryAcquire()) {
+            if (scheduled) {
+                log.info("建表租约由其他节点持有，等待元数据版本变化后同步分区");
+                return;
+            }
+            //启动时先同步其他节点已经创建的分区，之后按轮询间隔重试，拿到租约后为新配置的逻辑表建表
+            long interval = Math.max(properties.getCluster().getPollInterval(), 1);
+            log.info("建表租约由其他节点持有，同步分区后{}ms重试启动时的刷新", interval);
+            syncActualTables();
+            if (!clusterExecutor.isShutdown()) {
+                clusterExecutor.schedule(this::retryStartupRefresh, interval, TimeUnit.MILLISECONDS);
+            }
+            return;
+        }
+        Date now = new Date();
+        if (lease != null && scheduled && isRefreshedByOthers(now)) {
+            log.info("其他节点已经完成本周期的刷新，只同步分区");
+            try {
+                syncActualTables();
+            } finally {
+                lease.release();
+            }
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            success = refresh();
+        } finally {
+            if (metrics != null) {
+                metrics.recordRefresh(System.nanoTime() - start, success);
+            }
+            if (lease != null) {
+                if (scheduled && success) {
+                    lease.recordRefresh(now.getTime());
+                }
+                //通知其他节点同步，自己不需要再同步
+                advanceMetadataVersion(lease.incrementVersion());
+                lease.release();
+            }
+        }
+    }
+
+    /**
+     * 重试启动时因为租约被其他节点持有而没有执行的刷新
+     */
+    private void retryStartupRefresh() {
+        try {
+            actualTablesRefresh(false);
+        } catch (RuntimeException e) {
+            log.error("启动时的分区刷新失败", e);
+        }
+    }
+
+    /**
+     * 上一次定时刷新由其他节点完成，并且之后还没有到下一次触发时间
+     */
+    private boolean isRefreshedByOthers(Date now) {
+        if (refreshCron == null) {
+            return false;
+        }
+        long refreshedAt = lease.getOthersRefreshedAt();
+        return refreshedAt >= 0 && refreshCron.next(new Date(refreshedAt)).after(now);
+    }
+
+    /**
+     * 记录当前节点递增后的元数据版本，期间其他节点也递增过版本时不记录，由轮询同步其他节点的变化
+     *
+     * @param version 递增后的版本，失败时为-1
+     */
+    private void advanceMetadataVersion(long version) {
+        if (version >= 0 && version == metadataVersion + 1) {
+            metadataVersion = version;
+        }
+    }
+
+    /**
+     * 刷新分区
+     *
+     * @return 是否全部建表成功
+     */
+    private boolean refresh() {
         ShardingDataSource dataSource = (ShardingDataSource) this.dataSource;
         ShardingRule shardingRule = dataSource.getRuntimeContext().getRule();
 
-        Map<String, String> dynamicTables = getDynamicTables(shardingRule);
+        Map<String, DynamicStandardShardingAlgorithm> dynamicTables = getDynamicTables(shardingRule);
+        Date now = new Date();
 
+        //<逻辑表, 分区节点集合>
+        Map<String, Set<DataNode>> logicDataNodes = new LinkedHashMap<>();
+        //<逻辑表, 过期的分区节点>
+        Map<String, Set<DataNode>> logicExpiredDataNodes = new LinkedHashMap<>();
+        //<数据源, <待创建的分区表, 模板表>>，所有逻辑表的建表语句按数据源合并后一次执行
+        Map<String, Map<String, String>> pendingTables = new LinkedHashMap<>();
         for (String logicTable : dynamicTables.keySet()) {
             TableRule tableRule = shardingRule.getTableRule(logicTable);
             if (tableRule == null) {
@@ -57,137 +512,912 @@ public class ShardingTableRuleActualTablesRefreshScheduler implements Initializi
             }
 
             log.info("正在对{}进行动态分表", logicTable);
-            List<DataNode> dataNodes = tableRule.getActualDataNodes();
-            if (CollectionUtils.isEmpty(dataNodes)) {
+            if (CollectionUtils.isEmpty(tableRule.getActualDataNodes())) {
                 log.error("{}缺少原始表", logicTable);
                 continue;
             }
 
-            //分区表集合
-            Set<String> tableNames = dataNodes.stream()
-                    .map(DataNode::getTableName)
-                    .collect(Collectors.toSet());
-            String newTable = getNextDynamicTable(logicTable, dynamicTables.get(logicTable));
-            tableNames.add(newTable);
+            ActualTablesSnapshot snapshot = TableRuleMetadata.of(tableRule).getSnapshot();
+            DynamicStandardShardingAlgorithm algorithm = dynamicTables.get(logicTable);
+            String templateTable = getTemplateTable(logicTable, snapshot);
+            Set<DataNode> expiredDataNodes = getExpiredDataNodes(logicTable, algorithm, snapshot, now);
+            logicExpiredDataNodes.put(logicTable, expiredDataNodes);
+            Set<DataNode> dataNodes = new LinkedHashSet<>();
+            //配置中的分区表只需要在第一次刷新时确认，之后只处理还没有加入Sharding的新分区；过期的分区不再创建
+            if (!initializedTables.contains(logicTable)) {
+                for (DataNode dataNode : snapshot.getDataNodes()) {
+                    if (!expiredDataNodes.contains(dataNode)) {
+                        dataNodes.add(dataNode);
+                    }
+                }
+            }
+            Map<String, Collection<String>> plannedTables = null;
+            for (String tableName : getLookAheadTableNames(logicTable, algorithm, now)) {
+                if (snapshot.findDataSourceName(tableName) != null) {
+                    continue;
+                }
+                Placement placement = placements.get(logicTable);
+                String dataSourceName = snapshot.getDataNodes().get(0).getDataSourceName();
+                if (placement != null) {
+                    if (plannedTables == null) {
+                        //同一批的新分区也计入各数据源的分区数
+                        plannedTables = new HashMap<>();
+                        for (Map.Entry<String, Collection<String>> tables : snapshot.getDatasourceToTablesMap().entrySet()) {
+                            plannedTables.put(tables.getKey(), new ArrayList<>(tables.getValue()));
+                        }
+                    }
+                    dataSourceName = placement.place(algorithm, logicTable, tableName, plannedTables);
+                    plannedTables.computeIfAbsent(dataSourceName, key -> new ArrayList<>()).add(tableName);
+                }
+                dataNodes.add(new DataNode(dataSourceName, tableName));
+            }
+            logicDataNodes.put(logicTable, dataNodes);
 
-            //修改ShardingJDBC中的变量，得到动态分区的效果
-            modifyShardingDatasourceToTablesMap(tableNames, tableRule, dataNodes.get(0));
-            modifyShardingDataNodeIndexMap(tableNames, tableRule, dataNodes);
+            for (DataNode dataNode : dataNodes) {
+                if (!StringUtils.equals(dataNode.getTableName(), templateTable)
+                        && !createdTables.contains(getFullTableName(dataNode.getDataSourceName(), dataNode.getTableName()))) {
+                    pendingTables.computeIfAbsent(dataNode.getDataSourceName(), key -> new LinkedHashMap<>())
+                            .put(dataNode.getTableName(), templateTable);
+                }
+            }
         }
 
+        int failed = createTables(dataSource, pendingTables);
+
+        for (Map.Entry<String, Set<DataNode>> entry : logicDataNodes.entrySet()) {
+            TableRule tableRule = shardingRule.getTableRule(entry.getKey());
+            String templateTable = getTemplateTable(entry.getKey(), TableRuleMetadata.of(tableRule).getSnapshot());
+            //只把已经创建成功的分区加入到Sharding中
+            Map<String, List<String>> tableNames = new LinkedHashMap<>();
+            int count = 0;
+            for (DataNode dataNode : entry.getValue()) {
+                if (StringUtils.equals(dataNode.getTableName(), templateTable)
+                        || createdTables.contains(getFullTableName(dataNode.getDataSourceName(), dataNode.getTableName()))) {
+                    tableNames.computeIfAbsent(dataNode.getDataSourceName(), key -> new ArrayList<>()).add(dataNode.getTableName());
+                    count++;
+                }
+            }
+            tableNames.forEach((dataSourceName, names) -> refreshActualTables(tableRule, dataSourceName, names));
+            if (count == entry.getValue().size()) {
+                initializedTables.add(entry.getKey());
+            }
+
+            //新分区发布之后再移除过期分区，路由中始终有可用的分区
+            Set<DataNode> expiredDataNodes = logicExpiredDataNodes.get(entry.getKey());
+            if (!expiredDataNodes.isEmpty()) {
+                removeActualTables(tableRule, expiredDataNodes);
+            }
+        }
+        retireExpiredTables();
+        collectStatistics(shardingRule, dynamicTables, now);
+        compactPartitions(shardingRule, dynamicTables, now);
+        return failed == 0;
     }
 
     /**
-     * 修改ShardingJDBC内存中的分区表信息
+     * 从各数据源的表目录中发现已经存在的分区表，每个数据源只执行一次查询，按数据源批量加入到Sharding中；
+     * 发现的分区不再执行建表语句
      *
-     * @param tableNames 分区表集合
-     * @param tableRule  规则
-     * @param dataNode   某个分区表的dataNode
-     * @throws SQLException
-     */
-    private void modifyShardingDatasourceToTablesMap(Set<String> tableNames, TableRule tableRule, DataNode dataNode) throws SQLException {
-        String dataSourceName = dataNode.getDataSourceName();
-        Map<String, Collection<String>> datasourceToTablesMap = tableRule.getDatasourceToTablesMap();
-        Collection<String> actualDatasourceNames = tableRule.getActualDatasourceNames();
-        for (String tableName : tableNames) {
-            if (StringUtils.equals(tableName, dataNode.getTableName())) {
+     * @param now 不为空时跳过超出保留周期的分区；启动时为空，过期的分区加入后由第一次刷新清理
+     * @return 是否所有数据源都查询成功
+     */
+    private boolean discoverActualTables(Date now) {
+        ShardingDataSource dataSource = (ShardingDataSource) this.dataSource;
+        ShardingRule shardingRule = dataSource.getRuntimeContext().getRule();
+        Map<String, DynamicStandardShardingAlgorithm> dynamicTables = getDynamicTables(shardingRule);
+
+        //<逻辑表, 可以放置分区的数据源>
+        Map<String, Collection<String>> logicDataSources = new LinkedHashMap<>();
+        Set<String> dataSourceNames = new LinkedHashSet<>();
+        for (String logicTable : dynamicTables.keySet()) {
+            TableRule tableRule = shardingRule.getTableRule(logicTable);
+            if (tableRule == null || CollectionUtils.isEmpty(tableRule.getActualDataNodes())) {
                 continue;
             }
+            Placement placement = placements.get(logicTable);
+            Collection<String> names = placement == null
+                    ? TableRuleMetadata.of(tableRule).getSnapshot().getActualDatasourceNames() : placement.dataSourceNames;
+            logicDataSources.put(logicTable, names);
+            dataSourceNames.addAll(names);
+        }
 
-            String fullTableName = String.format("%s.%s", dataSourceName, tableName);
-            log.info("添加表:{}到Sharding中", fullTableName);
-            createTable(tableName, dataNode.getTableName());
+        long start = System.currentTimeMillis();
+        Map<String, Future<List<String>>> futures = new LinkedHashMap<>();
+        for (String dataSourceName : dataSourceNames) {
+            DataSource actualDataSource = dataSource.getDataSourceMap().get(dataSourceName);
+            futures.put(dataSourceName, ddlExecutor.submit(() -> listTables(actualDataSource)));
+        }
+        //<数据源, 表名>
+        Map<String, List<String>> dataSourceTables = new HashMap<>();
+        for (Map.Entry<String, Future<List<String>>> entry : futures.entrySet()) {
+            try {
+                dataSourceTables.put(entry.getKey(), entry.getValue().get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (ExecutionException e) {
+                log.error("{}分区发现失败，按配置中的分区建表", entry.getKey(), e.getCause());
+            }
+        }
 
-            //将分区表加入到Sharding中
-            Collection<String> tableList = datasourceToTablesMap.get(dataSourceName);
-            if (tableList == null) {
-                tableList = new ArrayList<>();
+        for (Map.Entry<String, Collection<String>> entry : logicDataSources.entrySet()) {
+            String logicTable = entry.getKey();
+            DynamicStandardShardingAlgorithm algorithm = dynamicTables.get(logicTable);
+            TableRule tableRule = shardingRule.getTableRule(logicTable);
+            long oldest = now == null ? 0 : getOldestOrdinal(logicTable, algorithm, now);
+            for (String dataSourceName : entry.getValue()) {
+                List<String> tableNames = dataSourceTables.get(dataSourceName);
+                if (tableNames == null) {
+                    continue;
+                }
+                //<周期序号, 分区表>，按时间先后加入；合并后的分区与其中最后一个分区的序号相同
+                TreeMap<Long, List<String>> partitions = new TreeMap<>();
+                for (String tableName : tableNames) {
+                    long ordinal = algorithm.getPeriodOrdinal(logicTable, tableName);
+                    if (ordinal >= oldest) {
+                        //表目录中的大小写可能与配置不同，统一使用逻辑表名作为前缀
+                        partitions.computeIfAbsent(ordinal, key -> new ArrayList<>()).add(logicTable + tableName.substring(logicTable.length()));
+                    }
+                }
+                List<String> discovered = new ArrayList<>();
+                partitions.values().forEach(discovered::addAll);
+                for (String tableName : discovered) {
+                    createdTables.add(getFullTableName(dataSourceName, tableName));
+                }
+                if (!discovered.isEmpty()) {
+                    log.info("{}在{}上发现了{}个分区", logicTable, dataSourceName, discovered.size());
+                    refreshActualTables(tableRule, dataSourceName, discovered);
+                }
             }
-            if (!tableList.contains(tableName)) {
-                tableList.add(tableName);
+        }
+        log.info("分区发现完成，查询了{}个数据源，耗时{}ms", dataSourceNames.size(), System.currentTimeMillis() - start);
+        return dataSourceTables.size() == dataSourceNames.size();
+    }
+
+    /**
+     * 查询数据源当前库中的所有表，MySQL直接查询information_schema，其他数据库使用JDBC元数据
+     *
+     * @param dataSource 实际数据源
+     * @return 表名，数据库统一转换为大写存储时转换为小写
+     */
+    private static List<String> listTables(DataSource dataSource) throws SQLException {
+        List<String> results = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            if ("MySQL".equalsIgnoreCase(metaData.getDatabaseProductName())) {
+                try (Statement statement = connection.createStatement();
+                     ResultSet resultSet = statement.executeQuery(
+                             "SELECT TABLE_NAME FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_TYPE = 'BASE TABLE'")) {
+                    while (resultSet.next()) {
+                        results.add(resultSet.getString(1));
+                    }
+                }
+                return results;
             }
-            datasourceToTablesMap.put(dataSourceName, tableList);
-            if (!actualDatasourceNames.contains(dataSourceName)) {
-                actualDatasourceNames.add(dataSourceName);
+
+            boolean upperCase = metaData.storesUpperCaseIdentifiers();
+            try (ResultSet resultSet = metaData.getTables(connection.getCatalog(), connection.getSchema(), "%", new String[]{"TABLE"})) {
+                while (resultSet.next()) {
+                    String tableName = resultSet.getString("TABLE_NAME");
+                    results.add(upperCase ? tableName.toLowerCase() : tableName);
+                }
             }
         }
+        return results;
     }
 
     /**
-     * 修改ShardingJDBC内存中的dataNodeIndexMap变量
+     * 在后台扫描已经封存还没有统计信息的分区，语句之间按间隔限速，失败的分区在下次刷新时重试
      *
-     * @param tableNames 分区表集合
-     * @param tableRule  规则
-     * @param dataNodes
+     * @param shardingRule  规则
+     * @param dynamicTables <逻辑表, 分表算法>
+     * @param now           当前时间
+     */
+    private void collectStatistics(ShardingRule shardingRule, Map<String, DynamicStandardShardingAlgorithm> dynamicTables, Date now) {
+        if (statisticsCatalog == null || properties.getCluster().isEnabled()) {
+            return;
+        }
+
+        Map<DataNode, String> sealTables = new LinkedHashMap<>();
+        Map<String, String> shardingColumns = new HashMap<>();
+        for (Map.Entry<String, DynamicStandardShardingAlgorithm> entry : dynamicTables.entrySet()) {
+            String logicTable = entry.getKey();
+            DynamicTableProperties.TableProperties tableProperties = properties.getTable(logicTable);
+            TableRule tableRule = shardingRule.getTableRule(logicTable);
+            if (!tableProperties.isStatistics() || tableRule == null) {
+                continue;
+            }
+            shardingColumns.put(logicTable, shardingRule.getTableShardingStrategy(tableRule).getShardingColumns().iterator().next());
+
+            DynamicStandardShardingAlgorithm algorithm = entry.getValue();
+            long current = algorithm.getPeriodOrdinal(logicTable, algorithm.getTableName(logicTable, now));
+            for (DataNode dataNode : TableRuleMetadata.of(tableRule).getSnapshot().getDataNodes()) {
+                long ordinal = algorithm.getPeriodOrdinal(logicTable, dataNode.getTableName());
+                if (ordinal >= 0 && ordinal + tableProperties.getSealAfter() < current
+                        && statisticsCatalog.get(logicTable, dataNode.getTableName()) == null && sealingTables.add(dataNode)) {
+                    sealTables.put(dataNode, logicTable);
+                }
+            }
+        }
+        if (sealTables.isEmpty()) {
+            return;
+        }
+
+        ShardingDataSource dataSource = (ShardingDataSource) this.dataSource;
+        maintenanceExecutor.execute(() -> {
+            try {
+                for (Map.Entry<DataNode, String> entry : sealTables.entrySet()) {
+                    Thread.sleep(properties.getStatistics().getInterval());
+                    DataNode dataNode = entry.getKey();
+                    //扫描期间提交的写入会使分区失效，这时不封存，下次刷新时重新扫描
+                    long epoch = statisticsCatalog.getEpoch(entry.getValue(), dataNode.getTableName());
+                    PartitionStatistics statistics = scanStatistics(dataSource.getDataSourceMap().get(dataNode.getDataSourceName()),
+                            dataNode, shardingColumns.get(entry.getValue()), properties.getTable(entry.getValue()).getIdColumn());
+                    if (statistics != null && !statisticsCatalog.seal(entry.getValue(), dataNode.getTableName(), statistics, epoch)) {
+                        log.info("{}在统计期间有写入，下次刷新时重新封存", getFullTableName(dataNode.getDataSourceName(), dataNode.getTableName()));
+                    }
+                    sealingTables.remove(dataNode);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                sealingTables.removeAll(sealTables.keySet());
+            }
+        });
+    }
+
+    /**
+     * 在后台把整个合并周期都已封存的分区合并为粗粒度的分区，每个合并周期逐个执行，上一次合并没有结束时跳过
+     *
+     * @param shardingRule  规则
+     * @param dynamicTables <逻辑表, 分表算法>
+     * @param now           当前时间
      */
-    private void modifyShardingDataNodeIndexMap(Set<String> tableNames, TableRule tableRule, List<DataNode> dataNodes) {
+    private void compactPartitions(ShardingRule shardingRule, Map<String, DynamicStandardShardingAlgorithm> dynamicTables, Date now) {
+        //<逻辑表, <合并后的分区表, 原分区>>
+        Map<String, Map<String, List<DataNode>>> logicGroups = new LinkedHashMap<>();
+        for (Map.Entry<String, DynamicStandardShardingAlgorithm> entry : dynamicTables.entrySet()) {
+            String logicTable = entry.getKey();
+            DynamicTableProperties.TableProperties tableProperties = properties.getTable(logicTable);
+            TableRule tableRule = shardingRule.getTableRule(logicTable);
+            if (tableProperties.getCompactTo() == null || tableRule == null) {
+                continue;
+            }
+
+            DynamicStandardShardingAlgorithm algorithm = entry.getValue();
+            ActualTablesSnapshot snapshot = TableRuleMetadata.of(tableRule).getSnapshot();
+            String templateTable = getTemplateTable(logicTable, snapshot);
+            long current = algorithm.getPeriodOrdinal(logicTable, algorithm.getTableName(logicTable, now));
+            long oldest = getOldestOrdinal(logicTable, algorithm, now);
+            Map<String, List<DataNode>> groups = new TreeMap<>();
+            Set<String> skipped = new HashSet<>();
+            for (DataNode dataNode : snapshot.getDataNodes()) {
+                String compactedTable = algorithm.getCompactedTableName(logicTable, dataNode.getTableName());
+                if (compactedTable == null) {
+                    continue;
+                }
+                //合并周期内的最后一个分区封存之后才合并，即将过期的分区不再合并
+                long ordinal = algorithm.getPeriodOrdinal(logicTable, compactedTable);
+                if (ordinal + tableProperties.getSealAfter() >= current || ordinal < oldest) {
+                    continue;
+                }
+                if (StringUtils.equals(dataNode.getTableName(), templateTable)) {
+                    log.warn("{}的建表模板{}不能合并，配置template-table后才会合并{}", logicTable, templateTable, compactedTable);
+                    skipped.add(compactedTable);
+                    continue;
+                }
+                groups.computeIfAbsent(compactedTable, key -> new ArrayList<>()).add(dataNode);
+            }
+            groups.keySet().removeAll(skipped);
+            if (!groups.isEmpty()) {
+                logicGroups.put(logicTable, groups);
+            }
+        }
+        if ((logicGroups.isEmpty() && compactedTables.isEmpty()) || !compacting.compareAndSet(false, true)) {
+            return;
+        }
+
+        maintenanceExecutor.execute(() -> {
+            try {
+                for (Map.Entry<String, Map<String, List<DataNode>>> entry : logicGroups.entrySet()) {
+                    String logicTable = entry.getKey();
+                    for (Map.Entry<String, List<DataNode>> group : entry.getValue().entrySet()) {
+                        try {
+                            compactPartition(shardingRule.getTableRule(logicTable), group.getKey(), group.getValue());
+                        } catch (RuntimeException e) {
+                            log.error("合并{}失败，下次刷新时重试", group.getKey(), e);
+                        }
+                    }
+                }
+                retireCompactedTables(shardingRule, dynamicTables);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                compacting.set(false);
+            }
+        });
+    }
+
+    /**
+     * 把同一个合并周期的分区复制到合并后的分区，核对后切换路由
+     *
+     * @param tableRule      规则
+     * @param compactedTable 合并后的分区表
+     * @param dataNodes      待合并的分区
+     */
+    private void compactPartition(TableRule tableRule, String compactedTable, List<DataNode> dataNodes) throws InterruptedException {
+        String logicTable = tableRule.getLogicTable();
+        String dataSourceName = dataNodes.get(0).getDataSourceName();
+        for (DataNode dataNode : dataNodes) {
+            if (!dataSourceName.equals(dataNode.getDataSourceName())) {
+                log.warn("{}的分区分布在多个数据源上，不合并为{}", logicTable, compactedTable);
+                return;
+            }
+        }
+        DataSource actualDataSource = ((ShardingDataSource) this.dataSource).getDataSourceMap().get(dataSourceName);
+        ActualTablesSnapshot snapshot = TableRuleMetadata.of(tableRule).getSnapshot();
+        String existing = snapshot.findDataSourceName(compactedTable);
+        if (existing != null && !existing.equals(dataSourceName)) {
+            log.warn("{}已经在{}上，不合并{}上的分区", compactedTable, existing, dataSourceName);
+            return;
+        }
+        if (existing == null) {
+            List<String> tableNames = new ArrayList<>();
+            dataNodes.forEach(dataNode -> tableNames.add(dataNode.getTableName()));
+            log.info("开始把{}的{}个分区合并为{}", logicTable, tableNames.size(), getFullTableName(dataSourceName, compactedTable));
+            if (!compactor.copy(actualDataSource, compactedTable, getTemplateTable(logicTable, snapshot), tableNames,
+                    properties.getTable(logicTable).getIdColumn())) {
+                return;
+            }
+        }
+        switchCompacted(tableRule, compactedTable, dataNodes, existing == null ? actualDataSource : null);
+    }
+
+    /**
+     * 发布合并后的分区，同时把原分区移出路由，路由线程只会读到切换前或切换后的快照
+     *
+     * @param tableRule        规则
+     * @param compactedTable   合并后的分区表
+     * @param dataNodes        原分区
+     * @param actualDataSource 需要把临时表改名时为实际数据源，合并后的分区已经在路由中时为null
+     */
+    private synchronized void switchCompacted(TableRule tableRule, String compactedTable, List<DataNode> dataNodes, DataSource actualDataSource) {
+        if (lease != null && !lease.tryAcquire()) {
+            log.info("建表租约由其他节点持有，下次刷新时重新合并{}", compactedTable);
+            return;
+        }
+        String logicTable = tableRule.getLogicTable();
+        String dataSourceName = dataNodes.get(0).getDataSourceName();
+        DataNode compactedDataNode = new DataNode(dataSourceName, compactedTable);
         try {
-            //添加新的分区表到dataNodes中
-            String dataSourceName = dataNodes.get(0).getDataSourceName();
-            for (String tableName : tableNames) {
-                String fullTableName = String.format("%s.%s", dataSourceName, tableName);
-                DataNode newDataNode = new DataNode(fullTableName);
-                if (!dataNodes.contains(newDataNode)) {
-                    dataNodes.add(newDataNode);
+            //索引先指向合并后的分区，切换后按索引查询不会漏掉数据
+            if (secondaryIndex != null && !secondaryIndex.getIndexColumns(logicTable).isEmpty()) {
+                for (DataNode dataNode : dataNodes) {
+                    secondaryIndex.copyPartition(logicTable, dataNode, compactedDataNode);
                 }
             }
+            if (actualDataSource != null && !compactor.publish(actualDataSource, compactedTable)) {
+                return;
+            }
+            ActualTablesSnapshot snapshot = TableRuleMetadata.of(tableRule).update(current ->
+                    current.withActualTables(dataSourceName, Collections.singletonList(compactedTable)).withoutDataNodes(dataNodes));
+            createdTables.add(getFullTableName(dataSourceName, compactedTable));
+            for (DataNode dataNode : dataNodes) {
+                createdTables.remove(getFullTableName(dataSourceName, dataNode.getTableName()));
+                if (statisticsCatalog != null) {
+                    statisticsCatalog.invalidate(logicTable, dataNode.getTableName());
+                }
+                compactedTables.put(dataNode, logicTable);
+            }
+            log.info("{}的{}个分区已合并为{}，共{}个分区", logicTable, dataNodes.size(), compactedTable, snapshot.size());
+        } finally {
+            if (lease != null) {
+                advanceMetadataVersion(lease.incrementVersion());
+                lease.release();
+            }
+        }
+    }
 
-            Field dataNodeIndexMapField = TableRule.class.getDeclaredField("dataNodeIndexMap");
-            Field modifiersField = Field.class.getDeclaredField("modifiers");
-            modifiersField.setAccessible(true);
-            modifiersField.setInt(dataNodeIndexMapField, dataNodeIndexMapField.getModifiers() & ~Modifier.FINAL);
-            dataNodeIndexMapField.setAccessible(true);
-            int index = 0;
-            Map<DataNode, Integer> dataNodeIndexMap = new HashMap<>();
-            for (Iterator<DataNode> it = dataNodes.iterator(); it.hasNext(); ++index) {
-                DataNode dataNode = it.next();
-                dataNodeIndexMap.put(dataNode, index);
+    /**
+     * 等待已经路由到原分区的查询结束后，逐个核对并删除已合并的原分区，核对失败的分区保留
+     *
+     * @param shardingRule  规则
+     * @param dynamicTables <逻辑表, 分表算法>
+     */
+    private void retireCompactedTables(ShardingRule shardingRule, Map<String, DynamicStandardShardingAlgorithm> dynamicTables)
+            throws InterruptedException {
+        if (compactedTables.isEmpty()) {
+            return;
+        }
+        Thread.sleep(Math.max(properties.getCompaction().getGrace(), lease != null ? properties.getCluster().getPollInterval() * 2 : 0));
+        Map<String, DataSource> dataSourceMap = ((ShardingDataSource) this.dataSource).getDataSourceMap();
+        for (Map.Entry<DataNode, String> entry : new ArrayList<>(compactedTables.entrySet())) {
+            DataNode dataNode = entry.getKey();
+            String logicTable = entry.getValue();
+            DynamicStandardShardingAlgorithm algorithm = dynamicTables.get(logicTable);
+            TableRule tableRule = shardingRule.getTableRule(logicTable);
+            String shardingColumn = shardingRule.getTableShardingStrategy(tableRule).getShardingColumns().iterator().next();
+            String tableName = dataNode.getTableName();
+            if (compactor.retire(dataSourceMap.get(dataNode.getDataSourceName()), algorithm.getCompactedTableName(logicTable, tableName),
+                    tableName, shardingColumn, properties.getTable(logicTable).getIdColumn(),
+                    algorithm.getPartitionStart(logicTable, tableName), algorithm.getPartitionEnd(logicTable, tableName))) {
+                compactedTables.remove(dataNode);
+                if (secondaryIndex != null && !secondaryIndex.getIndexColumns(logicTable).isEmpty()) {
+                    secondaryIndex.removePartition(logicTable, dataNode);
+                }
             }
-            dataNodeIndexMapField.set(tableRule, dataNodeIndexMap);
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            log.error("修改dataNodeIndexMap异常", e);
         }
     }
 
     /**
-     * 获取下一个日期的分区表
+     * 把已经被合并后的分区覆盖的原分区移出路由，合并完成后其他节点同步或者重启时原分区可能还没有删除
+     *
+     * @param retire 是否由当前节点核对后删除，其他节点同步时只移出路由
+     */
+    private void removeShadowedTables(boolean retire) {
+        ShardingRule shardingRule = ((ShardingDataSource) this.dataSource).getRuntimeContext().getRule();
+        for (Map.Entry<String, DynamicStandardShardingAlgorithm> entry : getDynamicTables(shardingRule).entrySet()) {
+            TableRule tableRule = shardingRule.getTableRule(entry.getKey());
+            if (tableRule == null) {
+                continue;
+            }
+            ActualTablesSnapshot snapshot = TableRuleMetadata.of(tableRule).getSnapshot();
+            Set<String> shadowed = entry.getValue().getShadowedTableNames(entry.getKey(), snapshot.getActualTables());
+            if (shadowed.isEmpty()) {
+                continue;
+            }
+            List<DataNode> dataNodes = new ArrayList<>();
+            for (DataNode dataNode : snapshot.getDataNodes()) {
+                if (shadowed.contains(dataNode.getTableName())) {
+                    dataNodes.add(dataNode);
+                }
+            }
+            snapshot = TableRuleMetadata.of(tableRule).removeDataNodes(dataNodes);
+            log.info("{}从Sharding中移除了{}个已合并的分区，剩余{}个", entry.getKey(), dataNodes.size(), snapshot.size());
+            for (DataNode dataNode : dataNodes) {
+                createdTables.remove(getFullTableName(dataNode.getDataSourceName(), dataNode.getTableName()));
+                if (retire) {
+                    compactedTables.put(dataNode, entry.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * 统计一个分区的行数和分区字段、主键的范围
+     *
+     * @param dataSource     实际数据源
+     * @param dataNode       分区节点
+     * @param shardingColumn 分区字段
+     * @param idColumn       主键，可以为空
+     * @return 统计信息，失败时返回null
+     */
+    private PartitionStatistics scanStatistics(DataSource dataSource, DataNode dataNode, String shardingColumn, String idColumn) {
+        boolean withId = StringUtils.isNotEmpty(idColumn);
+        String sql = String.format("SELECT COUNT(*), MIN(%2$s), MAX(%2$s)%3$s FROM %1$s", dataNode.getTableName(), shardingColumn,
+                withId ? String.format(", MIN(%1$s), MAX(%1$s)", idColumn) : "");
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            long rowCount = resultSet.getLong(1);
+            if (rowCount == 0) {
+                return PartitionStatistics.empty();
+            }
+            Long minId = withId ? resultSet.getLong(4) : null;
+            Long maxId = withId ? resultSet.getLong(5) : null;
+            PartitionStatistics statistics = PartitionStatistics.of(rowCount,
+                    resultSet.getTimestamp(2).getTime(), resultSet.getTimestamp(3).getTime(), minId, maxId);
+            log.info("封存分区{}:{}", getFullTableName(dataNode.getDataSourceName(), dataNode.getTableName()), statistics);
+            return statistics;
+        } catch (SQLException e) {
+            log.error("{}统计失败，下次刷新时重试", getFullTableName(dataNode.getDataSourceName(), dataNode.getTableName()), e);
+            return null;
+        }
+    }
+
+    /**
+     * 为动态分表算法绑定路由指标，注册分区数等Gauge
+     */
+    private void bindMetrics() {
+        if (metrics == null) {
+            return;
+        }
+        ShardingRule shardingRule = ((ShardingDataSource) this.dataSource).getRuntimeContext().getRule();
+        for (Map.Entry<String, DynamicStandardShardingAlgorithm> entry : getDynamicTables(shardingRule).entrySet()) {
+            TableRule tableRule = shardingRule.getTableRule(entry.getKey());
+            metrics.bind(tableRule.getLogicTable(), TableRuleMetadata.of(tableRule), entry.getValue());
+        }
+        for (Map.Entry<String, DynamicStandardShardingAlgorithm> entry : getRangeAlgorithms(shardingRule).entrySet()) {
+            metrics.bindRange(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * 为动态分表算法绑定分区统计目录；统计信息只在当前节点失效，开启集群建表时其他节点写入后会按过时的范围跳过分区，不绑定
+     */
+    private void bindStatisticsCatalog() {
+        if (statisticsCatalog == null) {
+            return;
+        }
+        if (properties.getCluster().isEnabled()) {
+            if (properties.getTables().values().stream().anyMatch(DynamicTableProperties.TableProperties::isStatistics)) {
+                log.warn("开启集群建表时不收集分区统计信息，区间路由不跳过分区");
+            }
+            return;
+        }
+        ShardingRule shardingRule = ((ShardingDataSource) this.dataSource).getRuntimeContext().getRule();
+        for (Map.Entry<String, DynamicStandardShardingAlgorithm> entry : getDynamicTables(shardingRule).entrySet()) {
+            if (properties.getTable(entry.getKey()).isStatistics()) {
+                entry.getValue().bindStatisticsCatalog(statisticsCatalog);
+            }
+        }
+        for (Map.Entry<String, DynamicStandardShardingAlgorithm> entry : getRangeAlgorithms(shardingRule).entrySet()) {
+            if (properties.getTable(entry.getKey()).isStatistics()) {
+                entry.getValue().bindStatisticsCatalog(statisticsCatalog);
+            }
+        }
+    }
+
+    /**
+     * 需要提前创建的分区，至少覆盖到下一次定时刷新所在的分区，小时、分钟分区在两次刷新之间不会缺少分区
      *
      * @param logicTable 逻辑表
-     * @param dateFormat 日期格式
-     * @return 下一个分区表名
+     * @param algorithm  分表算法
+     * @param now        当前时间
+     * @return 分区表集合，按时间先后排序
      */
-    private String getNextDynamicTable(String logicTable, String dateFormat) {
-        SimpleDateFormat sdf = new SimpleDateFormat(dateFormat);
-        Calendar calendar = new GregorianCalendar();
-        calendar.setTime(new Date());
-        calendar.add(Calendar.DATE, 1);
-        return String.format("%s_%s", logicTable, sdf.format(calendar.getTime()));
+    private Collection<String> getLookAheadTableNames(String logicTable, DynamicStandardShardingAlgorithm algorithm, Date now) {
+        Collection<String> tableNames = algorithm.getTableNames(logicTable, now, properties.getTable(logicTable).getLookAhead());
+        if (refreshCron == null) {
+            return tableNames;
+        }
+        //两者都从当前分区开始，取更长的一个
+        Collection<String> untilNextRefresh = algorithm.generateTableNames(logicTable, now, refreshCron.next(now));
+        return untilNextRefresh.size() > tableNames.size() ? untilNextRefresh : tableNames;
     }
 
     /**
-     * 获取需要动态分区的表
+     * 获取超出保留周期的分区，建表模板不会过期
+     *
+     * @param logicTable 逻辑表
+     * @param algorithm  分表算法
+     * @param snapshot   当前快照
+     * @param now        当前时间
+     * @return 过期的分区节点
+     */
+    private Set<DataNode> getExpiredDataNodes(String logicTable, DynamicStandardShardingAlgorithm algorithm,
+                                              ActualTablesSnapshot snapshot, Date now) {
+        DynamicTableProperties.TableProperties tableProperties = properties.getTable(logicTable);
+        if (tableProperties.getRetention() <= 0) {
+            return Collections.emptySet();
+        }
+
+        long oldest = getOldestOrdinal(logicTable, algorithm, now);
+        Set<DataNode> results = new LinkedHashSet<>();
+        for (DataNode dataNode : snapshot.getDataNodes()) {
+            if (StringUtils.equals(dataNode.getTableName(), tableProperties.getTemplateTable())) {
+                continue;
+            }
+            long ordinal = algorithm.getPeriodOrdinal(logicTable, dataNode.getTableName());
+            if (ordinal >= 0 && ordinal < oldest) {
+                results.add(dataNode);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 保留周期内最早的分区的周期序号
+     *
+     * @param logicTable 逻辑表
+     * @param algorithm  分表算法
+     * @param now        当前时间
+     * @return 周期序号，没有配置保留周期时返回0
+     */
+    private long getOldestOrdinal(String logicTable, DynamicStandardShardingAlgorithm algorithm, Date now) {
+        int retention = properties.getTable(logicTable).getRetention();
+        if (retention <= 0) {
+            return 0;
+        }
+        return algorithm.getPeriodOrdinal(logicTable, algorithm.getTableName(logicTable, now)) - retention + 1;
+    }
+
+    /**
+     * 把过期分区从ShardingJDBC中移除，之后由后台任务删除或归档
+     *
+     * @param tableRule 规则
+     * @param dataNodes 过期的分区节点
+     */
+    void removeActualTables(TableRule tableRule, Collection<DataNode> dataNodes) {
+        removeActualTables(tableRule, dataNodes, true);
+    }
+
+    /**
+     * 把过期分区从ShardingJDBC中移除
      *
-     * @param shardingRule <逻辑表, 日期格式>
-     * @return 需要动态分区的逻辑表
+     * @param tableRule 规则
+     * @param dataNodes 过期的分区节点
+     * @param retire    是否由当前节点删除或归档，集群中只有持有租约的节点清理
      */
-    private Map<String, String> getDynamicTables(ShardingRule shardingRule) {
-        Map<String, String> results = new HashMap<>();
+    private void removeActualTables(TableRule tableRule, Collection<DataNode> dataNodes, boolean retire) {
+        TableRuleMetadata metadata = TableRuleMetadata.of(tableRule);
+        ActualTablesSnapshot current = metadata.getSnapshot();
+        if (dataNodes.size() >= current.size()) {
+            log.warn("{}的分区全部过期，保留现有分区，等待新分区创建后再清理", tableRule.getLogicTable());
+            return;
+        }
+
+        ActualTablesSnapshot snapshot = metadata.removeDataNodes(dataNodes);
+        log.info("{}从Sharding中移除了{}个过期分区，剩余{}个", tableRule.getLogicTable(), current.size() - snapshot.size(), snapshot.size());
+        for (DataNode dataNode : dataNodes) {
+            createdTables.remove(getFullTableName(dataNode.getDataSourceName(), dataNode.getTableName()));
+            if (statisticsCatalog != null) {
+                statisticsCatalog.invalidate(tableRule.getLogicTable(), dataNode.getTableName());
+            }
+            if (retire) {
+                expiredTables.put(dataNode, tableRule.getLogicTable());
+            }
+        }
+    }
+
+    /**
+     * 在后台逐个删除或归档已经移出路由的过期分区，语句之间按间隔限速，失败的分区在下次刷新时重试
+     */
+    private void retireExpiredTables() {
+        if (expiredTables.isEmpty() || !retiring.compareAndSet(false, true)) {
+            return;
+        }
+
+        ShardingDataSource dataSource = (ShardingDataSource) this.dataSource;
+        maintenanceExecutor.execute(() -> {
+            try {
+                if (lease != null) {
+                    //等待其他节点同步元数据，先把过期分区移出路由
+                    Thread.sleep(properties.getCluster().getPollInterval() * 2);
+                }
+                for (Map.Entry<DataNode, String> entry : new ArrayList<>(expiredTables.entrySet())) {
+                    Thread.sleep(properties.getRetention().getInterval());
+                    DataNode dataNode = entry.getKey();
+                    if (retireTable(dataSource.getDataSourceMap().get(dataNode.getDataSourceName()), dataNode,
+                            properties.getTable(entry.getValue()))) {
+                        expiredTables.remove(dataNode);
+                        if (secondaryIndex != null && !secondaryIndex.getIndexColumns(entry.getValue()).isEmpty()) {
+                            secondaryIndex.removePartition(entry.getValue(), dataNode);
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                retiring.set(false);
+            }
+        });
+    }
+
+    /**
+     * 删除或归档一个过期分区
+     *
+     * @param dataSource      实际数据源
+     * @param dataNode        分区节点
+     * @param tableProperties 逻辑表配置
+     * @return 是否成功
+     */
+    private boolean retireTable(DataSource dataSource, DataNode dataNode, DynamicTableProperties.TableProperties tableProperties) {
+        String fullTableName = getFullTableName(dataNode.getDataSourceName(), dataNode.getTableName());
+        boolean archive = tableProperties.getRetentionAction() == DynamicTableProperties.RetentionAction.ARCHIVE;
+        if (archive && StringUtils.isEmpty(tableProperties.getArchiveSchema())) {
+            log.error("{}缺少归档库配置archive-schema", fullTableName);
+            return false;
+        }
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            String databaseProductName = connection.getMetaData().getDatabaseProductName();
+            if ("MySQL".equalsIgnoreCase(databaseProductName)) {
+                statement.execute("SET SESSION lock_wait_timeout = " + properties.getRetention().getLockWaitTimeout());
+            }
+            if (archive) {
+                log.info("归档表:{}到{}", fullTableName, tableProperties.getArchiveSchema());
+                statement.execute(String.format("RENAME TABLE %s TO %s.%s",
+                        dataNode.getTableName(), tableProperties.getArchiveSchema(), dataNode.getTableName()));
+            } else {
+                log.info("删除表:{}", fullTableName);
+                statement.execute(String.format("DROP TABLE IF EXISTS %s", dataNode.getTableName()));
+            }
+            return true;
+        } catch (SQLException e) {
+            log.error("{}清理失败，下次刷新时重试", fullTableName, e);
+            return false;
+        }
+    }
+
+    /**
+     * 把分区表发布到第一个分区所在的数据源
+     *
+     * @param tableRule  规则
+     * @param tableNames 分区表集合
+     */
+    void refreshActualTables(TableRule tableRule, Set<String> tableNames) {
+        String dataSourceName = TableRuleMetadata.of(tableRule).getSnapshot().getDataNodes().get(0).getDataSourceName();
+        refreshActualTables(tableRule, dataSourceName, tableNames);
+    }
+
+    /**
+     * 把分区表发布到ShardingJDBC中，构建新的快照后原子替换，路由线程不会读到修改了一半的规则
+     *
+     * @param tableRule      规则
+     * @param dataSourceName 数据源
+     * @param tableNames     分区表集合
+     */
+    void refreshActualTables(TableRule tableRule, String dataSourceName, Collection<String> tableNames) {
+        TableRuleMetadata metadata = TableRuleMetadata.of(tableRule);
+        int before = metadata.getSnapshot().size();
+        ActualTablesSnapshot snapshot = metadata.addActualTables(dataSourceName, tableNames);
+        if (snapshot.size() != before) {
+            log.info("{}添加了{}个分区表到Sharding中，共{}个", tableRule.getLogicTable(), snapshot.size() - before, snapshot.size());
+        }
+    }
+
+    /**
+     * 按数据源并行建表，每个数据源只占用一个连接，建表语句批量执行
+     *
+     * @param dataSource    ShardingJDBC数据源
+     * @param pendingTables <数据源, <待创建的分区表, 模板表>>
+     * @return 失败的表数
+     */
+    private int createTables(ShardingDataSource dataSource, Map<String, Map<String, String>> pendingTables) {
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (Map.Entry<String, Map<String, String>> entry : pendingTables.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
+            DataSource actualDataSource = dataSource.getDataSourceMap().get(entry.getKey());
+            futures.add(ddlExecutor.submit(() -> createTables(actualDataSource, entry.getKey(), entry.getValue())));
+        }
+
+        int failed = 0;
+        for (Future<Integer> future : futures) {
+            try {
+                failed += future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return failed + 1;
+            } catch (ExecutionException e) {
+                log.error("建表失败", e.getCause());
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * 在一个数据源上批量建表
+     *
+     * @param dataSource     实际数据源
+     * @param dataSourceName 数据源名称
+     * @param tables         <待创建的分区表, 模板表>
+     * @return 失败的表数
+     */
+    private int createTables(DataSource dataSource, String dataSourceName, Map<String, String> tables) {
+        List<String> tableNames = new ArrayList<>(tables.keySet());
+        long start = System.nanoTime();
+        int created = 0;
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            String databaseProductName = connection.getMetaData().getDatabaseProductName();
+            for (String tableName : tableNames) {
+                log.info("创建表:{}", getFullTableName(dataSourceName, tableName));
+                statement.addBatch(getCreateTableSql(databaseProductName, tableName, tables.get(tableName)));
+            }
+
+            int[] results;
+            try {
+                results = statement.executeBatch();
+            } catch (BatchUpdateException e) {
+                log.error("{}部分表创建失败", dataSourceName, e);
+                results = e.getUpdateCounts();
+            }
+            for (int i = 0; i < results.length && i < tableNames.size(); i++) {
+                if (results[i] != Statement.EXECUTE_FAILED) {
+                    createdTables.add(getFullTableName(dataSourceName, tableNames.get(i)));
+                    created++;
+                }
+            }
+        } catch (SQLException e) {
+            log.error("{}建表失败", dataSourceName, e);
+        }
+
+        int failed = tableNames.size() - created;
+        if (metrics != null) {
+            metrics.recordCreateTables(dataSourceName, System.nanoTime() - start, failed);
+        }
+        return failed;
+    }
+
+    /**
+     * 按模板建表的语句，H2只用于本地测试，不支持CREATE TABLE LIKE
+     */
+    private static String getCreateTableSql(String databaseProductName, String tableName, String templateTable) {
+        if ("H2".equalsIgnoreCase(databaseProductName)) {
+            return String.format("CREATE TABLE IF NOT EXISTS %s AS SELECT * FROM %s WITH NO DATA", tableName, templateTable);
+        }
+        return String.format("CREATE TABLE IF NOT EXISTS %s LIKE %s", tableName, templateTable);
+    }
+
+    private String getTemplateTable(String logicTable, ActualTablesSnapshot snapshot) {
+        String templateTable = properties.getTable(logicTable).getTemplateTable();
+        return StringUtils.isEmpty(templateTable) ? snapshot.getDataNodes().get(0).getTableName() : templateTable;
+    }
+
+    private static String getFullTableName(String dataSourceName, String tableName) {
+        return String.format("%s.%s", dataSourceName, tableName);
+    }
+
+    /**
+     * 为使用动态分库算法的逻辑表绑定分表信息和放置策略，分库与分表使用同一个放置策略；
+     * 按类名配置时精确和区间分库算法是两个实例，都需要绑定，未绑定的区间分库算法会路由到所有数据源
+     */
+    private void bindDatabaseShardingAlgorithms() {
+        ShardingRule shardingRule = ((ShardingDataSource) this.dataSource).getRuntimeContext().getRule();
         ShardingRuleConfiguration configuration = shardingRule.getRuleConfiguration();
+        Map<String, DynamicStandardShardingAlgorithm> dynamicTables = getDynamicTables(shardingRule);
+        Map<String, DynamicStandardShardingAlgorithm> rangeAlgorithms = getRangeAlgorithms(shardingRule);
 
         for (TableRuleConfiguration ruleConfig : configuration.getTableRuleConfigs()) {
-            if (!(ruleConfig.getTableShardingStrategyConfig() instanceof StandardShardingStrategyConfiguration)) {
+            String logicTable = ruleConfig.getLogicTable();
+            ShardingStrategyConfiguration strategyConfig = ruleConfig.getDatabaseShardingStrategyConfig() == null
+                    ? configuration.getDefaultDatabaseShardingStrategyConfig() : ruleConfig.getDatabaseShardingStrategyConfig();
+            if (!dynamicTables.containsKey(logicTable) || !(strategyConfig instanceof StandardShardingStrategyConfiguration)) {
+                continue;
+            }
+            StandardShardingStrategyConfiguration cfg = (StandardShardingStrategyConfiguration) strategyConfig;
+            if (!(cfg.getPreciseShardingAlgorithm() instanceof DynamicDatabaseShardingAlgorithm)) {
                 continue;
             }
-            StandardShardingStrategyConfiguration cfg = (StandardShardingStrategyConfiguration) ruleConfig.getTableShardingStrategyConfig();
+            DynamicDatabaseShardingAlgorithm rangeDatabaseAlgorithm = cfg.getRangeShardingAlgorithm() instanceof DynamicDatabaseShardingAlgorithm
+                    && cfg.getRangeShardingAlgorithm() != cfg.getPreciseShardingAlgorithm()
+                    ? (DynamicDatabaseShardingAlgorithm) cfg.getRangeShardingAlgorithm() : null;
 
-            if (cfg.getPreciseShardingAlgorithm() instanceof DayDynamicStandardShardingAlgorithm
-                    || cfg.getPreciseShardingAlgorithm() instanceof WeekDynamicStandardShardingAlgorithm
-                    || cfg.getPreciseShardingAlgorithm() instanceof MonthDynamicStandardShardingAlgorithm
-                    || cfg.getPreciseShardingAlgorithm() instanceof YearDynamicStandardShardingAlgorithm) {
+            TableRule tableRule = shardingRule.getTableRule(logicTable);
+            DynamicTableProperties.TableProperties tableProperties = properties.getTable(logicTable);
+            List<String> dataSourceNames = tableProperties.getDataSources().isEmpty()
+                    ? new ArrayList<>(TableRuleMetadata.of(tableRule).getSnapshot().getActualDatasourceNames())
+                    : tableProperties.getDataSources();
+            Placement placement = new Placement(tableProperties.getPlacement().newPlacement(), dataSourceNames);
+            placements.put(logicTable, placement);
+            ((DynamicDatabaseShardingAlgorithm) cfg.getPreciseShardingAlgorithm())
+                    .bind(logicTable, tableRule, dynamicTables.get(logicTable), placement.placement, dataSourceNames);
+            if (rangeDatabaseAlgorithm != null) {
+                //区间分库按区间分表算法判断数据源上是否有区间内的分区，与分表的区间路由一致
+                rangeDatabaseAlgorithm.bind(logicTable, tableRule, rangeAlgorithms.getOrDefault(logicTable, dynamicTables.get(logicTable)),
+                        placement.placement, dataSourceNames);
+            }
+            log.info("{}的新分区按{}放置到{}", logicTable, tableProperties.getPlacement(), dataSourceNames);
+        }
+    }
+
+    /**
+     * 获取需要动态分区的表
+     *
+     * @param shardingRule 规则
+     * @return <逻辑表, 分表算法>
+     */
+    private Map<String, DynamicStandardShardingAlgorithm> getDynamicTables(ShardingRule shardingRule) {
+        Map<String, DynamicStandardShardingAlgorithm> results = new LinkedHashMap<>();
+        ShardingRuleConfiguration configuration = shardingRule.getRuleConfiguration();
 
-                DynamicStandardShardingAlgorithm algorithm = (DynamicStandardShardingAlgorithm) cfg.getPreciseShardingAlgorithm();
-                results.put(ruleConfig.getLogicTable(), algorithm.getDateFormat());
+        for (TableRuleConfiguration ruleConfig : configuration.getTableRuleConfigs()) {
+            Object algorithm = null;
+            if (ruleConfig.getTableShardingStrategyConfig() instanceof StandardShardingStrategyConfiguration) {
+                algorithm = ((StandardShardingStrategyConfiguration) ruleConfig.getTableShardingStrategyConfig()).getPreciseShardingAlgorithm();
+            } else if (ruleConfig.getTableShardingStrategyConfig() instanceof ComplexShardingStrategyConfiguration) {
+                //时间加分桶的算法使用complex策略
+                algorithm = ((ComplexShardingStrategyConfiguration) ruleConfig.getTableShardingStrategyConfig()).getShardingAlgorithm();
+            }
 
+            if (algorithm instanceof DynamicStandardShardingAlgorithm) {
+                results.put(ruleConfig.getLogicTable(), (DynamicStandardShardingAlgorithm) algorithm);
             }
         }
 
@@ -195,17 +1425,40 @@ public class ShardingTableRuleActualTablesRefreshScheduler implements Initializi
     }
 
     /**
-     * 创建表
+     * 获取单独配置的区间分表算法，按类名配置precise-algorithm-class-name和range-algorithm-class-name时是两个实例
      *
-     * @param newTable    新表
-     * @param beforeTable 已经存在的分区表
-     * @throws SQLException
+     * @param shardingRule 规则
+     * @return <逻辑表, 区间分表算法>，与精确分表算法是同一个实例的逻辑表不包含在内
      */
-    private void createTable(String newTable, String beforeTable) throws SQLException {
-        String sql = String.format("CREATE TABLE IF NOT EXISTS %s LIKE %s", newTable, beforeTable);
-        try (Connection connection = dataSource.getConnection();
-             Statement statement = connection.createStatement()) {
-            statement.executeUpdate(sql);
+    private Map<String, DynamicStandardShardingAlgorithm> getRangeAlgorithms(ShardingRule shardingRule) {
+        Map<String, DynamicStandardShardingAlgorithm> results = new LinkedHashMap<>();
+        for (TableRuleConfiguration ruleConfig : shardingRule.getRuleConfiguration().getTableRuleConfigs()) {
+            if (!(ruleConfig.getTableShardingStrategyConfig() instanceof StandardShardingStrategyConfiguration)) {
+                continue;
+            }
+            StandardShardingStrategyConfiguration strategyConfig = (StandardShardingStrategyConfiguration) ruleConfig.getTableShardingStrategyConfig();
+            if (strategyConfig.getRangeShardingAlgorithm() instanceof DynamicStandardShardingAlgorithm
+                    && strategyConfig.getRangeShardingAlgorithm() != strategyConfig.getPreciseShardingAlgorithm()) {
+                results.put(ruleConfig.getLogicTable(), (DynamicStandardShardingAlgorithm) strategyConfig.getRangeShardingAlgorithm());
+            }
+        }
+        return results;
+    }
+
+    private static final class Placement {
+
+        private final PartitionPlacement placement;
+
+        private final List<String> dataSourceNames;
+
+        Placement(PartitionPlacement placement, List<String> dataSourceNames) {
+            this.placement = placement;
+            this.dataSourceNames = Collections.unmodifiableList(new ArrayList<>(dataSourceNames));
+        }
+
+        String place(DynamicStandardShardingAlgorithm algorithm, String logicTable, String tableName,
+                     Map<String, Collection<String>> datasourceToTablesMap) {
+            return placement.place(tableName, algorithm.getPeriodOrdinal(logicTable, tableName), dataSourceNames, datasourceToTablesMap);
         }
     }
 }
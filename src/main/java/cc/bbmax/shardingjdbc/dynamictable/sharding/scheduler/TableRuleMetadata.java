@@ -0,0 +1,211 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.scheduler;
+
+import org.apache.shardingsphere.core.rule.TableRule;
+import org.apache.shardingsphere.underlying.common.rule.DataNode;
+
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * TableRule的分区元数据
+ * <p>
+ * 第一次使用时把TableRule中分区相关的final字段替换为只读视图，视图读取当前发布的快照；
+ * 之后刷新分区只需要构建新的快照并原子替换，路由线程无锁读取，不会读到修改了一半的规则
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 6:20 下午
+ */
+public final class TableRuleMetadata {
+
+    private final AtomicReference<ActualTablesSnapshot> snapshot;
+
+    private TableRuleMetadata(ActualTablesSnapshot snapshot) {
+        this.snapshot = new AtomicReference<>(snapshot);
+    }
+
+    /**
+     * 获取TableRule的分区元数据，第一次调用时安装只读视图
+     *
+     * @param tableRule 规则
+     * @return 分区元数据
+     */
+    public static TableRuleMetadata of(TableRule tableRule) {
+        synchronized (tableRule) {
+            List<DataNode> dataNodes = tableRule.getActualDataNodes();
+            if (dataNodes instanceof DataNodesView) {
+                return ((DataNodesView) dataNodes).metadata;
+            }
+
+            TableRuleMetadata metadata = new TableRuleMetadata(ActualTablesSnapshot.of(dataNodes));
+            setField(tableRule, "actualDataNodes", metadata.new DataNodesView());
+            setField(tableRule, "actualTables", metadata.new ActualTablesView());
+            setField(tableRule, "dataNodeIndexMap", metadata.new DataNodeIndexMapView());
+            setField(tableRule, "actualDatasourceNames", metadata.new ActualDatasourceNamesView());
+            setField(tableRule, "datasourceToTablesMap", metadata.new DatasourceToTablesMapView());
+            return metadata;
+        }
+    }
+
+    public ActualTablesSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * 在当前快照的基础上构建新快照并通过updateAndGet发布；快照共享只追加的底层数据，
+     * 转换不能因为CAS失败而重复执行，所以写操作串行执行，updateAndGet总是一次成功
+     *
+     * @param update 快照转换
+     * @return 发布后的快照
+     */
+    public synchronized ActualTablesSnapshot update(UnaryOperator<ActualTablesSnapshot> update) {
+        return snapshot.updateAndGet(update);
+    }
+
+    /**
+     * 添加分区表
+     *
+     * @param dataSourceName 数据源
+     * @param tableNames     分区表集合
+     * @return 发布后的快照
+     */
+    public ActualTablesSnapshot addActualTables(String dataSourceName, Collection<String> tableNames) {
+        return update(current -> current.withActualTables(dataSourceName, tableNames));
+    }
+
+    /**
+     * 移除分区表，移除后新的路由不会再访问这些分区
+     *
+     * @param dataNodes 分区节点
+     * @return 发布后的快照
+     */
+    public ActualTablesSnapshot removeDataNodes(Collection<DataNode> dataNodes) {
+        return update(current -> current.withoutDataNodes(dataNodes));
+    }
+
+    /**
+     * 替换final实例字段，只需要setAccessible，不依赖Field.modifiers
+     */
+    private static void setField(TableRule tableRule, String name, Object value) {
+        try {
+            Field field = TableRule.class.getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(tableRule, value);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalStateException(String.format("修改TableRule.%s异常", name), e);
+        }
+    }
+
+    private final class DataNodesView extends AbstractList<DataNode> implements RandomAccess {
+
+        private final TableRuleMetadata metadata = TableRuleMetadata.this;
+
+        @Override
+        public DataNode get(int index) {
+            return snapshot.get().getDataNodes().get(index);
+        }
+
+        @Override
+        public int size() {
+            return snapshot.get().getDataNodes().size();
+        }
+
+        @Override
+        public Iterator<DataNode> iterator() {
+            return snapshot.get().getDataNodes().iterator();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return snapshot.get().getDataNodes().contains(o);
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            return snapshot.get().getDataNodes().indexOf(o);
+        }
+    }
+
+    private final class ActualTablesView extends AbstractSet<String> {
+
+        @Override
+        public Iterator<String> iterator() {
+            return snapshot.get().getActualTables().iterator();
+        }
+
+        @Override
+        public int size() {
+            return snapshot.get().getActualTables().size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return snapshot.get().getActualTables().contains(o);
+        }
+    }
+
+    private final class DataNodeIndexMapView extends AbstractMap<DataNode, Integer> {
+
+        @Override
+        public Set<Entry<DataNode, Integer>> entrySet() {
+            return snapshot.get().getDataNodeIndexMap().entrySet();
+        }
+
+        @Override
+        public Integer get(Object key) {
+            return snapshot.get().getDataNodeIndexMap().get(key);
+        }
+
+        @Override
+        public Integer getOrDefault(Object key, Integer defaultValue) {
+            return snapshot.get().getDataNodeIndexMap().getOrDefault(key, defaultValue);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return snapshot.get().getDataNodeIndexMap().containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return snapshot.get().getDataNodeIndexMap().size();
+        }
+    }
+
+    private final class ActualDatasourceNamesView extends AbstractCollection<String> {
+
+        @Override
+        public Iterator<String> iterator() {
+            return snapshot.get().getActualDatasourceNames().iterator();
+        }
+
+        @Override
+        public int size() {
+            return snapshot.get().getActualDatasourceNames().size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return snapshot.get().getActualDatasourceNames().contains(o);
+        }
+    }
+
+    private final class DatasourceToTablesMapView extends AbstractMap<String, Collection<String>> {
+
+        @Override
+        public Set<Entry<String, Collection<String>>> entrySet() {
+            return snapshot.get().getDatasourceToTablesMap().entrySet();
+        }
+
+        @Override
+        public Collection<String> get(Object key) {
+            return snapshot.get().getDatasourceToTablesMap().get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return snapshot.get().getDatasourceToTablesMap().containsKey(key);
+        }
+    }
+}
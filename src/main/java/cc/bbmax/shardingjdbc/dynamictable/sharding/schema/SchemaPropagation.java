@@ -0,0 +1,173 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.schema;
+
+import org.apache.shardingsphere.underlying.common.rule.DataNode;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一次表结构同步的进度，可以暂停、恢复和取消；暂停只影响还没有开始的分区，正在执行的ALTER不会中断
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 4:00 上午
+ */
+public final class SchemaPropagation {
+
+    public enum State {
+
+        RUNNING,
+
+        PAUSED,
+
+        CANCELLED,
+
+        COMPLETED
+    }
+
+    private final String logicTable;
+
+    private final int total;
+
+    private final CountDownLatch finished;
+
+    /**
+     * 执行了ALTER的分区数
+     */
+    private final AtomicInteger altered = new AtomicInteger();
+
+    /**
+     * 结构已经一致的分区数
+     */
+    private final AtomicInteger unchanged = new AtomicInteger();
+
+    /**
+     * <分区, 失败原因>
+     */
+    private final Map<DataNode, String> failures = new ConcurrentHashMap<>();
+
+    private final Object lock = new Object();
+
+    private volatile boolean paused;
+
+    private volatile boolean cancelled;
+
+    SchemaPropagation(String logicTable, int total) {
+        this.logicTable = logicTable;
+        this.total = total;
+        this.finished = new CountDownLatch(total);
+    }
+
+    public void pause() {
+        paused = true;
+    }
+
+    public void resume() {
+        synchronized (lock) {
+            paused = false;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * 取消后剩余的分区不再执行，已经同步的分区不回滚
+     */
+    public void cancel() {
+        synchronized (lock) {
+            cancelled = true;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * 等待所有分区执行完成或被取消
+     *
+     * @return 是否在超时前结束
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return finished.await(timeout, unit);
+    }
+
+    public boolean isDone() {
+        return finished.getCount() == 0;
+    }
+
+    public State getState() {
+        if (isDone()) {
+            return cancelled ? State.CANCELLED : State.COMPLETED;
+        }
+        if (cancelled) {
+            return State.CANCELLED;
+        }
+        return paused ? State.PAUSED : State.RUNNING;
+    }
+
+    public String getLogicTable() {
+        return logicTable;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getAltered() {
+        return altered.get();
+    }
+
+    public int getUnchanged() {
+        return unchanged.get();
+    }
+
+    public Map<DataNode, String> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    public Map<String, Object> describe() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("state", getState());
+        result.put("total", total);
+        result.put("altered", altered.get());
+        result.put("unchanged", unchanged.get());
+        Map<String, String> failures = new LinkedHashMap<>();
+        this.failures.forEach((dataNode, message) -> failures.put(dataNode.getDataSourceName() + "." + dataNode.getTableName(), message));
+        result.put("failures", failures);
+        return result;
+    }
+
+    /**
+     * 暂停时阻塞工作线程
+     *
+     * @return 是否继续执行，已取消时返回false
+     */
+    boolean awaitRunning() throws InterruptedException {
+        synchronized (lock) {
+            while (paused && !cancelled) {
+                lock.wait();
+            }
+            return !cancelled;
+        }
+    }
+
+    void altered() {
+        altered.incrementAndGet();
+        finished.countDown();
+    }
+
+    void unchanged() {
+        unchanged.incrementAndGet();
+        finished.countDown();
+    }
+
+    void failed(DataNode dataNode, String message) {
+        failures.put(dataNode, message);
+        finished.countDown();
+    }
+
+    void skipped() {
+        finished.countDown();
+    }
+}
@@ -0,0 +1,56 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.schema;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 表结构同步，GET /actuator/dynamictableschema查看进度，
+ * POST /actuator/dynamictableschema/{logicTable}，body为{"action":"start|pause|resume|cancel"}
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 4:00 上午
+ */
+@Component
+@Endpoint(id = "dynamictableschema")
+public class SchemaPropagationEndpoint {
+
+    private final SchemaPropagator schemaPropagator;
+
+    public SchemaPropagationEndpoint(SchemaPropagator schemaPropagator) {
+        this.schemaPropagator = schemaPropagator;
+    }
+
+    @ReadOperation
+    public Map<String, Object> propagations() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        schemaPropagator.getPropagations().forEach((logicTable, propagation) -> result.put(logicTable, propagation.describe()));
+        return result;
+    }
+
+    @WriteOperation
+    public Map<String, Object> operate(@Selector String logicTable, String action) {
+        if ("start".equalsIgnoreCase(action)) {
+            return schemaPropagator.propagate(logicTable).describe();
+        }
+        SchemaPropagation propagation = schemaPropagator.getPropagation(logicTable);
+        if (propagation == null) {
+            throw new IllegalArgumentException(String.format("%s没有表结构同步", logicTable));
+        }
+        if ("pause".equalsIgnoreCase(action)) {
+            propagation.pause();
+        } else if ("resume".equalsIgnoreCase(action)) {
+            propagation.resume();
+        } else if ("cancel".equalsIgnoreCase(action)) {
+            propagation.cancel();
+        } else {
+            throw new IllegalArgumentException(String.format("不支持的操作:%s", action));
+        }
+        return propagation.describe();
+    }
+}
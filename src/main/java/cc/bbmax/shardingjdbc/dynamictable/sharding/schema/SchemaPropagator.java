@@ -0,0 +1,279 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.schema;
+
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.DynamicStandardShardingAlgorithm;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.PartitionResolver;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.scheduler.ActualTablesSnapshot;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.scheduler.TableRuleMetadata;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.shardingsphere.core.rule.TableRule;
+import org.apache.shardingsphere.underlying.common.rule.DataNode;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 把模板表的结构在线同步到逻辑表的所有分区
+ * <p>
+ * 先修改模板表(template-table，为空时为actual-data-nodes中的第一个分区表)，再调用{@link #propagate(String)}：
+ * 每个分区在执行前与模板表比较，只执行缺少的新增列、修改列和新增索引，重复执行或中断后重新执行不会重复修改。
+ * 未封存的分区按时间从新到旧先执行，封存的分区最后执行；所有逻辑表共享threads个线程，
+ * 每个数据源同时最多per-data-source个分区执行ALTER，每个分区执行后间隔interval毫秒再释放该数据源，避免DDL挤占业务的IO和复制带宽。
+ * 新分区仍然按模板表创建，同步期间新建的分区已经是新的结构
+ *
+ * <pre>
+ * SchemaPropagation propagation = schemaPropagator.propagate("day_partition_table");
+ * propagation.pause();
+ * propagation.resume();
+ * </pre>
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 4:00 上午
+ */
+@Component
+@Slf4j
+public class SchemaPropagator implements DisposableBean {
+
+    private final PartitionResolver partitionResolver;
+
+    private final DynamicTableProperties properties;
+
+    private final ExecutorService executor;
+
+    /**
+     * <数据源, 并发>
+     */
+    private final Map<String, Semaphore> dataSourcePermits = new ConcurrentHashMap<>();
+
+    /**
+     * <逻辑表, 最近一次同步>
+     */
+    private final Map<String, SchemaPropagation> propagations = new ConcurrentHashMap<>();
+
+    public SchemaPropagator(PartitionResolver partitionResolver, DynamicTableProperties properties) {
+        this.partitionResolver = partitionResolver;
+        this.properties = properties;
+        this.executor = Executors.newFixedThreadPool(Math.max(properties.getSchema().getThreads(), 1), new ThreadFactory() {
+            private final AtomicInteger index = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "dynamic-table-schema-" + index.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * 计算每个分区需要执行的语句，不执行
+     *
+     * @param logicTable 逻辑表
+     * @return <分区, 语句>，按执行顺序，不包含结构已经一致的分区
+     */
+    public Map<DataNode, List<String>> plan(String logicTable) {
+        Map<DataNode, List<String>> results = new LinkedHashMap<>();
+        TableSchema template = readTemplate(logicTable);
+        for (DataNode dataNode : getOrderedDataNodes(logicTable)) {
+            try (Connection connection = partitionResolver.getDataSource(dataNode.getDataSourceName()).getConnection()) {
+                List<String> statements = diff(connection, dataNode, template);
+                if (!statements.isEmpty()) {
+                    results.put(dataNode, statements);
+                }
+            } catch (SQLException e) {
+                throw new UncategorizedSQLException("比较表结构" + dataNode.getTableName(), null, e);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 开始把模板表的结构同步到所有分区，在后台执行
+     *
+     * @param logicTable 逻辑表
+     * @return 同步进度
+     * @throws IllegalStateException 该逻辑表上一次同步还没有结束
+     */
+    public synchronized SchemaPropagation propagate(String logicTable) {
+        SchemaPropagation previous = propagations.get(logicTable);
+        if (previous != null && !previous.isDone()) {
+            throw new IllegalStateException(String.format("%s的表结构同步还没有结束:%s", logicTable, previous.getState()));
+        }
+        TableSchema template = readTemplate(logicTable);
+        List<DataNode> dataNodes = getOrderedDataNodes(logicTable);
+        SchemaPropagation propagation = new SchemaPropagation(logicTable, dataNodes.size());
+        propagations.put(logicTable, propagation);
+        log.info("开始同步{}的表结构，共{}个分区", logicTable, dataNodes.size());
+        //线程池按提交顺序执行，未封存的分区先开始
+        for (DataNode dataNode : dataNodes) {
+            executor.execute(() -> execute(propagation, dataNode, template));
+        }
+        return propagation;
+    }
+
+    /**
+     * 获取逻辑表最近一次同步
+     *
+     * @param logicTable 逻辑表
+     * @return 同步进度，没有同步过时返回null
+     */
+    public SchemaPropagation getPropagation(String logicTable) {
+        return propagations.get(logicTable);
+    }
+
+    public Map<String, SchemaPropagation> getPropagations() {
+        return Collections.unmodifiableMap(propagations);
+    }
+
+    @Override
+    public void destroy() {
+        propagations.values().forEach(SchemaPropagation::cancel);
+        executor.shutdownNow();
+    }
+
+    private void execute(SchemaPropagation propagation, DataNode dataNode, TableSchema template) {
+        Semaphore permits = dataSourcePermits.computeIfAbsent(dataNode.getDataSourceName(),
+                key -> new Semaphore(Math.max(properties.getSchema().getPerDataSource(), 1)));
+        try {
+            if (!propagation.awaitRunning()) {
+                propagation.skipped();
+                return;
+            }
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            propagation.skipped();
+            return;
+        }
+        try {
+            //等待并发期间可能被暂停或取消
+            if (!propagation.awaitRunning()) {
+                propagation.skipped();
+                return;
+            }
+            if (alter(dataNode, template)) {
+                propagation.altered();
+                Thread.sleep(properties.getSchema().getInterval());
+            } else {
+                propagation.unchanged();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            propagation.skipped();
+        } catch (SQLException | RuntimeException e) {
+            log.error("同步表结构失败:{}.{}", dataNode.getDataSourceName(), dataNode.getTableName(), e);
+            propagation.failed(dataNode, e.getMessage());
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * 执行分区与模板表的差异
+     *
+     * @return 是否执行了ALTER
+     */
+    private boolean alter(DataNode dataNode, TableSchema template) throws SQLException {
+        try (Connection connection = partitionResolver.getDataSource(dataNode.getDataSourceName()).getConnection();
+             Statement statement = connection.createStatement()) {
+            List<String> statements = diff(connection, dataNode, template);
+            if (statements.isEmpty()) {
+                return false;
+            }
+            if ("MySQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())) {
+                statement.execute("SET SESSION lock_wait_timeout = " + properties.getSchema().getLockWaitTimeout());
+            }
+            for (String sql : statements) {
+                log.info("同步表结构:{}.{} {}", dataNode.getDataSourceName(), dataNode.getTableName(), sql);
+                statement.execute(sql);
+            }
+            return true;
+        }
+    }
+
+    private static List<String> diff(Connection connection, DataNode dataNode, TableSchema template) throws SQLException {
+        TableSchema schema = TableSchema.read(connection, dataNode.getTableName());
+        if (schema == null) {
+            //已经被清理的分区
+            return Collections.emptyList();
+        }
+        return schema.diff(connection.getMetaData().getDatabaseProductName(), dataNode.getTableName(), template);
+    }
+
+    private TableSchema readTemplate(String logicTable) {
+        ActualTablesSnapshot snapshot = getSnapshot(logicTable);
+        String templateTable = getTemplateTable(logicTable, snapshot);
+        //模板表不在路由中时依次在每个数据源上查找
+        List<String> dataSourceNames = new ArrayList<>();
+        String dataSourceName = snapshot.findDataSourceName(templateTable);
+        if (dataSourceName != null) {
+            dataSourceNames.add(dataSourceName);
+        } else {
+            dataSourceNames.addAll(snapshot.getActualDatasourceNames());
+        }
+        for (String name : dataSourceNames) {
+            try (Connection connection = partitionResolver.getDataSource(name).getConnection()) {
+                TableSchema template = TableSchema.read(connection, templateTable);
+                if (template != null) {
+                    return template;
+                }
+            } catch (SQLException e) {
+                throw new UncategorizedSQLException("读取模板表" + templateTable, null, e);
+            }
+        }
+        throw new IllegalStateException(String.format("%s的模板表%s不存在", logicTable, templateTable));
+    }
+
+    /**
+     * 除模板表之外的分区，未封存的分区在前，各自按时间从新到旧
+     */
+    private List<DataNode> getOrderedDataNodes(String logicTable) {
+        DynamicStandardShardingAlgorithm algorithm = partitionResolver.getDynamicAlgorithm(logicTable);
+        if (algorithm == null) {
+            throw new IllegalArgumentException(String.format("%s不是动态分表", logicTable));
+        }
+        ActualTablesSnapshot snapshot = getSnapshot(logicTable);
+        String templateTable = getTemplateTable(logicTable, snapshot);
+        int sealAfter = properties.getTable(logicTable).getSealAfter();
+        long current = algorithm.getPeriodOrdinal(logicTable, algorithm.getTableName(logicTable, new Date()));
+
+        List<DataNode> live = new ArrayList<>();
+        List<DataNode> sealed = new ArrayList<>();
+        Map<DataNode, Long> ordinals = new HashMap<>();
+        for (DataNode dataNode : snapshot.getDataNodes()) {
+            if (StringUtils.equals(dataNode.getTableName(), templateTable)) {
+                continue;
+            }
+            long ordinal = algorithm.getPeriodOrdinal(logicTable, dataNode.getTableName());
+            ordinals.put(dataNode, ordinal);
+            if (ordinal >= 0 && ordinal + sealAfter < current) {
+                sealed.add(dataNode);
+            } else {
+                live.add(dataNode);
+            }
+        }
+        Comparator<DataNode> newestFirst = Comparator.comparing(ordinals::get, Comparator.reverseOrder());
+        live.sort(newestFirst);
+        sealed.sort(newestFirst);
+        live.addAll(sealed);
+        return live;
+    }
+
+    private ActualTablesSnapshot getSnapshot(String logicTable) {
+        TableRule tableRule = partitionResolver.getShardingRule().getTableRule(logicTable);
+        return TableRuleMetadata.of(tableRule).getSnapshot();
+    }
+
+    private String getTemplateTable(String logicTable, ActualTablesSnapshot snapshot) {
+        String templateTable = properties.getTable(logicTable).getTemplateTable();
+        return StringUtils.isEmpty(templateTable) ? snapshot.getDataNodes().get(0).getTableName() : templateTable;
+    }
+}
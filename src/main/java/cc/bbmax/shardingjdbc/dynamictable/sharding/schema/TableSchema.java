@@ -0,0 +1,228 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.schema;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * 通过JDBC元数据读取的表结构，只包含同步分区需要的列和索引
+ * <p>
+ * 与模板表比较时只生成新增列、修改列和新增索引的语句，分区中多出的列和索引不删除；
+ * MySQL把一个分区的所有变更合并成一条ALTER TABLE，只重建一次表，其他数据库逐条执行
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 4:00 上午
+ */
+final class TableSchema {
+
+    /**
+     * 需要带长度的类型
+     */
+    private static final Set<String> SIZED_TYPES = new HashSet<>(Arrays.asList(
+            "CHAR", "VARCHAR", "CHARACTER", "CHARACTER VARYING", "BINARY", "VARBINARY", "DECIMAL", "NUMERIC"));
+
+    /**
+     * <小写列名, 列>，按列的顺序
+     */
+    private final Map<String, Column> columns;
+
+    /**
+     * <唯一性和列, 索引>，按列比较，不比较索引名
+     */
+    private final Map<String, Index> indexes;
+
+    private TableSchema(Map<String, Column> columns, Map<String, Index> indexes) {
+        this.columns = columns;
+        this.indexes = indexes;
+    }
+
+    /**
+     * 读取表结构
+     *
+     * @param connection 连接
+     * @param tableName  表名
+     * @return 表结构，表不存在时返回null
+     */
+    static TableSchema read(Connection connection, String tableName) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String name = metaData.storesUpperCaseIdentifiers() ? tableName.toUpperCase() : tableName;
+        Map<String, Column> columns = new LinkedHashMap<>();
+        try (ResultSet resultSet = metaData.getColumns(connection.getCatalog(), connection.getSchema(), name, null)) {
+            while (resultSet.next()) {
+                Column column = new Column(resultSet.getString("COLUMN_NAME"), resultSet.getString("TYPE_NAME"),
+                        resultSet.getInt("COLUMN_SIZE"), resultSet.getInt("DECIMAL_DIGITS"),
+                        resultSet.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls, resultSet.getString("COLUMN_DEF"));
+                columns.put(column.name.toLowerCase(), column);
+            }
+        }
+        if (columns.isEmpty()) {
+            return null;
+        }
+
+        List<String> primaryKey = new ArrayList<>();
+        try (ResultSet resultSet = metaData.getPrimaryKeys(connection.getCatalog(), connection.getSchema(), name)) {
+            while (resultSet.next()) {
+                primaryKey.add(resultSet.getString("COLUMN_NAME").toLowerCase());
+            }
+        }
+        //<索引名, 索引>，列按ORDINAL_POSITION排序
+        Map<String, Index> indexesByName = new LinkedHashMap<>();
+        try (ResultSet resultSet = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(), name, false, false)) {
+            while (resultSet.next()) {
+                String indexName = resultSet.getString("INDEX_NAME");
+                if (indexName == null || resultSet.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic) {
+                    continue;
+                }
+                Index index = indexesByName.computeIfAbsent(indexName, key -> new Index(key, !getNonUnique(resultSet)));
+                index.columns.add(resultSet.getString("COLUMN_NAME"));
+            }
+        }
+        Map<String, Index> indexes = new LinkedHashMap<>();
+        for (Index index : indexesByName.values()) {
+            //主键由建表语句维护
+            if (index.unique && index.lowerCaseColumns().equals(primaryKey)) {
+                continue;
+            }
+            indexes.putIfAbsent(index.key(), index);
+        }
+        return new TableSchema(columns, indexes);
+    }
+
+    /**
+     * 生成把分区同步为模板表结构的语句
+     *
+     * @param databaseProductName 数据库
+     * @param tableName           分区表
+     * @param template            模板表结构
+     * @return 语句，结构一致时返回空集合
+     */
+    List<String> diff(String databaseProductName, String tableName, TableSchema template) {
+        boolean mysql = "MySQL".equalsIgnoreCase(databaseProductName);
+        List<String> clauses = new ArrayList<>();
+        List<String> statements = new ArrayList<>();
+        for (Map.Entry<String, Column> entry : template.columns.entrySet()) {
+            Column expected = entry.getValue();
+            Column actual = columns.get(entry.getKey());
+            if (actual == null) {
+                clauses.add("ADD COLUMN " + expected.name + " " + expected.definition());
+            } else if (!actual.sameDefinition(expected)) {
+                clauses.add((mysql ? "MODIFY COLUMN " : "ALTER COLUMN ") + expected.name + " " + expected.definition());
+            }
+        }
+        for (Map.Entry<String, Index> entry : template.indexes.entrySet()) {
+            if (indexes.containsKey(entry.getKey())) {
+                continue;
+            }
+            Index index = entry.getValue();
+            String columnList = StringUtils.join(index.columns, ", ");
+            if (mysql) {
+                clauses.add((index.unique ? "ADD UNIQUE INDEX " : "ADD INDEX ") + index.name + " (" + columnList + ")");
+            } else {
+                //H2等数据库的索引名在库中唯一
+                statements.add(String.format("CREATE %sINDEX %s_%s ON %s (%s)", index.unique ? "UNIQUE " : "",
+                        index.name, tableName, tableName, columnList));
+            }
+        }
+
+        List<String> results = new ArrayList<>();
+        if (mysql && !clauses.isEmpty()) {
+            results.add("ALTER TABLE " + tableName + " " + StringUtils.join(clauses, ", "));
+        } else {
+            for (String clause : clauses) {
+                results.add("ALTER TABLE " + tableName + " " + clause);
+            }
+        }
+        results.addAll(statements);
+        return results;
+    }
+
+    private static boolean getNonUnique(ResultSet resultSet) {
+        try {
+            return resultSet.getBoolean("NON_UNIQUE");
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Column {
+
+        private final String name;
+
+        private final String typeName;
+
+        private final int size;
+
+        private final int digits;
+
+        private final boolean nullable;
+
+        private final String defaultValue;
+
+        Column(String name, String typeName, int size, int digits, boolean nullable, String defaultValue) {
+            this.name = name;
+            this.typeName = typeName;
+            this.size = size;
+            this.digits = digits;
+            this.nullable = nullable;
+            this.defaultValue = defaultValue;
+        }
+
+        String definition() {
+            StringBuilder definition = new StringBuilder(typeName);
+            if (isSized()) {
+                definition.append('(').append(size);
+                if (digits > 0) {
+                    definition.append(", ").append(digits);
+                }
+                definition.append(')');
+            }
+            if (defaultValue != null) {
+                boolean quoted = typeName.toUpperCase().contains("CHAR") && !defaultValue.startsWith("'");
+                definition.append(" DEFAULT ").append(quoted ? "'" + defaultValue.replace("'", "''") + "'" : defaultValue);
+            }
+            if (!nullable) {
+                definition.append(" NOT NULL");
+            }
+            return definition.toString();
+        }
+
+        boolean sameDefinition(Column other) {
+            return typeName.equalsIgnoreCase(other.typeName) && nullable == other.nullable
+                    && (!isSized() || (size == other.size && digits == other.digits));
+        }
+
+        private boolean isSized() {
+            return SIZED_TYPES.contains(typeName.toUpperCase());
+        }
+    }
+
+    private static final class Index {
+
+        private final String name;
+
+        private final boolean unique;
+
+        private final List<String> columns = new ArrayList<>();
+
+        Index(String name, boolean unique) {
+            this.name = name;
+            this.unique = unique;
+        }
+
+        List<String> lowerCaseColumns() {
+            List<String> results = new ArrayList<>(columns.size());
+            for (String column : columns) {
+                results.add(column.toLowerCase());
+            }
+            return results;
+        }
+
+        String key() {
+            return (unique ? "unique:" : "index:") + StringUtils.join(lowerCaseColumns(), ",");
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.statistics;
+
+/**
+ * 一个实际分区的统计信息，不可变，写入后按新数据放宽范围
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 10:50 下午
+ */
+public final class PartitionStatistics {
+
+    private static final PartitionStatistics EMPTY = new PartitionStatistics(0, Long.MAX_VALUE, Long.MIN_VALUE, null, null);
+
+    private final long rowCount;
+
+    /**
+     * 分区字段的最小值(时间戳)，空分区为Long.MAX_VALUE
+     */
+    private final long minTime;
+
+    /**
+     * 分区字段的最大值(时间戳)，空分区为Long.MIN_VALUE
+     */
+    private final long maxTime;
+
+    /**
+     * 主键的最小值，没有统计主键时为null
+     */
+    private final Long minId;
+
+    private final Long maxId;
+
+    private PartitionStatistics(long rowCount, long minTime, long maxTime, Long minId, Long maxId) {
+        this.rowCount = rowCount;
+        this.minTime = minTime;
+        this.maxTime = maxTime;
+        this.minId = minId;
+        this.maxId = maxId;
+    }
+
+    public static PartitionStatistics empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @param rowCount 行数
+     * @param minTime  分区字段的最小值
+     * @param maxTime  分区字段的最大值
+     * @param minId    主键的最小值，可以为null
+     * @param maxId    主键的最大值，可以为null
+     * @return 统计信息
+     */
+    public static PartitionStatistics of(long rowCount, long minTime, long maxTime, Long minId, Long maxId) {
+        return rowCount <= 0 ? EMPTY : new PartitionStatistics(rowCount, minTime, maxTime, minId, maxId);
+    }
+
+    /**
+     * 合并新写入的数据
+     *
+     * @param written 新写入数据的统计
+     * @return 合并后的统计信息
+     */
+    public PartitionStatistics merge(PartitionStatistics written) {
+        if (written.isEmpty()) {
+            return this;
+        }
+        if (isEmpty()) {
+            return written;
+        }
+        return new PartitionStatistics(rowCount + written.rowCount, Math.min(minTime, written.minTime), Math.max(maxTime, written.maxTime),
+                minId == null || written.minId == null ? null : Math.min(minId, written.minId),
+                maxId == null || written.maxId == null ? null : Math.max(maxId, written.maxId));
+    }
+
+    /**
+     * 分区中是否可能有分区字段在[lower, upper]内的数据
+     *
+     * @param lower 开始时间戳(包含)
+     * @param upper 结束时间戳(包含)
+     * @return 是否可能有数据
+     */
+    public boolean overlaps(long lower, long upper) {
+        return !isEmpty() && maxTime >= lower && minTime <= upper;
+    }
+
+    public boolean isEmpty() {
+        return rowCount == 0;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getMinTime() {
+        return minTime;
+    }
+
+    public long getMaxTime() {
+        return maxTime;
+    }
+
+    public Long getMinId() {
+        return minId;
+    }
+
+    public Long getMaxId() {
+        return maxId;
+    }
+
+    @Override
+    public String toString() {
+        return isEmpty() ? "PartitionStatistics(empty)"
+                : String.format("PartitionStatistics(rowCount=%d, minTime=%d, maxTime=%d, minId=%s, maxId=%s)", rowCount, minTime, maxTime, minId, maxId);
+    }
+}
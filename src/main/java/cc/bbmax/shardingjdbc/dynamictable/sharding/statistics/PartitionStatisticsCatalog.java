@@ -0,0 +1,151 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.statistics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 分区统计目录，只记录已经封存(分区周期结束一段时间后)的分区
+ * <p>
+ * 封存的分区由定时任务扫描一次得到统计信息，之后通过批量写入等途径写入的数据在写入后合并进来；
+ * 区间路由用它跳过空分区和数据范围与查询区间不相交的分区，没有统计信息的分区总是会被查询。
+ * 通过JPA写入的数据由PartitionStatisticsEntityListener调用{@link #invalidate}，其他途径写入封存分区的数据需要自行调用
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 10:50 下午
+ */
+@Component
+public class PartitionStatisticsCatalog {
+
+    /**
+     * <小写逻辑表, <小写分区表, 统计信息>>
+     */
+    private final Map<String, Map<String, PartitionStatistics>> statistics = new ConcurrentHashMap<>();
+
+    /**
+     * <小写逻辑表, <小写分区表, 失效次数>>，在statistics中同一个分区的锁内修改
+     */
+    private final Map<String, Map<String, Long>> epochs = new ConcurrentHashMap<>();
+
+    /**
+     * 获取分区的统计信息
+     *
+     * @param logicTableName 逻辑表
+     * @param tableName      分区表
+     * @return 统计信息，分区还未封存时返回null
+     */
+    public PartitionStatistics get(String logicTableName, String tableName) {
+        Map<String, PartitionStatistics> tables = statistics.get(logicTableName.toLowerCase());
+        return tables == null ? null : tables.get(tableName.toLowerCase());
+    }
+
+    /**
+     * 封存分区，记录扫描得到的统计信息
+     *
+     * @param logicTableName 逻辑表
+     * @param tableName      分区表
+     * @param partition      统计信息
+     */
+    public void seal(String logicTableName, String tableName, PartitionStatistics partition) {
+        statistics.computeIfAbsent(logicTableName.toLowerCase(), key -> new ConcurrentHashMap<>())
+                .put(tableName.toLowerCase(), partition);
+    }
+
+    /**
+     * 获取分区统计信息的失效次数，扫描分区前记录，扫描期间有写入时不封存
+     *
+     * @param logicTableName 逻辑表
+     * @param tableName      分区表
+     * @return 失效次数
+     */
+    public long getEpoch(String logicTableName, String tableName) {
+        Map<String, Long> tables = epochs.get(logicTableName.toLowerCase());
+        Long epoch = tables == null ? null : tables.get(tableName.toLowerCase());
+        return epoch == null ? 0 : epoch;
+    }
+
+    /**
+     * 扫描开始后分区没有失效过时封存分区，扫描期间提交的写入可能不在统计信息中
+     *
+     * @param logicTableName 逻辑表
+     * @param tableName      分区表
+     * @param partition      统计信息
+     * @param epoch          扫描前的失效次数
+     * @return 是否已封存
+     */
+    public boolean seal(String logicTableName, String tableName, PartitionStatistics partition, long epoch) {
+        boolean[] sealed = new boolean[1];
+        statistics.computeIfAbsent(logicTableName.toLowerCase(), key -> new ConcurrentHashMap<>())
+                .compute(tableName.toLowerCase(), (key, current) -> {
+                    if (getEpoch(logicTableName, tableName) != epoch) {
+                        return current;
+                    }
+                    sealed[0] = true;
+                    return partition;
+                });
+        return sealed[0];
+    }
+
+    /**
+     * 合并写入封存分区的数据，未封存的分区忽略
+     *
+     * @param logicTableName 逻辑表
+     * @param tableName      分区表
+     * @param written        新写入数据的统计
+     */
+    public void record(String logicTableName, String tableName, PartitionStatistics written) {
+        Map<String, PartitionStatistics> tables = statistics.get(logicTableName.toLowerCase());
+        if (tables != null) {
+            tables.computeIfPresent(tableName.toLowerCase(), (key, current) -> current.merge(written));
+        }
+    }
+
+    /**
+     * 移除分区的统计信息并递增失效次数，之后区间路由总是会查询该分区，直到重新封存
+     *
+     * @param logicTableName 逻辑表
+     * @param tableName      分区表
+     */
+    public void invalidate(String logicTableName, String tableName) {
+        String logicTable = logicTableName.toLowerCase();
+        statistics.computeIfAbsent(logicTable, key -> new ConcurrentHashMap<>()).compute(tableName.toLowerCase(), (key, current) -> {
+            epochs.computeIfAbsent(logicTable, name -> new ConcurrentHashMap<>()).merge(key, 1L, Long::sum);
+            return null;
+        });
+    }
+
+    /**
+     * 过滤掉不可能有[lower, upper]内数据的分区
+     *
+     * @param logicTableName 逻辑表
+     * @param tableNames     区间路由得到的分区表，按时间先后排序
+     * @param lower          开始时间戳(包含)
+     * @param upper          结束时间戳(包含)
+     * @return 剩余的分区表，没有被过滤时返回原集合
+     */
+    public Collection<String> prune(String logicTableName, Collection<String> tableNames, long lower, long upper) {
+        Map<String, PartitionStatistics> tables = statistics.get(logicTableName.toLowerCase());
+        if (tables == null || tables.isEmpty()) {
+            return tableNames;
+        }
+
+        List<String> results = null;
+        int index = 0;
+        for (String tableName : tableNames) {
+            PartitionStatistics partition = tables.get(tableName.toLowerCase());
+            boolean pruned = partition != null && !partition.overlaps(lower, upper);
+            if (pruned && results == null) {
+                results = new ArrayList<>(tableNames.size());
+                Iterator<String> iterator = tableNames.iterator();
+                for (int i = 0; i < index; i++) {
+                    results.add(iterator.next());
+                }
+            } else if (!pruned && results != null) {
+                results.add(tableName);
+            }
+            index++;
+        }
+        return results == null ? tableNames : results;
+    }
+}
@@ -0,0 +1,275 @@
+package cc.bbmax.shardingjdbc.dynamictable;
+
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.scheduler.ShardingTableRuleActualTablesRefreshScheduler;
+import org.apache.shardingsphere.api.config.sharding.TableRuleConfiguration;
+import org.apache.shardingsphere.api.config.sharding.strategy.ComplexShardingStrategyConfiguration;
+import org.apache.shardingsphere.api.config.sharding.strategy.ShardingStrategyConfiguration;
+import org.apache.shardingsphere.api.config.sharding.strategy.StandardShardingStrategyConfiguration;
+import org.apache.shardingsphere.core.yaml.config.sharding.YamlShardingRuleConfiguration;
+import org.apache.shardingsphere.core.yaml.config.sharding.YamlShardingStrategyConfiguration;
+import org.apache.shardingsphere.core.yaml.config.sharding.YamlTableRuleConfiguration;
+import org.apache.shardingsphere.core.yaml.config.sharding.strategy.YamlComplexShardingStrategyConfiguration;
+import org.apache.shardingsphere.core.yaml.config.sharding.strategy.YamlStandardShardingStrategyConfiguration;
+import org.apache.shardingsphere.core.yaml.swapper.ShardingRuleConfigurationYamlSwapper;
+import org.apache.shardingsphere.shardingjdbc.api.ShardingDataSourceFactory;
+import org.apache.shardingsphere.shardingjdbc.jdbc.core.datasource.ShardingDataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * 测试用的分表环境：内嵌H2数据源、ShardingDataSource和动态分表定时任务
+ * <p>
+ * 分片策略与spring.shardingsphere.sharding.tables.*一样按类名配置并经过YAML配置转换创建，
+ * 精确和区间分片算法是两个实例，与应用中的配置一致
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 4:45 上午
+ */
+public final class ShardingTestFixture implements AutoCloseable {
+
+    private final Map<String, DataSource> dataSources = new LinkedHashMap<>();
+
+    private final YamlShardingRuleConfiguration ruleConfiguration = new YamlShardingRuleConfiguration();
+
+    private final List<ShardingTableRuleActualTablesRefreshScheduler> schedulers = new ArrayList<>();
+
+    /**
+     * 创建MySQL模式的内存数据库，每次调用都是一个新的库
+     *
+     * @param name 库名前缀
+     * @return 数据源
+     */
+    public static JdbcDataSource newH2(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + "_" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+
+    /**
+     * 添加实际数据源
+     *
+     * @param name       数据源名称
+     * @param dataSource 数据源
+     * @return this
+     */
+    public ShardingTestFixture dataSource(String name, DataSource dataSource) {
+        dataSources.put(name, dataSource);
+        return this;
+    }
+
+    /**
+     * 添加standard分表策略的逻辑表，等同于配置precise-algorithm-class-name和range-algorithm-class-name
+     *
+     * @param logicTable      逻辑表
+     * @param actualDataNodes 配置中的分区
+     * @param shardingColumn  分区字段
+     * @param algorithmClass  分表算法
+     * @return this
+     */
+    public ShardingTestFixture standardTable(String logicTable, String actualDataNodes, String shardingColumn, Class<?> algorithmClass) {
+        addTable(logicTable, actualDataNodes).setTableStrategy(standard(shardingColumn, algorithmClass));
+        return this;
+    }
+
+    /**
+     * 添加complex分表策略的逻辑表，等同于配置algorithm-class-name
+     *
+     * @param logicTable      逻辑表
+     * @param actualDataNodes 配置中的分区
+     * @param shardingColumns 分片字段，逗号分隔
+     * @param algorithmClass  分表算法
+     * @return this
+     */
+    public ShardingTestFixture complexTable(String logicTable, String actualDataNodes, String shardingColumns, Class<?> algorithmClass) {
+        YamlComplexShardingStrategyConfiguration complex = new YamlComplexShardingStrategyConfiguration();
+        complex.setShardingColumns(shardingColumns);
+        complex.setAlgorithmClassName(algorithmClass.getName());
+        YamlShardingStrategyConfiguration strategy = new YamlShardingStrategyConfiguration();
+        strategy.setComplex(complex);
+        addTable(logicTable, actualDataNodes).setTableStrategy(strategy);
+        return this;
+    }
+
+    /**
+     * 为逻辑表配置standard分库策略
+     *
+     * @param logicTable     逻辑表
+     * @param shardingColumn 分区字段
+     * @param algorithmClass 分库算法
+     * @return this
+     */
+    public ShardingTestFixture standardDatabase(String logicTable, String shardingColumn, Class<?> algorithmClass) {
+        ruleConfiguration.getTables().get(logicTable).setDatabaseStrategy(standard(shardingColumn, algorithmClass));
+        return this;
+    }
+
+    /**
+     * 按当前配置创建ShardingDataSource，每次调用都创建新的分片算法实例，可以模拟多个节点
+     *
+     * @return ShardingDataSource
+     */
+    public ShardingDataSource newShardingDataSource() throws SQLException {
+        return (ShardingDataSource) ShardingDataSourceFactory.createDataSource(dataSources,
+                new ShardingRuleConfigurationYamlSwapper().swap(ruleConfiguration), new Properties());
+    }
+
+    /**
+     * 创建定时任务，注入数据源和配置，其他依赖按类型注入，在{@link #close()}时销毁
+     *
+     * @param shardingDataSource ShardingDataSource
+     * @param properties         动态分表配置
+     * @param beans              可选的依赖，如DynamicTableMetrics、PartitionStatisticsCatalog
+     * @return 未初始化的定时任务
+     */
+    public ShardingTableRuleActualTablesRefreshScheduler newScheduler(DataSource shardingDataSource, DynamicTableProperties properties,
+                                                                      Object... beans) {
+        ShardingTableRuleActualTablesRefreshScheduler scheduler = new ShardingTableRuleActualTablesRefreshScheduler();
+        ReflectionTestUtils.setField(scheduler, "dataSource", shardingDataSource);
+        ReflectionTestUtils.setField(scheduler, "properties", properties);
+        for (Object bean : beans) {
+            ReflectionTestUtils.setField(scheduler, null, bean, bean.getClass());
+        }
+        schedulers.add(scheduler);
+        return scheduler;
+    }
+
+    /**
+     * 创建并初始化定时任务
+     *
+     * @see #newScheduler(DataSource, DynamicTableProperties, Object...)
+     */
+    public ShardingTableRuleActualTablesRefreshScheduler startScheduler(DataSource shardingDataSource, DynamicTableProperties properties,
+                                                                        Object... beans) {
+        ShardingTableRuleActualTablesRefreshScheduler scheduler = newScheduler(shardingDataSource, properties, beans);
+        scheduler.afterPropertiesSet();
+        return scheduler;
+    }
+
+    /**
+     * 获取逻辑表的精确分表算法
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T getPreciseAlgorithm(ShardingDataSource shardingDataSource, String logicTable) {
+        ShardingStrategyConfiguration strategy = getTableRuleConfiguration(shardingDataSource, logicTable).getTableShardingStrategyConfig();
+        return strategy instanceof ComplexShardingStrategyConfiguration
+                ? (T) ((ComplexShardingStrategyConfiguration) strategy).getShardingAlgorithm()
+                : (T) ((StandardShardingStrategyConfiguration) strategy).getPreciseShardingAlgorithm();
+    }
+
+    /**
+     * 获取逻辑表的区间分表算法
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T getRangeAlgorithm(ShardingDataSource shardingDataSource, String logicTable) {
+        return (T) ((StandardShardingStrategyConfiguration) getTableRuleConfiguration(shardingDataSource, logicTable)
+                .getTableShardingStrategyConfig()).getRangeShardingAlgorithm();
+    }
+
+    /**
+     * 获取逻辑表的区间分库算法
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T getDatabaseRangeAlgorithm(ShardingDataSource shardingDataSource, String logicTable) {
+        return (T) ((StandardShardingStrategyConfiguration) getTableRuleConfiguration(shardingDataSource, logicTable)
+                .getDatabaseShardingStrategyConfig()).getRangeShardingAlgorithm();
+    }
+
+    /**
+     * 包装数据源，查询结果的getObject与MySQL Connector/J 8一样对DATETIME返回LocalDateTime、对DATE返回LocalDate
+     *
+     * @param dataSource H2数据源
+     * @return 包装后的数据源
+     */
+    public static DataSource withJavaTimeResults(DataSource dataSource) {
+        return wrap(DataSource.class, dataSource);
+    }
+
+    public static void execute(DataSource dataSource, String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    public static long count(DataSource dataSource, String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    public static boolean tableExists(DataSource dataSource, String tableName) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             ResultSet resultSet = connection.getMetaData().getTables(null, null, tableName.toUpperCase(), null)) {
+            return resultSet.next();
+        }
+    }
+
+    @Override
+    public void close() {
+        schedulers.forEach(ShardingTableRuleActualTablesRefreshScheduler::destroy);
+        schedulers.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T wrap(Class<T> type, T target) {
+        return (T) Proxy.newProxyInstance(ShardingTestFixture.class.getClassLoader(), new Class[]{type}, (proxy, method, args) -> {
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Timestamp && "getObject".equals(method.getName()) && args.length == 1) {
+                return ((Timestamp) result).toLocalDateTime();
+            } else if (result instanceof java.sql.Date && "getObject".equals(method.getName()) && args.length == 1) {
+                return ((java.sql.Date) result).toLocalDate();
+            }
+            Class<?> returnType = method.getReturnType();
+            if (result != null && returnType.isInterface() && (returnType == Connection.class || Statement.class.isAssignableFrom(returnType)
+                    || returnType == ResultSet.class)) {
+                return wrap((Class<Object>) returnType, result);
+            }
+            return result;
+        });
+    }
+
+    private YamlTableRuleConfiguration addTable(String logicTable, String actualDataNodes) {
+        YamlTableRuleConfiguration table = new YamlTableRuleConfiguration();
+        table.setLogicTable(logicTable);
+        table.setActualDataNodes(actualDataNodes);
+        ruleConfiguration.getTables().put(logicTable, table);
+        return table;
+    }
+
+    private static YamlShardingStrategyConfiguration standard(String shardingColumn, Class<?> algorithmClass) {
+        YamlStandardShardingStrategyConfiguration standard = new YamlStandardShardingStrategyConfiguration();
+        standard.setShardingColumn(shardingColumn);
+        standard.setPreciseAlgorithmClassName(algorithmClass.getName());
+        standard.setRangeAlgorithmClassName(algorithmClass.getName());
+        YamlShardingStrategyConfiguration strategy = new YamlShardingStrategyConfiguration();
+        strategy.setStandard(standard);
+        return strategy;
+    }
+
+    private static TableRuleConfiguration getTableRuleConfiguration(ShardingDataSource shardingDataSource, String logicTable) {
+        for (TableRuleConfiguration ruleConfig : shardingDataSource.getRuntimeContext().getRule().getRuleConfiguration().getTableRuleConfigs()) {
+            if (ruleConfig.getLogicTable().equalsIgnoreCase(logicTable)) {
+                return ruleConfig;
+            }
+        }
+        throw new IllegalArgumentException(logicTable);
+    }
+}
@@ -0,0 +1,144 @@
+package cc.bbmax.shardingjdbc.dynamictable.repository;
+
+import cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture;
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import cc.bbmax.shardingjdbc.dynamictable.entity.DayPartitionTableEntity;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.DayDynamicStandardShardingAlgorithm;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.PartitionResolver;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.statistics.PartitionStatistics;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.statistics.PartitionStatisticsCatalog;
+import com.google.common.collect.Range;
+import org.h2.jdbcx.JdbcDataSource;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 2:10 上午
+ */
+public class PartitionAggregateTemplateTests {
+
+    private static final String LOGIC_TABLE = "day_partition_table";
+
+    private static final int DAYS = 5;
+
+    private final PartitionStatisticsCatalog statisticsCatalog = new PartitionStatisticsCatalog();
+
+    private JdbcDataSource dataSource;
+
+    private PartitionResolver partitionResolver;
+
+    private PartitionAggregateTemplate template;
+
+    @BeforeEach
+    public void setup() throws SQLException {
+        dataSource = ShardingTestFixture.newH2("aggregate");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            for (int day = 1; day <= DAYS; day++) {
+                statement.execute("CREATE TABLE " + LOGIC_TABLE + "_2021010" + day
+                        + " (id BIGINT AUTO_INCREMENT PRIMARY KEY, column1 VARCHAR(64), partitionDate TIMESTAMP NOT NULL)");
+            }
+        }
+
+        partitionResolver = new PartitionResolver(new ShardingTestFixture()
+                .dataSource("ds0", dataSource)
+                .standardTable(LOGIC_TABLE, "ds0." + LOGIC_TABLE + "_2021010$->{1.." + DAYS + "}", "partitionDate", DayDynamicStandardShardingAlgorithm.class)
+                .newShardingDataSource());
+
+        //每个分区6条数据，每个分区的自增主键是1..6
+        List<DayPartitionTableEntity> entities = new ArrayList<>();
+        DateTime dt = new DateTime(2021, 1, 1, 0, 0);
+        for (int i = 0; i < DAYS * 6; i++) {
+            entities.add(newEntity(dt.plusHours(i * 4), "row" + i));
+        }
+        newIngestRepository().ingest(entities);
+        //前4天的分区已经封存
+        for (int day = 1; day < DAYS; day++) {
+            DateTime start = new DateTime(2021, 1, day, 0, 0);
+            statisticsCatalog.seal(LOGIC_TABLE, LOGIC_TABLE + "_2021010" + day,
+                    PartitionStatistics.of(6, start.getMillis(), start.plusHours(20).getMillis(), 1L, 6L));
+        }
+        template = new PartitionAggregateTemplate(partitionResolver, new DynamicTableProperties(), statisticsCatalog);
+    }
+
+    @Test
+    public void testSealedPartitionsAggregatedOnce() {
+        Range<Date> all = Range.closed(new DateTime(2021, 1, 1, 0, 0).toDate(), new DateTime(2021, 1, 5, 23, 59).toDate());
+        PartitionAggregate first = template.aggregate(DayPartitionTableEntity.class, all, "id");
+        assertEquals(30, first.getCount());
+        assertEquals(new BigDecimal(DAYS * 21), first.getSum("ID"));
+        assertEquals(0, first.getCachedPartitions());
+        assertEquals(5, first.getScannedPartitions());
+
+        //封存的分区使用缓存，只查询当前分区
+        PartitionAggregate second = template.aggregate(DayPartitionTableEntity.class, all, "id");
+        assertEquals(30, second.getCount());
+        assertEquals(new BigDecimal(DAYS * 21), second.getSum("id"));
+        assertEquals(4, second.getCachedPartitions());
+        assertEquals(1, second.getScannedPartitions());
+        assertEquals(30, template.count(DayPartitionTableEntity.class, all.lowerEndpoint(), all.upperEndpoint()));
+    }
+
+    @Test
+    public void testPartiallyCoveredPartitionsScanned() {
+        template.aggregate(DayPartitionTableEntity.class, Range.<Date>all(), "id");
+
+        //1号12:00,16:00,20:00 + 2号全部 + 3号00:00,04:00,08:00,12:00
+        PartitionAggregate aggregate = template.aggregate(DayPartitionTableEntity.class,
+                Range.closed(new DateTime(2021, 1, 1, 12, 0).toDate(), new DateTime(2021, 1, 3, 12, 0).toDate()), "id");
+        assertEquals(13, aggregate.getCount());
+        assertEquals(new BigDecimal(4 + 5 + 6 + 21 + 1 + 2 + 3 + 4), aggregate.getSum("id"));
+        assertEquals(1, aggregate.getCachedPartitions());
+        assertEquals(2, aggregate.getScannedPartitions());
+    }
+
+    @Test
+    public void testWriteToSealedPartitionInvalidatesCache() {
+        template.aggregate(DayPartitionTableEntity.class, Range.<Date>all(), "id");
+
+        //写入封存分区后统计信息变化，该分区重新查询
+        newIngestRepository().ingest(Collections.singletonList(newEntity(new DateTime(2021, 1, 2, 23, 0), "late")));
+        PartitionAggregate aggregate = template.aggregate(DayPartitionTableEntity.class, Range.<Date>all(), "id");
+        assertEquals(31, aggregate.getCount());
+        assertEquals(new BigDecimal(DAYS * 21 + 7), aggregate.getSum("id"));
+        assertEquals(3, aggregate.getCachedPartitions());
+        assertEquals(2, aggregate.getScannedPartitions());
+
+        assertThrows(IllegalArgumentException.class, () -> template.aggregate(DayPartitionTableEntity.class, Range.<Date>all(), "id; DROP TABLE x"));
+    }
+
+    @Test
+    public void testClusterModeDoesNotCache() throws SQLException {
+        DynamicTableProperties properties = new DynamicTableProperties();
+        properties.getCluster().setEnabled(true);
+        PartitionAggregateTemplate clusterTemplate = new PartitionAggregateTemplate(partitionResolver, properties, statisticsCatalog);
+        assertEquals(30, clusterTemplate.aggregate(DayPartitionTableEntity.class, Range.<Date>all(), "id").getCount());
+
+        //其他节点写入封存分区，当前节点的统计信息不会失效
+        ShardingTestFixture.execute(dataSource, "INSERT INTO " + LOGIC_TABLE + "_20210102 (column1, partitionDate) VALUES ('late', '2021-01-02 23:00:00')");
+        PartitionAggregate aggregate = clusterTemplate.aggregate(DayPartitionTableEntity.class, Range.<Date>all(), "id");
+        assertEquals(31, aggregate.getCount());
+        assertEquals(0, aggregate.getCachedPartitions());
+        assertEquals(5, aggregate.getScannedPartitions());
+    }
+
+    private PartitionBulkIngestRepositoryImpl<DayPartitionTableEntity> newIngestRepository() {
+        return new PartitionBulkIngestRepositoryImpl<>(partitionResolver, new DynamicTableProperties(), statisticsCatalog);
+    }
+
+    private static DayPartitionTableEntity newEntity(DateTime partitionDate, String column1) {
+        DayPartitionTableEntity entity = new DayPartitionTableEntity();
+        entity.setColumn1(column1);
+        entity.setPartitionDate(partitionDate.toDate());
+        return entity;
+    }
+}
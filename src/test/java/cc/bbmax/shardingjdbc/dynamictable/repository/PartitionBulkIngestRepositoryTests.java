@@ -0,0 +1,125 @@
+package cc.bbmax.shardingjdbc.dynamictable.repository;
+
+import cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture;
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import cc.bbmax.shardingjdbc.dynamictable.entity.DayPartitionTableEntity;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.DayDynamicStandardShardingAlgorithm;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.PartitionResolver;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.statistics.PartitionStatisticsCatalog;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.UncategorizedSQLException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 9:00 下午
+ */
+public class PartitionBulkIngestRepositoryTests {
+
+    private static final String LOGIC_TABLE = "day_partition_table";
+
+    private DataSource actualDataSource;
+
+    private PartitionResolver partitionResolver;
+
+    @BeforeEach
+    public void setup() throws SQLException {
+        actualDataSource = ShardingTestFixture.newH2("ingest");
+        for (int day = 1; day <= 3; day++) {
+            execute("CREATE TABLE " + LOGIC_TABLE + "_2021010" + day
+                    + " (id BIGINT AUTO_INCREMENT PRIMARY KEY, column1 VARCHAR(64), partitionDate TIMESTAMP NOT NULL)");
+        }
+
+        partitionResolver = new PartitionResolver(new ShardingTestFixture()
+                .dataSource("ds0", actualDataSource)
+                .standardTable(LOGIC_TABLE, "ds0." + LOGIC_TABLE + "_2021010$->{1..3}", "partitionDate", DayDynamicStandardShardingAlgorithm.class)
+                .newShardingDataSource());
+    }
+
+    @Test
+    public void testMultiRowIngest() throws SQLException {
+        assertIngest(DynamicTableProperties.IngestMode.MULTI_ROW);
+    }
+
+    @Test
+    public void testBatchIngest() throws SQLException {
+        assertIngest(DynamicTableProperties.IngestMode.BATCH);
+    }
+
+    @Test
+    public void testFailedPartitionRolledBack() throws SQLException {
+        PartitionBulkIngestRepositoryImpl<DayPartitionTableEntity> repository = newRepository(DynamicTableProperties.IngestMode.MULTI_ROW, 2);
+        List<DayPartitionTableEntity> entities = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            entities.add(newEntity(new DateTime(2021, 1, 1, 10, 0), "row" + i));
+        }
+        //第二批违反非空约束，整个分区回滚
+        entities.get(2).setColumn1(null);
+        execute("ALTER TABLE " + LOGIC_TABLE + "_20210101 ALTER COLUMN column1 SET NOT NULL");
+
+        assertThrows(UncategorizedSQLException.class, () -> repository.ingest(entities));
+        assertEquals(0, count(LOGIC_TABLE + "_20210101"));
+    }
+
+    private void assertIngest(DynamicTableProperties.IngestMode mode) throws SQLException {
+        PartitionBulkIngestRepositoryImpl<DayPartitionTableEntity> repository = newRepository(mode, 4);
+        List<DayPartitionTableEntity> entities = new ArrayList<>();
+        DateTime dt = new DateTime(2021, 1, 1, 0, 0);
+        for (int i = 0; i < 30; i++) {
+            entities.add(newEntity(dt.plusHours(i * 2), "row" + i));
+        }
+
+        List<DayPartitionTableEntity> result = repository.ingest(entities);
+
+        assertEquals(30, result.size());
+        assertEquals(12, count(LOGIC_TABLE + "_20210101"));
+        assertEquals(12, count(LOGIC_TABLE + "_20210102"));
+        assertEquals(6, count(LOGIC_TABLE + "_20210103"));
+        //自增主键按写入顺序回填
+        for (DayPartitionTableEntity entity : result) {
+            String tableName = LOGIC_TABLE + "_" + new DateTime(entity.getPartitionDate()).toString("yyyyMMdd");
+            assertNotNull(entity.getId());
+            assertEquals(entity.getColumn1(), queryColumn1(tableName, entity.getId()));
+        }
+    }
+
+    private PartitionBulkIngestRepositoryImpl<DayPartitionTableEntity> newRepository(DynamicTableProperties.IngestMode mode, int batchSize) {
+        DynamicTableProperties properties = new DynamicTableProperties();
+        properties.getIngest().setMode(mode);
+        properties.getIngest().setBatchSize(batchSize);
+        return new PartitionBulkIngestRepositoryImpl<>(partitionResolver, properties, new PartitionStatisticsCatalog());
+    }
+
+    private static DayPartitionTableEntity newEntity(DateTime partitionDate, String column1) {
+        DayPartitionTableEntity entity = new DayPartitionTableEntity();
+        entity.setColumn1(column1);
+        entity.setPartitionDate(partitionDate.toDate());
+        return entity;
+    }
+
+    private void execute(String sql) throws SQLException {
+        ShardingTestFixture.execute(actualDataSource, sql);
+    }
+
+    private long count(String tableName) throws SQLException {
+        return ShardingTestFixture.count(actualDataSource, "SELECT COUNT(*) FROM " + tableName);
+    }
+
+    private String queryColumn1(String tableName, long id) throws SQLException {
+        try (Connection connection = actualDataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT column1 FROM " + tableName + " WHERE id = " + id)) {
+            return resultSet.next() ? resultSet.getString(1) : null;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package cc.bbmax.shardingjdbc.dynamictable.repository;
+
+import cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture;
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import cc.bbmax.shardingjdbc.dynamictable.entity.DayPartitionTableEntity;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.DayDynamicStandardShardingAlgorithm;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.PartitionResolver;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.statistics.PartitionStatisticsCatalog;
+import com.google.common.collect.Range;
+import org.h2.jdbcx.JdbcDataSource;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 3:45 上午
+ */
+public class PartitionPageTemplateTests {
+
+    private static final String LOGIC_TABLE = "day_partition_table";
+
+    private static final int DAYS = 5;
+
+    private JdbcDataSource dataSource;
+
+    private PartitionPageTemplate template;
+
+    @BeforeEach
+    public void setup() throws SQLException {
+        dataSource = ShardingTestFixture.newH2("page");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            for (int day = 1; day <= DAYS; day++) {
+                statement.execute("CREATE TABLE " + LOGIC_TABLE + "_2021010" + day
+                        + " (id BIGINT AUTO_INCREMENT PRIMARY KEY, column1 VARCHAR(64), partitionDate TIMESTAMP NOT NULL)");
+            }
+        }
+
+        PartitionResolver partitionResolver = newPartitionResolver(dataSource);
+
+        //每个分区6条数据，每2条的时间相同，同一时间按主键排序
+        List<DayPartitionTableEntity> entities = new ArrayList<>();
+        DateTime dt = new DateTime(2021, 1, 1, 0, 0);
+        for (int i = 0; i < DAYS * 6; i++) {
+            DayPartitionTableEntity entity = new DayPartitionTableEntity();
+            entity.setColumn1("row" + i);
+            entity.setPartitionDate(dt.plusDays(i / 6).plusHours(i % 6 / 2 * 4).toDate());
+            entities.add(entity);
+        }
+        new PartitionBulkIngestRepositoryImpl<DayPartitionTableEntity>(partitionResolver, new DynamicTableProperties(),
+                new PartitionStatisticsCatalog()).ingest(entities);
+        template = new PartitionPageTemplate(partitionResolver);
+    }
+
+    @Test
+    public void testAscendingPages() {
+        Range<Date> range = Range.closed(new DateTime(2021, 1, 1, 0, 0).toDate(), new DateTime(2021, 1, 5, 23, 59).toDate());
+        List<String> rows = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            PartitionPage<DayPartitionTableEntity> page = template.page(DayPartitionTableEntity.class, range, cursor, 4);
+            //每页最多跨两个分区
+            assertTrue(page.getQueriedPartitions() <= 2, page.toString());
+            page.getContent().forEach(entity -> rows.add(entity.getColumn1()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(8, pages);
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < DAYS * 6; i++) {
+            expected.add("row" + i);
+        }
+        assertEquals(expected, rows);
+    }
+
+    @Test
+    public void testDescendingPages() {
+        Range<Date> range = Range.closedOpen(new DateTime(2021, 1, 2, 4, 0).toDate(), new DateTime(2021, 1, 4, 0, 0).toDate());
+        List<String> rows = new ArrayList<>();
+        String cursor = null;
+        do {
+            PartitionPage<DayPartitionTableEntity> page = template.page(DayPartitionTableEntity.class, range, Sort.Direction.DESC, cursor, 3);
+            page.getContent().forEach(entity -> rows.add(entity.getColumn1()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        //2号04:00之后和3号全部，时间和主键都降序
+        assertEquals(Arrays.asList("row17", "row16", "row15", "row14", "row13", "row12", "row11", "row10", "row9", "row8"), rows);
+    }
+
+    @Test
+    public void testLastPageWithoutNext() {
+        Range<Date> range = Range.atLeast(new DateTime(2021, 1, 5, 0, 0).toDate());
+        PartitionPage<DayPartitionTableEntity> page = template.page(DayPartitionTableEntity.class, range, null, 6);
+        assertEquals(6, page.getContent().size());
+        assertFalse(page.hasNext());
+
+        assertThrows(IllegalArgumentException.class, () -> template.page(DayPartitionTableEntity.class, range, "not a cursor", 6));
+        assertThrows(IllegalArgumentException.class, () -> template.page(DayPartitionTableEntity.class, range, null, 0));
+    }
+
+    @Test
+    public void testPagesMapJavaTimeColumnValues() throws SQLException {
+        //MySQL Connector/J 8的getObject对DATETIME返回LocalDateTime
+        PartitionPageTemplate javaTimeTemplate = new PartitionPageTemplate(newPartitionResolver(ShardingTestFixture.withJavaTimeResults(dataSource)));
+        Range<Date> range = Range.closedOpen(new DateTime(2021, 1, 2, 0, 0).toDate(), new DateTime(2021, 1, 3, 0, 0).toDate());
+        List<String> rows = new ArrayList<>();
+        String cursor = null;
+        do {
+            PartitionPage<DayPartitionTableEntity> page = javaTimeTemplate.page(DayPartitionTableEntity.class, range, cursor, 4);
+            for (DayPartitionTableEntity entity : page.getContent()) {
+                assertEquals(Date.class, entity.getPartitionDate().getClass());
+                rows.add(entity.getColumn1());
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(Arrays.asList("row6", "row7", "row8", "row9", "row10", "row11"), rows);
+    }
+
+    private static PartitionResolver newPartitionResolver(DataSource dataSource) throws SQLException {
+        return new PartitionResolver(new ShardingTestFixture()
+                .dataSource("ds0", dataSource)
+                .standardTable(LOGIC_TABLE, "ds0." + LOGIC_TABLE + "_2021010$->{1.." + DAYS + "}", "partitionDate", DayDynamicStandardShardingAlgorithm.class)
+                .newShardingDataSource());
+    }
+}
@@ -0,0 +1,173 @@
+package cc.bbmax.shardingjdbc.dynamictable.repository;
+
+import cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture;
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import cc.bbmax.shardingjdbc.dynamictable.entity.DayPartitionTableEntity;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.DayDynamicStandardShardingAlgorithm;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.PartitionResolver;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.index.GlobalSecondaryIndex;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.key.TimeEmbeddedKeyGenerator;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.statistics.PartitionStatistics;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.statistics.PartitionStatisticsCatalog;
+import com.google.common.collect.Range;
+import org.apache.shardingsphere.shardingjdbc.jdbc.core.datasource.ShardingDataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.dialect.MySQL5InnoDBDialect;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.orm.hibernate5.SpringBeanContainer;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+
+import static cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture.execute;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 通过JPA仓库写入封存分区，区间查询和聚合仍然能查到
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 5:00 上午
+ */
+public class PartitionStatisticsEntityListenerTests {
+
+    private static final String LOGIC_TABLE = "day_partition_table";
+
+    private static final String SEALED_TABLE = LOGIC_TABLE + "_20210103";
+
+    private final PartitionStatisticsCatalog statisticsCatalog = new PartitionStatisticsCatalog();
+
+    private AnnotationConfigApplicationContext context;
+
+    private DayPartitionTableRepository repository;
+
+    @BeforeEach
+    public void setup() throws SQLException {
+        JdbcDataSource dataSource = ShardingTestFixture.newH2("listener");
+        for (int day = 1; day <= 5; day++) {
+            execute(dataSource, "CREATE TABLE " + LOGIC_TABLE + "_2021010" + day
+                    + " (id BIGINT AUTO_INCREMENT PRIMARY KEY, column1 VARCHAR(64), partitionDate TIMESTAMP NOT NULL)");
+        }
+        ShardingDataSource shardingDataSource = new ShardingTestFixture()
+                .dataSource("ds0", dataSource)
+                .standardTable(LOGIC_TABLE, "ds0." + LOGIC_TABLE + "_2021010$->{1..5}", "partitionDate", DayDynamicStandardShardingAlgorithm.class)
+                .newShardingDataSource();
+        DayDynamicStandardShardingAlgorithm rangeAlgorithm = ShardingTestFixture.getRangeAlgorithm(shardingDataSource, LOGIC_TABLE);
+        rangeAlgorithm.bindStatisticsCatalog(statisticsCatalog);
+        //封存时分区是空的
+        statisticsCatalog.seal(LOGIC_TABLE, SEALED_TABLE, PartitionStatistics.empty());
+
+        context = new AnnotationConfigApplicationContext();
+        context.getBeanFactory().registerSingleton("dataSource", shardingDataSource);
+        context.getBeanFactory().registerSingleton("statisticsCatalog", statisticsCatalog);
+        context.register(JpaConfiguration.class);
+        context.refresh();
+        repository = context.getBean(DayPartitionTableRepository.class);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        context.close();
+    }
+
+    @Test
+    public void testSaveIntoSealedPartitionIsFoundByRangeQuery() {
+        //区间覆盖3个分区，封存的空分区会被跳过
+        Date start = new DateTime(2021, 1, 2, 0, 0).toDate();
+        Date end = new DateTime(2021, 1, 4, 23, 59).toDate();
+        assertTrue(repository.findByPartitionDateBetween(start, end).isEmpty());
+
+        DayPartitionTableEntity entity = new DayPartitionTableEntity();
+        entity.setColumn1("late");
+        entity.setPartitionDate(new DateTime(2021, 1, 3, 12, 0).toDate());
+        repository.save(entity);
+        assertNull(statisticsCatalog.get(LOGIC_TABLE, SEALED_TABLE));
+
+        List<DayPartitionTableEntity> found = repository.findByPartitionDateBetween(start, end);
+        assertEquals(1, found.size());
+        assertEquals("late", found.get(0).getColumn1());
+    }
+
+    @Test
+    public void testSaveIntoSealedPartitionRefreshesCachedAggregate() throws SQLException {
+        DateTime day = new DateTime(2021, 1, 2, 0, 0);
+        execute(context.getBean(PartitionResolver.class).getDataSource("ds0"), "INSERT INTO " + LOGIC_TABLE
+                + "_20210102 (column1, partitionDate) VALUES ('early', '" + day.plusHours(8).toString("yyyy-MM-dd HH:mm:ss") + "')");
+        statisticsCatalog.seal(LOGIC_TABLE, LOGIC_TABLE + "_20210102",
+                PartitionStatistics.of(1, day.plusHours(8).getMillis(), day.plusHours(8).getMillis(), 1L, 1L));
+        PartitionAggregateTemplate template = new PartitionAggregateTemplate(context.getBean(PartitionResolver.class),
+                context.getBean(DynamicTableProperties.class), statisticsCatalog);
+        Date start = day.toDate();
+        Date end = day.plusDays(1).minusMillis(1).toDate();
+        assertEquals(1, template.count(DayPartitionTableEntity.class, start, end));
+        assertEquals(1, template.aggregate(DayPartitionTableEntity.class, Range.closed(start, end)).getCachedPartitions());
+
+        //写入后不再使用缓存的聚合结果
+        DayPartitionTableEntity entity = new DayPartitionTableEntity();
+        entity.setColumn1("late");
+        entity.setPartitionDate(day.plusHours(12).toDate());
+        repository.save(entity);
+        PartitionAggregate aggregate = template.aggregate(DayPartitionTableEntity.class, Range.closed(start, end));
+        assertEquals(2, aggregate.getCount());
+        assertEquals(0, aggregate.getCachedPartitions());
+    }
+
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = DayPartitionTableRepository.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = DayPartitionTableRepository.class))
+    static class JpaConfiguration {
+
+        @Bean
+        public DynamicTableProperties dynamicTableProperties() {
+            return new DynamicTableProperties();
+        }
+
+        @Bean
+        public PartitionResolver partitionResolver(DataSource dataSource) {
+            return new PartitionResolver(dataSource);
+        }
+
+        @Bean
+        public GlobalSecondaryIndex globalSecondaryIndex(DataSource dataSource, DynamicTableProperties properties) {
+            return new GlobalSecondaryIndex(dataSource, properties);
+        }
+
+        @Bean
+        public TimeEmbeddedKeyGenerator timeEmbeddedKeyGenerator(DynamicTableProperties properties) {
+            return new TimeEmbeddedKeyGenerator(properties);
+        }
+
+        @Bean
+        public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource, ConfigurableListableBeanFactory beanFactory) {
+            LocalContainerEntityManagerFactoryBean entityManagerFactory = new LocalContainerEntityManagerFactoryBean();
+            entityManagerFactory.setDataSource(dataSource);
+            entityManagerFactory.setPackagesToScan(DayPartitionTableEntity.class.getPackage().getName());
+            entityManagerFactory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            //与Spring Boot一样由Spring创建实体监听
+            entityManagerFactory.getJpaPropertyMap().put(AvailableSettings.BEAN_CONTAINER, new SpringBeanContainer(beanFactory));
+            entityManagerFactory.getJpaPropertyMap().put(AvailableSettings.DIALECT, MySQL5InnoDBDialect.class.getName());
+            return entityManagerFactory;
+        }
+
+        @Bean
+        public JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package cc.bbmax.shardingjdbc.dynamictable.repository;
+
+import cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture;
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import cc.bbmax.shardingjdbc.dynamictable.entity.DayPartitionTableEntity;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.DayDynamicStandardShardingAlgorithm;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.PartitionResolver;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.statistics.PartitionStatisticsCatalog;
+import org.h2.jdbcx.JdbcDataSource;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 10:30 下午
+ */
+public class PartitionStreamTemplateTests {
+
+    private static final String LOGIC_TABLE = "day_partition_table";
+
+    private static final int DAYS = 5;
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private JdbcDataSource h2;
+
+    private PartitionResolver partitionResolver;
+
+    private PartitionStreamTemplate template;
+
+    @BeforeEach
+    public void setup() throws SQLException {
+        h2 = ShardingTestFixture.newH2("stream");
+        //统计实际执行了查询的分区数
+        DataSource dataSource = (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{DataSource.class},
+                (proxy, method, args) -> {
+                    if ("getConnection".equals(method.getName())) {
+                        connections.incrementAndGet();
+                    }
+                    try {
+                        return method.invoke(h2, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        try (Connection connection = h2.getConnection(); Statement statement = connection.createStatement()) {
+            for (int day = 1; day <= DAYS; day++) {
+                statement.execute("CREATE TABLE " + LOGIC_TABLE + "_2021010" + day
+                        + " (id BIGINT AUTO_INCREMENT PRIMARY KEY, column1 VARCHAR(64), partitionDate TIMESTAMP NOT NULL)");
+            }
+        }
+
+        partitionResolver = newPartitionResolver(dataSource);
+
+        //每个分区6条数据，倒序写入
+        List<DayPartitionTableEntity> entities = new ArrayList<>();
+        DateTime dt = new DateTime(2021, 1, 1, 0, 0);
+        for (int i = DAYS * 6 - 1; i >= 0; i--) {
+            DayPartitionTableEntity entity = new DayPartitionTableEntity();
+            entity.setColumn1("row" + i);
+            entity.setPartitionDate(dt.plusHours(i * 4).toDate());
+            entities.add(entity);
+        }
+        new PartitionBulkIngestRepositoryImpl<DayPartitionTableEntity>(partitionResolver, new DynamicTableProperties(), new PartitionStatisticsCatalog()).ingest(entities);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (template != null) {
+            template.destroy();
+        }
+    }
+
+    @Test
+    public void testStreamInPartitionDateOrder() {
+        template = newTemplate(2, 4);
+        DateTime start = new DateTime(2021, 1, 1, 12, 0);
+        DateTime end = new DateTime(2021, 1, 4, 12, 0);
+
+        List<DayPartitionTableEntity> rows;
+        try (Stream<DayPartitionTableEntity> stream = template.stream(DayPartitionTableEntity.class, start.toDate(), end.toDate())) {
+            rows = stream.collect(Collectors.toList());
+        }
+
+        //12:00,16:00,20:00 + 6 + 6 + 00:00,04:00,08:00,12:00
+        assertEquals(19, rows.size());
+        assertEquals(start.toDate().getTime(), rows.get(0).getPartitionDate().getTime());
+        assertEquals(end.toDate().getTime(), rows.get(rows.size() - 1).getPartitionDate().getTime());
+        for (int i = 1; i < rows.size(); i++) {
+            assertTrue(rows.get(i - 1).getPartitionDate().before(rows.get(i).getPartitionDate()));
+            assertNotNull(rows.get(i).getId());
+            assertEquals("row" + (i + 3), rows.get(i).getColumn1());
+        }
+    }
+
+    @Test
+    public void testLimitStopsQueryingPartitions() {
+        template = newTemplate(1, 2);
+        connections.set(0);
+
+        List<DayPartitionTableEntity> rows;
+        try (Stream<DayPartitionTableEntity> stream = template.stream(DayPartitionTableEntity.class,
+                new DateTime(2021, 1, 1, 0, 0).toDate(), new DateTime(2021, 1, 6, 0, 0).toDate())) {
+            rows = stream.limit(3).collect(Collectors.toList());
+        }
+
+        assertEquals(Arrays.asList("row0", "row1", "row2"), rows.stream().map(DayPartitionTableEntity::getColumn1).collect(Collectors.toList()));
+        //第一个分区加上预取的一个分区
+        assertEquals(2, connections.get());
+    }
+
+    @Test
+    public void testStreamMapsJavaTimeColumnValues() throws SQLException {
+        //MySQL Connector/J 8的getObject对DATETIME返回LocalDateTime
+        partitionResolver = newPartitionResolver(ShardingTestFixture.withJavaTimeResults(h2));
+        template = newTemplate(1, 4);
+
+        List<DayPartitionTableEntity> rows;
+        try (Stream<DayPartitionTableEntity> stream = template.stream(DayPartitionTableEntity.class,
+                new DateTime(2021, 1, 1, 0, 0).toDate(), new DateTime(2021, 1, 1, 23, 59).toDate())) {
+            rows = stream.collect(Collectors.toList());
+        }
+
+        assertEquals(6, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(Date.class, rows.get(i).getPartitionDate().getClass());
+            assertEquals(new DateTime(2021, 1, 1, i * 4, 0).toDate(), rows.get(i).getPartitionDate());
+        }
+    }
+
+    private static PartitionResolver newPartitionResolver(DataSource dataSource) throws SQLException {
+        return new PartitionResolver(new ShardingTestFixture()
+                .dataSource("ds0", dataSource)
+                .standardTable(LOGIC_TABLE, "ds0." + LOGIC_TABLE + "_2021010$->{1.." + DAYS + "}", "partitionDate", DayDynamicStandardShardingAlgorithm.class)
+                .newShardingDataSource());
+    }
+
+    private PartitionStreamTemplate newTemplate(int prefetch, int fetchSize) {
+        DynamicTableProperties properties = new DynamicTableProperties();
+        properties.getStream().setPrefetch(prefetch);
+        properties.getStream().setFetchSize(fetchSize);
+        return new PartitionStreamTemplate(partitionResolver, properties);
+    }
+}
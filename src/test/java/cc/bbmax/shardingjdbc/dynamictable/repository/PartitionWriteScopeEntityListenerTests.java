@@ -0,0 +1,102 @@
+package cc.bbmax.shardingjdbc.dynamictable.repository;
+
+import cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture;
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import cc.bbmax.shardingjdbc.dynamictable.entity.DayPartitionTableEntity;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.DayDynamicStandardShardingAlgorithm;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.PartitionWriteScope;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.statistics.PartitionStatisticsCatalog;
+import org.apache.shardingsphere.core.rule.TableRule;
+import org.apache.shardingsphere.shardingjdbc.jdbc.core.datasource.ShardingDataSource;
+import org.apache.shardingsphere.underlying.common.rule.DataNode;
+import org.h2.jdbcx.JdbcDataSource;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture.execute;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 通过JPA仓库写入不在路由中的分区时按需建表
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 5:20 上午
+ */
+public class PartitionWriteScopeEntityListenerTests {
+
+    private static final String LOGIC_TABLE = "day_partition_table";
+
+    private final ShardingTestFixture fixture = new ShardingTestFixture();
+
+    private JdbcDataSource actualDataSource;
+
+    private ShardingDataSource shardingDataSource;
+
+    private AnnotationConfigApplicationContext context;
+
+    @BeforeEach
+    public void setup() throws SQLException {
+        actualDataSource = ShardingTestFixture.newH2("write_scope");
+        execute(actualDataSource, "CREATE TABLE " + getTableName(0)
+                + " (id BIGINT AUTO_INCREMENT PRIMARY KEY, column1 VARCHAR(64), partitionDate TIMESTAMP NOT NULL)");
+        shardingDataSource = fixture
+                .dataSource("ds0", actualDataSource)
+                .standardTable(LOGIC_TABLE, "ds0." + getTableName(0), "partitionDate", DayDynamicStandardShardingAlgorithm.class)
+                .newShardingDataSource();
+        DynamicTableProperties properties = new DynamicTableProperties();
+        properties.getStartup().setAsync(false);
+        properties.getOnDemand().setEnabled(true);
+        properties.getOnDemand().setAhead(5);
+        fixture.startScheduler(shardingDataSource, properties);
+
+        context = new AnnotationConfigApplicationContext();
+        context.getBeanFactory().registerSingleton("dataSource", shardingDataSource);
+        context.getBeanFactory().registerSingleton("statisticsCatalog", new PartitionStatisticsCatalog());
+        context.register(PartitionStatisticsEntityListenerTests.JpaConfiguration.class);
+        context.refresh();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        context.close();
+        fixture.close();
+    }
+
+    @Test
+    public void testSaveCreatesMissingPartition() throws SQLException {
+        //H2按模板建表不保留自增主键，先建好物理表，按需建表时把它加入路由
+        execute(actualDataSource, "CREATE TABLE " + getTableName(-3)
+                + " (id BIGINT AUTO_INCREMENT PRIMARY KEY, column1 VARCHAR(64), partitionDate TIMESTAMP NOT NULL)");
+        TableRule tableRule = shardingDataSource.getRuntimeContext().getRule().getTableRule(LOGIC_TABLE);
+        assertFalse(tableRule.getActualDataNodes().contains(new DataNode("ds0", getTableName(-3))));
+
+        DayPartitionTableEntity entity = new DayPartitionTableEntity();
+        entity.setColumn1("future");
+        entity.setPartitionDate(DateTime.now().plusDays(3).toDate());
+        context.getBean(DayPartitionTableRepository.class).save(entity);
+
+        assertTrue(tableRule.getActualDataNodes().contains(new DataNode("ds0", getTableName(-3))));
+        try (Connection connection = actualDataSource.getConnection(); Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT column1 FROM " + getTableName(-3))) {
+            assertTrue(resultSet.next());
+            assertEquals("future", resultSet.getString(1));
+        }
+        //事务结束后关闭写入范围
+        assertFalse(PartitionWriteScope.isActive());
+    }
+
+    /**
+     * @param daysAgo 几天前，负数为之后
+     */
+    private static String getTableName(int daysAgo) {
+        return LOGIC_TABLE + "_" + DateTime.now().minusDays(daysAgo).toString("yyyyMMdd");
+    }
+}
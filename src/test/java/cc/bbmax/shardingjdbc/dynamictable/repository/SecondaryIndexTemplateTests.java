@@ -0,0 +1,164 @@
+package cc.bbmax.shardingjdbc.dynamictable.repository;
+
+import cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture;
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import cc.bbmax.shardingjdbc.dynamictable.entity.DayPartitionTableEntity;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.DayDynamicStandardShardingAlgorithm;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.PartitionResolver;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.index.GlobalSecondaryIndex;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.statistics.PartitionStatisticsCatalog;
+import org.apache.shardingsphere.underlying.common.rule.DataNode;
+import org.h2.jdbcx.JdbcDataSource;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture.execute;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 2:50 上午
+ */
+public class SecondaryIndexTemplateTests {
+
+    private static final String LOGIC_TABLE = "day_partition_table";
+
+    private static final int DAYS = 5;
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final DynamicTableProperties properties = new DynamicTableProperties();
+
+    private JdbcDataSource h2;
+
+    private JdbcDataSource indexDataSource;
+
+    private DataSource shardingDataSource;
+
+    private GlobalSecondaryIndex secondaryIndex;
+
+    private SecondaryIndexTemplate template;
+
+    @BeforeEach
+    public void setup() throws SQLException {
+        h2 = ShardingTestFixture.newH2("index");
+        //统计实际执行了查询的分区数，索引表在单独的数据源上
+        DataSource dataSource = (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{DataSource.class},
+                (proxy, method, args) -> {
+                    if ("getConnection".equals(method.getName())) {
+                        connections.incrementAndGet();
+                    }
+                    try {
+                        return method.invoke(h2, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        indexDataSource = ShardingTestFixture.newH2("index_table");
+        for (int day = 1; day <= DAYS; day++) {
+            execute(h2, "CREATE TABLE " + LOGIC_TABLE + "_2021010" + day
+                    + " (id BIGINT AUTO_INCREMENT PRIMARY KEY, column1 VARCHAR(64), partitionDate TIMESTAMP NOT NULL)");
+        }
+
+        shardingDataSource = new ShardingTestFixture()
+                .dataSource("ds0", dataSource)
+                .dataSource("index", indexDataSource)
+                .standardTable(LOGIC_TABLE, "ds0." + LOGIC_TABLE + "_2021010$->{1.." + DAYS + "}", "partitionDate", DayDynamicStandardShardingAlgorithm.class)
+                .newShardingDataSource();
+        PartitionResolver partitionResolver = new PartitionResolver(shardingDataSource);
+
+        properties.getIndex().setDataSource("index");
+        DynamicTableProperties.TableProperties tableProperties = new DynamicTableProperties.TableProperties();
+        tableProperties.setIndexColumns(Collections.singletonList("column1"));
+        properties.getTables().put(LOGIC_TABLE, tableProperties);
+        secondaryIndex = new GlobalSecondaryIndex(shardingDataSource, properties);
+        template = new SecondaryIndexTemplate(partitionResolver, secondaryIndex);
+
+        //每个分区6条数据，1号和4号各有一条shared
+        List<DayPartitionTableEntity> entities = new ArrayList<>();
+        DateTime dt = new DateTime(2021, 1, 1, 0, 0);
+        for (int i = 0; i < DAYS * 6; i++) {
+            entities.add(newEntity(dt.plusHours(i * 4), "row" + i));
+        }
+        entities.add(newEntity(new DateTime(2021, 1, 1, 1, 0), "shared"));
+        entities.add(newEntity(new DateTime(2021, 1, 4, 1, 0), "shared"));
+        new PartitionBulkIngestRepositoryImpl<DayPartitionTableEntity>(partitionResolver, properties, new PartitionStatisticsCatalog(), secondaryIndex).ingest(entities);
+    }
+
+    @Test
+    public void testLookupQueriesIndexedPartitionsOnly() throws SQLException {
+        //每个值在每个分区一行
+        assertEquals(DAYS * 6 + 2, count(indexDataSource, "dynamic_table_index"));
+
+        connections.set(0);
+        Optional<DayPartitionTableEntity> entity = template.findFirst(DayPartitionTableEntity.class, "column1", "row13");
+        assertTrue(entity.isPresent());
+        assertEquals(new DateTime(2021, 1, 3, 4, 0).toDate().getTime(), entity.get().getPartitionDate().getTime());
+        assertEquals(1, connections.get());
+
+        //索引中没有的值不查询分区
+        connections.set(0);
+        assertFalse(template.findFirst(DayPartitionTableEntity.class, "column1", "missing").isPresent());
+        assertEquals(0, connections.get());
+
+        connections.set(0);
+        assertEquals(2, template.findAll(DayPartitionTableEntity.class, "column1", "shared").size());
+        assertEquals(2, connections.get());
+
+        assertThrows(IllegalArgumentException.class, () -> template.findFirst(DayPartitionTableEntity.class, "partitionDate", new Date()));
+    }
+
+    @Test
+    public void testPartitionsWrittenByOtherNodes() throws SQLException {
+        assertTrue(template.findFirst(DayPartitionTableEntity.class, "column1", "row13").isPresent());
+
+        //其他节点在5号写入row13，当前节点的缓存中没有5号
+        new GlobalSecondaryIndex(shardingDataSource, properties).addAll(LOGIC_TABLE, "column1",
+                new DataNode("ds0", LOGIC_TABLE + "_20210105"), Collections.singletonList("row13"));
+        execute(h2, "INSERT INTO " + LOGIC_TABLE + "_20210105 (column1, partitionDate) VALUES ('row13', '2021-01-05 12:00:00')");
+        List<DayPartitionTableEntity> entities = template.findAll(DayPartitionTableEntity.class, "column1", "row13");
+        assertEquals(Arrays.asList(3, 5), entities.stream()
+                .map(entity -> new DateTime(entity.getPartitionDate()).getDayOfMonth()).sorted().collect(Collectors.toList()));
+
+        //过期分区删除后移除索引
+        secondaryIndex.removePartition(LOGIC_TABLE, new DataNode("ds0", LOGIC_TABLE + "_20210101"));
+        assertEquals(1, template.findAll(DayPartitionTableEntity.class, "column1", "shared").size());
+        assertEquals(DAYS * 6 + 2 + 1 - 7, count(indexDataSource, "dynamic_table_index"));
+    }
+
+    @Test
+    public void testLookupMapsJavaTimeColumnValues() throws SQLException {
+        //MySQL Connector/J 8的getObject对DATETIME返回LocalDateTime
+        PartitionResolver partitionResolver = new PartitionResolver(new ShardingTestFixture()
+                .dataSource("ds0", ShardingTestFixture.withJavaTimeResults(h2))
+                .dataSource("index", indexDataSource)
+                .standardTable(LOGIC_TABLE, "ds0." + LOGIC_TABLE + "_2021010$->{1.." + DAYS + "}", "partitionDate", DayDynamicStandardShardingAlgorithm.class)
+                .newShardingDataSource());
+        SecondaryIndexTemplate javaTimeTemplate = new SecondaryIndexTemplate(partitionResolver, secondaryIndex);
+
+        List<DayPartitionTableEntity> entities = javaTimeTemplate.findAll(DayPartitionTableEntity.class, "column1", "shared");
+        assertEquals(Arrays.asList(new DateTime(2021, 1, 1, 1, 0).toDate(), new DateTime(2021, 1, 4, 1, 0).toDate()),
+                entities.stream().map(DayPartitionTableEntity::getPartitionDate).sorted().collect(Collectors.toList()));
+        assertTrue(entities.stream().allMatch(entity -> entity.getPartitionDate().getClass() == Date.class));
+    }
+
+    private static DayPartitionTableEntity newEntity(DateTime partitionDate, String column1) {
+        DayPartitionTableEntity entity = new DayPartitionTableEntity();
+        entity.setColumn1(column1);
+        entity.setPartitionDate(partitionDate.toDate());
+        return entity;
+    }
+
+    private static long count(DataSource dataSource, String tableName) throws SQLException {
+        return ShardingTestFixture.count(dataSource, "SELECT COUNT(*) FROM " + tableName);
+    }
+}
@@ -0,0 +1,136 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding;
+
+import cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture;
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import com.google.common.collect.Range;
+import org.apache.shardingsphere.api.sharding.complex.ComplexKeysShardingValue;
+import org.apache.shardingsphere.core.rule.TableRule;
+import org.apache.shardingsphere.shardingjdbc.jdbc.core.datasource.ShardingDataSource;
+import org.apache.shardingsphere.underlying.common.rule.DataNode;
+import org.h2.jdbcx.JdbcDataSource;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.Test;
+
+import java.sql.*;
+import java.util.*;
+import java.util.Date;
+
+import static cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture.count;
+import static cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture.execute;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 1:40 上午
+ */
+public class BucketDynamicShardingAlgorithmTests {
+
+    private static final String LOGIC_TABLE = "partition_table";
+
+    @Test
+    public void testBucketRouting() {
+        DayBucketDynamicShardingAlgorithm algorithm = new DayBucketDynamicShardingAlgorithm();
+        List<String> available = new ArrayList<>(algorithm.generateTableNames(LOGIC_TABLE,
+                new DateTime(2021, 1, 1, 0, 0).toDate(), new DateTime(2021, 1, 3, 0, 0).toDate()));
+        assertEquals(48, available.size());
+        assertEquals("partition_table_20210101_00", available.get(0));
+        assertEquals("partition_table_20210103_15", available.get(47));
+        assertEquals(algorithm.getPeriodOrdinal(LOGIC_TABLE, "partition_table_20210101_00"),
+                algorithm.getPeriodOrdinal(LOGIC_TABLE, "partition_table_20210101_15"));
+        assertEquals(-1, algorithm.getPeriodOrdinal(LOGIC_TABLE, "partition_table_20210101_16"));
+
+        Date date = new DateTime(2021, 1, 2, 10, 0).toDate();
+        //时间和分桶字段都有时路由到一个桶表
+        assertEquals(Collections.singletonList("partition_table_20210102_03"),
+                sharding(algorithm, available, values(date, 35L), Collections.emptyMap()));
+        assertEquals(Collections.singletonList("partition_table_20210102_" + String.format("%02d", Math.floorMod("abc".hashCode(), 16))),
+                sharding(algorithm, available, values(date, "abc"), Collections.emptyMap()));
+        //只有时间字段时路由到分区的所有桶表
+        assertEquals(16, sharding(algorithm, available, values(date, null), Collections.emptyMap()).size());
+        //只有分桶字段时路由到所有分区的同一个桶
+        assertEquals(Arrays.asList("partition_table_20210101_03", "partition_table_20210102_03", "partition_table_20210103_03"),
+                sharding(algorithm, available, values(null, 3L), Collections.emptyMap()));
+
+        //时间区间路由到区间内分区的所有桶表
+        Map<String, Range<Comparable<?>>> ranges = Collections.singletonMap("partitionDate",
+                Range.closedOpen(new DateTime(2021, 1, 2, 0, 0).toDate(), new DateTime(2021, 1, 4, 0, 0).toDate()));
+        assertEquals(available.subList(16, 48), sharding(algorithm, available, Collections.emptyMap(), ranges));
+        assertEquals(Arrays.asList("partition_table_20210102_05", "partition_table_20210103_05"),
+                sharding(algorithm, available, values(null, 21L), ranges));
+        //区间内没有分区时路由到最近分区的桶表
+        assertEquals(Collections.singletonList("partition_table_20210103_05"), sharding(algorithm, available, values(null, 5L),
+                Collections.singletonMap("partitionDate", Range.atLeast(new DateTime(2021, 2, 1, 0, 0).toDate()))));
+
+        //分区还未创建时按日期返回桶表
+        assertEquals(Collections.singletonList("partition_table_20210201_01"),
+                sharding(algorithm, available, values(new DateTime(2021, 2, 1, 0, 0).toDate(), 1L), Collections.emptyMap()));
+    }
+
+    @Test
+    public void testSchedulerCreatesAllBuckets() throws Exception {
+        JdbcDataSource actualDataSource = ShardingTestFixture.newH2("bucket");
+        String template = LOGIC_TABLE + "_" + DateTime.now().toString("yyyyMMdd") + "_00";
+        execute(actualDataSource, "CREATE TABLE " + template + " (id BIGINT PRIMARY KEY, partition_date TIMESTAMP)");
+
+        ShardingTestFixture fixture = new ShardingTestFixture()
+                .dataSource("ds0", actualDataSource)
+                .complexTable(LOGIC_TABLE, "ds0." + template, "partition_date,id", DayBucketDynamicShardingAlgorithm.class);
+        ShardingDataSource shardingDataSource = fixture.newShardingDataSource();
+
+        DynamicTableProperties properties = new DynamicTableProperties();
+        properties.getStartup().setAsync(false);
+        DynamicTableProperties.TableProperties tableProperties = new DynamicTableProperties.TableProperties();
+        tableProperties.setLookAhead(1);
+        properties.getTables().put(LOGIC_TABLE, tableProperties);
+        try {
+            fixture.startScheduler(shardingDataSource, properties);
+
+            //今天和明天的所有桶表都已创建
+            TableRule tableRule = shardingDataSource.getRuntimeContext().getRule().getTableRule(LOGIC_TABLE);
+            assertEquals(32, tableRule.getActualDataNodes().size());
+            assertTrue(tableRule.getActualDataNodes().contains(new DataNode("ds0", LOGIC_TABLE + "_" + DateTime.now().plusDays(1).toString("yyyyMMdd") + "_15")));
+
+            Date now = new Date();
+            try (Connection connection = shardingDataSource.getConnection()) {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "INSERT INTO " + LOGIC_TABLE + " (id, partition_date) VALUES (?, ?)")) {
+                    for (long id = 0; id < 32; id++) {
+                        statement.setLong(1, id);
+                        statement.setTimestamp(2, new Timestamp(now.getTime()));
+                        assertEquals(1, statement.executeUpdate());
+                    }
+                }
+                //每个桶两行
+                assertEquals(2, count(actualDataSource, "SELECT COUNT(*) FROM " + LOGIC_TABLE + "_" + DateTime.now().toString("yyyyMMdd") + "_07"));
+                //只按时间区间查询时在所有桶表上执行
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "SELECT COUNT(*) FROM " + LOGIC_TABLE + " WHERE partition_date >= ? AND partition_date < ?")) {
+                    statement.setTimestamp(1, new Timestamp(DateTime.now().withTimeAtStartOfDay().getMillis()));
+                    statement.setTimestamp(2, new Timestamp(DateTime.now().withTimeAtStartOfDay().plusDays(2).getMillis()));
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        resultSet.next();
+                        assertEquals(32, resultSet.getInt(1));
+                    }
+                }
+            }
+        } finally {
+            fixture.close();
+        }
+    }
+
+    private static Map<String, Collection<Comparable<?>>> values(Date date, Comparable<?> bucketValue) {
+        Map<String, Collection<Comparable<?>>> values = new LinkedHashMap<>();
+        if (date != null) {
+            values.put("partitionDate", Collections.singletonList(date));
+        }
+        if (bucketValue != null) {
+            values.put("id", Collections.singletonList(bucketValue));
+        }
+        return values;
+    }
+
+    private static List<String> sharding(BucketDynamicShardingAlgorithm algorithm, Collection<String> available,
+                                         Map<String, Collection<Comparable<?>>> values, Map<String, Range<Comparable<?>>> ranges) {
+        return new ArrayList<>(algorithm.doSharding(available, new ComplexKeysShardingValue<>(LOGIC_TABLE, values, ranges)));
+    }
+}
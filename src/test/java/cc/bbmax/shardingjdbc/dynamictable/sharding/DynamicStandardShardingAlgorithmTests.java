@@ -0,0 +1,258 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.google.common.collect.Range;
+import org.apache.shardingsphere.api.sharding.standard.PreciseShardingValue;
+import org.apache.shardingsphere.api.sharding.standard.RangeShardingValue;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 2:30 下午
+ */
+public class DynamicStandardShardingAlgorithmTests {
+
+    private static final String LOGIC_TABLE = "partition_table";
+
+    @Test
+    public void testDayTableNames() {
+        assertSameAsDayStepping(new DayDynamicStandardShardingAlgorithm(), 400);
+    }
+
+    @Test
+    public void testWeekTableNames() {
+        assertSameAsDayStepping(new WeekDynamicStandardShardingAlgorithm(), 800);
+    }
+
+    @Test
+    public void testMonthTableNames() {
+        assertSameAsDayStepping(new MonthDynamicStandardShardingAlgorithm(), 1500);
+    }
+
+    @Test
+    public void testYearTableNames() {
+        assertSameAsDayStepping(new YearDynamicStandardShardingAlgorithm(), 3000);
+    }
+
+    @Test
+    public void testHourAndMinuteTableNames() {
+        HourDynamicStandardShardingAlgorithm hour = new HourDynamicStandardShardingAlgorithm();
+        List<String> hours = new ArrayList<>(hour.generateTableNames(LOGIC_TABLE,
+                new DateTime(2021, 1, 1, 10, 30).toDate(), new DateTime(2021, 1, 2, 1, 10).toDate()));
+        assertEquals(16, hours.size());
+        assertEquals("partition_table_2021010110", hours.get(0));
+        assertEquals("partition_table_2021010201", hours.get(15));
+        assertEquals(hour.getPeriodOrdinal(LOGIC_TABLE, hours.get(0)) + 15, hour.getPeriodOrdinal(LOGIC_TABLE, hours.get(15)));
+
+        FiveMinuteDynamicStandardShardingAlgorithm minute = new FiveMinuteDynamicStandardShardingAlgorithm();
+        assertEquals(Arrays.asList("partition_table_202101012355", "partition_table_202101020000", "partition_table_202101020005"),
+                new ArrayList<>(minute.generateTableNames(LOGIC_TABLE,
+                        new DateTime(2021, 1, 1, 23, 58).toDate(), new DateTime(2021, 1, 2, 0, 7).toDate())));
+        //后缀不是分区开始时间的不是分区表
+        assertEquals(-1, minute.getPeriodOrdinal(LOGIC_TABLE, "partition_table_202101011003"));
+        assertEquals(-1, minute.getPeriodOrdinal(LOGIC_TABLE, "partition_table_20210101"));
+        assertThrows(IllegalArgumentException.class, () -> new MinuteDynamicStandardShardingAlgorithm(7));
+    }
+
+    @Test
+    public void testMinuteRangeAcrossGap() {
+        FiveMinuteDynamicStandardShardingAlgorithm algorithm = new FiveMinuteDynamicStandardShardingAlgorithm();
+        //两天的分区之间相隔一年
+        List<String> available = new ArrayList<>(algorithm.generateTableNames(LOGIC_TABLE,
+                new DateTime(2021, 1, 1, 0, 0).toDate(), new DateTime(2021, 1, 1, 23, 59).toDate()));
+        available.addAll(algorithm.generateTableNames(LOGIC_TABLE,
+                new DateTime(2022, 1, 1, 0, 0).toDate(), new DateTime(2022, 1, 1, 23, 59).toDate()));
+        assertEquals(576, available.size());
+
+        assertEquals(available, rangeSharding(algorithm, available, Range.all()));
+        assertEquals(new ArrayList<>(algorithm.generateTableNames(LOGIC_TABLE,
+                        new DateTime(2021, 1, 1, 10, 0).toDate(), new DateTime(2021, 1, 1, 10, 59).toDate())),
+                rangeSharding(algorithm, available, Range.closedOpen(new DateTime(2021, 1, 1, 10, 0).toDate(), new DateTime(2021, 1, 1, 11, 0).toDate())));
+        assertEquals(Arrays.asList("partition_table_202101012355", "partition_table_202201010000"),
+                rangeSharding(algorithm, available, Range.closed(new DateTime(2021, 1, 1, 23, 56).toDate(), new DateTime(2022, 1, 1, 0, 1).toDate())));
+    }
+
+    @Test
+    public void testEndPartitionIncludedWhenStartHasTimeOfDay() {
+        DayDynamicStandardShardingAlgorithm algorithm = new DayDynamicStandardShardingAlgorithm();
+        Collection<String> tableNames = algorithm.generateTableNames(LOGIC_TABLE,
+                new DateTime(2021, 1, 1, 12, 0).toDate(),
+                new DateTime(2021, 1, 2, 6, 0).toDate());
+        assertEquals(Arrays.asList("partition_table_20210101", "partition_table_20210102"), new ArrayList<>(tableNames));
+    }
+
+    @Test
+    public void testRangeOnlyReturnsExistingTables() {
+        DayDynamicStandardShardingAlgorithm algorithm = new DayDynamicStandardShardingAlgorithm();
+        List<String> available = Arrays.asList("partition_table_20210101", "partition_table_20210102",
+                "partition_table_20210105", "partition_table_20210106");
+        DateTime start = new DateTime(2020, 12, 1, 0, 0);
+
+        assertEquals(Arrays.asList("partition_table_20210102", "partition_table_20210105"),
+                rangeSharding(algorithm, available, Range.closed(new DateTime(2021, 1, 2, 12, 0).toDate(), new DateTime(2021, 1, 5, 0, 0).toDate())));
+        assertEquals(Arrays.asList("partition_table_20210102"),
+                rangeSharding(algorithm, available, Range.closedOpen(new DateTime(2021, 1, 2, 0, 0).toDate(), new DateTime(2021, 1, 5, 0, 0).toDate())));
+        assertEquals(Arrays.asList("partition_table_20210105", "partition_table_20210106"),
+                rangeSharding(algorithm, available, Range.atLeast(new DateTime(2021, 1, 3, 0, 0).toDate())));
+        assertEquals(Arrays.asList("partition_table_20210101", "partition_table_20210102"),
+                rangeSharding(algorithm, available, Range.lessThan(new DateTime(2021, 1, 5, 0, 0).toDate())));
+        assertEquals(available, rangeSharding(algorithm, available, Range.all()));
+        assertEquals(available, rangeSharding(algorithm, available, Range.atLeast(start.toDate())));
+        //区间内没有分区时路由到最近的分区
+        assertEquals(Arrays.asList("partition_table_20210102"),
+                rangeSharding(algorithm, available, Range.closed(new DateTime(2021, 1, 3, 0, 0).toDate(), new DateTime(2021, 1, 4, 0, 0).toDate())));
+        assertEquals(Arrays.asList("partition_table_20210101"),
+                rangeSharding(algorithm, available, Range.atMost(start.toDate())));
+    }
+
+    @Test
+    public void testRangeMatchesGeneratedTableNames() {
+        List<DynamicStandardShardingAlgorithm> algorithms = Arrays.asList(new DayDynamicStandardShardingAlgorithm(),
+                new WeekDynamicStandardShardingAlgorithm(), new MonthDynamicStandardShardingAlgorithm(),
+                new YearDynamicStandardShardingAlgorithm());
+        DateTime first = new DateTime(2019, 1, 1, 0, 0);
+        DateTime last = new DateTime(2023, 1, 1, 0, 0);
+        Random random = new Random(20211013L);
+        for (DynamicStandardShardingAlgorithm algorithm : algorithms) {
+            List<String> available = new ArrayList<>(algorithm.generateTableNames(LOGIC_TABLE, first.toDate(), last.toDate()));
+            for (int i = 0; i < 100; i++) {
+                DateTime start = first.plusDays(random.nextInt(1400));
+                DateTime end = start.plusDays(random.nextInt(400));
+                if (end.isAfter(last)) {
+                    end = last;
+                }
+                Collection<String> expected = algorithm.generateTableNames(LOGIC_TABLE, start.toDate(), end.toDate());
+                assertEquals(new ArrayList<>(expected),
+                        rangeSharding(algorithm, available, Range.closed(start.toDate(), end.toDate())), start + " ~ " + end);
+            }
+        }
+    }
+
+    @Test
+    public void testPreciseReturnsAvailableTableName() {
+        List<DynamicStandardShardingAlgorithm> algorithms = Arrays.asList(new DayDynamicStandardShardingAlgorithm(),
+                new WeekDynamicStandardShardingAlgorithm(), new MonthDynamicStandardShardingAlgorithm(),
+                new YearDynamicStandardShardingAlgorithm());
+        DateTime first = new DateTime(2019, 1, 1, 0, 0);
+        DateTime last = new DateTime(2021, 12, 31, 0, 0);
+        Random random = new Random(20211013L);
+        for (DynamicStandardShardingAlgorithm algorithm : algorithms) {
+            List<String> available = new ArrayList<>(algorithm.generateTableNames(LOGIC_TABLE, first.toDate(), last.toDate()));
+            for (int i = 0; i < 1000; i++) {
+                Date value = first.plusMinutes(random.nextInt(3 * 365 * 24 * 60)).toDate();
+                String expected = algorithm.formatTableName(LOGIC_TABLE, algorithm.toLocalDateTime(value));
+                String actual = algorithm.doSharding(available, new PreciseShardingValue<>(LOGIC_TABLE, "partitionDate", value));
+                assertEquals(expected, actual);
+                assertSame(available.get(available.indexOf(expected)), actual);
+            }
+
+            //分区不存在时仍按日期生成分区表
+            Date future = new DateTime(2023, 6, 1, 0, 0).toDate();
+            assertEquals(algorithm.formatTableName(LOGIC_TABLE, algorithm.toLocalDateTime(future)),
+                    algorithm.doSharding(available, new PreciseShardingValue<>(LOGIC_TABLE, "partitionDate", future)));
+        }
+    }
+
+    @Test
+    public void testPreciseDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        //与线上一致关闭debug日志
+        ((Logger) LoggerFactory.getLogger(DynamicStandardShardingAlgorithm.class)).setLevel(Level.INFO);
+        DayDynamicStandardShardingAlgorithm algorithm = new DayDynamicStandardShardingAlgorithm();
+        DateTime first = new DateTime(2021, 1, 1, 0, 0);
+        List<String> available = new ArrayList<>(algorithm.generateTableNames(LOGIC_TABLE, first.toDate(), first.plusYears(3).toDate()));
+        PreciseShardingValue<Date> value = new PreciseShardingValue<>(LOGIC_TABLE, "partitionDate", first.plusDays(500).toDate());
+        for (int i = 0; i < 100000; i++) {
+            algorithm.doSharding(available, value);
+        }
+
+        //C2编译完成前的去优化会在当前线程上分配少量对象，取几轮中最少的一轮
+        long threadId = Thread.currentThread().getId();
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < 5 && allocated >= 1024; round++) {
+            long before = threadMXBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < 100000; i++) {
+                algorithm.doSharding(available, value);
+            }
+            allocated = Math.min(allocated, threadMXBean.getThreadAllocatedBytes(threadId) - before);
+        }
+        assertTrue(allocated < 1024, "allocated " + allocated + " bytes");
+    }
+
+    @Test
+    public void testCompactedPartitions() {
+        DayDynamicStandardShardingAlgorithm algorithm = new DayDynamicStandardShardingAlgorithm();
+        algorithm.bindCompaction(LOGIC_TABLE, new MonthDynamicStandardShardingAlgorithm());
+        //12月已合并，原分区还没有删除
+        List<String> available = Arrays.asList("partition_table_202012", "partition_table_20201230", "partition_table_20201231",
+                "partition_table_20210101", "partition_table_20210102", "partition_table_20210103");
+
+        assertEquals("partition_table_202012", algorithm.getCompactedTableName(LOGIC_TABLE, "partition_table_20201231"));
+        assertNull(algorithm.getCompactedTableName(LOGIC_TABLE, "partition_table_202012"));
+        assertEquals(new LinkedHashSet<>(Arrays.asList("partition_table_20201230", "partition_table_20201231")),
+                algorithm.getShadowedTableNames(LOGIC_TABLE, available));
+        assertEquals(algorithm.getPeriodOrdinal(LOGIC_TABLE, "partition_table_20201231"),
+                algorithm.getPeriodOrdinal(LOGIC_TABLE, "partition_table_202012"));
+        assertEquals(new DateTime(2020, 12, 1, 0, 0).getMillis(), algorithm.getPartitionStart(LOGIC_TABLE, "partition_table_202012"));
+        assertEquals(new DateTime(2021, 1, 1, 0, 0).getMillis(), algorithm.getPartitionEnd(LOGIC_TABLE, "partition_table_202012"));
+        //年份之外的数字不是合并后的分区
+        assertEquals(-1, algorithm.getPeriodOrdinal(LOGIC_TABLE, "partition_table_2020123"));
+
+        assertEquals("partition_table_202012", algorithm.doSharding(available,
+                new PreciseShardingValue<>(LOGIC_TABLE, "partitionDate", new DateTime(2020, 12, 31, 10, 0).toDate())));
+        assertEquals("partition_table_20210102", algorithm.doSharding(available,
+                new PreciseShardingValue<>(LOGIC_TABLE, "partitionDate", new DateTime(2021, 1, 2, 10, 0).toDate())));
+        assertEquals(Arrays.asList("partition_table_202012", "partition_table_20210101", "partition_table_20210102"),
+                rangeSharding(algorithm, available, Range.closed(new DateTime(2020, 12, 15, 0, 0).toDate(), new DateTime(2021, 1, 2, 0, 0).toDate())));
+        assertEquals(Arrays.asList("partition_table_202012", "partition_table_20210101", "partition_table_20210102", "partition_table_20210103"),
+                rangeSharding(algorithm, available, Range.all()));
+
+        //周分区的表名与月分区无法区分
+        assertThrows(IllegalArgumentException.class,
+                () -> new WeekDynamicStandardShardingAlgorithm().bindCompaction(LOGIC_TABLE, new MonthDynamicStandardShardingAlgorithm()));
+    }
+
+    private List<String> rangeSharding(DynamicStandardShardingAlgorithm algorithm, Collection<String> available, Range<Date> range) {
+        return new ArrayList<>(algorithm.doSharding(available, new RangeShardingValue<>(LOGIC_TABLE, "partitionDate", range)));
+    }
+
+    /**
+     * 与原先逐日步进+SimpleDateFormat的结果逐一比对，包括顺序
+     */
+    private void assertSameAsDayStepping(DynamicStandardShardingAlgorithm algorithm, int maxDays) {
+        Random random = new Random(20211013L);
+        DateTime base = new DateTime(2018, 1, 1, 0, 0);
+        for (int i = 0; i < 200; i++) {
+            DateTime start = base.plusDays(random.nextInt(2000));
+            DateTime end = start.plusDays(random.nextInt(maxDays));
+            Collection<String> expected = generateTableNamesByDay(algorithm.getDateFormat(), start.toDate(), end.toDate());
+            Collection<String> actual = algorithm.generateTableNames(LOGIC_TABLE, start.toDate(), end.toDate());
+            assertEquals(new ArrayList<>(expected), new ArrayList<>(actual), start + " ~ " + end);
+        }
+    }
+
+    /**
+     * 逐日按日历天步进（固定加86400000毫秒在夏令时切换日会丢掉最后一天）
+     */
+    private Collection<String> generateTableNamesByDay(String dateFormat, Date startDate, Date endDate) {
+        Set<String> list = new LinkedHashSet<>();
+        SimpleDateFormat sdf = new SimpleDateFormat(dateFormat);
+        Calendar calendar = new GregorianCalendar();
+        calendar.setTime(startDate);
+        while (!calendar.getTime().after(endDate)) {
+            String suffix = sdf.format(calendar.getTime());
+            list.add(String.format("%s_%s", LOGIC_TABLE, suffix));
+            calendar.add(Calendar.DATE, 1);
+        }
+        return list;
+    }
+}
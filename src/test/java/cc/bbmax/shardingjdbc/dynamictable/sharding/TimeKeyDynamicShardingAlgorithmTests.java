@@ -0,0 +1,214 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding;
+
+import cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture;
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import cc.bbmax.shardingjdbc.dynamictable.repository.PartitionBulkIngestRepositoryImpl;
+import cc.bbmax.shardingjdbc.dynamictable.repository.TimeEmbeddedIdentifierGenerator;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.key.TimeEmbeddedKeyGenerator;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.statistics.PartitionStatisticsCatalog;
+import com.google.common.collect.Range;
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.shardingsphere.api.sharding.complex.ComplexKeysShardingValue;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.*;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture.count;
+import static cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture.execute;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 3:15 上午
+ */
+public class TimeKeyDynamicShardingAlgorithmTests {
+
+    private static final String LOGIC_TABLE = "key_partition_table";
+
+    @Test
+    public void testKeyGenerator() {
+        TimeEmbeddedKeyGenerator keyGenerator = new TimeEmbeddedKeyGenerator(5);
+        Date date = new DateTime(2021, 1, 2, 10, 30, 15, 500).toDate();
+        long first = keyGenerator.nextId(date);
+        long second = keyGenerator.nextId(date);
+        long later = keyGenerator.nextId(new DateTime(2021, 1, 2, 10, 30, 16).toDate());
+        //回填更早的数据
+        long earlier = keyGenerator.nextId(new DateTime(2021, 1, 1, 0, 0).toDate());
+        assertTrue(first < second && second < later && earlier < first);
+        assertEquals(new DateTime(2021, 1, 2, 10, 30, 15).getMillis(), TimeEmbeddedKeyGenerator.getTime(first));
+        assertEquals(new DateTime(2021, 1, 2, 10, 30, 15).getMillis(), TimeEmbeddedKeyGenerator.getTime(second));
+        assertTrue(TimeEmbeddedKeyGenerator.getMinId(date.getTime()) <= first && second <= TimeEmbeddedKeyGenerator.getMaxId(date.getTime()));
+
+        //不同节点在同一秒生成的主键不同
+        Set<Long> ids = new HashSet<>();
+        TimeEmbeddedKeyGenerator other = new TimeEmbeddedKeyGenerator(6);
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(ids.add(keyGenerator.nextId(date)));
+            assertTrue(ids.add(other.nextId(date)));
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> keyGenerator.nextId(new DateTime(2020, 12, 31, 23, 59).toDate()));
+        assertThrows(IllegalArgumentException.class, () -> new TimeEmbeddedKeyGenerator(1024));
+    }
+
+    @Test
+    public void testKeyRouting() {
+        DayTimeKeyDynamicShardingAlgorithm algorithm = new DayTimeKeyDynamicShardingAlgorithm();
+        List<String> available = new ArrayList<>(algorithm.generateTableNames(LOGIC_TABLE,
+                new DateTime(2021, 1, 1, 0, 0).toDate(), new DateTime(2021, 1, 5, 0, 0).toDate()));
+        assertEquals(5, available.size());
+        TimeEmbeddedKeyGenerator keyGenerator = new TimeEmbeddedKeyGenerator(0);
+        long id = keyGenerator.nextId(new DateTime(2021, 1, 2, 23, 59, 59, 999).toDate());
+
+        //只带主键时路由到一个分区
+        assertEquals(Collections.singletonList("key_partition_table_20210102"),
+                sharding(algorithm, available, Collections.singletonMap("id", Collections.singletonList(id)), Collections.emptyMap()));
+        assertEquals(Arrays.asList("key_partition_table_20210102", "key_partition_table_20210104"),
+                sharding(algorithm, available, Collections.singletonMap("id", Arrays.asList(id,
+                        keyGenerator.nextId(new DateTime(2021, 1, 4, 0, 0).toDate()))), Collections.emptyMap()));
+        //带时间字段时按时间路由
+        assertEquals(Collections.singletonList("key_partition_table_20210103"), sharding(algorithm, available,
+                Collections.singletonMap("partitionDate", Collections.singletonList(new DateTime(2021, 1, 3, 0, 0).toDate())),
+                Collections.emptyMap()));
+        //主键区间换算成时间区间
+        Map<String, Range<Comparable<?>>> ranges = new HashMap<>();
+        ranges.put("id", Range.closed(TimeEmbeddedKeyGenerator.getMinId(new DateTime(2021, 1, 2, 12, 0).getMillis()),
+                TimeEmbeddedKeyGenerator.getMaxId(new DateTime(2021, 1, 4, 12, 0).getMillis())));
+        assertEquals(Arrays.asList("key_partition_table_20210102", "key_partition_table_20210103", "key_partition_table_20210104"),
+                sharding(algorithm, available, Collections.emptyMap(), ranges));
+        //主键和时间区间取交集
+        ranges.put("partitionDate", Range.atLeast(new DateTime(2021, 1, 4, 0, 0).toDate()));
+        assertEquals(Collections.singletonList("key_partition_table_20210104"), sharding(algorithm, available, Collections.emptyMap(), ranges));
+        //主键所在的分区已经删除时路由到最近的分区
+        assertEquals(Collections.singletonList("key_partition_table_20210105"), sharding(algorithm, available,
+                Collections.singletonMap("id", Collections.singletonList(keyGenerator.nextId(new DateTime(2021, 3, 1, 0, 0).toDate()))),
+                Collections.emptyMap()));
+    }
+
+    @Test
+    public void testFindByIdQueriesOnePartition() throws SQLException {
+        JdbcDataSource h2 = ShardingTestFixture.newH2("key");
+        AtomicInteger connections = new AtomicInteger();
+        DataSource dataSource = (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{DataSource.class},
+                (proxy, method, args) -> {
+                    if ("getConnection".equals(method.getName())) {
+                        connections.incrementAndGet();
+                    }
+                    try {
+                        return method.invoke(h2, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        try (Connection connection = h2.getConnection(); Statement statement = connection.createStatement()) {
+            for (int day = 1; day <= 5; day++) {
+                statement.execute("CREATE TABLE " + LOGIC_TABLE + "_2021010" + day
+                        + " (id BIGINT PRIMARY KEY, column1 VARCHAR(64), partitionDate TIMESTAMP NOT NULL)");
+            }
+        }
+
+        DataSource shardingDataSource = new ShardingTestFixture()
+                .dataSource("ds0", dataSource)
+                .complexTable(LOGIC_TABLE, "ds0." + LOGIC_TABLE + "_2021010$->{1..5}", "partitionDate,id", DayTimeKeyDynamicShardingAlgorithm.class)
+                .newShardingDataSource();
+
+        //批量写入时按分区时间生成主键
+        List<KeyPartitionTableEntity> entities = new ArrayList<>();
+        DateTime dt = new DateTime(2021, 1, 1, 0, 0);
+        for (int i = 0; i < 30; i++) {
+            KeyPartitionTableEntity entity = new KeyPartitionTableEntity();
+            entity.setColumn1("row" + i);
+            entity.setPartitionDate(dt.plusHours(i * 4).toDate());
+            entities.add(entity);
+        }
+        new PartitionBulkIngestRepositoryImpl<KeyPartitionTableEntity>(new PartitionResolver(shardingDataSource), new DynamicTableProperties(),
+                new PartitionStatisticsCatalog(), null, new TimeEmbeddedKeyGenerator(1)).ingest(entities);
+        KeyPartitionTableEntity target = entities.get(13);
+        assertNotNull(target.getId());
+        assertEquals(new DateTime(2021, 1, 3, 4, 0).getMillis(), TimeEmbeddedKeyGenerator.getTime(target.getId()));
+
+        connections.set(0);
+        try (Connection connection = shardingDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT column1 FROM " + LOGIC_TABLE + " WHERE id = ?")) {
+            statement.setLong(1, target.getId());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                assertTrue(resultSet.next());
+                assertEquals("row13", resultSet.getString(1));
+                assertFalse(resultSet.next());
+            }
+        }
+        assertEquals(1, connections.get());
+    }
+
+    @Test
+    public void testRestartedGeneratorContinuesAfterWrittenKeys() throws SQLException {
+        JdbcDataSource h2 = ShardingTestFixture.newH2("restart");
+        for (int day = 1; day <= 2; day++) {
+            execute(h2, "CREATE TABLE " + LOGIC_TABLE + "_2021010" + day
+                    + " (id BIGINT PRIMARY KEY, column1 VARCHAR(64), partitionDate TIMESTAMP NOT NULL)");
+        }
+        PartitionResolver partitionResolver = new PartitionResolver(new ShardingTestFixture()
+                .dataSource("ds0", h2)
+                .complexTable(LOGIC_TABLE, "ds0." + LOGIC_TABLE + "_2021010$->{1..2}", "partitionDate,id", DayTimeKeyDynamicShardingAlgorithm.class)
+                .newShardingDataSource());
+
+        //同一个节点号的两个生成器，相当于进程重启前后，写入同一秒的数据
+        Date date = new DateTime(2021, 1, 2, 10, 30, 15).toDate();
+        Set<Long> ids = new HashSet<>();
+        for (int restart = 0; restart < 2; restart++) {
+            List<KeyPartitionTableEntity> entities = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                KeyPartitionTableEntity entity = new KeyPartitionTableEntity();
+                entity.setColumn1("row" + restart + i);
+                entity.setPartitionDate(date);
+                entities.add(entity);
+            }
+            new PartitionBulkIngestRepositoryImpl<KeyPartitionTableEntity>(partitionResolver, new DynamicTableProperties(),
+                    new PartitionStatisticsCatalog(), null, new TimeEmbeddedKeyGenerator(1)).ingest(entities);
+            for (KeyPartitionTableEntity entity : entities) {
+                assertTrue(ids.add(entity.getId()));
+            }
+        }
+        assertEquals(6, count(h2, "SELECT COUNT(*) FROM " + LOGIC_TABLE + "_20210102"));
+    }
+
+    private static List<String> sharding(TimeKeyDynamicShardingAlgorithm algorithm, Collection<String> available,
+                                         Map<String, ? extends Collection<? extends Comparable<?>>> values,
+                                         Map<String, Range<Comparable<?>>> ranges) {
+        Map<String, Collection<Comparable<?>>> shardingValues = new HashMap<>();
+        for (Map.Entry<String, ? extends Collection<? extends Comparable<?>>> entry : values.entrySet()) {
+            shardingValues.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+        return new ArrayList<>(algorithm.doSharding(available, new ComplexKeysShardingValue<>(LOGIC_TABLE, shardingValues, ranges)));
+    }
+
+    @Table(name = LOGIC_TABLE)
+    @Getter
+    @Setter
+    public static class KeyPartitionTableEntity {
+
+        @Id
+        @GeneratedValue(generator = "time-key")
+        @GenericGenerator(name = "time-key", strategy = "cc.bbmax.shardingjdbc.dynamictable.repository.TimeEmbeddedIdentifierGenerator",
+                parameters = @Parameter(name = TimeEmbeddedIdentifierGenerator.TIME_COLUMN, value = "partitionDate"))
+        private Long id;
+
+        private String column1;
+
+        private Date partitionDate;
+    }
+}
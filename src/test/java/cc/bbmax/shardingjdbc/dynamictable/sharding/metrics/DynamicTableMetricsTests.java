@@ -0,0 +1,83 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.metrics;
+
+import cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture;
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.DayDynamicStandardShardingAlgorithm;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.*;
+
+import static cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture.execute;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 11:50 下午
+ */
+public class DynamicTableMetricsTests {
+
+    private static final String LOGIC_TABLE = "day_partition_table";
+
+    private static final int LOOK_AHEAD = 3;
+
+    @Test
+    public void testRefreshAndRoutingRecorded() throws SQLException {
+        JdbcDataSource h2 = ShardingTestFixture.newH2("metrics");
+        execute(h2, "CREATE TABLE " + LOGIC_TABLE + "_20210101 (id BIGINT PRIMARY KEY, partition_date TIMESTAMP)");
+        //按类名配置，精确和区间分表算法是两个实例
+        ShardingTestFixture fixture = new ShardingTestFixture()
+                .dataSource("ds0", h2)
+                .standardTable(LOGIC_TABLE, "ds0." + LOGIC_TABLE + "_20210101", "partition_date", DayDynamicStandardShardingAlgorithm.class);
+        DataSource shardingDataSource = fixture.newShardingDataSource();
+
+        DynamicTableProperties properties = new DynamicTableProperties();
+        DynamicTableProperties.TableProperties tableProperties = new DynamicTableProperties.TableProperties();
+        tableProperties.setLookAhead(LOOK_AHEAD);
+        properties.getTables().put(LOGIC_TABLE, tableProperties);
+        MeterRegistry registry = new SimpleMeterRegistry();
+        DynamicTableMetrics metrics = new DynamicTableMetrics(registry);
+
+        try {
+            fixture.startScheduler(shardingDataSource, properties, metrics);
+        } finally {
+            fixture.close();
+        }
+
+        assertEquals(1, registry.get("dynamic.table.refresh").tag("result", "success").timer().count());
+        assertEquals(1, registry.get("dynamic.table.ddl").tag("dataSource", "ds0").timer().count());
+        assertEquals(LOOK_AHEAD + 2, registry.get("dynamic.table.partitions").tag("logicTable", LOGIC_TABLE).gauge().value());
+        //今天加上提前创建的3天，最新分区在3到4天之后结束
+        double lookAheadHours = registry.get("dynamic.table.partition.lookahead").gauge().value();
+        assertTrue(lookAheadHours > LOOK_AHEAD * 24 && lookAheadHours <= (LOOK_AHEAD + 1) * 24, String.valueOf(lookAheadHours));
+
+        //写入和区间查询分别经过精确和区间分表算法路由
+        DateTime today = DateTime.now().withTimeAtStartOfDay();
+        try (Connection connection = shardingDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT COUNT(*) FROM " + LOGIC_TABLE + " WHERE partition_date >= ? AND partition_date < ?")) {
+            statement.setTimestamp(1, new Timestamp(today.getMillis()));
+            statement.setTimestamp(2, new Timestamp(today.plusDays(2).getMillis()));
+            statement.executeQuery().close();
+        }
+        try (Connection connection = shardingDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("INSERT INTO " + LOGIC_TABLE + " (id, partition_date) VALUES (?, ?)")) {
+            statement.setLong(1, 1L);
+            statement.setTimestamp(2, new Timestamp(today.plusHours(1).getMillis()));
+            statement.executeUpdate();
+        }
+        assertEquals(1, registry.get("dynamic.table.sharding").tag("type", "precise").timer().count());
+        assertEquals(1, registry.get("dynamic.table.sharding").tag("type", "range").timer().count());
+        assertEquals(1, registry.get("dynamic.table.range.partitions").summary().count());
+        assertEquals(2, registry.get("dynamic.table.range.partitions").summary().totalAmount());
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> table = (Map<String, Object>) ((Map<String, Object>) metrics.describe().get("tables")).get(LOGIC_TABLE);
+        assertEquals(LOGIC_TABLE + "_" + today.plusDays(LOOK_AHEAD).toString("yyyyMMdd"), table.get("newestPartition"));
+    }
+}
@@ -0,0 +1,210 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.scheduler;
+
+import cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture;
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.DayDynamicStandardShardingAlgorithm;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.PartitionWriteScope;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.cluster.PartitionDdlLease;
+import org.apache.shardingsphere.core.rule.TableRule;
+import org.apache.shardingsphere.shardingjdbc.jdbc.core.datasource.ShardingDataSource;
+import org.apache.shardingsphere.underlying.common.rule.DataNode;
+import org.h2.jdbcx.JdbcDataSource;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import static cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture.execute;
+import static cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture.tableExists;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 两个节点共用一个数据库，只有持有租约的节点建表，另一个节点通过元数据版本同步
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 0:40 上午
+ */
+public class ClusterCoordinationTests {
+
+    private static final String LOGIC_TABLE = "day_partition_table";
+
+    private DataSource actualDataSource;
+
+    private ShardingTestFixture fixture;
+
+    @BeforeEach
+    public void setup() throws SQLException {
+        JdbcDataSource dataSource = ShardingTestFixture.newH2("cluster");
+        actualDataSource = dataSource;
+        execute(actualDataSource, "CREATE TABLE " + getTableName(0) + " (id BIGINT PRIMARY KEY, partition_date TIMESTAMP)");
+        //两个节点各自用同一份配置创建ShardingDataSource
+        fixture = new ShardingTestFixture()
+                .dataSource("ds0", actualDataSource)
+                .standardTable(LOGIC_TABLE, "ds0." + getTableName(0), "partition_date", DayDynamicStandardShardingAlgorithm.class);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    public void testOnlyLeaseHolderCreatesTablesAndOthersFollowVersion() throws Exception {
+        DynamicTableProperties leaderProperties = newProperties();
+        DynamicTableProperties followerProperties = newProperties();
+        ShardingDataSource leaderDataSource = fixture.newShardingDataSource();
+        ShardingDataSource followerDataSource = fixture.newShardingDataSource();
+        ShardingTableRuleActualTablesRefreshScheduler leader = fixture.startScheduler(leaderDataSource, leaderProperties);
+        ShardingTableRuleActualTablesRefreshScheduler follower = fixture.startScheduler(followerDataSource, followerProperties);
+        assertTrue(tableExists(actualDataSource, getTableName(-1)));
+
+        //租约被其他节点持有时不建表
+        PartitionDdlLease other = new PartitionDdlLease(actualDataSource, "dynamic_table_lease", 60000);
+        assertTrue(other.tryAcquire());
+        followerProperties.getTable(LOGIC_TABLE).setLookAhead(3);
+        follower.actualTablesRefresh();
+        assertFalse(tableExists(actualDataSource, getTableName(-2)));
+        other.release();
+
+        //持有租约的节点建表后递增版本，其他节点在轮询间隔内同步到新分区
+        leaderProperties.getTable(LOGIC_TABLE).setLookAhead(3);
+        leader.actualTablesRefresh();
+        assertTrue(tableExists(actualDataSource, getTableName(-3)));
+        TableRule followerRule = followerDataSource.getRuntimeContext().getRule().getTableRule(LOGIC_TABLE);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (followerRule.getActualDataNodes().size() < 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        for (int daysAgo = -3; daysAgo <= 0; daysAgo++) {
+            assertTrue(followerRule.getActualDataNodes().contains(new DataNode("ds0", getTableName(daysAgo))), getTableName(daysAgo));
+        }
+    }
+
+    @Test
+    public void testScheduledRefreshRunsOnOneNodePerCycle() throws Exception {
+        DynamicTableProperties leaderProperties = newProperties();
+        DynamicTableProperties followerProperties = newProperties();
+        ShardingDataSource followerDataSource = fixture.newShardingDataSource();
+        ShardingTableRuleActualTablesRefreshScheduler leader = fixture.startScheduler(fixture.newShardingDataSource(), leaderProperties);
+        ShardingTableRuleActualTablesRefreshScheduler follower = fixture.startScheduler(followerDataSource, followerProperties);
+
+        //先触发的节点完成本周期的刷新并释放租约
+        leaderProperties.getTable(LOGIC_TABLE).setLookAhead(2);
+        leader.actualTablesRefresh();
+        assertTrue(tableExists(actualDataSource, getTableName(-2)));
+
+        //后触发的节点拿到租约后不再执行DDL，只同步分区
+        followerProperties.getTable(LOGIC_TABLE).setLookAhead(3);
+        follower.actualTablesRefresh();
+        assertFalse(tableExists(actualDataSource, getTableName(-3)));
+        TableRule followerRule = followerDataSource.getRuntimeContext().getRule().getTableRule(LOGIC_TABLE);
+        assertTrue(followerRule.getActualDataNodes().contains(new DataNode("ds0", getTableName(-2))));
+    }
+
+    @Test
+    public void testOnDemandPartitionIsSyncedToOtherNodes() throws Exception {
+        DynamicTableProperties properties = newProperties();
+        properties.getOnDemand().setEnabled(true);
+        properties.getOnDemand().setAhead(5);
+        ShardingDataSource writerDataSource = fixture.newShardingDataSource();
+        ShardingDataSource readerDataSource = fixture.newShardingDataSource();
+        fixture.startScheduler(writerDataSource, properties);
+        fixture.startScheduler(readerDataSource, properties);
+
+        //3天后的分区由写入的节点按需创建，其他节点通过元数据版本同步
+        try (PartitionWriteScope scope = PartitionWriteScope.open();
+             Connection connection = writerDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "INSERT INTO " + LOGIC_TABLE + " (id, partition_date) VALUES (?, ?)")) {
+            statement.setLong(1, 1);
+            statement.setTimestamp(2, new Timestamp(DateTime.now().plusDays(3).getMillis()));
+            assertEquals(1, statement.executeUpdate());
+        }
+        assertTrue(tableExists(actualDataSource, getTableName(-3)));
+        TableRule readerRule = readerDataSource.getRuntimeContext().getRule().getTableRule(LOGIC_TABLE);
+        DataNode created = new DataNode("ds0", getTableName(-3));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!readerRule.getActualDataNodes().contains(created) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(readerRule.getActualDataNodes().contains(created));
+    }
+
+    @Test
+    public void testFollowerSyncsPartitionsWithoutStartupDiscovery() throws Exception {
+        DynamicTableProperties leaderProperties = newProperties();
+        DynamicTableProperties followerProperties = newProperties();
+        leaderProperties.getStartup().setDiscovery(false);
+        followerProperties.getStartup().setDiscovery(false);
+        ShardingDataSource followerDataSource = fixture.newShardingDataSource();
+        ShardingTableRuleActualTablesRefreshScheduler leader = fixture.startScheduler(fixture.newShardingDataSource(), leaderProperties);
+        fixture.startScheduler(followerDataSource, followerProperties);
+
+        //不在配置中的新分区只能通过表目录同步
+        leaderProperties.getTable(LOGIC_TABLE).setLookAhead(3);
+        leader.actualTablesRefresh();
+        assertTrue(tableExists(actualDataSource, getTableName(-3)));
+        TableRule followerRule = followerDataSource.getRuntimeContext().getRule().getTableRule(LOGIC_TABLE);
+        DataNode created = new DataNode("ds0", getTableName(-3));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!followerRule.getActualDataNodes().contains(created) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(followerRule.getActualDataNodes().contains(created));
+    }
+
+    @Test
+    public void testStartupRefreshRetriesWhileLeaseIsHeld() throws Exception {
+        fixture.startScheduler(fixture.newShardingDataSource(), newProperties());
+        assertTrue(tableExists(actualDataSource, getTableName(-1)));
+
+        //新节点配置了更多的预建分区，启动时租约被其他节点持有
+        PartitionDdlLease other = new PartitionDdlLease(actualDataSource, "dynamic_table_lease", 60000);
+        assertTrue(other.tryAcquire());
+        DynamicTableProperties properties = newProperties();
+        properties.getTable(LOGIC_TABLE).setLookAhead(3);
+        ShardingDataSource shardingDataSource = fixture.newShardingDataSource();
+        fixture.startScheduler(shardingDataSource, properties);
+        assertFalse(tableExists(actualDataSource, getTableName(-3)));
+        //已有的分区先同步到路由中
+        TableRule tableRule = shardingDataSource.getRuntimeContext().getRule().getTableRule(LOGIC_TABLE);
+        assertTrue(tableRule.getActualDataNodes().contains(new DataNode("ds0", getTableName(-1))));
+
+        //租约释放后重试启动时的刷新
+        other.release();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!tableExists(actualDataSource, getTableName(-3)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(tableExists(actualDataSource, getTableName(-3)));
+        deadline = System.currentTimeMillis() + 5000;
+        while (!tableRule.getActualDataNodes().contains(new DataNode("ds0", getTableName(-3))) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(tableRule.getActualDataNodes().contains(new DataNode("ds0", getTableName(-3))));
+    }
+
+    private static DynamicTableProperties newProperties() {
+        DynamicTableProperties properties = new DynamicTableProperties();
+        properties.getStartup().setAsync(false);
+        properties.getCluster().setEnabled(true);
+        properties.getCluster().setPollInterval(50);
+        DynamicTableProperties.TableProperties tableProperties = new DynamicTableProperties.TableProperties();
+        tableProperties.setLookAhead(1);
+        properties.getTables().put(LOGIC_TABLE, tableProperties);
+        return properties;
+    }
+
+    /**
+     * @param daysAgo 几天前，负数为之后
+     */
+    private static String getTableName(int daysAgo) {
+        return LOGIC_TABLE + "_" + DateTime.now().minusDays(daysAgo).toString("yyyyMMdd");
+    }
+}
@@ -0,0 +1,167 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.scheduler;
+
+import cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture;
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.DayDynamicStandardShardingAlgorithm;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.DynamicDatabaseShardingAlgorithm;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.placement.PartitionPlacementPolicy;
+import com.google.common.collect.Range;
+import org.apache.shardingsphere.api.sharding.standard.RangeShardingValue;
+import org.apache.shardingsphere.core.rule.TableRule;
+import org.apache.shardingsphere.shardingjdbc.jdbc.core.datasource.ShardingDataSource;
+import org.apache.shardingsphere.underlying.common.rule.DataNode;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.*;
+
+import static cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 使用两个内嵌H2数据库验证新分区的放置与分库路由一致
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 8:10 下午
+ */
+public class MultiDataSourcePlacementTests {
+
+    private static final String LOGIC_TABLE = "day_partition_table";
+
+    private static final int LOOK_AHEAD = 5;
+
+    private Map<String, DataSource> dataSources;
+
+    private ShardingDataSource shardingDataSource;
+
+    private DynamicDatabaseShardingAlgorithm rangeDatabaseAlgorithm;
+
+    private final ShardingTestFixture fixture = new ShardingTestFixture();
+
+    @BeforeEach
+    public void setup() throws SQLException {
+        dataSources = new LinkedHashMap<>();
+        for (String dataSourceName : Arrays.asList("ds0", "ds1")) {
+            DataSource dataSource = newH2(dataSourceName);
+            execute(dataSource, "CREATE TABLE " + LOGIC_TABLE + " (id BIGINT PRIMARY KEY, partition_date TIMESTAMP, name VARCHAR(32))");
+            dataSources.put(dataSourceName, dataSource);
+            fixture.dataSource(dataSourceName, dataSource);
+        }
+        //配置中的第一个分区
+        execute(dataSources.get("ds0"), "CREATE TABLE " + LOGIC_TABLE + "_20210101 AS SELECT * FROM " + LOGIC_TABLE + " WITH NO DATA");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    public void testRoundRobinPlacementAgreesWithDatabaseRouting() throws SQLException {
+        start(PartitionPlacementPolicy.ROUND_ROBIN);
+        TableRule tableRule = shardingDataSource.getRuntimeContext().getRule().getTableRule(LOGIC_TABLE);
+        ActualTablesSnapshot snapshot = TableRuleMetadata.of(tableRule).getSnapshot();
+
+        //相邻的分区落在不同的数据源上
+        DateTime today = DateTime.now().withTimeAtStartOfDay();
+        List<String> placed = new ArrayList<>();
+        for (int i = 0; i <= LOOK_AHEAD; i++) {
+            String tableName = LOGIC_TABLE + "_" + today.plusDays(i).toString("yyyyMMdd");
+            String dataSourceName = snapshot.findDataSourceName(tableName);
+            assertNotNull(dataSourceName, tableName);
+            assertTrue(tableExists(dataSources.get(dataSourceName), tableName), tableName);
+            placed.add(dataSourceName);
+        }
+        for (int i = 1; i < placed.size(); i++) {
+            assertNotEquals(placed.get(i - 1), placed.get(i));
+        }
+
+        //写入后每条数据都在分区实际所在的数据源上
+        try (Connection connection = shardingDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "INSERT INTO " + LOGIC_TABLE + " (id, partition_date, name) VALUES (?, ?, ?)")) {
+            for (int i = 0; i <= LOOK_AHEAD; i++) {
+                statement.setLong(1, i);
+                statement.setTimestamp(2, new Timestamp(today.plusDays(i).plusHours(12).getMillis()));
+                statement.setString(3, "name" + i);
+                statement.executeUpdate();
+            }
+        }
+        for (int i = 0; i <= LOOK_AHEAD; i++) {
+            String tableName = LOGIC_TABLE + "_" + today.plusDays(i).toString("yyyyMMdd");
+            assertEquals(1, count(dataSources.get(placed.get(i)), "SELECT COUNT(*) FROM " + tableName));
+        }
+
+        //区间查询合并所有数据源的结果
+        try (Connection connection = shardingDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT id FROM " + LOGIC_TABLE + " WHERE partition_date >= ? AND partition_date < ?")) {
+            statement.setTimestamp(1, new Timestamp(today.getMillis()));
+            statement.setTimestamp(2, new Timestamp(today.plusDays(LOOK_AHEAD + 1).getMillis()));
+            Set<Long> ids = new HashSet<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    ids.add(resultSet.getLong(1));
+                }
+            }
+            assertEquals(LOOK_AHEAD + 1, ids.size());
+        }
+
+        //区间分库只路由到区间内有分区的数据源
+        assertEquals(Collections.singletonList(placed.get(0)), new ArrayList<>(rangeDatabaseAlgorithm.doSharding(Arrays.asList("ds0", "ds1"),
+                new RangeShardingValue<>(LOGIC_TABLE, "partition_date", Range.closed(today.toDate(), today.plusHours(12).toDate())))));
+    }
+
+    @Test
+    public void testLeastLoadedPlacementBalancesNewPartitions() throws SQLException {
+        start(PartitionPlacementPolicy.LEAST_LOADED);
+        TableRule tableRule = shardingDataSource.getRuntimeContext().getRule().getTableRule(LOGIC_TABLE);
+
+        Map<String, Collection<String>> datasourceToTablesMap = tableRule.getDatasourceToTablesMap();
+        int ds0 = datasourceToTablesMap.get("ds0").size();
+        int ds1 = datasourceToTablesMap.get("ds1").size();
+        //同一批的新分区也计入分区数，两个数据源最多相差一个分区
+        assertEquals(LOOK_AHEAD + 2, ds0 + ds1);
+        assertTrue(Math.abs(ds0 - ds1) <= 1);
+    }
+
+    @Test
+    public void testConsistentHashPlacementIsStable() throws SQLException {
+        start(PartitionPlacementPolicy.CONSISTENT_HASH);
+        TableRule tableRule = shardingDataSource.getRuntimeContext().getRule().getTableRule(LOGIC_TABLE);
+        ActualTablesSnapshot snapshot = TableRuleMetadata.of(tableRule).getSnapshot();
+
+        List<String> dataSourceNames = Arrays.asList("ds0", "ds1");
+        for (DataNode dataNode : snapshot.getDataNodes()) {
+            if (dataNode.getTableName().endsWith("_20210101")) {
+                continue;
+            }
+            String placed = PartitionPlacementPolicy.CONSISTENT_HASH.newPlacement()
+                    .place(dataNode.getTableName(), 0, dataSourceNames, Collections.emptyMap());
+            assertEquals(placed, dataNode.getDataSourceName(), dataNode.getTableName());
+        }
+    }
+
+    private void start(PartitionPlacementPolicy policy) throws SQLException {
+        shardingDataSource = fixture
+                .standardTable(LOGIC_TABLE, "ds0." + LOGIC_TABLE + "_20210101", "partition_date", DayDynamicStandardShardingAlgorithm.class)
+                .standardDatabase(LOGIC_TABLE, "partition_date", DynamicDatabaseShardingAlgorithm.class)
+                .newShardingDataSource();
+        //按类名配置，区间分库使用单独的算法实例
+        rangeDatabaseAlgorithm = getDatabaseRangeAlgorithm(shardingDataSource, LOGIC_TABLE);
+
+        DynamicTableProperties properties = new DynamicTableProperties();
+        DynamicTableProperties.TableProperties tableProperties = new DynamicTableProperties.TableProperties();
+        tableProperties.setLookAhead(LOOK_AHEAD);
+        tableProperties.setPlacement(policy);
+        tableProperties.setDataSources(Arrays.asList("ds0", "ds1"));
+        tableProperties.setTemplateTable(LOGIC_TABLE);
+        properties.getTables().put(LOGIC_TABLE, tableProperties);
+
+        fixture.startScheduler(shardingDataSource, properties);
+    }
+}
@@ -0,0 +1,171 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.scheduler;
+
+import cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture;
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.DayDynamicStandardShardingAlgorithm;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.PartitionWriteScope;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.metrics.DynamicTableMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.shardingsphere.core.rule.TableRule;
+import org.apache.shardingsphere.shardingjdbc.jdbc.core.datasource.ShardingDataSource;
+import org.apache.shardingsphere.underlying.common.rule.DataNode;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.*;
+import java.util.Date;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 写入不存在的分区时并发的写入只建一次表，查询不存在的分区不建表
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 1:10 上午
+ */
+public class OnDemandPartitionTests {
+
+    private static final String LOGIC_TABLE = "day_partition_table";
+
+    private static final int THREADS = 16;
+
+    private DataSource actualDataSource;
+
+    private final ShardingTestFixture fixture = new ShardingTestFixture();
+
+    @BeforeEach
+    public void setup() throws SQLException {
+        actualDataSource = ShardingTestFixture.newH2("on_demand");
+        try (Connection connection = actualDataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE " + getTableName(0) + " (id BIGINT PRIMARY KEY, partition_date TIMESTAMP)");
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    public void testConcurrentWritesCreatePartitionOnce() throws Exception {
+        ShardingDataSource shardingDataSource = fixture
+                .dataSource("ds0", actualDataSource)
+                .standardTable(LOGIC_TABLE, "ds0." + getTableName(0), "partition_date", DayDynamicStandardShardingAlgorithm.class)
+                .newShardingDataSource();
+
+        DynamicTableProperties properties = new DynamicTableProperties();
+        properties.getStartup().setAsync(false);
+        properties.getOnDemand().setEnabled(true);
+        properties.getOnDemand().setAhead(5);
+        DynamicTableProperties.TableProperties tableProperties = new DynamicTableProperties.TableProperties();
+        tableProperties.setLookAhead(1);
+        properties.getTables().put(LOGIC_TABLE, tableProperties);
+        MeterRegistry registry = new SimpleMeterRegistry();
+
+        fixture.startScheduler(shardingDataSource, properties, new DynamicTableMetrics(registry));
+        long ddlCount = registry.get("dynamic.table.ddl").timer().count();
+
+        //3天后的分区还没有创建，并发写入等待同一次建表
+        Date future = DateTime.now().plusDays(3).toDate();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch ready = new CountDownLatch(THREADS);
+        List<Future<Integer>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                long id = i;
+                results.add(executor.submit(() -> {
+                    ready.countDown();
+                    ready.await();
+                    return insert(shardingDataSource, id, future);
+                }));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals(1, result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(ddlCount + 1, registry.get("dynamic.table.ddl").timer().count());
+        TableRule tableRule = shardingDataSource.getRuntimeContext().getRule().getTableRule(LOGIC_TABLE);
+        assertTrue(tableRule.getActualDataNodes().contains(new DataNode("ds0", getTableName(-3))));
+        try (Connection connection = actualDataSource.getConnection(); Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + getTableName(-3))) {
+            resultSet.next();
+            assertEquals(THREADS, resultSet.getInt(1));
+        }
+
+        //超出按需建表范围的分区不创建
+        assertThrows(SQLException.class, () -> insert(shardingDataSource, THREADS, DateTime.now().plusDays(30).toDate()));
+        assertFalse(tableRule.getActualDataNodes().contains(new DataNode("ds0", getTableName(-30))));
+    }
+
+    @Test
+    public void testSelectDoesNotCreatePartition() throws Exception {
+        ShardingDataSource shardingDataSource = fixture
+                .dataSource("ds0", actualDataSource)
+                .standardTable(LOGIC_TABLE, "ds0." + getTableName(0), "partition_date", DayDynamicStandardShardingAlgorithm.class)
+                .newShardingDataSource();
+        DynamicTableProperties properties = new DynamicTableProperties();
+        properties.getStartup().setAsync(false);
+        properties.getOnDemand().setEnabled(true);
+        properties.getOnDemand().setAhead(5);
+        fixture.startScheduler(shardingDataSource, properties);
+        TableRule tableRule = shardingDataSource.getRuntimeContext().getRule().getTableRule(LOGIC_TABLE);
+
+        //不在写入范围内，按等值条件查询不存在的分区不建表
+        Date future = DateTime.now().plusDays(2).toDate();
+        assertThrows(SQLException.class, () -> select(shardingDataSource, future));
+        assertFalse(tableRule.getActualDataNodes().contains(new DataNode("ds0", getTableName(-2))));
+        assertFalse(tableExists(getTableName(-2)));
+
+        //关闭后查询也会建表
+        properties.getOnDemand().setWritesOnly(false);
+        assertEquals(0, select(shardingDataSource, future));
+        assertTrue(tableRule.getActualDataNodes().contains(new DataNode("ds0", getTableName(-2))));
+        assertTrue(tableExists(getTableName(-2)));
+    }
+
+    private static int select(DataSource dataSource, Date partitionDate) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT COUNT(*) FROM " + LOGIC_TABLE + " WHERE partition_date = ?")) {
+            statement.setTimestamp(1, new Timestamp(partitionDate.getTime()));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getInt(1);
+            }
+        }
+    }
+
+    private boolean tableExists(String tableName) throws SQLException {
+        try (Connection connection = actualDataSource.getConnection();
+             ResultSet resultSet = connection.getMetaData().getTables(null, null, tableName.toUpperCase(), null)) {
+            return resultSet.next();
+        }
+    }
+
+    private static int insert(DataSource dataSource, long id, Date partitionDate) throws SQLException {
+        try (PartitionWriteScope scope = PartitionWriteScope.open();
+             Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "INSERT INTO " + LOGIC_TABLE + " (id, partition_date) VALUES (?, ?)")) {
+            statement.setLong(1, id);
+            statement.setTimestamp(2, new Timestamp(partitionDate.getTime()));
+            return statement.executeUpdate();
+        }
+    }
+
+    /**
+     * @param daysAgo 几天前，负数为之后
+     */
+    private static String getTableName(int daysAgo) {
+        return LOGIC_TABLE + "_" + DateTime.now().minusDays(daysAgo).toString("yyyyMMdd");
+    }
+}
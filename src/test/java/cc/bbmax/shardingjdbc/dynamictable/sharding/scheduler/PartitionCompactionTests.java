@@ -0,0 +1,205 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.scheduler;
+
+import cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture;
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.DayDynamicStandardShardingAlgorithm;
+import org.apache.shardingsphere.core.rule.TableRule;
+import org.apache.shardingsphere.shardingjdbc.jdbc.core.datasource.ShardingDataSource;
+import org.apache.shardingsphere.underlying.common.rule.DataNode;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+
+import static cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture.count;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 封存的日分区在后台合并为月分区，切换路由后删除原分区
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 4:15 上午
+ */
+public class PartitionCompactionTests {
+
+    private static final String LOGIC_TABLE = "day_partition_table";
+
+    private static final String TEMPLATE_TABLE = LOGIC_TABLE + "_template";
+
+    private static final int ROWS_PER_DAY = 3;
+
+    /**
+     * 两个月前的1日，整个月都已封存
+     */
+    private final DateTime month = DateTime.now().minusMonths(2).withDayOfMonth(1).withTimeAtStartOfDay();
+
+    private final int days = month.dayOfMonth().getMaximumValue();
+
+    private final String compactedTable = LOGIC_TABLE + "_" + month.toString("yyyyMM");
+
+    private DataSource actualDataSource;
+
+    private final ShardingTestFixture fixture = new ShardingTestFixture();
+
+    @BeforeEach
+    public void setup() throws SQLException {
+        actualDataSource = ShardingTestFixture.newH2("compaction");
+        String columns = " (id BIGINT PRIMARY KEY, partition_date TIMESTAMP NOT NULL)";
+        execute("CREATE TABLE " + TEMPLATE_TABLE + columns);
+        execute("CREATE TABLE " + getTableName(DateTime.now()) + columns);
+        long id = 0;
+        for (int day = 0; day < days; day++) {
+            DateTime date = month.plusDays(day);
+            execute("CREATE TABLE " + getTableName(date) + columns);
+            for (int i = 0; i < ROWS_PER_DAY; i++) {
+                execute(String.format("INSERT INTO %s VALUES (%d, '%s')", getTableName(date), ++id, date.plusHours(i).toString("yyyy-MM-dd HH:mm:ss")));
+            }
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    public void testSealedDaysCompactedIntoMonth() throws Exception {
+        ShardingDataSource shardingDataSource = fixture
+                .dataSource("ds0", actualDataSource)
+                .standardTable(LOGIC_TABLE, "ds0." + getTableName(DateTime.now()), "partition_date", DayDynamicStandardShardingAlgorithm.class)
+                .newShardingDataSource();
+
+        fixture.startScheduler(shardingDataSource, newProperties());
+
+        //合并后的分区加入路由，原分区在后台核对后删除
+        TableRule tableRule = shardingDataSource.getRuntimeContext().getRule().getTableRule(LOGIC_TABLE);
+        long deadline = System.currentTimeMillis() + 10000;
+        while ((!tableRule.getActualDataNodes().contains(new DataNode("ds0", compactedTable)) || anyDayExists())
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(tableRule.getActualDataNodes().contains(new DataNode("ds0", compactedTable)));
+        assertTrue(tableRule.getActualDataNodes().contains(new DataNode("ds0", getTableName(DateTime.now()))));
+        for (int day = 0; day < days; day++) {
+            String tableName = getTableName(month.plusDays(day));
+            assertFalse(tableRule.getActualDataNodes().contains(new DataNode("ds0", tableName)), tableName);
+            assertFalse(tableExists(tableName), tableName);
+        }
+        assertFalse(tableExists(compactedTable + "_compacting"));
+        assertEquals(days * ROWS_PER_DAY, count(actualDataSource, "SELECT COUNT(*) FROM " + compactedTable));
+
+        //区间查询只路由到合并后的分区，迟到的数据写入合并后的分区
+        try (Connection connection = shardingDataSource.getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT COUNT(*) FROM " + LOGIC_TABLE + " WHERE partition_date >= ? AND partition_date < ?")) {
+                statement.setTimestamp(1, new Timestamp(month.getMillis()));
+                statement.setTimestamp(2, new Timestamp(month.plusMonths(1).getMillis()));
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    assertEquals(days * ROWS_PER_DAY, resultSet.getLong(1));
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement("INSERT INTO " + LOGIC_TABLE + " (id, partition_date) VALUES (?, ?)")) {
+                statement.setLong(1, 1000000L);
+                statement.setTimestamp(2, new Timestamp(month.plusDays(14).getMillis()));
+                statement.executeUpdate();
+            }
+        }
+        assertEquals(days * ROWS_PER_DAY + 1, count(actualDataSource, "SELECT COUNT(*) FROM " + compactedTable));
+    }
+
+    @Test
+    public void testUpdateBeforeSwitchKeepsSourcePartition() throws Exception {
+        //复制完成之后、切换路由之前，原分区中的一行被更新，行数不变
+        String updatedTable = getTableName(month.plusDays(3));
+        DataSource dataSource = (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{DataSource.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(actualDataSource, method, args);
+                    return result instanceof Connection ? onRename((Connection) result, "UPDATE " + updatedTable
+                            + " SET partition_date = DATEADD('MINUTE', 30, partition_date) WHERE id = " + (3 * ROWS_PER_DAY + 1)) : result;
+                });
+        ShardingDataSource shardingDataSource = fixture
+                .dataSource("ds0", dataSource)
+                .standardTable(LOGIC_TABLE, "ds0." + getTableName(DateTime.now()), "partition_date", DayDynamicStandardShardingAlgorithm.class)
+                .newShardingDataSource();
+
+        fixture.startScheduler(shardingDataSource, newProperties());
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (tableExists(getTableName(month)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertFalse(tableExists(getTableName(month)));
+        //被更新的原分区核对失败，保留
+        assertTrue(tableExists(updatedTable));
+        assertEquals(1, count(actualDataSource, "SELECT COUNT(*) FROM " + updatedTable + " WHERE MINUTE(partition_date) = 30"));
+        assertEquals(0, count(actualDataSource, "SELECT COUNT(*) FROM " + compactedTable + " WHERE MINUTE(partition_date) = 30"));
+    }
+
+    private static DynamicTableProperties newProperties() {
+        DynamicTableProperties properties = new DynamicTableProperties();
+        properties.getStartup().setAsync(false);
+        properties.getCompaction().setChunkSize(2);
+        properties.getCompaction().setInterval(0);
+        properties.getCompaction().setGrace(0);
+        DynamicTableProperties.TableProperties tableProperties = new DynamicTableProperties.TableProperties();
+        tableProperties.setTemplateTable(TEMPLATE_TABLE);
+        tableProperties.setIdColumn("id");
+        tableProperties.setCompactTo(DynamicTableProperties.CompactionGranularity.MONTH);
+        properties.getTables().put(LOGIC_TABLE, tableProperties);
+        return properties;
+    }
+
+    /**
+     * 临时表改名为合并后的分区之前先执行sql
+     */
+    private Connection onRename(Connection connection, String sql) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Connection.class}, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (!"createStatement".equals(method.getName())) {
+                return result;
+            }
+            return Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Statement.class}, (statementProxy, statementMethod, statementArgs) -> {
+                if ("execute".equals(statementMethod.getName()) && statementArgs[0].toString().contains("RENAME TO " + compactedTable)) {
+                    execute(sql);
+                }
+                return invoke(result, statementMethod, statementArgs);
+            });
+        });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static String getTableName(DateTime date) {
+        return LOGIC_TABLE + "_" + date.toString("yyyyMMdd");
+    }
+
+    private void execute(String sql) throws SQLException {
+        ShardingTestFixture.execute(actualDataSource, sql);
+    }
+
+    private boolean anyDayExists() throws SQLException {
+        for (int day = 0; day < days; day++) {
+            if (tableExists(getTableName(month.plusDays(day)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean tableExists(String tableName) throws SQLException {
+        return ShardingTestFixture.tableExists(actualDataSource, tableName);
+    }
+}
@@ -0,0 +1,95 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.scheduler;
+
+import cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture;
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.DayDynamicStandardShardingAlgorithm;
+import org.apache.shardingsphere.core.rule.TableRule;
+import org.apache.shardingsphere.shardingjdbc.jdbc.core.datasource.ShardingDataSource;
+import org.apache.shardingsphere.underlying.common.rule.DataNode;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 启动时从表目录中发现配置之外的分区，缺少的分区在后台创建
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 11:55 下午
+ */
+public class PartitionDiscoveryTests {
+
+    private static final String LOGIC_TABLE = "day_partition_table";
+
+    private DataSource actualDataSource;
+
+    private final ShardingTestFixture fixture = new ShardingTestFixture();
+
+    @BeforeEach
+    public void setup() throws SQLException {
+        actualDataSource = ShardingTestFixture.newH2("discovery");
+        //配置中只有5天前的分区，其余的分区由之前运行的实例创建
+        for (int daysAgo : new int[]{5, 3, 1, -2}) {
+            execute("CREATE TABLE " + getTableName(daysAgo) + " (id BIGINT PRIMARY KEY, partition_date TIMESTAMP)");
+        }
+        execute("CREATE TABLE " + LOGIC_TABLE + "_backup (id BIGINT PRIMARY KEY, partition_date TIMESTAMP)");
+        execute("CREATE TABLE " + LOGIC_TABLE + "_2021x (id BIGINT PRIMARY KEY, partition_date TIMESTAMP)");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    public void testDiscoveredPartitionsRoutedBeforeBackgroundRefresh() throws Exception {
+        ShardingDataSource shardingDataSource = fixture
+                .dataSource("ds0", actualDataSource)
+                .standardTable(LOGIC_TABLE, "ds0." + getTableName(5), "partition_date", DayDynamicStandardShardingAlgorithm.class)
+                .newShardingDataSource();
+
+        DynamicTableProperties properties = new DynamicTableProperties();
+        //启动不等待后台刷新
+        properties.getStartup().setTimeout(0);
+        DynamicTableProperties.TableProperties tableProperties = new DynamicTableProperties.TableProperties();
+        tableProperties.setLookAhead(2);
+        properties.getTables().put(LOGIC_TABLE, tableProperties);
+
+        fixture.startScheduler(shardingDataSource, properties);
+
+        TableRule tableRule = shardingDataSource.getRuntimeContext().getRule().getTableRule(LOGIC_TABLE);
+        //已有的分区在启动返回时已经加入路由，表名与逻辑表的大小写一致
+        for (int daysAgo : new int[]{5, 3, 1, -2}) {
+            assertTrue(tableRule.getActualDataNodes().contains(new DataNode("ds0", getTableName(daysAgo))), getTableName(daysAgo));
+        }
+        for (DataNode dataNode : tableRule.getActualDataNodes()) {
+            assertFalse(dataNode.getTableName().endsWith("_backup") || dataNode.getTableName().endsWith("_2021x"), dataNode.getTableName());
+        }
+
+        //缺少的今天和明天的分区在后台创建
+        long deadline = System.currentTimeMillis() + 5000;
+        while (tableRule.getActualDataNodes().size() < 6 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(6, tableRule.getActualDataNodes().size());
+        for (int daysAgo = -2; daysAgo <= 0; daysAgo++) {
+            assertTrue(tableRule.getActualDataNodes().contains(new DataNode("ds0", getTableName(daysAgo))), getTableName(daysAgo));
+        }
+    }
+
+    /**
+     * @param daysAgo 几天前，负数为之后
+     */
+    private static String getTableName(int daysAgo) {
+        return LOGIC_TABLE + "_" + DateTime.now().minusDays(daysAgo).toString("yyyyMMdd");
+    }
+
+    private void execute(String sql) throws SQLException {
+        ShardingTestFixture.execute(actualDataSource, sql);
+    }
+}
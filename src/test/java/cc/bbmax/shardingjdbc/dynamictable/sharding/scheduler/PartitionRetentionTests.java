@@ -0,0 +1,100 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.scheduler;
+
+import cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture;
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.DayDynamicStandardShardingAlgorithm;
+import org.apache.shardingsphere.core.rule.TableRule;
+import org.apache.shardingsphere.shardingjdbc.jdbc.core.datasource.ShardingDataSource;
+import org.apache.shardingsphere.underlying.common.rule.DataNode;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 过期分区先从路由中移除，再在后台删除
+ *
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 9:40 下午
+ */
+public class PartitionRetentionTests {
+
+    private static final String LOGIC_TABLE = "day_partition_table";
+
+    private static final int RETENTION = 3;
+
+    private DataSource actualDataSource;
+
+    private final ShardingTestFixture fixture = new ShardingTestFixture();
+
+    @BeforeEach
+    public void setup() throws SQLException {
+        actualDataSource = ShardingTestFixture.newH2("retention");
+        //配置中的分区从5天前开始，同时也是建表模板
+        for (int i = 5; i >= 0; i--) {
+            execute("CREATE TABLE " + getTableName(i) + " (id BIGINT PRIMARY KEY, partition_date TIMESTAMP)");
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    public void testExpiredPartitionsRemovedFromRoutingThenDropped() throws Exception {
+        StringBuilder actualDataNodes = new StringBuilder();
+        for (int i = 5; i >= 0; i--) {
+            actualDataNodes.append(actualDataNodes.length() == 0 ? "" : ",").append("ds0.").append(getTableName(i));
+        }
+        ShardingDataSource shardingDataSource = fixture
+                .dataSource("ds0", actualDataSource)
+                .standardTable(LOGIC_TABLE, actualDataNodes.toString(), "partition_date", DayDynamicStandardShardingAlgorithm.class)
+                .newShardingDataSource();
+
+        DynamicTableProperties properties = new DynamicTableProperties();
+        properties.getRetention().setInterval(0);
+        DynamicTableProperties.TableProperties tableProperties = new DynamicTableProperties.TableProperties();
+        tableProperties.setLookAhead(2);
+        tableProperties.setRetention(RETENTION);
+        properties.getTables().put(LOGIC_TABLE, tableProperties);
+
+        fixture.startScheduler(shardingDataSource, properties);
+
+        TableRule tableRule = shardingDataSource.getRuntimeContext().getRule().getTableRule(LOGIC_TABLE);
+        //保留包含今天在内的3天，以及提前创建的2天
+        for (int i = -2; i <= 5; i++) {
+            assertEquals(i < RETENTION, tableRule.getActualDataNodes().contains(new DataNode("ds0", getTableName(i))), getTableName(i));
+        }
+        assertEquals(RETENTION + 2, tableRule.getActualDataNodes().size());
+
+        //过期分区在后台删除，新分区按剩余分区建表
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((tableExists(getTableName(3)) || tableExists(getTableName(5))) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        for (int i = -2; i <= 5; i++) {
+            assertEquals(i < RETENTION, tableExists(getTableName(i)), getTableName(i));
+        }
+    }
+
+    /**
+     * @param daysAgo 几天前，负数为之后
+     */
+    private static String getTableName(int daysAgo) {
+        return LOGIC_TABLE + "_" + DateTime.now().minusDays(daysAgo).toString("yyyyMMdd");
+    }
+
+    private void execute(String sql) throws SQLException {
+        ShardingTestFixture.execute(actualDataSource, sql);
+    }
+
+    private boolean tableExists(String tableName) throws SQLException {
+        return ShardingTestFixture.tableExists(actualDataSource, tableName);
+    }
+}
@@ -0,0 +1,135 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.scheduler;
+
+import org.apache.shardingsphere.api.config.sharding.ShardingRuleConfiguration;
+import org.apache.shardingsphere.api.config.sharding.TableRuleConfiguration;
+import org.apache.shardingsphere.core.rule.ShardingDataSourceNames;
+import org.apache.shardingsphere.core.rule.TableRule;
+import org.apache.shardingsphere.underlying.common.rule.DataNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 6:40 下午
+ */
+public class TableRuleMetadataTests {
+
+    private static final String DATA_SOURCE = "ds0";
+
+    private static final String LOGIC_TABLE = "partition_table";
+
+    @Test
+    public void testPublishedTablesVisibleThroughTableRule() {
+        TableRule tableRule = newTableRule(LOGIC_TABLE + "_0");
+        Collection<String> before = tableRule.getActualTableNames(DATA_SOURCE);
+
+        TableRuleMetadata metadata = TableRuleMetadata.of(tableRule);
+        metadata.addActualTables(DATA_SOURCE, Arrays.asList(LOGIC_TABLE + "_0", LOGIC_TABLE + "_1", LOGIC_TABLE + "_2"));
+
+        assertSame(metadata, TableRuleMetadata.of(tableRule));
+        assertEquals(Arrays.asList(LOGIC_TABLE + "_0", LOGIC_TABLE + "_1", LOGIC_TABLE + "_2"),
+                new ArrayList<>(tableRule.getActualTableNames(DATA_SOURCE)));
+        assertEquals(3, tableRule.getActualDataNodes().size());
+        assertEquals(new DataNode(DATA_SOURCE, LOGIC_TABLE + "_2"), tableRule.getActualDataNodes().get(2));
+        assertEquals(Collections.singletonList(DATA_SOURCE), new ArrayList<>(tableRule.getActualDatasourceNames()));
+        assertEquals(3, tableRule.getDataNodeGroups().get(DATA_SOURCE).size());
+        //旧的集合不会被修改
+        assertEquals(1, before.size());
+    }
+
+    @Test
+    public void testExistingTablesKeepTheirIndex() {
+        TableRule tableRule = newTableRule(LOGIC_TABLE + "_0");
+        TableRuleMetadata metadata = TableRuleMetadata.of(tableRule);
+        ActualTablesSnapshot first = metadata.addActualTables(DATA_SOURCE, Collections.singletonList(LOGIC_TABLE + "_1"));
+        ActualTablesSnapshot second = metadata.addActualTables(DATA_SOURCE, Arrays.asList(LOGIC_TABLE + "_1", LOGIC_TABLE + "_2"));
+        ActualTablesSnapshot third = metadata.addActualTables(DATA_SOURCE, Collections.singletonList(LOGIC_TABLE + "_2"));
+
+        assertSame(second, third);
+        assertEquals(first.getDataNodeIndexMap().get(new DataNode(DATA_SOURCE, LOGIC_TABLE + "_1")),
+                second.getDataNodeIndexMap().get(new DataNode(DATA_SOURCE, LOGIC_TABLE + "_1")));
+        assertEquals(Integer.valueOf(2), second.getDataNodeIndexMap().get(new DataNode(DATA_SOURCE, LOGIC_TABLE + "_2")));
+    }
+
+    @Test
+    public void testOlderSnapshotUnaffectedByAppend() {
+        ActualTablesSnapshot base = ActualTablesSnapshot.of(Collections.singletonList(new DataNode(DATA_SOURCE, LOGIC_TABLE + "_0")));
+        ActualTablesSnapshot appended = base.withActualTables(DATA_SOURCE, Collections.singletonList(LOGIC_TABLE + "_1"));
+        //基于旧快照追加时不能覆盖已经发布的数据
+        ActualTablesSnapshot branched = base.withActualTables(DATA_SOURCE, Collections.singletonList(LOGIC_TABLE + "_2"));
+
+        assertEquals(1, base.size());
+        assertFalse(base.contains(DATA_SOURCE, LOGIC_TABLE + "_1"));
+        assertFalse(base.getActualTables().contains(LOGIC_TABLE + "_1"));
+        assertEquals(Arrays.asList(LOGIC_TABLE + "_0", LOGIC_TABLE + "_1"),
+                new ArrayList<>(appended.getDatasourceToTablesMap().get(DATA_SOURCE)));
+        assertEquals(Arrays.asList(LOGIC_TABLE + "_0", LOGIC_TABLE + "_2"),
+                new ArrayList<>(branched.getDatasourceToTablesMap().get(DATA_SOURCE)));
+        assertFalse(branched.contains(DATA_SOURCE, LOGIC_TABLE + "_1"));
+    }
+
+    @Test
+    public void testRemovedTablesLeaveRouting() {
+        TableRule tableRule = newTableRule(LOGIC_TABLE + "_0");
+        TableRuleMetadata metadata = TableRuleMetadata.of(tableRule);
+        ActualTablesSnapshot before = metadata.addActualTables(DATA_SOURCE, Arrays.asList(LOGIC_TABLE + "_1", LOGIC_TABLE + "_2"));
+        ActualTablesSnapshot after = metadata.removeDataNodes(Collections.singletonList(new DataNode(DATA_SOURCE, LOGIC_TABLE + "_0")));
+
+        assertEquals(Arrays.asList(LOGIC_TABLE + "_1", LOGIC_TABLE + "_2"), new ArrayList<>(tableRule.getActualTableNames(DATA_SOURCE)));
+        assertFalse(tableRule.getActualDataNodes().contains(new DataNode(DATA_SOURCE, LOGIC_TABLE + "_0")));
+        assertEquals(Integer.valueOf(0), after.getDataNodeIndexMap().get(new DataNode(DATA_SOURCE, LOGIC_TABLE + "_1")));
+        //已经发布的旧快照不受影响
+        assertEquals(3, before.size());
+        assertTrue(before.contains(DATA_SOURCE, LOGIC_TABLE + "_0"));
+        //移除后可以继续追加
+        metadata.addActualTables(DATA_SOURCE, Collections.singletonList(LOGIC_TABLE + "_3"));
+        assertEquals(3, tableRule.getActualDataNodes().size());
+    }
+
+    @Test
+    public void testConcurrentReadsDuringRefresh() throws InterruptedException {
+        TableRule tableRule = newTableRule(LOGIC_TABLE + "_0");
+        TableRuleMetadata metadata = TableRuleMetadata.of(tableRule);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread reader = new Thread(() -> {
+            try {
+                while (running.get()) {
+                    int count = 0;
+                    for (String ignored : tableRule.getActualTableNames(DATA_SOURCE)) {
+                        count++;
+                    }
+                    assertTrue(count > 0);
+                    for (DataNode dataNode : tableRule.getActualDataNodes()) {
+                        assertNotNull(dataNode.getTableName());
+                    }
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        reader.start();
+        for (int i = 1; i < 2000; i++) {
+            metadata.addActualTables(DATA_SOURCE, Collections.singletonList(LOGIC_TABLE + "_" + i));
+        }
+        running.set(false);
+        reader.join();
+
+        assertNull(failure.get());
+        assertEquals(2000, tableRule.getActualTableNames(DATA_SOURCE).size());
+    }
+
+    private static TableRule newTableRule(String tableName) {
+        ShardingRuleConfiguration ruleConfiguration = new ShardingRuleConfiguration();
+        TableRuleConfiguration tableRuleConfiguration = new TableRuleConfiguration(LOGIC_TABLE, DATA_SOURCE + "." + tableName);
+        ruleConfiguration.getTableRuleConfigs().add(tableRuleConfiguration);
+        return new TableRule(tableRuleConfiguration,
+                new ShardingDataSourceNames(ruleConfiguration, Collections.singletonList(DATA_SOURCE)), null);
+    }
+}
@@ -0,0 +1,160 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.schema;
+
+import cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture;
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.DayDynamicStandardShardingAlgorithm;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.PartitionResolver;
+import org.apache.shardingsphere.underlying.common.rule.DataNode;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/19 4:00 上午
+ */
+public class SchemaPropagatorTests {
+
+    private static final String LOGIC_TABLE = "day_partition_table";
+
+    private static final String TEMPLATE_TABLE = LOGIC_TABLE + "_template";
+
+    private static final int DAYS = 5;
+
+    private JdbcDataSource dataSource;
+
+    private PartitionResolver partitionResolver;
+
+    private DynamicTableProperties properties;
+
+    @BeforeEach
+    public void setup() throws SQLException {
+        dataSource = ShardingTestFixture.newH2("schema");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            String columns = " (id BIGINT AUTO_INCREMENT PRIMARY KEY, column1 VARCHAR(64), partitionDate TIMESTAMP NOT NULL)";
+            statement.execute("CREATE TABLE " + TEMPLATE_TABLE + columns);
+            for (int day = 1; day <= DAYS; day++) {
+                statement.execute("CREATE TABLE " + LOGIC_TABLE + "_2021010" + day + columns);
+            }
+            //模板表新增列、加长列、新增索引
+            statement.execute("ALTER TABLE " + TEMPLATE_TABLE + " ADD COLUMN column2 VARCHAR(32) DEFAULT 'x' NOT NULL");
+            statement.execute("ALTER TABLE " + TEMPLATE_TABLE + " ALTER COLUMN column1 VARCHAR(128)");
+            statement.execute("CREATE INDEX idx_partition_date ON " + TEMPLATE_TABLE + " (partitionDate, id)");
+        }
+
+        partitionResolver = new PartitionResolver(new ShardingTestFixture()
+                .dataSource("ds0", dataSource)
+                .standardTable(LOGIC_TABLE, "ds0." + LOGIC_TABLE + "_2021010$->{1.." + DAYS + "}", "partitionDate", DayDynamicStandardShardingAlgorithm.class)
+                .newShardingDataSource());
+
+        properties = new DynamicTableProperties();
+        DynamicTableProperties.TableProperties tableProperties = new DynamicTableProperties.TableProperties();
+        tableProperties.setTemplateTable(TEMPLATE_TABLE);
+        properties.getTables().put(LOGIC_TABLE, tableProperties);
+        properties.getSchema().setInterval(0);
+    }
+
+    @Test
+    public void testPropagate() throws Exception {
+        SchemaPropagator schemaPropagator = new SchemaPropagator(partitionResolver, properties);
+        try {
+            Map<DataNode, List<String>> plan = schemaPropagator.plan(LOGIC_TABLE);
+            //按时间从新到旧，不包含模板表
+            List<String> tables = new ArrayList<>();
+            plan.keySet().forEach(dataNode -> tables.add(dataNode.getTableName()));
+            assertEquals(Arrays.asList("day_partition_table_20210105", "day_partition_table_20210104", "day_partition_table_20210103",
+                    "day_partition_table_20210102", "day_partition_table_20210101"), tables);
+            assertEquals(3, plan.values().iterator().next().size(), plan.toString());
+
+            SchemaPropagation propagation = schemaPropagator.propagate(LOGIC_TABLE);
+            assertTrue(propagation.await(10, TimeUnit.SECONDS));
+            assertEquals(SchemaPropagation.State.COMPLETED, propagation.getState());
+            assertEquals(DAYS, propagation.getAltered());
+            assertTrue(propagation.getFailures().isEmpty(), propagation.describe().toString());
+            assertTrue(schemaPropagator.plan(LOGIC_TABLE).isEmpty());
+
+            try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+                for (int day = 1; day <= DAYS; day++) {
+                    String tableName = LOGIC_TABLE + "_2021010" + day;
+                    assertEquals(128, getColumnSize(connection, tableName, "COLUMN1"));
+                    assertEquals(32, getColumnSize(connection, tableName, "COLUMN2"));
+                    statement.execute("INSERT INTO " + tableName + " (column1, partitionDate) VALUES ('a', '2021-01-0" + day + " 00:00:00')");
+                    try (ResultSet resultSet = statement.executeQuery("SELECT column2 FROM " + tableName)) {
+                        assertTrue(resultSet.next());
+                        assertEquals("x", resultSet.getString(1));
+                    }
+                }
+            }
+
+            //再次同步时结构已经一致
+            propagation = schemaPropagator.propagate(LOGIC_TABLE);
+            assertTrue(propagation.await(10, TimeUnit.SECONDS));
+            assertEquals(0, propagation.getAltered());
+            assertEquals(DAYS, propagation.getUnchanged());
+        } finally {
+            schemaPropagator.destroy();
+        }
+    }
+
+    @Test
+    public void testPauseAndResume() throws Exception {
+        properties.getSchema().setThreads(1);
+        properties.getSchema().setInterval(200);
+        SchemaPropagator schemaPropagator = new SchemaPropagator(partitionResolver, properties);
+        try {
+            SchemaPropagation propagation = schemaPropagator.propagate(LOGIC_TABLE);
+            propagation.pause();
+            assertThrows(IllegalStateException.class, () -> schemaPropagator.propagate(LOGIC_TABLE));
+
+            //暂停前已经开始的分区执行完后不再继续
+            Thread.sleep(500);
+            int altered = propagation.getAltered();
+            assertTrue(altered <= 1, propagation.describe().toString());
+            Thread.sleep(500);
+            assertEquals(altered, propagation.getAltered());
+            assertEquals(SchemaPropagation.State.PAUSED, propagation.getState());
+            assertFalse(propagation.isDone());
+
+            propagation.resume();
+            assertTrue(propagation.await(10, TimeUnit.SECONDS));
+            assertEquals(DAYS, propagation.getAltered());
+            assertEquals(SchemaPropagation.State.COMPLETED, propagation.getState());
+        } finally {
+            schemaPropagator.destroy();
+        }
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        properties.getSchema().setThreads(1);
+        SchemaPropagator schemaPropagator = new SchemaPropagator(partitionResolver, properties);
+        try {
+            SchemaPropagation propagation = schemaPropagator.propagate(LOGIC_TABLE);
+            propagation.pause();
+            propagation.cancel();
+            assertTrue(propagation.await(10, TimeUnit.SECONDS));
+            assertEquals(SchemaPropagation.State.CANCELLED, propagation.getState());
+            //取消后剩余的分区可以重新同步
+            int remaining = schemaPropagator.plan(LOGIC_TABLE).size();
+            assertEquals(DAYS - propagation.getAltered(), remaining);
+            propagation = schemaPropagator.propagate(LOGIC_TABLE);
+            assertTrue(propagation.await(10, TimeUnit.SECONDS));
+            assertEquals(remaining, propagation.getAltered());
+        } finally {
+            schemaPropagator.destroy();
+        }
+    }
+
+    private static int getColumnSize(Connection connection, String tableName, String column) throws SQLException {
+        try (ResultSet resultSet = connection.getMetaData().getColumns(null, null, tableName.toUpperCase(), column)) {
+            assertTrue(resultSet.next(), tableName + "." + column);
+            return resultSet.getInt("COLUMN_SIZE");
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package cc.bbmax.shardingjdbc.dynamictable.sharding.statistics;
+
+import cc.bbmax.shardingjdbc.dynamictable.ShardingTestFixture;
+import cc.bbmax.shardingjdbc.dynamictable.config.DynamicTableProperties;
+import cc.bbmax.shardingjdbc.dynamictable.sharding.DayDynamicStandardShardingAlgorithm;
+import com.google.common.collect.Range;
+import org.apache.shardingsphere.api.sharding.standard.RangeShardingValue;
+import org.apache.shardingsphere.shardingjdbc.jdbc.core.datasource.ShardingDataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Jianbo.Peng <pengjianbosoft@gmail.com>
+ * @date 2026/10/18 11:10 下午
+ */
+public class PartitionStatisticsCatalogTests {
+
+    private static final String LOGIC_TABLE = "day_partition_table";
+
+    @Test
+    public void testRangeRoutingSkipsPrunedPartitions() {
+        DayDynamicStandardShardingAlgorithm algorithm = new DayDynamicStandardShardingAlgorithm();
+        PartitionStatisticsCatalog catalog = new PartitionStatisticsCatalog();
+        algorithm.bindStatisticsCatalog(catalog);
+        List<String> available = new ArrayList<>();
+        for (int day = 1; day <= 5; day++) {
+            available.add(LOGIC_TABLE + "_2021010" + day);
+        }
+        DateTime first = new DateTime(2021, 1, 1, 0, 0);
+        catalog.seal(LOGIC_TABLE, LOGIC_TABLE + "_20210102", PartitionStatistics.empty());
+        catalog.seal(LOGIC_TABLE, LOGIC_TABLE + "_20210103", PartitionStatistics.of(2,
+                first.plusDays(2).plusHours(10).getMillis(), first.plusDays(2).plusHours(12).getMillis(), 1L, 2L));
+
+        assertEquals(Arrays.asList(LOGIC_TABLE + "_20210101", LOGIC_TABLE + "_20210103", LOGIC_TABLE + "_20210104", LOGIC_TABLE + "_20210105"),
+                rangeSharding(algorithm, available, first, first.plusDays(4)));
+        //与20210103的数据范围不相交
+        assertEquals(Collections.singletonList(LOGIC_TABLE + "_20210104"),
+                rangeSharding(algorithm, available, first.plusDays(2).plusHours(13), first.plusDays(3).plusHours(5)));
+
+        //写入封存分区后不再跳过
+        catalog.record(LOGIC_TABLE, LOGIC_TABLE + "_20210102", PartitionStatistics.of(1,
+                first.plusDays(1).plusHours(8).getMillis(), first.plusDays(1).plusHours(8).getMillis(), 3L, 3L));
+        assertEquals(Arrays.asList(LOGIC_TABLE + "_20210102", LOGIC_TABLE + "_20210103"),
+                rangeSharding(algorithm, available, first.plusDays(1), first.plusDays(2).plusHours(11)));
+        //未封存的分区不记录
+        catalog.record(LOGIC_TABLE, LOGIC_TABLE + "_20210104", PartitionStatistics.of(1, 0, 0, null, null));
+        assertNull(catalog.get(LOGIC_TABLE, LOGIC_TABLE + "_20210104"));
+    }
+
+    @Test
+    public void testSchedulerSealsClosedPartitions() throws Exception {
+        JdbcDataSource dataSource = ShardingTestFixture.newH2("statistics");
+        DateTime today = DateTime.now().withTimeAtStartOfDay();
+        StringBuilder actualDataNodes = new StringBuilder();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            for (int i = 4; i >= 0; i--) {
+                String tableName = LOGIC_TABLE + "_" + today.minusDays(i).toString("yyyyMMdd");
+                statement.execute("CREATE TABLE " + tableName + " (id BIGINT PRIMARY KEY, partition_date TIMESTAMP)");
+                actualDataNodes.append(actualDataNodes.length() == 0 ? "" : ",").append("ds0.").append(tableName);
+            }
+            String tableName = LOGIC_TABLE + "_" + today.minusDays(3).toString("yyyyMMdd");
+            statement.execute("INSERT INTO " + tableName + " VALUES (7, '" + new Timestamp(today.minusDays(3).plusHours(1).getMillis()) + "')");
+            statement.execute("INSERT INTO " + tableName + " VALUES (9, '" + new Timestamp(today.minusDays(3).plusHours(2).getMillis()) + "')");
+        }
+
+        //按类名配置，区间路由使用单独的区间分表算法实例
+        ShardingTestFixture fixture = new ShardingTestFixture()
+                .dataSource("ds0", dataSource)
+                .standardTable(LOGIC_TABLE, actualDataNodes.toString(), "partition_date", DayDynamicStandardShardingAlgorithm.class);
+        ShardingDataSource shardingDataSource = fixture.newShardingDataSource();
+        DayDynamicStandardShardingAlgorithm rangeAlgorithm = ShardingTestFixture.getRangeAlgorithm(shardingDataSource, LOGIC_TABLE);
+
+        DynamicTableProperties properties = new DynamicTableProperties();
+        properties.getStatistics().setInterval(0);
+        DynamicTableProperties.TableProperties tableProperties = new DynamicTableProperties.TableProperties();
+        tableProperties.setStatistics(true);
+        tableProperties.setIdColumn("id");
+        properties.getTables().put(LOGIC_TABLE, tableProperties);
+        PartitionStatisticsCatalog catalog = new PartitionStatisticsCatalog();
+
+        try {
+            fixture.startScheduler(shardingDataSource, properties, catalog);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (catalog.get(LOGIC_TABLE, LOGIC_TABLE + "_" + today.minusDays(2).toString("yyyyMMdd")) == null
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+        } finally {
+            fixture.close();
+        }
+
+        assertTrue(catalog.get(LOGIC_TABLE, LOGIC_TABLE + "_" + today.minusDays(4).toString("yyyyMMdd")).isEmpty());
+        PartitionStatistics statistics = catalog.get(LOGIC_TABLE, LOGIC_TABLE + "_" + today.minusDays(3).toString("yyyyMMdd"));
+        assertEquals(2, statistics.getRowCount());
+        assertEquals(today.minusDays(3).plusHours(1).getMillis(), statistics.getMinTime());
+        assertEquals(today.minusDays(3).plusHours(2).getMillis(), statistics.getMaxTime());
+        assertEquals(Long.valueOf(7), statistics.getMinId());
+        assertEquals(Long.valueOf(9), statistics.getMaxId());
+        assertTrue(catalog.get(LOGIC_TABLE, LOGIC_TABLE + "_" + today.minusDays(2).toString("yyyyMMdd")).isEmpty());
+        //昨天的分区还未封存
+        assertNull(catalog.get(LOGIC_TABLE, LOGIC_TABLE + "_" + today.minusDays(1).toString("yyyyMMdd")));
+
+        //区间路由跳过空的封存分区
+        List<String> available = new ArrayList<>();
+        for (int i = 4; i >= 0; i--) {
+            available.add(LOGIC_TABLE + "_" + today.minusDays(i).toString("yyyyMMdd"));
+        }
+        assertEquals(Arrays.asList(available.get(1), available.get(3), available.get(4)),
+                rangeSharding(rangeAlgorithm, available, today.minusDays(4), today.plusHours(1)));
+    }
+
+    @Test
+    public void testClusterModeDoesNotPrune() throws Exception {
+        JdbcDataSource dataSource = ShardingTestFixture.newH2("statistics_cluster");
+        DateTime today = DateTime.now().withTimeAtStartOfDay();
+        List<String> available = new ArrayList<>();
+        for (int i = 3; i >= 0; i--) {
+            String tableName = LOGIC_TABLE + "_" + today.minusDays(i).toString("yyyyMMdd");
+            ShardingTestFixture.execute(dataSource, "CREATE TABLE " + tableName + " (id BIGINT PRIMARY KEY, partition_date TIMESTAMP)");
+            available.add(tableName);
+        }
+        ShardingTestFixture fixture = new ShardingTestFixture()
+                .dataSource("ds0", dataSource)
+                .standardTable(LOGIC_TABLE, "ds0." + String.join(",ds0.", available), "partition_date", DayDynamicStandardShardingAlgorithm.class);
+        ShardingDataSource shardingDataSource = fixture.newShardingDataSource();
+
+        DynamicTableProperties properties = new DynamicTableProperties();
+        properties.getStartup().setAsync(false);
+        properties.getStatistics().setInterval(0);
+        properties.getCluster().setEnabled(true);
+        DynamicTableProperties.TableProperties tableProperties = new DynamicTableProperties.TableProperties();
+        tableProperties.setStatistics(true);
+        properties.getTables().put(LOGIC_TABLE, tableProperties);
+        PartitionStatisticsCatalog catalog = new PartitionStatisticsCatalog();
+        try {
+            fixture.startScheduler(shardingDataSource, properties, catalog);
+            Thread.sleep(300);
+            //其他节点的写入不会使当前节点的统计信息失效，集群中不封存
+            assertNull(catalog.get(LOGIC_TABLE, available.get(0)));
+
+            catalog.seal(LOGIC_TABLE, available.get(0), PartitionStatistics.empty());
+            DayDynamicStandardShardingAlgorithm rangeAlgorithm = ShardingTestFixture.getRangeAlgorithm(shardingDataSource, LOGIC_TABLE);
+            assertEquals(available, rangeSharding(rangeAlgorithm, available, today.minusDays(3), today.plusHours(1)));
+        } finally {
+            fixture.close();
+        }
+    }
+
+    @Test
+    public void testWriteDuringScanIsNotSealed() throws Exception {
+        JdbcDataSource h2 = ShardingTestFixture.newH2("statistics_race");
+        DateTime today = DateTime.now().withTimeAtStartOfDay();
+        String writtenTable = LOGIC_TABLE + "_" + today.minusDays(3).toString("yyyyMMdd");
+        String nextTable = LOGIC_TABLE + "_" + today.minusDays(2).toString("yyyyMMdd");
+        StringBuilder actualDataNodes = new StringBuilder();
+        for (int i = 3; i >= 0; i--) {
+            String tableName = LOGIC_TABLE + "_" + today.minusDays(i).toString("yyyyMMdd");
+            ShardingTestFixture.execute(h2, "CREATE TABLE " + tableName + " (id BIGINT PRIMARY KEY, partition_date TIMESTAMP)");
+            actualDataNodes.append(actualDataNodes.length() == 0 ? "" : ",").append("ds0.").append(tableName);
+        }
+
+        //扫描得到空分区之后、封存之前，有一条写入提交并使分区失效
+        PartitionStatisticsCatalog catalog = new PartitionStatisticsCatalog();
+        ResultHandler onScan = (method, args, result) -> {
+            if ("executeQuery".equals(method.getName()) && args[0].toString().startsWith("SELECT COUNT(*)")
+                    && args[0].toString().endsWith(writtenTable)) {
+                ShardingTestFixture.execute(h2, "INSERT INTO " + writtenTable + " VALUES (1, '"
+                        + new Timestamp(today.minusDays(3).plusHours(1).getMillis()) + "')");
+                catalog.invalidate(LOGIC_TABLE, writtenTable);
+            }
+            return result;
+        };
+        ResultHandler onCreateStatement = (method, args, result) ->
+                result instanceof Statement ? proxy(Statement.class, (Statement) result, onScan) : result;
+        DataSource dataSource = proxy(DataSource.class, h2, (method, args, result) ->
+                result instanceof Connection ? proxy(Connection.class, (Connection) result, onCreateStatement) : result);
+
+        ShardingTestFixture fixture = new ShardingTestFixture()
+                .dataSource("ds0", dataSource)
+                .standardTable(LOGIC_TABLE, actualDataNodes.toString(), "partition_date", DayDynamicStandardShardingAlgorithm.class);
+        DynamicTableProperties properties = new DynamicTableProperties();
+        properties.getStatistics().setInterval(0);
+        DynamicTableProperties.TableProperties tableProperties = new DynamicTableProperties.TableProperties();
+        tableProperties.setStatistics(true);
+        properties.getTables().put(LOGIC_TABLE, tableProperties);
+        try {
+            fixture.startScheduler(fixture.newShardingDataSource(), properties, catalog);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (catalog.get(LOGIC_TABLE, nextTable) == null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+        } finally {
+            fixture.close();
+        }
+
+        assertNotNull(catalog.get(LOGIC_TABLE, nextTable));
+        //扫描前的统计信息已经过时，不封存
+        assertNull(catalog.get(LOGIC_TABLE, writtenTable));
+        assertFalse(catalog.seal(LOGIC_TABLE, writtenTable, PartitionStatistics.empty(), 0));
+        assertTrue(catalog.seal(LOGIC_TABLE, writtenTable, PartitionStatistics.empty(), catalog.getEpoch(LOGIC_TABLE, writtenTable)));
+    }
+
+    private static List<String> rangeSharding(DayDynamicStandardShardingAlgorithm algorithm, Collection<String> available,
+                                              DateTime lower, DateTime upper) {
+        return new ArrayList<>(algorithm.doSharding(available, new RangeShardingValue<>(LOGIC_TABLE, "partitionDate",
+                Range.closed(lower.toDate(), upper.toDate()))));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, ResultHandler handler) {
+        return (T) Proxy.newProxyInstance(PartitionStatisticsCatalogTests.class.getClassLoader(), new Class[]{type}, (proxy, method, args) -> {
+            try {
+                return handler.handle(method, args, method.invoke(target, args));
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    /**
+     * 处理被代理方法的返回值
+     */
+    private interface ResultHandler {
+
+        Object handle(Method method, Object[] args, Object result) throws Exception;
+    }
+}